@@ -0,0 +1,81 @@
+package org.cache2k;
+
+/*
+ * #%L
+ * cache2k API
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.processor.EntryProcessor;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous view of a cache. Requested via
+ * {@code cache.requestInterface(AsyncCache.class)}. Needs Java 8 or later.
+ *
+ * <p>The operations have the same semantics as the corresponding operations of
+ * {@link Cache}. The calling thread does not wait for a loader, a writer or another
+ * operation on the same entry, it only submits the operation. Operations that may call
+ * a synchronous loader, a writer or a storage tier are run in the loader executor.
+ * Other operations, and operations rejected by the loader executor, are run in the cache
+ * executor. If another asynchronous operation on the same entry is ongoing, the operation
+ * continues after it in the thread completing the other operation. An ongoing synchronous
+ * operation of the {@link Cache} on the same entry is waited for by the executing thread.
+ *
+ * <p>The future is completed by the thread finishing the operation. Dependent
+ * stages that do blocking or lengthy work should use an executor.
+ * Exceptions are reported via the future.
+ *
+ * @author Jens Wilke
+ * @since 1.6
+ * @see Cache#requestInterface(Class)
+ */
+public interface AsyncCache<K, V> {
+
+  /**
+   * Returns the value associated with the key, loading it if needed.
+   *
+   * @see Cache#get(Object)
+   */
+  CompletableFuture<V> getAsync(K key);
+
+  /**
+   * Returns a map with the values associated with the keys. Keys are processed
+   * concurrently. An exception of a single entry is propagated when the value is
+   * requested from the map, like {@link Cache#getAll(Iterable)}.
+   *
+   * @see Cache#getAll(Iterable)
+   */
+  CompletableFuture<Map<K, V>> getAllAsync(Iterable<? extends K> keys);
+
+  /**
+   * Inserts or updates a value.
+   *
+   * @see Cache#put(Object, Object)
+   */
+  CompletableFuture<Void> putAsync(K key, V value);
+
+  /**
+   * Invoke the entry processor on the entry.
+   *
+   * @see Cache#invoke(Object, EntryProcessor)
+   */
+  <R> CompletableFuture<R> invokeAsync(K key, EntryProcessor<K, V, R> processor);
+
+}
@@ -875,6 +875,10 @@ public interface Cache<K, V> extends KeyValueStore<K, V>, Closeable {
 
   /**
    * Request an alternative interface for this cache instance.
+   *
+   * <p>Supported are {@link java.util.concurrent.ConcurrentMap}, see {@link #asMap()},
+   * {@link CacheStreams} for streams over the cache entries and {@link AsyncCache}
+   * for asynchronous operations.
    */
   <X> X requestInterface(Class<X> type);
 
@@ -27,6 +27,7 @@ import org.cache2k.configuration.ConfigurationSection;
 import org.cache2k.configuration.ConfigurationSectionBuilder;
 import org.cache2k.configuration.CustomizationReferenceSupplier;
 import org.cache2k.configuration.CustomizationSupplier;
+import org.cache2k.configuration.EvictionAlgorithm;
 import org.cache2k.event.CacheClosedListener;
 import org.cache2k.expiry.ExpiryPolicy;
 import org.cache2k.event.CacheEntryOperationListener;
@@ -355,6 +356,29 @@ public class Cache2kBuilder<K, V> {
     return this;
   }
 
+  /**
+   * Expected number of entries. The internal hash table is sized at creation, so the cache
+   * can fill up to this number of entries without expanding the hash table. This is useful
+   * for big caches that are filled at startup. The setting does not limit the number of
+   * entries, see {@link #entryCapacity(long)}.
+   *
+   * <p>By default, the hash table starts small and doubles its size when needed.
+   */
+  public final Cache2kBuilder<K, V> initialCapacity(long v) {
+    config().setInitialCapacity(v);
+    return this;
+  }
+
+  /**
+   * Fill percentage of the internal hash table at which it gets expanded. A lower value
+   * means less collisions and faster lookups but more memory for the hash table.
+   * Values above 100 are possible, since colliding entries are chained. The default is 64.
+   */
+  public final Cache2kBuilder<K, V> hashLoadPercent(int v) {
+    config().setHashLoadPercent(v);
+    return this;
+  }
+
   /**
    * When set to {@code true}, cached values do not expire by time. Entries will need to be removed
    * from the cache explicitly or will be evicted if capacity constraints are reached.
@@ -632,6 +656,52 @@ public class Cache2kBuilder<K, V> {
     return this;
   }
 
+  /**
+   * Maximum number of threads, including the calling thread, that process a bulk operation
+   * like {@link Cache#putAll}, {@link Cache#removeAll(Iterable)} or {@link Cache#invokeAll}.
+   * The keys are divided by hash segment and processed in parallel via the
+   * {@link #executor(Executor)} of the cache. Only large bulk operations are processed in
+   * parallel. The default is {@code 1}, which means the calling thread does all the work.
+   */
+  public final Cache2kBuilder<K, V> bulkParallelism(int v) {
+    if (v < 1) {
+      throw new IllegalArgumentException("bulkParallelism needs to be at least 1");
+    }
+    config().setBulkParallelism(v);
+    return this;
+  }
+
+  /**
+   * Enables write behind, if a {@link #writer(CacheWriter)} is specified. Mutations are not
+   * written within the cache operation, but queued and written in batches by a separate
+   * thread, at the latest after the specified delay. Repeated mutations of the same key within
+   * the delay are coalesced, so only the latest value is written. The queue is written
+   * completely when the cache is closed. Before a value is loaded, a pending write of
+   * the same key is written, so the loader never sees outdated data.
+   *
+   * <p>Exceptions of the writer do not propagate to the cache operation and are logged.
+   *
+   * <p>The default is {@code 0}, which means the writer is called within the cache operation,
+   * also known as write through.
+   *
+   * @see #writeBehindQueueCapacity(int)
+   */
+  public final Cache2kBuilder<K, V> writeBehindDelay(long v, TimeUnit u) {
+    config().setWriteBehindDelay(u.toMillis(v));
+    return this;
+  }
+
+  /**
+   * Maximum number of keys with pending writes, if write behind is enabled. If the queue
+   * is full, cache mutations wait until the queue was written. Default is {@code 10000}.
+   *
+   * @see #writeBehindDelay(long, TimeUnit)
+   */
+  public final Cache2kBuilder<K, V> writeBehindQueueCapacity(int v) {
+    config().setWriteBehindQueueCapacity(v);
+    return this;
+  }
+
   /**
    * Ensure that the cache value is stored via direct object reference and that
    * no serialization takes place. Cache clients leveraging the fact that an in heap
@@ -733,6 +803,21 @@ public class Cache2kBuilder<K, V> {
     return this;
   }
 
+  /**
+   * When {@code true}, values are stored as primitive within the cache entry, if the key
+   * type is {@code Long} and the value type is {@code Long} or {@code Double}, or if key
+   * and value type are {@code Integer}. The cache implements the specialized interface
+   * {@link LongLongCache}, {@link LongDoubleCache} or {@link IntIntCache}, which provide
+   * access to the values without boxing. Enabled by {@link #buildForLongLong()},
+   * {@link #buildForLongDouble()} and {@link #buildForIntInt()}. Default is {@code false}.
+   *
+   * @since 1.6
+   */
+  public final Cache2kBuilder<K, V> primitiveValues(boolean flag) {
+    config().setPrimitiveValues(flag);
+    return this;
+  }
+
   /**
    * By default statistic gathering is enabled. Switching this to {@code true} will disable all
    * statistics that have significant overhead. Whether the values become accessible with JMX is
@@ -743,6 +828,20 @@ public class Cache2kBuilder<K, V> {
     return this;
   }
 
+  /**
+   * Track the keys with the most hits, the most misses and the most time spent in the
+   * loader and report the given number of top keys via JMX and the metrics integration.
+   * The counts are approximated by a sampling sketch with a fixed memory footprint.
+   * The sampler keeps references to the keys it counts. Default is {@code 0}, which
+   * disables the tracking.
+   *
+   * @since 1.6
+   */
+  public final Cache2kBuilder<K, V> hotKeyCount(int v) {
+    config().setHotKeyCount(v);
+    return this;
+  }
+
   /**
    * Deprecated since version 1.2. Method has no effect and will be removed in future releases.
    * Time recording is disabled by default and needs to be enabled via
@@ -771,12 +870,56 @@ public class Cache2kBuilder<K, V> {
    *
    * <p>Typical interactive do not need to enable this. May improve concurrency for applications
    * that utilize all cores and cache operations account for most CPU cycles.
+   *
+   * <p>When switched on, accesses are recorded in a striped buffer and transferred to the
+   * eviction in batches, so reading threads do not write to the entry.
    */
   public final Cache2kBuilder<K, V> boostConcurrency(boolean f) {
     config().setBoostConcurrency(f);
     return this;
   }
 
+  /**
+   * When {@code true}, the eviction keeps a compact frequency history of the recently
+   * requested keys, also of keys not in the cache any more. When the cache is full, a new
+   * entry that was requested less often than the next eviction candidate is evicted first.
+   * This protects frequently used entries against scans over keys that are accessed only
+   * once, e.g. by batch jobs. Needs about 8 bytes per entry of the cache capacity.
+   * Only supported by the default eviction algorithm
+   * {@link org.cache2k.configuration.EvictionAlgorithm#CLOCK_PRO}, building a cache with
+   * another algorithm throws an {@link IllegalArgumentException}.
+   * Default is {@code false}.
+   */
+  public final Cache2kBuilder<K, V> admissionFilter(boolean f) {
+    config().setAdmissionFilter(f);
+    return this;
+  }
+
+  /**
+   * When {@code true}, the eviction adjusts the space for frequently used entries at
+   * runtime, based on the hit rate observed. This is useful if the access pattern changes
+   * between recency-biased and frequency-biased phases, e.g. interactive traffic at day time
+   * and batch processing at night. Only supported by the default eviction algorithm
+   * {@link org.cache2k.configuration.EvictionAlgorithm#CLOCK_PRO}, building a cache with
+   * another algorithm throws an {@link IllegalArgumentException}.
+   * Default is {@code false}.
+   */
+  public final Cache2kBuilder<K, V> adaptiveEviction(boolean f) {
+    config().setAdaptiveEviction(f);
+    return this;
+  }
+
+  /**
+   * Selects the algorithm that decides which entries are removed when the capacity is
+   * reached. The default is {@link EvictionAlgorithm#CLOCK_PRO}. The settings
+   * {@link #admissionFilter(boolean)} and {@link #adaptiveEviction(boolean)} are only
+   * supported by the default algorithm.
+   */
+  public final Cache2kBuilder<K, V> evictionAlgorithm(EvictionAlgorithm v) {
+    config().setEvictionAlgorithm(v);
+    return this;
+  }
+
   /**
    * When {@code true} expose statistics via JMX. Disabled by default. It is possible to enable
    * JMX even there is no cache name specified with {@link #name(String)}, since a name will
@@ -958,4 +1101,57 @@ public class Cache2kBuilder<K, V> {
     return (LongCache<V>) CacheManager.PROVIDER.createCache(manager, config());
   }
 
+  /**
+   * Builds a cache with {@code long} keys and values, which are stored as primitives
+   * in the cache entries. The behavior is identical to {@link #build()} except that
+   * it checks the key and value type, enables {@link #primitiveValues(boolean)} and casts
+   * the created cache to the specialized interface.
+   *
+   * @throws IllegalArgumentException if a cache of the same name is already active in the
+   *         cache manager
+   * @throws IllegalArgumentException if key or value type is unexpected
+   * @throws IllegalArgumentException if a configuration entry for the named cache is required but
+   *         not present
+   * @since 1.6
+   */
+  public final LongLongCache buildForLongLong() {
+    return (LongLongCache) buildForPrimitiveValues(Long.class, Long.class);
+  }
+
+  /**
+   * Builds a cache with {@code long} keys and {@code double} values, which are stored as
+   * primitives in the cache entries. The behavior is identical to {@link #buildForLongLong()},
+   * except for the value type.
+   *
+   * @since 1.6
+   */
+  public final LongDoubleCache buildForLongDouble() {
+    return (LongDoubleCache) buildForPrimitiveValues(Long.class, Double.class);
+  }
+
+  /**
+   * Builds a cache with {@code int} keys and values, which are stored as primitives
+   * in the cache entries. The behavior is identical to {@link #buildForLongLong()},
+   * except for the key and value type.
+   *
+   * @since 1.6
+   */
+  public final IntIntCache buildForIntInt() {
+    return (IntIntCache) buildForPrimitiveValues(Integer.class, Integer.class);
+  }
+
+  private Cache<K, V> buildForPrimitiveValues(Class<?> keyType, Class<?> valueType) {
+    Cache2kConfiguration<K, V> cfg = config();
+    if (cfg.getKeyType().getType() != keyType) {
+      throw new IllegalArgumentException(
+        keyType.getSimpleName() + " key type expected, was: " + cfg.getKeyType());
+    }
+    if (cfg.getValueType() == null || cfg.getValueType().getType() != valueType) {
+      throw new IllegalArgumentException(
+        valueType.getSimpleName() + " value type expected, was: " + cfg.getValueType());
+    }
+    cfg.setPrimitiveValues(true);
+    return CacheManager.PROVIDER.createCache(manager, cfg);
+  }
+
 }
@@ -0,0 +1,65 @@
+package org.cache2k;
+
+/*
+ * #%L
+ * cache2k API
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Spliterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams over the cache entries. Requested via
+ * {@code cache.requestInterface(CacheStreams.class)}. Needs Java 8 or later.
+ *
+ * <p>The traversal follows the iterator contract of {@link Cache#keys()}. Every
+ * entry present during the whole traversal is visited once. A parallel stream splits the
+ * hash table into ranges that are traversed concurrently. Parallel streams run in the
+ * common fork-join pool, or in the fork-join pool of the calling task. A custom pool
+ * can be used by starting the terminal operation from a task submitted to it.
+ *
+ * <p>If the cache is backed by a storage tier, the traversal is sequential and parallel
+ * streams are not split.
+ *
+ * <p><b>Statistics:</b> Traversal is neutral to the cache statistics.
+ *
+ * @author Jens Wilke
+ * @since 1.6
+ * @see Cache#requestInterface(Class)
+ */
+public interface CacheStreams<K, V> {
+
+  /**
+   * Splittable traversal of the cache entries. The spliterator is
+   * {@link Spliterator#CONCURRENT}, {@link Spliterator#DISTINCT} and
+   * {@link Spliterator#NONNULL}. The size estimate assumes an even distribution of the
+   * entries in the hash table.
+   */
+  Spliterator<CacheEntry<K, V>> spliterator();
+
+  /**
+   * Sequential stream of the cache entries.
+   */
+  Stream<CacheEntry<K, V>> stream();
+
+  /**
+   * Parallel stream of the cache entries.
+   */
+  Stream<CacheEntry<K, V>> parallelStream();
+
+}
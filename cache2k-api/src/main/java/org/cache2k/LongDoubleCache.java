@@ -0,0 +1,62 @@
+package org.cache2k;
+
+/*
+ * #%L
+ * cache2k API
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Cache with {@code long} keys and {@code double} values. The values are stored as primitives
+ * within the cache entries and the methods of this interface read them without
+ * allocating objects. The generic methods of {@link Cache} are operating on the same
+ * entries and box the values when needed. The methods of {@link LongCache}, e.g.
+ * {@code get(long)}, accept the key as primitive.
+ *
+ * <p>A missing or {@code null} value is reported by returning the sentinel value passed
+ * by the caller, since there is no primitive representation for {@code null}.
+ *
+ * @author Jens Wilke
+ * @since 1.6
+ * @see Cache2kBuilder#buildForLongDouble()
+ */
+public interface LongDoubleCache extends LongCache<Double> {
+
+  /**
+   * Specialized version of {@code get} returning a primitive value.
+   *
+   * @param missingValue returned if no value is present or the value is {@code null}
+   * @see Cache#get(Object)
+   */
+  double getDouble(long key, double missingValue);
+
+  /**
+   * Specialized version of {@code peek} returning a primitive value.
+   *
+   * @param missingValue returned if no value is present or the value is {@code null}
+   * @see Cache#peek(Object)
+   */
+  double peekDouble(long key, double missingValue);
+
+  /**
+   * Specialized version of {@code put} for primitive keys and values.
+   *
+   * @see Cache#put(Object, Object)
+   */
+  void putDouble(long key, double value);
+
+}
@@ -73,6 +73,8 @@ public class Cache2kConfiguration<K, V> implements ConfigurationBean, Configurat
   private CacheType<K> keyType;
   private CacheType<V> valueType;
   private long entryCapacity = UNSET_LONG;
+  private long initialCapacity = UNSET_LONG;
+  private int hashLoadPercent;
   private boolean strictEviction = false;
   private boolean refreshAhead = false;
   private long expireAfterWrite = UNSET_LONG;
@@ -84,11 +86,19 @@ public class Cache2kConfiguration<K, V> implements ConfigurationBean, Configurat
   private boolean sharpExpiry = false;
   private boolean suppressExceptions = true;
   private int loaderThreadCount;
+  private int bulkParallelism = 1;
+  private long writeBehindDelay = 0;
+  private int writeBehindQueueCapacity = 10000;
   private boolean permitNullValues = false;
+  private boolean primitiveValues = false;
   private boolean disableStatistics = false;
+  private int hotKeyCount = 0;
   private boolean recordRefreshedTime = false;
   private boolean externalConfigurationPresent = false;
   private boolean boostConcurrency = false;
+  private boolean admissionFilter = false;
+  private boolean adaptiveEviction = false;
+  private EvictionAlgorithm evictionAlgorithm;
   private boolean enableJmx = false;
   private boolean disableMonitoring = false;
 
@@ -352,6 +362,28 @@ public class Cache2kConfiguration<K, V> implements ConfigurationBean, Configurat
     return keepDataAfterExpired;
   }
 
+  public long getInitialCapacity() {
+    return initialCapacity;
+  }
+
+  /**
+   * @see Cache2kBuilder#initialCapacity(long)
+   */
+  public void setInitialCapacity(long v) {
+    initialCapacity = v;
+  }
+
+  public int getHashLoadPercent() {
+    return hashLoadPercent;
+  }
+
+  /**
+   * @see Cache2kBuilder#hashLoadPercent(int)
+   */
+  public void setHashLoadPercent(int v) {
+    hashLoadPercent = v;
+  }
+
   public long getMaximumWeight() {
     return maximumWeight;
   }
@@ -466,6 +498,39 @@ public class Cache2kConfiguration<K, V> implements ConfigurationBean, Configurat
     loaderThreadCount = v;
   }
 
+  public int getBulkParallelism() {
+    return bulkParallelism;
+  }
+
+  /**
+   * @see Cache2kBuilder#bulkParallelism(int)
+   */
+  public void setBulkParallelism(int v) {
+    bulkParallelism = v;
+  }
+
+  public long getWriteBehindDelay() {
+    return writeBehindDelay;
+  }
+
+  /**
+   * @see Cache2kBuilder#writeBehindDelay(long, java.util.concurrent.TimeUnit)
+   */
+  public void setWriteBehindDelay(long millis) {
+    writeBehindDelay = millis;
+  }
+
+  public int getWriteBehindQueueCapacity() {
+    return writeBehindQueueCapacity;
+  }
+
+  /**
+   * @see Cache2kBuilder#writeBehindQueueCapacity(int)
+   */
+  public void setWriteBehindQueueCapacity(int v) {
+    writeBehindQueueCapacity = v;
+  }
+
   public CustomizationSupplier<ExpiryPolicy<K, V>> getExpiryPolicy() {
     return expiryPolicy;
   }
@@ -634,6 +699,17 @@ public class Cache2kConfiguration<K, V> implements ConfigurationBean, Configurat
     permitNullValues = v;
   }
 
+  public boolean isPrimitiveValues() {
+    return primitiveValues;
+  }
+
+  /**
+   * @see Cache2kBuilder#primitiveValues(boolean)
+   */
+  public void setPrimitiveValues(boolean v) {
+    primitiveValues = v;
+  }
+
   public boolean isDisableStatistics() {
     return disableStatistics;
   }
@@ -645,6 +721,17 @@ public class Cache2kConfiguration<K, V> implements ConfigurationBean, Configurat
     disableStatistics = v;
   }
 
+  public int getHotKeyCount() {
+    return hotKeyCount;
+  }
+
+  /**
+   * @see Cache2kBuilder#hotKeyCount(int)
+   */
+  public void setHotKeyCount(int v) {
+    hotKeyCount = v;
+  }
+
   public CustomizationSupplier<Executor> getLoaderExecutor() {
     return loaderExecutor;
   }
@@ -748,6 +835,39 @@ public class Cache2kConfiguration<K, V> implements ConfigurationBean, Configurat
     boostConcurrency = v;
   }
 
+  public boolean isAdmissionFilter() {
+    return admissionFilter;
+  }
+
+  /**
+   * @see Cache2kBuilder#admissionFilter(boolean)
+   */
+  public void setAdmissionFilter(boolean v) {
+    admissionFilter = v;
+  }
+
+  public EvictionAlgorithm getEvictionAlgorithm() {
+    return evictionAlgorithm;
+  }
+
+  /**
+   * @see Cache2kBuilder#evictionAlgorithm(EvictionAlgorithm)
+   */
+  public void setEvictionAlgorithm(EvictionAlgorithm v) {
+    evictionAlgorithm = v;
+  }
+
+  public boolean isAdaptiveEviction() {
+    return adaptiveEviction;
+  }
+
+  /**
+   * @see Cache2kBuilder#adaptiveEviction(boolean)
+   */
+  public void setAdaptiveEviction(boolean v) {
+    adaptiveEviction = v;
+  }
+
   public boolean isEnableJmx() {
     return enableJmx;
   }
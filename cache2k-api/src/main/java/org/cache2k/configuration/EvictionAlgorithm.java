@@ -0,0 +1,68 @@
+package org.cache2k.configuration;
+
+/*
+ * #%L
+ * cache2k API
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Eviction algorithm that selects the entries to remove when the capacity of the
+ * cache is reached. The default is {@link #CLOCK_PRO}, which performs well for most
+ * workloads. Other algorithms may achieve a better hit rate for specific access patterns.
+ *
+ * @author Jens Wilke
+ * @since 1.6
+ * @see org.cache2k.Cache2kBuilder#evictionAlgorithm(EvictionAlgorithm)
+ */
+public enum EvictionAlgorithm {
+
+  /**
+   * Clock-Pro with hot and cold clock and a history of evicted entries.
+   * Resistant to scans. This is the default.
+   */
+  CLOCK_PRO,
+
+  /**
+   * Evicts a random entry. Needs no additional memory, hit rate is low.
+   */
+  RANDOM,
+
+  /**
+   * Segmented LRU. New entries enter a probation segment and move to the protected
+   * segment with 80 percent of the capacity when accessed again. Good for workloads where
+   * the entries accessed repeatedly are clearly separated from the others.
+   */
+  SEGMENTED_LRU,
+
+  /**
+   * S3-FIFO with a small queue of 10 percent of the capacity for new entries, a main queue
+   * and a history of entries evicted from the small queue. New entries that are not accessed
+   * again leave the cache quickly, which suits workloads with many one time accesses,
+   * like negative lookups.
+   */
+  S3_FIFO,
+
+  /**
+   * Window TinyLFU. New entries enter a small window and are admitted to a segmented
+   * LRU main area only if they were requested more often than the entry they replace.
+   * The access frequency is estimated by a compact sketch. Good for skewed workloads with
+   * a stable popularity, like a product catalog.
+   */
+  WINDOW_TINY_LFU
+
+}
@@ -0,0 +1,174 @@
+package org.cache2k.expiry;
+
+/*
+ * #%L
+ * cache2k API
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.configuration.ConfigurationSectionBuilder;
+import org.cache2k.configuration.SingletonConfigurationSection;
+
+/**
+ * Configuration section to tune the timer that drives expiry and refresh of
+ * a cache. The default timer keeps the scheduled tasks in a binary heap, which is
+ * precise to the millisecond. For caches with many entries and frequent updates the
+ * timing wheel can be enabled. It schedules and cancels in constant time but
+ * groups the tasks into time slots of the configured precision. A task is executed
+ * within one precision interval after its scheduled time, never before it.
+ *
+ * <p>The timer tasks of a cache can be partitioned into independent shards, each
+ * with its own lock. The shard is selected by the hash of the entry.
+ *
+ * @author Jens Wilke
+ * @since 1.6
+ */
+public class TimerConfiguration implements SingletonConfigurationSection {
+
+  public static final long DEFAULT_PRECISION_MILLIS = 100;
+  public static final long DEFAULT_SWEEP_INTERVAL_MILLIS = 60 * 1000;
+
+  private boolean timingWheel;
+  private long precisionMillis = DEFAULT_PRECISION_MILLIS;
+  private int shardCount = 1;
+  private boolean lazyExpiry;
+  private long sweepIntervalMillis = DEFAULT_SWEEP_INTERVAL_MILLIS;
+
+  public boolean isTimingWheel() {
+    return timingWheel;
+  }
+
+  /**
+   * @see Builder#timingWheel(boolean)
+   */
+  public void setTimingWheel(boolean f) {
+    timingWheel = f;
+  }
+
+  public long getPrecisionMillis() {
+    return precisionMillis;
+  }
+
+  /**
+   * @see Builder#precisionMillis(long)
+   */
+  public void setPrecisionMillis(long v) {
+    if (v <= 0) {
+      throw new IllegalArgumentException("precisionMillis must be positive");
+    }
+    precisionMillis = v;
+  }
+
+  public int getShardCount() {
+    return shardCount;
+  }
+
+  /**
+   * @see Builder#shardCount(int)
+   */
+  public void setShardCount(int v) {
+    if (v <= 0) {
+      throw new IllegalArgumentException("shardCount must be positive");
+    }
+    shardCount = v;
+  }
+
+  public boolean isLazyExpiry() {
+    return lazyExpiry;
+  }
+
+  /**
+   * @see Builder#lazyExpiry(boolean)
+   */
+  public void setLazyExpiry(boolean f) {
+    lazyExpiry = f;
+  }
+
+  public long getSweepIntervalMillis() {
+    return sweepIntervalMillis;
+  }
+
+  /**
+   * @see Builder#sweepIntervalMillis(long)
+   */
+  public void setSweepIntervalMillis(long v) {
+    if (v <= 0) {
+      throw new IllegalArgumentException("sweepIntervalMillis must be positive");
+    }
+    sweepIntervalMillis = v;
+  }
+
+  public static class Builder implements ConfigurationSectionBuilder<TimerConfiguration> {
+
+    private final TimerConfiguration config = new TimerConfiguration();
+
+    /**
+     * Use a hierarchical timing wheel instead of the binary heap to keep the timer
+     * tasks. Default: {@code false}.
+     */
+    public Builder timingWheel(boolean f) {
+      config.setTimingWheel(f);
+      return this;
+    }
+
+    /**
+     * Width of a time slot of the timing wheel in milliseconds. Timer events may be
+     * delayed up to this time. Default: 100 milliseconds.
+     */
+    public Builder precisionMillis(long v) {
+      config.setPrecisionMillis(v);
+      return this;
+    }
+
+    /**
+     * Number of independent timers for the cache. Rounded up to the next power of two.
+     * A higher number reduces lock contention when many entries are updated
+     * concurrently and spreads the delivery of timer events over the scheduler
+     * threads. Default: 1.
+     */
+    public Builder shardCount(int v) {
+      config.setShardCount(v);
+      return this;
+    }
+
+    /**
+     * Don't use timer tasks for expiry. The expiry time is checked on access and
+     * expired entries are removed by a background sweep. Default: {@code false}.
+     */
+    public Builder lazyExpiry(boolean f) {
+      config.setLazyExpiry(f);
+      return this;
+    }
+
+    /**
+     * Time for one pass of the background sweep over all entries when lazy expiry
+     * is enabled. This is the maximum time an expired entry stays in memory, if not
+     * accessed. Default: one minute.
+     */
+    public Builder sweepIntervalMillis(long v) {
+      config.setSweepIntervalMillis(v);
+      return this;
+    }
+
+    @Override
+    public TimerConfiguration buildConfigurationSection() {
+      return config;
+    }
+
+  }
+
+}
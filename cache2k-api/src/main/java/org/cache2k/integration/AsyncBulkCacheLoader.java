@@ -0,0 +1,145 @@
+package org.cache2k.integration;
+
+/*
+ * #%L
+ * cache2k API
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.CacheEntry;
+
+import java.util.EventListener;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Extension of the {@link AsyncCacheLoader} that is able to load multiple values with
+ * one request. If the loader implements this interface, the bulk operations
+ * {@link Cache#getAll}, {@link Cache#loadAll} and {@link Cache#reloadAll} collect all
+ * keys that need loading and issue a single bulk request instead of a request per key.
+ *
+ * <p>The entries are blocked for the duration of the bulk request, like it is the case
+ * for a single load. Concurrent operations on the same keys wait for the bulk
+ * request to complete. Single value loads, e.g. via {@link Cache#get}, are still
+ * issued via {@link #load}.
+ *
+ * <p>The loaded values and exceptions can be reported for all keys at once or
+ * individually per key. A key that is reported twice leads to an
+ * {@link IllegalStateException}. Values for keys that were not requested are ignored.
+ *
+ * @author Jens Wilke
+ * @since 1.6
+ * @see CacheLoader#loadAll(Iterable, Executor)
+ */
+public interface AsyncBulkCacheLoader<K, V> extends AsyncCacheLoader<K, V> {
+
+  /**
+   * Starts an asynchronous bulk load operation.
+   *
+   * <p>If this call throws an exception, it is assumed that the load operation was not
+   * started and the callback will not called. The exception is propagated to all keys
+   * of the request.
+   *
+   * @param keys keys of the values to load, the set is not empty and is not modified by
+   *             the cache after the call
+   * @param context additional context information for the load operation
+   * @param callback interface to notify for load completion
+   * @throws Exception an exception, if the load operation cannot be started
+   */
+  void loadAll(Set<K> keys, BulkContext<K, V> context, BulkCallback<K, V> callback)
+    throws Exception;
+
+  /**
+   * Relevant context information for a bulk load request.
+   *
+   * @see AsyncCacheLoader.Context
+   */
+  interface BulkContext<K, V> {
+
+    /**
+     * Time in millis since epoch of start of load operation
+     */
+    long getLoadStartTime();
+
+    /**
+     * The keys to load. Identical to the call parameter.
+     */
+    Set<K> getKeys();
+
+    /**
+     * The configured executor for async operations.
+     *
+     * @see org.cache2k.Cache2kBuilder#executor(Executor)
+     */
+    Executor getExecutor();
+
+    /**
+     * The configured loader executor.
+     *
+     * @see org.cache2k.Cache2kBuilder#loaderExecutor(Executor)
+     */
+    Executor getLoaderExecutor();
+
+    /**
+     * Current entries in the cache, for keys that are reloaded or refreshed. Keys without
+     * a current entry are not contained in the map.
+     *
+     * @see AsyncCacheLoader.Context#getCurrentEntry()
+     */
+    Map<K, CacheEntry<K, V>> getCurrentEntries();
+
+  }
+
+  /**
+   * Callback for an async bulk load.
+   */
+  interface BulkCallback<K, V> extends EventListener {
+
+    /**
+     * Provide the loaded values to be stored in the cache. The map may contain
+     * only a subset of the requested keys. The remaining keys stay blocked
+     * until a value or exception is reported for them.
+     *
+     * @throws IllegalStateException if a key was already completed
+     */
+    void onLoadSuccess(Map<? extends K, ? extends V> data);
+
+    /**
+     * Provide the loaded value for a single key.
+     *
+     * @throws IllegalStateException if the key was already completed
+     */
+    void onLoadSuccess(K key, V value);
+
+    /**
+     * The load failed for all keys that were not completed yet. The exception
+     * is propagated to the clients accessing the associated keys.
+     */
+    void onLoadFailure(Throwable t);
+
+    /**
+     * The load failed for a single key.
+     *
+     * @throws IllegalStateException if the key was already completed
+     */
+    void onLoadFailure(K key, Throwable t);
+
+  }
+
+}
@@ -100,17 +100,22 @@ public abstract class CacheLoader<K, V> implements FunctionalCacheLoader<K, V> {
    * <p>From inside this method it is illegal to call methods on the same cache. This
    * may cause a deadlock.
    *
-   * <p>The method is provided to complete the API. At the moment cache2k is not
-   * using it. Please see the road map.
+   * <p>If this method is overridden, the cache uses it for the bulk operations
+   * {@link Cache#getAll}, {@link Cache#loadAll} and {@link Cache#reloadAll}, so all
+   * keys that need loading are requested at once. The method is called within the
+   * thread that requested the bulk operation, respectively within the loader thread
+   * for {@code loadAll} and {@code reloadAll}. Single value loads are still done via
+   * {@link #load}.
    *
    * @param keys set of keys for the values to be loaded
    * @param executor an executor for concurrent loading
    * @return The loaded values. A key may map to {@code null} if the cache permits
-   *         {@code null} values.
+   *         {@code null} values. A requested key that is missing in the map is
+   *         treated like a {@code null} value.
    * @throws Exception Unhandled exception from the loader. Exceptions are suppressed or
    *                   wrapped and rethrown via a {@link CacheLoaderException}.
-   *                   If an exception happens the cache may retry the load with the
-   *                   single value load method.
+   *                   The exception is propagated to all requested keys.
+   * @see AsyncBulkCacheLoader
    */
   public Map<K, V> loadAll(Iterable<? extends K> keys, Executor executor) throws Exception {
     throw new UnsupportedOperationException();
@@ -22,6 +22,10 @@ package org.cache2k.integration;
 
 import org.cache2k.Cache;
 
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
 /**
  * Writer for write-through configurations. Any mutation of the cache via the
  * {@link Cache}  interface, e.g.  {@link Cache#put(Object, Object)} or
@@ -56,5 +60,48 @@ public abstract class CacheWriter<K, V> {
    */
   public abstract void delete(K key) throws Exception;
 
+  /**
+   * Called by bulk operations, e.g. {@link Cache#putAll(Map)}, with a batch of values that
+   * were updated or inserted. Override this method if the target system supports batch
+   * updates.
+   *
+   * <p>Upon return the map must only contain the entries that were not written. If an
+   * exception is thrown, the cache update of the remaining entries will not occur and each
+   * affected operation fails with a {@link CacheWriterException}. The default implementation
+   * calls {@link #write(Object, Object)} for each entry and removes it from the map.
+   *
+   * @param entries keys and values to be written. Values may be null if null is permitted.
+   * @throws Exception if an exception occurs, the cache updates of the entries still
+   *         contained in the map will not occur
+   */
+  public void writeAll(Map<K, V> entries) throws Exception {
+    Iterator<Map.Entry<K, V>> it = entries.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<K, V> e = it.next();
+      write(e.getKey(), e.getValue());
+      it.remove();
+    }
+  }
+
+  /**
+   * Called by bulk operations, e.g. {@link Cache#removeAll(Iterable)}, with a batch of keys
+   * that are removed from the cache. Override this method if the target system supports
+   * batch deletes.
+   *
+   * <p>Upon return the collection must only contain the keys that were not deleted.
+   * Exceptions are handled like in {@link #writeAll(Map)}. The default implementation calls
+   * {@link #delete(Object)} for each key and removes it from the collection.
+   *
+   * @param keys keys of the values removed from the cache
+   * @throws Exception if an exception occurs, the removal of the keys still contained in
+   *         the collection will not occur
+   */
+  public void deleteAll(Collection<K> keys) throws Exception {
+    Iterator<K> it = keys.iterator();
+    while (it.hasNext()) {
+      delete(it.next());
+      it.remove();
+    }
+  }
 
 }
@@ -28,6 +28,10 @@ import java.util.Date;
 /**
  * Exposed statistics via JMX from a cache.
  *
+ * <p>The values are read without stopping the cache operations, so they may
+ * be slightly inconsistent to each other. Only {@link #getIntegrityDescriptor()}
+ * needs a consistent view and blocks cache operations shortly.
+ *
  * @author Jens Wilke
  */
 @SuppressWarnings("unused")
@@ -204,6 +208,85 @@ public interface CacheInfoMXBean {
    */
   long getTotalLoadMillis();
 
+  /**
+   * Median duration of the loader calls in milliseconds, including refreshes.
+   * The durations are recorded with nanosecond resolution in buckets with a relative
+   * width of 12.5%, the value is the upper bound of the bucket. The percentiles cover
+   * the calls of the last one to two minutes, so recent stalls are visible.
+   * 0 if nothing was loaded within this time.
+   *
+   * @since 1.6
+   */
+  double getLoadMillisP50();
+
+  /**
+   * 99th percentile of the duration of the loader calls in milliseconds.
+   *
+   * @see #getLoadMillisP50()
+   * @since 1.6
+   */
+  double getLoadMillisP99();
+
+  /**
+   * 99.9th percentile of the duration of the loader calls in milliseconds.
+   *
+   * @see #getLoadMillisP50()
+   * @since 1.6
+   */
+  double getLoadMillisP999();
+
+  /**
+   * Median duration of the writer calls in milliseconds. A batch of a bulk operation
+   * counts as one call.
+   *
+   * @see #getLoadMillisP50()
+   * @since 1.6
+   */
+  double getWriterMillisP50();
+
+  /**
+   * 99th percentile of the duration of the writer calls in milliseconds.
+   *
+   * @see #getWriterMillisP50()
+   * @since 1.6
+   */
+  double getWriterMillisP99();
+
+  /**
+   * 99.9th percentile of the duration of the writer calls in milliseconds.
+   *
+   * @see #getWriterMillisP50()
+   * @since 1.6
+   */
+  double getWriterMillisP999();
+
+  /**
+   * Keys with the most hits and their estimated hit count as comma separated list,
+   * e.g. {@code 4711=1200, 42=560}. Empty, if the tracking is not enabled via
+   * {@link org.cache2k.Cache2kBuilder#hotKeyCount(int)}.
+   *
+   * @since 1.6
+   */
+  String getHotKeysByHits();
+
+  /**
+   * Keys with the most misses and their miss count. A miss is a read without
+   * a fresh value in the cache or a loader call that is not a refresh.
+   *
+   * @see #getHotKeysByHits()
+   * @since 1.6
+   */
+  String getHotKeysByMisses();
+
+  /**
+   * Keys with the most time spent in the loader and the total time in milliseconds,
+   * e.g. {@code 4711=1520.5ms}.
+   *
+   * @see #getHotKeysByHits()
+   * @since 1.6
+   */
+  String getHotKeysByLoadTime();
+
   /**
    * Implementation class of the cache.
    */
@@ -0,0 +1,47 @@
+package org.cache2k.storage;
+
+/*
+ * #%L
+ * cache2k API
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Converts cache values into a byte representation and back, so values can
+ * be kept outside the Java heap by a storage tier.
+ *
+ * <p>Implementations need to be thread safe.
+ *
+ * @author Jens Wilke
+ * @since 1.6
+ * @see OffHeapStorageConfiguration
+ */
+public interface Marshaller {
+
+  /**
+   * Convert the object into its byte representation.
+   *
+   * @param o the value, never {@code null}
+   */
+  byte[] marshall(Object o) throws Exception;
+
+  /**
+   * Reconstruct the object from the bytes produced by {@link #marshall(Object)}.
+   */
+  Object unmarshall(byte[] data) throws Exception;
+
+}
@@ -0,0 +1,136 @@
+package org.cache2k.storage;
+
+/*
+ * #%L
+ * cache2k API
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.configuration.ConfigurationSectionBuilder;
+import org.cache2k.configuration.CustomizationReferenceSupplier;
+import org.cache2k.configuration.CustomizationSupplier;
+import org.cache2k.configuration.SingletonConfigurationSection;
+
+/**
+ * Configuration section to enable a storage tier outside the Java heap. Entries
+ * evicted from the heap are marshalled into direct memory and promoted back to
+ * the heap when accessed again. The heap capacity, as configured by
+ * {@link org.cache2k.Cache2kBuilder#entryCapacity(long)}, controls the number of hot
+ * entries held as objects.
+ *
+ * <p>Keys and entry metadata stay on the heap, only the values are moved.
+ *
+ * @author Jens Wilke
+ * @since 1.6
+ */
+public class OffHeapStorageConfiguration implements SingletonConfigurationSection {
+
+  public static final long DEFAULT_CAPACITY_BYTES = 64 * 1024 * 1024;
+  public static final int DEFAULT_BLOCK_SIZE = 128;
+
+  private long capacityBytes = DEFAULT_CAPACITY_BYTES;
+  private int blockSize = DEFAULT_BLOCK_SIZE;
+  private CustomizationSupplier<Marshaller> marshaller;
+
+  public long getCapacityBytes() {
+    return capacityBytes;
+  }
+
+  /**
+   * @see Builder#capacityBytes(long)
+   */
+  public void setCapacityBytes(long v) {
+    if (v <= 0) {
+      throw new IllegalArgumentException("capacityBytes must be positive");
+    }
+    capacityBytes = v;
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * @see Builder#blockSize(int)
+   */
+  public void setBlockSize(int v) {
+    if (v < 16) {
+      throw new IllegalArgumentException("blockSize must be at least 16");
+    }
+    blockSize = v;
+  }
+
+  public CustomizationSupplier<Marshaller> getMarshaller() {
+    return marshaller;
+  }
+
+  /**
+   * @see Builder#marshaller(Marshaller)
+   */
+  public void setMarshaller(CustomizationSupplier<Marshaller> v) {
+    marshaller = v;
+  }
+
+  public static class Builder implements ConfigurationSectionBuilder<OffHeapStorageConfiguration> {
+
+    private final OffHeapStorageConfiguration config = new OffHeapStorageConfiguration();
+
+    /**
+     * Maximum number of bytes held in direct memory. If the capacity is reached
+     * the least recently used values are dropped from the storage.
+     * Default: 64 megabytes.
+     */
+    public Builder capacityBytes(long v) {
+      config.setCapacityBytes(v);
+      return this;
+    }
+
+    /**
+     * Allocation unit within the direct memory. Values are stored in a chain of
+     * blocks. A smaller block size leads to less wasted memory but more overhead
+     * for larger values. Default: 128 bytes.
+     */
+    public Builder blockSize(int v) {
+      config.setBlockSize(v);
+      return this;
+    }
+
+    /**
+     * Converts values to bytes and back. If not specified, Java serialization is used,
+     * which requires all values to be {@link java.io.Serializable}.
+     */
+    public Builder marshaller(Marshaller v) {
+      config.setMarshaller(new CustomizationReferenceSupplier<Marshaller>(v));
+      return this;
+    }
+
+    /**
+     * @see #marshaller(Marshaller)
+     */
+    public Builder marshaller(CustomizationSupplier<Marshaller> v) {
+      config.setMarshaller(v);
+      return this;
+    }
+
+    @Override
+    public OffHeapStorageConfiguration buildConfigurationSection() {
+      return config;
+    }
+
+  }
+
+}
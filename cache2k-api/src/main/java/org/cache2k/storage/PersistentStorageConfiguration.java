@@ -0,0 +1,162 @@
+package org.cache2k.storage;
+
+/*
+ * #%L
+ * cache2k API
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.configuration.ConfigurationSectionBuilder;
+import org.cache2k.configuration.CustomizationReferenceSupplier;
+import org.cache2k.configuration.CustomizationSupplier;
+import org.cache2k.configuration.SingletonConfigurationSection;
+
+/**
+ * Configuration section to enable a storage tier in local files, that survives
+ * a restart. Entries evicted from the heap are appended to a log of memory mapped
+ * segment files and promoted back to the heap when accessed again. When the cache
+ * is closed, the entries in the heap are written to the storage as well.
+ *
+ * <p>After a restart with the same directory and cache name, the key index is
+ * read from the files in the background and the cache starts warm. Values are
+ * only read when accessed. Expired entries are skipped.
+ *
+ * <p>The files of a cache are located in a subdirectory of the configured
+ * directory, named after the cache manager and the cache. Only one cache instance
+ * may use the files at a time.
+ *
+ * @author Jens Wilke
+ * @since 1.6
+ */
+public class PersistentStorageConfiguration implements SingletonConfigurationSection {
+
+  public static final long DEFAULT_CAPACITY_BYTES = 1024L * 1024 * 1024;
+  public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+  private String directory;
+  private long capacityBytes = DEFAULT_CAPACITY_BYTES;
+  private int segmentBytes = DEFAULT_SEGMENT_BYTES;
+  private CustomizationSupplier<Marshaller> marshaller;
+
+  public String getDirectory() {
+    return directory;
+  }
+
+  /**
+   * @see Builder#directory(String)
+   */
+  public void setDirectory(String v) {
+    directory = v;
+  }
+
+  public long getCapacityBytes() {
+    return capacityBytes;
+  }
+
+  /**
+   * @see Builder#capacityBytes(long)
+   */
+  public void setCapacityBytes(long v) {
+    if (v <= 0) {
+      throw new IllegalArgumentException("capacityBytes must be positive");
+    }
+    capacityBytes = v;
+  }
+
+  public int getSegmentBytes() {
+    return segmentBytes;
+  }
+
+  /**
+   * @see Builder#segmentBytes(int)
+   */
+  public void setSegmentBytes(int v) {
+    if (v < 1024) {
+      throw new IllegalArgumentException("segmentBytes must be at least 1024");
+    }
+    segmentBytes = v;
+  }
+
+  public CustomizationSupplier<Marshaller> getMarshaller() {
+    return marshaller;
+  }
+
+  /**
+   * @see Builder#marshaller(Marshaller)
+   */
+  public void setMarshaller(CustomizationSupplier<Marshaller> v) {
+    marshaller = v;
+  }
+
+  public static class Builder
+    implements ConfigurationSectionBuilder<PersistentStorageConfiguration> {
+
+    private final PersistentStorageConfiguration config = new PersistentStorageConfiguration();
+
+    /**
+     * Base directory for the storage files. Mandatory.
+     */
+    public Builder directory(String v) {
+      config.setDirectory(v);
+      return this;
+    }
+
+    /**
+     * Maximum number of bytes used by the storage files. When exceeded the oldest
+     * segment file is compacted, or, if it contains mostly live entries, dropped.
+     * Default: 1 gigabyte.
+     */
+    public Builder capacityBytes(long v) {
+      config.setCapacityBytes(v);
+      return this;
+    }
+
+    /**
+     * Size of a segment file. The log is appended to a segment until it is full,
+     * then a new segment is started. Entries bigger than the segment size are
+     * not stored. Default: 64 megabytes.
+     */
+    public Builder segmentBytes(int v) {
+      config.setSegmentBytes(v);
+      return this;
+    }
+
+    /**
+     * Converts keys and values to bytes and back. If not specified, Java serialization
+     * is used, which requires all keys and values to be {@link java.io.Serializable}.
+     */
+    public Builder marshaller(Marshaller v) {
+      config.setMarshaller(new CustomizationReferenceSupplier<Marshaller>(v));
+      return this;
+    }
+
+    /**
+     * @see #marshaller(Marshaller)
+     */
+    public Builder marshaller(CustomizationSupplier<Marshaller> v) {
+      config.setMarshaller(v);
+      return this;
+    }
+
+    @Override
+    public PersistentStorageConfiguration buildConfigurationSection() {
+      return config;
+    }
+
+  }
+
+}
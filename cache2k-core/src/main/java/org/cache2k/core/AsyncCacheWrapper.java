@@ -0,0 +1,199 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.AsyncCache;
+import org.cache2k.CacheEntry;
+import org.cache2k.core.operation.Operations;
+import org.cache2k.core.operation.Semantic;
+import org.cache2k.processor.EntryProcessor;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous operations executed by entry actions, which complete the future
+ * via the completion callback. The Java 8 types are only used within this class,
+ * which is loaded on request.
+ *
+ * @author Jens Wilke
+ */
+public class AsyncCacheWrapper<K, V> implements AsyncCache<K, V> {
+
+  private final BaseCache<K, V> cache;
+  private final HeapCache<K, V> heapCache;
+  private final Operations<K, V> ops = Operations.SINGLETON;
+
+  @SuppressWarnings("unchecked")
+  public AsyncCacheWrapper(BaseCache<K, V> cache) {
+    this.cache = cache;
+    heapCache = cache instanceof WiredCache ?
+      ((WiredCache<K, V>) cache).getHeapCache() : (HeapCache<K, V>) cache;
+  }
+
+  @Override
+  public CompletableFuture<V> getAsync(K key) {
+    CompletableFuture<V> future = new CompletableFuture<V>();
+    execute(key, ops.get(key), new Completion<V, V>(future) {
+      @Override
+      protected void completed(V result) {
+        future.complete(heapCache.returnValue(result));
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Start an action for every key and complete after the last one completed.
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public CompletableFuture<Map<K, V>> getAllAsync(Iterable<? extends K> keys) {
+    final CompletableFuture<Map<K, V>> future = new CompletableFuture<Map<K, V>>();
+    Set<K> keySet = new LinkedHashSet<K>();
+    for (K k : keys) {
+      if (k == null) {
+        throw new NullPointerException("null key");
+      }
+      keySet.add(k);
+    }
+    final Map<K, CacheEntry<K, V>> map = new ConcurrentHashMap<K, CacheEntry<K, V>>();
+    if (keySet.isEmpty()) {
+      future.complete(heapCache.convertCacheEntry2ValueMap(map));
+      return future;
+    }
+    final AtomicInteger countDown = new AtomicInteger(keySet.size());
+    for (K k : keySet) {
+      final K key = k;
+      Semantic<K, V, CacheEntry<K, V>> op = (Semantic) ops.getEntry(key);
+      execute(key, op, new Completion<CacheEntry<K, V>, Map<K, V>>(future) {
+        @Override
+        protected void completed(CacheEntry<K, V> result) {
+          if (result != null) {
+            map.put(key, result);
+          }
+          if (countDown.decrementAndGet() == 0) {
+            future.complete(heapCache.convertCacheEntry2ValueMap(map));
+          }
+        }
+      });
+    }
+    return future;
+  }
+
+  @Override
+  public CompletableFuture<Void> putAsync(K key, V value) {
+    CompletableFuture<Void> future = new CompletableFuture<Void>();
+    execute(key, ops.put(key, value), new Completion<V, Void>(future) {
+      @Override
+      protected void completed(V result) {
+        future.complete(null);
+      }
+    });
+    return future;
+  }
+
+  @Override
+  public <R> CompletableFuture<R> invokeAsync(K key, EntryProcessor<K, V, R> processor) {
+    CompletableFuture<R> future = new CompletableFuture<R>();
+    execute(key, ops.invoke(key, processor), new Completion<R, R>(future) {
+      @Override
+      protected void completed(R result) {
+        future.complete(result);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Start the action in the loader executor if the action may block on a loader, a writer
+   * or a storage, otherwise in the cache executor. The calling thread never starts the
+   * action, since it would wait for an ongoing synchronous operation on the entry.
+   * If the loader executor rejects the action, the cache executor is used. Exceptions
+   * when starting the action complete the future, too.
+   */
+  private <R> void execute(K key, Semantic<K, V, R> op, final Completion<R, ?> completion) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    }
+    final EntryAction<K, V, R> action = cache.createEntryAction(key, null, op, completion);
+    Runnable r = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          action.start();
+        } catch (Throwable t) {
+          completion.future.completeExceptionally(t);
+        }
+      }
+    };
+    Executor executor = cache.getAsyncBlockingExecutor();
+    if (executor != null) {
+      try {
+        executor.execute(r);
+        return;
+      } catch (RejectedExecutionException ex) {
+        // continue with the cache executor
+      }
+    }
+    try {
+      cache.getExecutor().execute(r);
+    } catch (RejectedExecutionException ex) {
+      completion.future.completeExceptionally(ex);
+    }
+  }
+
+  /**
+   * Complete the future with the converted result or the exception of the action.
+   */
+  abstract class Completion<R, T> implements EntryAction.CompletedCallback<K, V, R> {
+
+    final CompletableFuture<T> future;
+
+    Completion(CompletableFuture<T> future) {
+      this.future = future;
+    }
+
+    @Override
+    public void entryActionCompleted(EntryAction<K, V, R> ea) {
+      RuntimeException t = ea.exceptionToPropagate;
+      if (t != null) {
+        future.completeExceptionally(t);
+        return;
+      }
+      try {
+        completed(ea.result);
+      } catch (Throwable ex) {
+        future.completeExceptionally(ex);
+      }
+    }
+
+    protected abstract void completed(R result);
+
+  }
+
+}
@@ -20,9 +20,11 @@ package org.cache2k.core;
  * #L%
  */
 
+import org.cache2k.AsyncCache;
 import org.cache2k.Cache;
 import org.cache2k.CacheEntry;
 import org.cache2k.CacheException;
+import org.cache2k.CacheStreams;
 import org.cache2k.CustomizationException;
 import org.cache2k.configuration.CustomizationSupplier;
 import org.cache2k.core.operation.Operations;
@@ -125,6 +127,12 @@ public abstract class BaseCache<K, V> implements InternalCache<K, V>, Customizat
       type.equals(Map.class)) {
       return (X) new ConcurrentMapWrapper<K, V>(this);
     }
+    if (type.equals(CacheStreams.class)) {
+      return (X) new CacheStreamsWrapper<K, V>(this);
+    }
+    if (type.equals(AsyncCache.class)) {
+      return (X) new AsyncCacheWrapper<K, V>(this);
+    }
     if (type.isAssignableFrom(this.getClass())) {
       return (X) this;
     }
@@ -144,38 +152,53 @@ public abstract class BaseCache<K, V> implements InternalCache<K, V>, Customizat
                                                         EntryProcessor<K, V, R> entryProcessor) {
     Map<K, EntryProcessingResult<R>> m = new HashMap<K, EntryProcessingResult<R>>();
     for (K k : keys) {
-      try {
-        final R result = invoke(k, entryProcessor);
-        if (result == null) {
-          continue;
-        }
-        m.put(k, new EntryProcessingResult<R>() {
-          @Override
-          public R getResult() {
-            return result;
-          }
-
-          @Override
-          public Throwable getException() {
-            return null;
-          }
-        });
-      } catch (EntryProcessingException t) {
-        final Throwable cause = t.getCause();
-        m.put(k, new EntryProcessingResult<R>() {
-          @Override
-          public R getResult() {
-            throw new EntryProcessingException(cause);
-          }
+      invokeAndCollect(k, entryProcessor, m);
+    }
+    return m;
+  }
 
-          @Override
-          public Throwable getException() {
-            return cause;
-          }
-        });
+  /**
+   * Invoke the entry processor and put the result in the map, if not {@code null}.
+   * An exception of the entry processor is put in the map as well.
+   */
+  protected <R> void invokeAndCollect(K key, EntryProcessor<K, V, R> entryProcessor,
+                                      Map<K, EntryProcessingResult<R>> m) {
+    try {
+      R result = invoke(key, entryProcessor);
+      if (result != null) {
+        m.put(key, processingResult(result));
       }
+    } catch (EntryProcessingException ex) {
+      m.put(key, BaseCache.<R>processingException(ex.getCause()));
     }
-    return m;
+  }
+
+  static <R> EntryProcessingResult<R> processingResult(final R result) {
+    return new EntryProcessingResult<R>() {
+      @Override
+      public R getResult() {
+        return result;
+      }
+
+      @Override
+      public Throwable getException() {
+        return null;
+      }
+    };
+  }
+
+  static <R> EntryProcessingResult<R> processingException(final Throwable cause) {
+    return new EntryProcessingResult<R>() {
+      @Override
+      public R getResult() {
+        throw new EntryProcessingException(cause);
+      }
+
+      @Override
+      public Throwable getException() {
+        return cause;
+      }
+    };
   }
 
   @SuppressWarnings("unchecked")
@@ -192,6 +215,22 @@ public abstract class BaseCache<K, V> implements InternalCache<K, V>, Customizat
   protected abstract <R> EntryAction<K, V, R> createEntryAction(K key, Entry<K, V> e,
                                                                 Semantic<K, V, R> op);
 
+  /**
+   * Create an entry action that calls back on completion instead of waiting,
+   * used for asynchronous operations.
+   */
+  protected abstract <R> EntryAction<K, V, R> createEntryAction(
+    K key, Entry<K, V> e, Semantic<K, V, R> op, EntryAction.CompletedCallback<K, V, R> cb);
+
+  /**
+   * Executor for asynchronous operations that may block the thread, because a synchronous
+   * loader, a writer or a storage is called.
+   *
+   * @return the executor, or {@code null} if operations do not block, in which case the
+   *         cache executor is used
+   */
+  protected abstract Executor getAsyncBlockingExecutor();
+
   protected <R> R execute(EntryAction<K, V, R> action) {
     action.start();
     return finishExecution(action);
@@ -0,0 +1,285 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.CacheEntry;
+import org.cache2k.integration.AsyncBulkCacheLoader;
+import org.cache2k.integration.AsyncCacheLoader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Executes an operation on a set of keys and combines the load requests of the
+ * individual entry actions into one request to the bulk loader.
+ *
+ * <p>Every key is processed by its own entry action, so locking, expiry, resilience,
+ * listeners and statistics work the same as for a single key operation. The entry
+ * actions are started as asynchronous actions. If an entry is processed by another
+ * operation, the action is enqueued and does not block the thread. This way we
+ * never wait for an entry while holding other entries locked, which otherwise could
+ * lead to a deadlock between two overlapping bulk requests.
+ *
+ * <p>The entry actions use this class as async loader. Load requests are collected
+ * until all actions are started and then sent to the bulk loader with one call.
+ * Load requests of actions that were enqueued and run later are sent individually.
+ *
+ * @author Jens Wilke
+ */
+public abstract class BulkAction<K, V, R>
+  implements AsyncCacheLoader<K, V>, EntryAction.CompletedCallback<K, V, R> {
+
+  private final AsyncBulkCacheLoader<K, V> bulkLoader;
+  private final Set<K> keys;
+  private final List<EntryAction<K, V, R>> actions;
+
+  /**
+   * Collected load requests until all entry actions are started, guarded by this.
+   */
+  private BulkRequest collected;
+  private int remaining;
+
+  /**
+   * @param bulkLoader the loader to send the combined load requests to
+   * @param keys keys to process, the set is not copied
+   */
+  public BulkAction(AsyncBulkCacheLoader<K, V> bulkLoader, Set<K> keys) {
+    this.bulkLoader = bulkLoader;
+    this.keys = keys;
+    actions = new ArrayList<EntryAction<K, V, R>>(keys.size());
+    remaining = keys.size();
+  }
+
+  /**
+   * Create the entry action for the key. The action needs to use this object as async loader
+   * and completed callback.
+   */
+  protected abstract EntryAction<K, V, R> createEntryAction(K key);
+
+  /**
+   * Called when all entry actions are completed. Maybe called within the thread starting
+   * the operation or a thread completing the last load.
+   */
+  protected void bulkOperationCompleted() { }
+
+  /**
+   * Start all entry actions and send the collected load requests to the loader.
+   * Does not wait for completion.
+   */
+  public void start() {
+    if (keys.isEmpty()) {
+      bulkOperationCompleted();
+      return;
+    }
+    synchronized (this) {
+      collected = new BulkRequest();
+    }
+    for (K key : keys) {
+      actions.add(createEntryAction(key));
+    }
+    for (EntryAction<K, V, R> action : actions) {
+      action.start();
+    }
+    BulkRequest request;
+    synchronized (this) {
+      request = collected;
+      collected = null;
+    }
+    if (!request.callbacks.isEmpty()) {
+      request.send();
+    }
+  }
+
+  /**
+   * Wait until all entry actions are completed.
+   */
+  public void waitForCompletion() {
+    boolean interrupt = false;
+    synchronized (this) {
+      while (remaining > 0) {
+        try {
+          wait();
+        } catch (InterruptedException ignore) {
+          interrupt = true;
+        }
+      }
+    }
+    if (interrupt) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * The entry actions, the entry action contains the result or exception of the
+   * operation after completion.
+   */
+  public List<EntryAction<K, V, R>> getActions() {
+    return actions;
+  }
+
+  /**
+   * Called by the entry action to load a value. Either collects the request or sends it
+   * directly, if the entry action was started after the bulk request was sent.
+   */
+  @Override
+  public void load(K key, Context<K, V> context, Callback<V> callback) {
+    BulkRequest request;
+    synchronized (this) {
+      if (collected != null) {
+        collected.add(key, context, callback);
+        return;
+      }
+      request = new BulkRequest();
+      request.add(key, context, callback);
+    }
+    request.send();
+  }
+
+  @Override
+  public void entryActionCompleted(EntryAction<K, V, R> ea) {
+    synchronized (this) {
+      if (--remaining > 0) {
+        return;
+      }
+      notifyAll();
+    }
+    bulkOperationCompleted();
+  }
+
+  /**
+   * Keys and callbacks of entry actions for one bulk load request. Serves as context and
+   * callback for the loader.
+   */
+  class BulkRequest
+    implements AsyncBulkCacheLoader.BulkContext<K, V>, AsyncBulkCacheLoader.BulkCallback<K, V> {
+
+    private final Map<K, Callback<V>> callbacks = new HashMap<K, Callback<V>>();
+    private final Map<K, CacheEntry<K, V>> currentEntries = new HashMap<K, CacheEntry<K, V>>();
+    private Set<K> requestedKeys;
+    private Context<K, V> firstContext;
+
+    void add(K key, Context<K, V> context, Callback<V> callback) {
+      if (firstContext == null) {
+        firstContext = context;
+      }
+      callbacks.put(key, callback);
+      CacheEntry<K, V> currentEntry = context.getCurrentEntry();
+      if (currentEntry != null) {
+        currentEntries.put(key, currentEntry);
+      }
+    }
+
+    void send() {
+      requestedKeys = Collections.unmodifiableSet(new HashSet<K>(callbacks.keySet()));
+      try {
+        bulkLoader.loadAll(requestedKeys, this, this);
+      } catch (Throwable ouch) {
+        onLoadFailure(ouch);
+      }
+    }
+
+    @Override
+    public long getLoadStartTime() {
+      return firstContext.getLoadStartTime();
+    }
+
+    @Override
+    public Set<K> getKeys() {
+      return requestedKeys;
+    }
+
+    @Override
+    public Executor getExecutor() {
+      return firstContext.getExecutor();
+    }
+
+    @Override
+    public Executor getLoaderExecutor() {
+      return firstContext.getLoaderExecutor();
+    }
+
+    @Override
+    public Map<K, CacheEntry<K, V>> getCurrentEntries() {
+      return currentEntries;
+    }
+
+    @Override
+    public void onLoadSuccess(Map<? extends K, ? extends V> data) {
+      for (Map.Entry<? extends K, ? extends V> entry : data.entrySet()) {
+        onLoadSuccess(entry.getKey(), entry.getValue());
+      }
+    }
+
+    @Override
+    public void onLoadSuccess(K key, V value) {
+      Callback<V> callback = complete(key);
+      if (callback != null) {
+        callback.onLoadSuccess(value);
+      }
+    }
+
+    @Override
+    public void onLoadFailure(Throwable t) {
+      Collection<Callback<V>> pending;
+      synchronized (this) {
+        pending = new ArrayList<Callback<V>>(callbacks.values());
+        callbacks.clear();
+      }
+      for (Callback<V> callback : pending) {
+        callback.onLoadFailure(t);
+      }
+    }
+
+    @Override
+    public void onLoadFailure(K key, Throwable t) {
+      Callback<V> callback = complete(key);
+      if (callback != null) {
+        callback.onLoadFailure(t);
+      }
+    }
+
+    /**
+     * Remove the callback of a completed key.
+     *
+     * @return the callback or {@code null} if the key was not requested
+     * @throws IllegalStateException if the key was already completed
+     */
+    private synchronized Callback<V> complete(K key) {
+      if (!requestedKeys.contains(key)) {
+        return null;
+      }
+      Callback<V> callback = callbacks.remove(key);
+      if (callback == null) {
+        throw new IllegalStateException("duplicate load callback for key: " + key);
+      }
+      return callback;
+    }
+
+  }
+
+}
@@ -58,7 +58,8 @@ class CacheBaseInfo implements InternalCacheInfo {
 
   /*
    * Consistent copies from heap cache. for 32 bit machines the access
-   * is not atomic. We copy the values while under big lock.
+   * is not atomic. We copy the values while under big lock, unless
+   * the info is created without blocking.
    */
   private final long clearedTime;
   private final long newEntryCnt;
@@ -75,6 +76,15 @@ class CacheBaseInfo implements InternalCacheInfo {
   private final long totalWeight;
 
   CacheBaseInfo(HeapCache heapCache, InternalCache userCache, long now) {
+    this(heapCache, userCache, now, true);
+  }
+
+  /**
+   * @param underLock if {@code false} the counters are read without stopping the cache
+   *                  operations, the values may be slightly inconsistent to each other and
+   *                  no integrity check and no detailed eviction statistics are done.
+   */
+  CacheBaseInfo(HeapCache heapCache, InternalCache userCache, long now, boolean underLock) {
     infoCreatedTime = now;
     cache = userCache;
     this.heapCache = heapCache;
@@ -94,15 +104,17 @@ class CacheBaseInfo implements InternalCacheInfo {
     clearCnt = heapCache.clearCnt;
     internalExceptionCnt = heapCache.internalExceptionCnt;
     evictionRunningCnt = em.getEvictionRunningCount();
-    integrityState = heapCache.getIntegrityState();
-    extraStatistics = em.getExtraStatistics();
+    integrityState = underLock ? heapCache.getIntegrityState() : new IntegrityState();
+    extraStatistics = underLock ?
+      em.getExtraStatistics() : "impl=" + em.getClass().getSimpleName();
     if (extraStatistics.startsWith(", ")) {
       extraStatistics = extraStatistics.substring(2);
     }
     size = this.heapCache.getLocalSize();
     missCnt = metrics.getReadThroughCount() + metrics.getExplicitLoadCount() +
       metrics.getPeekHitNotFreshCount() + metrics.getPeekMissCount();
-    hitCnt = em.getHitCount();
+    hitCnt = underLock ? em.getHitCount() :
+      heapCache.hash.sumHitCount() + heapCache.eviction.getTransferredHitCount();
     correctedPutCnt = metrics.getPutNewEntryCount() + metrics.getPutHitCount();
     if (heapCache.loaderExecutor instanceof ExclusiveExecutor) {
       ThreadPoolExecutor ex =
@@ -215,6 +227,12 @@ class CacheBaseInfo implements InternalCacheInfo {
   @Override
   public long getLoadMillis() { return metrics.getLoadMillis(); }
   @Override
+  public LatencyHistogram getLoadLatency() { return metrics.getLoadLatency(); }
+  @Override
+  public LatencyHistogram getWriterLatency() { return metrics.getWriterLatency(); }
+  @Override
+  public HotKeySampler getHotKeys() { return heapCache.hotKeys; }
+  @Override
   public String getIntegrityDescriptor() { return integrityState.getStateDescriptor(); }
   @Override
   public long getStartedTime() { return heapCache.startedTime; }
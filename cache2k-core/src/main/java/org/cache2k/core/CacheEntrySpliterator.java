@@ -0,0 +1,83 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.CacheEntry;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the valid entries of a heap cache, splitting the
+ * range of iteration positions of the hash table.
+ *
+ * @author Jens Wilke
+ * @see ConcurrentEntryIterator#trySplit()
+ */
+public class CacheEntrySpliterator<K, V> implements Spliterator<CacheEntry<K, V>> {
+
+  static final int CHARACTERISTICS = CONCURRENT | DISTINCT | NONNULL;
+
+  private final HeapCache<K, V> cache;
+  private final ConcurrentEntryIterator<K, V> iterator;
+
+  public CacheEntrySpliterator(HeapCache<K, V> cache) {
+    this(cache, cache.iterateAllHeapEntries());
+  }
+
+  private CacheEntrySpliterator(HeapCache<K, V> cache, ConcurrentEntryIterator<K, V> iterator) {
+    this.cache = cache;
+    this.iterator = iterator;
+  }
+
+  /**
+   * Skip entries that are expired or hold no valid data, like
+   * {@link HeapCache.IteratorFilterEntry2Entry}.
+   */
+  @Override
+  public boolean tryAdvance(Consumer<? super CacheEntry<K, V>> action) {
+    while (iterator.hasNext()) {
+      Entry<K, V> e = iterator.next();
+      if (e.hasFreshData(cache.getClock())) {
+        action.accept(cache.returnEntry(e));
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public Spliterator<CacheEntry<K, V>> trySplit() {
+    ConcurrentEntryIterator<K, V> split = iterator.trySplit();
+    return split != null ? new CacheEntrySpliterator<K, V>(cache, split) : null;
+  }
+
+  @Override
+  public long estimateSize() {
+    return iterator.estimateSize();
+  }
+
+  @Override
+  public int characteristics() {
+    return CHARACTERISTICS;
+  }
+
+}
@@ -46,7 +46,11 @@ public class CacheMXBeanImpl implements CacheMXBean {
     this.cache = cache;
   }
 
-  private InternalCacheInfo getInfo() { return cache.getInfo(); }
+  /**
+   * Counters are read without stopping cache operations, only the integrity check
+   * needs the consistent {@link InternalCache#getInfo()}.
+   */
+  private InternalCacheInfo getInfo() { return cache.getNonBlockingInfo(); }
 
   @Override
   public long getSize() {
@@ -178,9 +182,57 @@ public class CacheMXBeanImpl implements CacheMXBean {
     return getInfo().getLoadMillis();
   }
 
+  @Override
+  public double getLoadMillisP50() {
+    return getInfo().getLoadLatency().getPercentileMillis(0.5);
+  }
+
+  @Override
+  public double getLoadMillisP99() {
+    return getInfo().getLoadLatency().getPercentileMillis(0.99);
+  }
+
+  @Override
+  public double getLoadMillisP999() {
+    return getInfo().getLoadLatency().getPercentileMillis(0.999);
+  }
+
+  @Override
+  public double getWriterMillisP50() {
+    return getInfo().getWriterLatency().getPercentileMillis(0.5);
+  }
+
+  @Override
+  public double getWriterMillisP99() {
+    return getInfo().getWriterLatency().getPercentileMillis(0.99);
+  }
+
+  @Override
+  public double getWriterMillisP999() {
+    return getInfo().getWriterLatency().getPercentileMillis(0.999);
+  }
+
+  @Override
+  public String getHotKeysByHits() {
+    HotKeySampler s = getInfo().getHotKeys();
+    return s == null ? "" : HotKeySampler.toString(s.getTopHits());
+  }
+
+  @Override
+  public String getHotKeysByMisses() {
+    HotKeySampler s = getInfo().getHotKeys();
+    return s == null ? "" : HotKeySampler.toString(s.getTopMisses());
+  }
+
+  @Override
+  public String getHotKeysByLoadTime() {
+    HotKeySampler s = getInfo().getHotKeys();
+    return s == null ? "" : HotKeySampler.toMillisString(s.getTopLoadNanos());
+  }
+
   @Override
   public String getIntegrityDescriptor() {
-    return getInfo().getIntegrityDescriptor();
+    return cache.getInfo().getIntegrityDescriptor();
   }
 
   @Override
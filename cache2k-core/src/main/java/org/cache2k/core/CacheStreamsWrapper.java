@@ -0,0 +1,71 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.CacheEntry;
+import org.cache2k.CacheStreams;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams over the entries of a cache. The Java 8 types are only used
+ * within this class and the {@link CacheEntrySpliterator}, which are loaded on request.
+ *
+ * @author Jens Wilke
+ */
+public class CacheStreamsWrapper<K, V> implements CacheStreams<K, V> {
+
+  private final InternalCache<K, V> cache;
+
+  public CacheStreamsWrapper(InternalCache<K, V> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Split the heap hash table. With a storage tier the entries are iterated via
+   * the storage, which does not support splitting.
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public Spliterator<CacheEntry<K, V>> spliterator() {
+    if (cache.getStorage() != null) {
+      return Spliterators.spliteratorUnknownSize(
+        cache.entries().iterator(), CacheEntrySpliterator.CHARACTERISTICS);
+    }
+    HeapCache<K, V> heapCache = cache instanceof WiredCache ?
+      ((WiredCache<K, V>) cache).getHeapCache() : (HeapCache<K, V>) cache;
+    return new CacheEntrySpliterator<K, V>(heapCache);
+  }
+
+  @Override
+  public Stream<CacheEntry<K, V>> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+  @Override
+  public Stream<CacheEntry<K, V>> parallelStream() {
+    return StreamSupport.stream(spliterator(), true);
+  }
+
+}
@@ -142,6 +142,17 @@ public interface CommonMetrics {
    */
   long getGoneSpinCount();
 
+  /**
+   * Duration of the loader calls, including refresh. For an asynchronous loader
+   * the time until the completion callback.
+   */
+  LatencyHistogram getLoadLatency();
+
+  /**
+   * Duration of the writer calls.
+   */
+  LatencyHistogram getWriterLatency();
+
   /**
    * True if statistics are disabled.
    */
@@ -179,10 +190,16 @@ public interface CommonMetrics {
 
     void goneSpin();
 
+    void loadLatency(long nanos);
+
+    void writerLatency(long nanos);
+
   }
 
   class BlackHole implements Updater {
 
+    private static final LatencyHistogram EMPTY_HISTOGRAM = new LatencyHistogram();
+
     @Override
     public void putNewEntry() {
 
@@ -338,6 +355,26 @@ public interface CommonMetrics {
       return 0;
     }
 
+    @Override
+    public void loadLatency(long nanos) {
+
+    }
+
+    @Override
+    public void writerLatency(long nanos) {
+
+    }
+
+    @Override
+    public LatencyHistogram getLoadLatency() {
+      return EMPTY_HISTOGRAM;
+    }
+
+    @Override
+    public LatencyHistogram getWriterLatency() {
+      return EMPTY_HISTOGRAM;
+    }
+
     @Override
     public boolean isDisabled() {
       return true;
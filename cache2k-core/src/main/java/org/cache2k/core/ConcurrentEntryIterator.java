@@ -20,20 +20,21 @@ package org.cache2k.core;
  * #L%
  */
 
-import org.cache2k.core.concurrency.Job;
-
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 /**
  * Iterator over all cache entries.
  *
- * <p>Hash expansion: During the iteration a hash expansion may happen, which means every
- * entry is rehashed. In this case it is most likely that entries are missed.
- * If an expansion occurred, the iteration will restart from the beginning. To ensure that every
- * entry is only iterated once, the iterator has an internal bookkeeping, what was previously
- * iterated.
+ * <p>Hash expansion: The entries are visited in the order of their iteration position within
+ * the hash table, which does not change when the table expands. Every entry present during the
+ * whole iteration is returned exactly once, without bookkeeping of the returned entries. The
+ * entries of one bucket are copied at once, so an expansion cannot split a bucket that is
+ * partially iterated. See {@link Hash2#collectEntries}.
+ *
+ * <p>Splitting: The range of iteration positions can be split with {@link #trySplit()}
+ * for a parallel traversal.
  *
  * <p>Clear: A clear operation stops current iterations.
  *
@@ -44,17 +45,29 @@ import java.util.NoSuchElementException;
 public class ConcurrentEntryIterator<K, V> implements Iterator<Entry<K, V>> {
 
   private HeapCache<K, V> cache;
-  private Entry<K, V> lastEntry = null;
-  private Entry<K, V> nextEntry = null;
-  private long clearCount;
   private Hash2<K, V> hash;
-  private Entry<K, V>[] hashArray;
-  private HashMap<K, K> seen = new HashMap<K, K>();
+  private final int clearCount;
+  private int position;
+  private int end;
+  private ArrayList<Entry<K, V>> bucket = new ArrayList<Entry<K, V>>();
+  private int bucketIndex;
+  private Entry<K, V> nextEntry = null;
 
   public ConcurrentEntryIterator(HeapCache<K, V> cache) {
+    this(cache, cache.hash, cache.hash.getClearOrCloseCount(), 0, Hash2.ITERATION_POSITIONS);
+    if (cache.isClosed()) {
+      clearOutReferences();
+      throw new CacheClosedException(cache);
+    }
+  }
+
+  private ConcurrentEntryIterator(HeapCache<K, V> cache, Hash2<K, V> hash, int clearCount,
+                                  int position, int end) {
     this.cache = cache;
-    hash = this.cache.hash;
-    switchAndCheckAbort();
+    this.hash = hash;
+    this.clearCount = clearCount;
+    this.position = position;
+    this.end = end;
   }
 
   @Override
@@ -81,121 +94,66 @@ public class ConcurrentEntryIterator<K, V> implements Iterator<Entry<K, V>> {
     throw new UnsupportedOperationException();
   }
 
-  /** Used by the storage code to filter out already iterated keys */
-  public boolean hasBeenIterated(K key, @SuppressWarnings("UnusedParameters") int hashCode) {
-    return seen.containsKey(key);
+  /**
+   * Split off the second half of the remaining iteration positions. Entries already
+   * collected stay with this iterator.
+   *
+   * @return iterator over the second half or {@code null}, if the remaining range
+   *         is too small to split or the iteration ended
+   */
+  public ConcurrentEntryIterator<K, V> trySplit() {
+    if (hash == null || end - position < 2) {
+      return null;
+    }
+    int middle = position + ((end - position) >>> 1);
+    ConcurrentEntryIterator<K, V> it =
+      new ConcurrentEntryIterator<K, V>(cache, hash, clearCount, middle, end);
+    end = middle;
+    return it;
   }
 
   /**
-   * Mark the key as returned by the iteration to suppress doubled iterations when we
-   * need to scan throw twice ore more, e.g. in case of a hash table expansion.
-   *
-   * @param key key object
-   * @param hashCode corresponding modified hash, unused but we keep it if we want to switch to
-   *                  a more efficient hash table
+   * Estimated count of the remaining entries, assuming an even distribution of the
+   * entries over the iteration positions.
    */
-  public void markIterated(K key, @SuppressWarnings("UnusedParameters") int hashCode) {
-    seen.put(key, key);
+  public long estimateSize() {
+    Hash2<K, V> h = hash;
+    if (h == null) {
+      return 0;
+    }
+    return h.getSize() * (end - position) / Hash2.ITERATION_POSITIONS +
+      bucket.size() - bucketIndex;
   }
 
   private Entry<K, V> nextEntry() {
-    Entry<K, V> e;
-    if (hashArray == null) {
+    if (hash == null) {
       return null;
     }
     if (needsAbort()) {
-      if (hash != null && cache.isClosed()) {
+      if (cache.isClosed()) {
         clearOutReferences();
         throw new CacheClosedException(cache);
       }
       clearOutReferences();
       return null;
     }
-    int idx = 0;
-    if (lastEntry != null) {
-      e = lastEntry.another;
-      if (e != null) {
-        e = checkIteratedOrNext(e);
-        if (e != null) {
-          lastEntry = e;
-          return e;
-        }
-      }
-      idx = (cache.extractModifiedHash(lastEntry) & (hashArray.length - 1)) + 1;
+    if (bucketIndex < bucket.size()) {
+      return bucket.get(bucketIndex++);
     }
-    for (;;) {
-      if (idx >= hashArray.length) {
-        if (switchAndCheckAbort()) {
-          return null;
-        }
-        idx = 0;
-      }
-      e = hashArray[idx];
-      if (e != null) {
-        e = checkIteratedOrNext(e);
-        if (e != null) {
-          lastEntry = e;
-          return e;
-        }
-      }
-      idx++;
+    bucket.clear();
+    bucketIndex = 0;
+    position = hash.collectEntries(position, end, bucket);
+    if (bucket.isEmpty()) {
+      clearOutReferences();
+      return null;
     }
+    return bucket.get(bucketIndex++);
   }
 
   private boolean needsAbort() {
     return clearCount != hash.getClearOrCloseCount();
   }
 
-  private Entry<K, V> checkIteratedOrNext(Entry<K, V> e) {
-    do {
-      K key = cache.extractKeyObj(e);
-      boolean notYetIterated = !seen.containsKey(key);
-      if (notYetIterated) {
-        markIterated(key, cache.extractModifiedHash(e));
-        return e;
-      }
-      e = e.another;
-    } while (e != null);
-    return null;
-  }
-
-  /**
-   * Check for expansion and abort criteria.
-   *
-   * @return true, if iteration should abort
-   */
-  private boolean switchAndCheckAbort() {
-    if (Thread.holdsLock(cache.lock)) {
-      return switchCheckAndAbortLocked();
-    }
-    return cache.executeWithGlobalLock(new Job<Boolean>() {
-      @Override
-      public Boolean call() {
-        return switchCheckAndAbortLocked();
-      }
-    });
-  }
-
-  /**
-   * Check for expansion and abort criteria.
-   *
-   * @return true, if iteration should abort
-   */
-  private Boolean switchCheckAndAbortLocked() {
-    if (!hasExpansionOccurred()) {
-      clearOutReferences();
-      return true;
-    }
-    hashArray = hash.getEntries();
-    clearCount = hash.getClearOrCloseCount();
-    boolean cacheClosed = hashArray == null;
-    if (cacheClosed) {
-      clearOutReferences();
-      throw new CacheClosedException(cache);
-    }
-    return false;
-  }
-
   /**
    * At the end or at an iteration abort, clear the references. This is a memory leak protection:
    * if this is not happening a kept reference to an iterator may prevent the whole cache from
@@ -203,16 +161,7 @@ public class ConcurrentEntryIterator<K, V> implements Iterator<Entry<K, V>> {
    */
   private void clearOutReferences() {
     hash = null;
-    hashArray = null;
-    seen = null;
-  }
-
-  /**
-   * True if hash table expanded while iterating. Triggers another
-   * scan over the hash tables. True also before first run.
-   */
-  private boolean hasExpansionOccurred() {
-    return hashArray != hash.getEntries();
+    bucket = null;
   }
 
 }
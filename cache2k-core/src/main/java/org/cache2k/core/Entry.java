@@ -76,6 +76,12 @@ class CompactEntry<K, V> {
   /**
    * Hit counter. Modified directly by heap cache and eviction algorithm.
    *
+   * <p>A 32 bit counter would not make the entry smaller: objects are aligned to 8 bytes
+   * and the fields of the compact entry take 52 bytes with compressed references. To
+   * save the next 8 bytes, the counter would need to share a word with the clock and
+   * weight bits or the processing state, which are written by other threads without
+   * a common lock.
+   *
    * @see HeapCache#recordHit(Entry)
    */
   public long hitCnt;
@@ -145,6 +151,13 @@ class CompactEntry<K, V> {
  * application when it is locked and the values are stable, that is for example
  * when the loader is called.
  *
+ * <p>Instances of this class are the compact form of an entry, without the reference
+ * for timer tasks, entry actions and additional information, saving 8 bytes per entry.
+ * Caches that need timer tasks or a loader use the {@link ExtendedEntry}. With compressed
+ * references a compact entry takes 64 bytes, an extended entry 72 bytes, which is
+ * checked by {@code CompactEntryTest}. The counters and the replacement links are
+ * not packed, see {@link #hitCnt}.
+ *
  * @author Jens Wilke
  */
 @SuppressWarnings("unchecked")
@@ -186,12 +199,6 @@ public class Entry<K, V> extends CompactEntry<K, V>
   public static final int GONE = 8;
   public static final int GONE_OTHER = 15;
 
-  /**
-   * Usually this contains the reference to the timer task. In some cases, like when exceptions
-   * happen we will link to the PiggyBack object to add more information as needed.
-   */
-  private Object misc;
-
   /**
    * Time the entry was last updated by put or by fetching it from the cache loader.
    * The time is the time in millis times 2. A set bit 1 means the entry is fetched from
@@ -207,7 +214,10 @@ public class Entry<K, V> extends CompactEntry<K, V>
   /** Lru list: pointer to previous element or list head */
   public Entry prev;
 
-  /** Marker for Clock-PRO clock */
+  /**
+   * Marker for Clock-PRO clock in the sign bit, the eviction queue in the two bits
+   * below and the compressed weight in the lower 16 bits.
+   */
   private int hotAndWeight;
 
   public Entry(K key, int hashCode) {
@@ -521,15 +531,26 @@ public class Entry<K, V> extends CompactEntry<K, V>
     }
   }
 
+  /**
+   * Queue of an eviction algorithm with more than one queue, 0 to 3.
+   */
+  public int getEvictionQueue() {
+    return (hotAndWeight >>> 29) & 0x3;
+  }
+
+  public void setEvictionQueue(int q) {
+    hotAndWeight = hotAndWeight & 0x9fffffff | (q << 29);
+  }
+
   /**
    * Store weight as 16 bit floating point number.
    */
   public void setCompressedWeight(int v) {
-    hotAndWeight = hotAndWeight & 0x80000000 | v;
+    hotAndWeight = hotAndWeight & 0xffff0000 | v;
   }
 
   public int getCompressedWeight() {
-    return hotAndWeight & 0x7fffffff;
+    return hotAndWeight & 0xffff;
   }
 
 
@@ -573,7 +594,7 @@ public class Entry<K, V> extends CompactEntry<K, V>
     sb.append(", key=");
     Object key = getKeyObj();
     if (key == null) {
-      sb.append(hashCode);
+      sb.append(getKey());
     } else {
       sb.append(key);
       if (c != null && (HeapCache.modifiedHash(key.hashCode()) != hashCode)) {
@@ -621,7 +642,29 @@ public class Entry<K, V> extends CompactEntry<K, V>
     return toString(null);
   }
 
+  /**
+   * Usually this contains the reference to the timer task. In some cases, like when exceptions
+   * happen we will link to the PiggyBack object to add more information as needed.
+   * The field is only present in the {@link ExtendedEntry}.
+   */
+  Object getMisc() {
+    return null;
+  }
+
+  /**
+   * A compact entry has no room for timer tasks, entry actions, load exceptions or the
+   * refresh probation. The entry actions are kept by the cache. The other information
+   * is not needed by the configurations using compact entries, which is checked when
+   * the cache is built, see {@link HeapCache#setCompactEntries(boolean)}.
+   */
+  void setMisc(Object v) {
+    if (v != null) {
+      throw new CacheInternalError("compact entry, cannot keep: " + v);
+    }
+  }
+
   public SimpleTimerTask getTask() {
+    Object misc = getMisc();
     if (misc instanceof SimpleTimerTask) {
       return (SimpleTimerTask) misc;
     }
@@ -633,7 +676,7 @@ public class Entry<K, V> extends CompactEntry<K, V>
   }
 
   public <X> X getPiggyBack(Class<X> type) {
-    Object obj = misc;
+    Object obj = getMisc();
     if (!(obj instanceof PiggyBack)) {
       return null;
     }
@@ -648,8 +691,9 @@ public class Entry<K, V> extends CompactEntry<K, V>
   }
 
   public void setTask(SimpleTimerTask v) {
+    Object misc = getMisc();
     if (misc == null || misc instanceof SimpleTimerTask) {
-      misc = v;
+      setMisc(v);
       return;
     }
     TaskPiggyBack pb = getPiggyBack(TaskPiggyBack.class);
@@ -657,15 +701,16 @@ public class Entry<K, V> extends CompactEntry<K, V>
       pb.task = v;
       return;
     }
-    misc = new TaskPiggyBack(v, (PiggyBack) misc);
+    setMisc(new TaskPiggyBack(v, (PiggyBack) misc));
   }
 
   public void setEntryAction(EntryAction action) {
     action.next = existingPiggyBackForInserting();
-    misc = action;
+    setMisc(action);
   }
 
   public EntryAction getEntryAction() {
+    Object misc = getMisc();
     if (!(misc instanceof PiggyBack)) {
       return null;
     }
@@ -680,11 +725,12 @@ public class Entry<K, V> extends CompactEntry<K, V>
   }
 
   public void resetEntryAction() {
+    Object misc = getMisc();
     if (!(misc instanceof PiggyBack)) {
       return;
     }
     if (misc instanceof EntryAction) {
-      misc = ((PiggyBack) misc).next;
+      setMisc(((PiggyBack) misc).next);
       return;
     }
     PiggyBack at = ((PiggyBack) misc);
@@ -703,7 +749,7 @@ public class Entry<K, V> extends CompactEntry<K, V>
    * piggy back.
    */
   private PiggyBack existingPiggyBackForInserting() {
-    Object misc = this.misc;
+    Object misc = getMisc();
     if (misc instanceof SimpleTimerTask) {
       return new TaskPiggyBack((SimpleTimerTask) misc, null);
     }
@@ -716,7 +762,7 @@ public class Entry<K, V> extends CompactEntry<K, V>
       inf.info = w;
       return;
     }
-    misc = new LoadExceptionPiggyBack(w, existingPiggyBackForInserting());
+    setMisc(new LoadExceptionPiggyBack(w, existingPiggyBackForInserting()));
   }
 
   /**
@@ -740,7 +786,7 @@ public class Entry<K, V> extends CompactEntry<K, V>
       inf.nextRefreshTime = nrt;
       return;
     }
-    misc = new RefreshProbationPiggyBack(nrt, existingPiggyBackForInserting());
+    setMisc(new RefreshProbationPiggyBack(nrt, existingPiggyBackForInserting()));
   }
 
   public long getRefreshProbationNextRefreshTime() {
@@ -91,6 +91,10 @@ public abstract class EntryAction<K, V, R> extends Entry.PiggyBack implements
   long lastRefreshTime;
   long loadStartedTime;
   long loadCompletedTime;
+  /**
+   * Nano time when the loader was called, for the latency metrics.
+   */
+  long loaderCallNanos;
   RuntimeException exceptionToPropagate;
   boolean remove;
   /** Special case of remove, expiry is in the past */
@@ -234,6 +238,13 @@ public abstract class EntryAction<K, V, R> extends Entry.PiggyBack implements
     return null;
   }
 
+  /**
+   * Provide the storage tier, if present.
+   */
+  protected StorageAdapter storage() {
+    return null;
+  }
+
   /**
    * Provide the standard metrics for updating.
    */
@@ -394,6 +405,10 @@ public abstract class EntryAction<K, V, R> extends Entry.PiggyBack implements
     if (e == NON_FRESH_DUMMY) {
       e = heapCache.lookupEntry(key);
       if (e == null) {
+        if (storage() != null) {
+          retrieveDataFromStorage();
+          return;
+        }
         heapMiss();
         return;
       }
@@ -401,6 +416,19 @@ public abstract class EntryAction<K, V, R> extends Entry.PiggyBack implements
     heapHit(e);
   }
 
+  /**
+   * Entry is not in the heap, insert and lock a new entry, which is filled with
+   * the data from the storage tier. The action continues with the locked entry.
+   */
+  public void retrieveDataFromStorage() {
+    if (lockForNoHit(READ)) { return; }
+    if (heapDataValid) {
+      heapHit(heapEntry);
+      return;
+    }
+    heapMiss();
+  }
+
   private long millis() {
     return heapCache.getClock().millis();
   }
@@ -554,6 +582,9 @@ public abstract class EntryAction<K, V, R> extends Entry.PiggyBack implements
     }
     valueDefinitelyLoaded = true;
     loaderWasCalled = true;
+    if (!metrics().isDisabled() || heapCache.hotKeys != null) {
+      loaderCallNanos = System.nanoTime();
+    }
     AsyncCacheLoader<K, V> asyncLoader;
     if ((asyncLoader = asyncLoader()) != null) {
       heapEntry.nextProcessingStep(LOAD_ASYNC);
@@ -614,11 +645,30 @@ public abstract class EntryAction<K, V, R> extends Entry.PiggyBack implements
           return true;
         }
         if (waitForConcurrentProcessingOrStop(ps, e)) {
-          return false;
+          break;
         }
       }
       e = heapCache.lookupOrNewEntryNoHitRecord(key);
     }
+    readFromStorageIfVirgin();
+    return false;
+  }
+
+  /**
+   * A new entry was inserted and locked. If there is a storage tier, the
+   * entry data may be present there. Move it into the heap entry.
+   */
+  private void readFromStorageIfVirgin() {
+    StorageAdapter storage = storage();
+    if (storage == null || !heapEntry.isVirgin()) {
+      return;
+    }
+    storageRead = true;
+    if (heapCache.insertFromStorage(heapEntry, storage)) {
+      heapDataValid = heapEntry.isDataAvailableOrProbation();
+    } else {
+      storageMiss = true;
+    }
   }
 
   /**
@@ -628,7 +678,7 @@ public abstract class EntryAction<K, V, R> extends Entry.PiggyBack implements
    */
   private boolean tryEnqueueOperationInCurrentlyProcessing(Entry e) {
     if (e.isProcessing() && completedCallback != null) {
-      EntryAction runningAction = e.getEntryAction();
+      EntryAction runningAction = heapCache.getEntryAction(e);
       if (runningAction != null) {
         runningAction.enqueueToExecute(this);
         return true;
@@ -646,7 +696,7 @@ public abstract class EntryAction<K, V, R> extends Entry.PiggyBack implements
   private boolean waitForConcurrentProcessingOrStop(int ps, Entry e) {
     e.waitForProcessing();
     if (!e.isGone()) {
-      e.startProcessing(ps, this);
+      heapCache.startProcessing(e, ps, this);
       entryLocked = true;
       heapDataValid = e.isDataAvailableOrProbation();
       heapEntry = e;
@@ -703,6 +753,13 @@ public abstract class EntryAction<K, V, R> extends Entry.PiggyBack implements
   public void loadCompleted() {
     heapEntry.nextProcessingStep(LOAD_COMPLETE);
     entryLocked = true;
+    if (!metrics().isDisabled() || heapCache.hotKeys != null) {
+      long nanos = System.nanoTime() - loaderCallNanos;
+      if (!metrics().isDisabled()) {
+        metrics().loadLatency(nanos);
+      }
+      heapCache.recordHotKeyLoad(key, nanos, refresh);
+    }
     if (needsLoadTimes()) {
       loadCompletedTime = millis();
     }
@@ -944,13 +1001,16 @@ public abstract class EntryAction<K, V, R> extends Entry.PiggyBack implements
 
   public void mutationCallWriter() {
     if (remove) {
+      long n0 = writerCallStarted();
       try {
         heapEntry.nextProcessingStep(WRITE);
         writer().delete(key);
       } catch (Throwable t) {
+        writerCallCompleted(n0);
         onWriteFailure(t);
         return;
       }
+      writerCallCompleted(n0);
       onWriteSuccess();
       return;
     }
@@ -959,15 +1019,28 @@ public abstract class EntryAction<K, V, R> extends Entry.PiggyBack implements
       return;
     }
     heapEntry.nextProcessingStep(WRITE);
+    long n0 = writerCallStarted();
     try {
       writer().write(key, newValueOrException);
     } catch (Throwable t) {
+      writerCallCompleted(n0);
       onWriteFailure(t);
       return;
     }
+    writerCallCompleted(n0);
     onWriteSuccess();
   }
 
+  private long writerCallStarted() {
+    return metrics().isDisabled() ? 0 : System.nanoTime();
+  }
+
+  private void writerCallCompleted(long n0) {
+    if (!metrics().isDisabled()) {
+      metrics().writerLatency(System.nanoTime() - n0);
+    }
+  }
+
   @Override
   public void onWriteSuccess() {
     heapEntry.nextProcessingStep(WRITE_COMPLETE);
@@ -1162,7 +1235,7 @@ public abstract class EntryAction<K, V, R> extends Entry.PiggyBack implements
         }
       }
       if (!justExpired) {
-        heapEntry.processingDone(this);
+        heapCache.processingDone(heapEntry, this);
         entryLocked = false;
       }
     }
@@ -1221,9 +1294,11 @@ public abstract class EntryAction<K, V, R> extends Entry.PiggyBack implements
     if (countMiss) {
       if (heapHit) {
         metrics().peekHitNotFresh();
+        heapCache.recordHotKeyMiss(key);
       }
       if (heapMiss) {
         metrics().peekMiss();
+        heapCache.recordHotKeyMiss(key);
       }
     } else if (doNotCountAccess && heapHit) {
       metrics().heapHitButNoRead();
@@ -1273,7 +1348,7 @@ public abstract class EntryAction<K, V, R> extends Entry.PiggyBack implements
    */
   public void abortReleaseLock() {
     synchronized (heapEntry) {
-      heapEntry.processingDone(this);
+      heapCache.processingDone(heapEntry, this);
       if (heapEntry.isVirgin()) {
         heapCache.removeEntry(heapEntry);
       }
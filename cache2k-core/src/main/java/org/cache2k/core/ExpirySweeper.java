@@ -0,0 +1,132 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.core.timing.Scheduler;
+import org.cache2k.core.util.InternalClock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reclaims expired entries of a cache that runs without per entry timer tasks.
+ * The entries carry their expiry time as negative value, so an access checks
+ * the time and does not return an expired value. The sweeper walks the hash table
+ * in slices. One full pass is spread over the sweep interval, which bounds the
+ * time an expired entry stays in memory.
+ *
+ * <p>Expired entries of a slice are collected without locking, the expiry is done
+ * via the normal timer event path, which checks the time again while holding the
+ * entry lock.
+ *
+ * @author Jens Wilke
+ */
+public class ExpirySweeper<K, V> implements Runnable {
+
+  static final int SLICES = 64;
+
+  private final HeapCache<K, V> heapCache;
+  private final InternalCache<K, V> cache;
+  private final InternalClock clock;
+  private final Scheduler scheduler;
+  private final long sliceMillis;
+  private int slice;
+  private volatile boolean closed;
+
+  /**
+   * @param cache the cache to send the expiry events to, either the heap cache or
+   *              the wired cache
+   * @param sweepIntervalMillis time for a pass over all entries
+   */
+  public ExpirySweeper(InternalCache<K, V> cache, InternalClock clock,
+                       Scheduler scheduler, long sweepIntervalMillis) {
+    this.cache = cache;
+    heapCache = cache instanceof WiredCache ?
+      ((WiredCache<K, V>) cache).getHeapCache() : (HeapCache<K, V>) cache;
+    this.clock = clock;
+    this.scheduler = scheduler;
+    sliceMillis = Math.max(1, sweepIntervalMillis / SLICES);
+  }
+
+  public void start() {
+    scheduler.schedule(this, clock.millis() + sliceMillis);
+  }
+
+  /**
+   * Stop sweeping. The closed state of the cache is not checked by the sweeper, since
+   * the cache is not yet marked as open when the timing is initialized.
+   */
+  public void close() {
+    closed = true;
+  }
+
+  @Override
+  public void run() {
+    if (closed) {
+      return;
+    }
+    try {
+      sweep(slice, SLICES);
+    } catch (CacheClosedException ignore) {
+    } catch (Throwable ex) {
+      cache.logAndCountInternalException("Expiry sweep exception", ex);
+    }
+    slice = (slice + 1) % SLICES;
+    start();
+  }
+
+  /**
+   * Expire all entries in the part of the hash table.
+   *
+   * @return number of expired entries found
+   */
+  int sweep(int slice, int sliceCount) {
+    Entry<K, V>[] tab = heapCache.hash.getEntries();
+    if (tab == null) {
+      return 0;
+    }
+    int start = (int) ((long) tab.length * slice / sliceCount);
+    int end = (int) ((long) tab.length * (slice + 1) / sliceCount);
+    long now = clock.millis();
+    List<Entry<K, V>> expired = new ArrayList<Entry<K, V>>();
+    for (int i = start; i < end; i++) {
+      for (Entry<K, V> e = tab[i]; e != null; e = e.another) {
+        if (isExpired(e, now)) {
+          expired.add(e);
+        }
+      }
+    }
+    for (Entry<K, V> e : expired) {
+      synchronized (e) {
+        if (isExpired(e, now)) {
+          cache.timerEventExpireEntry(e, e.getTask());
+        }
+      }
+    }
+    return expired.size();
+  }
+
+  private static boolean isExpired(Entry<?, ?> e, long now) {
+    long nrt = e.getNextRefreshTime();
+    return nrt < 0 && now >= -nrt;
+  }
+
+}
@@ -0,0 +1,52 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+/**
+ * Entry with a reference for the timer task, the entry action and further
+ * information, needed if the cache expires via timer, has a loader or
+ * is wired with listeners, writer or a storage tier.
+ *
+ * @author Jens Wilke
+ * @see Entry
+ */
+public class ExtendedEntry<K, V> extends Entry<K, V> {
+
+  private Object misc;
+
+  public ExtendedEntry(K key, int hashCode) {
+    super(key, hashCode);
+  }
+
+  public ExtendedEntry() { this(null, 0); }
+
+  @Override
+  Object getMisc() {
+    return misc;
+  }
+
+  @Override
+  void setMisc(Object v) {
+    misc = v;
+  }
+
+}
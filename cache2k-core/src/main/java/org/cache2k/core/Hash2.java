@@ -26,16 +26,34 @@ import org.cache2k.core.concurrency.Locks;
 import org.cache2k.core.concurrency.OptimisticLock;
 import org.cache2k.core.util.Log;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Simple concurrent hash table implementation using optimistic locking
  * for the segments locks.
  *
+ * <p>The lock segment of an entry is selected by the lower bits of the hash code, which
+ * are also part of the table index. Every bucket belongs to exactly one segment. This allows
+ * an incremental expansion: A new table with double the size is allocated and each segment
+ * is moved over to the new table while holding only its own segment lock. Until a segment
+ * is moved, its entries are read from and updated in the previous table. A segment is moved
+ * by the thread that triggers the expansion or by the next insert into the segment.
+ * Operations that need the complete table finish the expansion first.
+ * During the expansion both tables are kept in memory.
+ *
+ * <p>The iteration does not need the complete table. Each entry has a fixed iteration
+ * position, which is the lower bits of its hash code in reverse order. The entries of a bucket
+ * have a contiguous range of positions, which is split into two halves when the table
+ * doubles. An iteration in position order visits every entry exactly once, regardless
+ * of expansions.
+ *
  * @author Jens Wilke
  * @see OptimisticLock
  */
-@SuppressWarnings({"WeakerAccess", "rawtypes"})
+@SuppressWarnings({"WeakerAccess", "rawtypes", "unchecked"})
 public class Hash2<K, V> {
 
   /**
@@ -50,8 +68,20 @@ public class Hash2<K, V> {
    */
   private static final int HASH_LOAD_PERCENT = 64;
 
+  /**
+   * Maximum size of the hash table.
+   */
+  private static final int MAXIMUM_HASH_SIZE = 1 << 30;
+
+  /**
+   * Upper bound, exclusive, of the iteration positions.
+   *
+   * @see #collectEntries(int, int, List)
+   */
+  public static final int ITERATION_POSITIONS = MAXIMUM_HASH_SIZE;
+
   private static final int LOCK_SEGMENTS;
-  private static final int LOCK_MASK;
+  static final int LOCK_MASK;
 
   /* GraalVM: This runs at runtime, see native-image.properties */
   static {
@@ -60,6 +90,9 @@ public class Hash2<K, V> {
     LOCK_MASK = LOCK_SEGMENTS - 1;
   }
 
+  private static final AtomicReferenceFieldUpdater<Hash2, Table> TABLE_UPDATER =
+    AtomicReferenceFieldUpdater.newUpdater(Hash2.class, Table.class, "table");
+
   /**
    * Counts clear and close operation on the hash.
    * Needed for the iterator to detect the need for an abort.
@@ -74,11 +107,33 @@ public class Hash2<K, V> {
    */
   private long segmentMaxFill;
 
-  private Entry<K, V>[] entries;
-  private final OptimisticLock[] locks;
+  /**
+   * Fill percentage limit of this hash table.
+   *
+   * @see #HASH_LOAD_PERCENT
+   */
+  private int loadPercent = HASH_LOAD_PERCENT;
+
+  /**
+   * Size of the hash table after creation or clear.
+   */
+  private int initialSize = Math.max(INITIAL_HASH_SIZE, LOCK_SEGMENTS * 4);
+
+  /**
+   * Current table, {@code null} if closed. Replaced without holding the segment locks
+   * when an expansion starts, since all entries stay in place until a segment is moved.
+   */
+  volatile Table<K, V> table;
+  final OptimisticLock[] locks;
   private final AtomicLong[] segmentSize;
 
-  private final Cache cache;
+  /**
+   * Serializes starting an expansion and finishing an ongoing one. Lock order is
+   * expand lock before the segment locks.
+   */
+  private final Object expandLock = new Object();
+
+  final Cache cache;
 
   /**
    *
@@ -100,15 +155,42 @@ public class Hash2<K, V> {
     initArray();
   }
 
-  @SuppressWarnings("unchecked")
   private void initArray() {
-    int len = Math.max(INITIAL_HASH_SIZE, LOCK_SEGMENTS * 4);
-    entries = new Entry[len];
+    table = new Table<K, V>(new Entry[initialSize], null);
     calcMaxFill();
   }
 
+  /**
+   * Size the table to hold the expected number of entries without expansion and set the
+   * fill percentage limit. The expected count gets some headroom, since the entries are not
+   * distributed evenly among the segments. Called after construction before the first
+   * insert, also the size after a clear.
+   *
+   * @param expectedEntryCount expected entries, or a negative value to keep the default
+   * @param loadPercent fill percentage limit, or 0 to keep the default
+   */
+  public void presize(long expectedEntryCount, int loadPercent) {
+    if (loadPercent < 0) {
+      throw new IllegalArgumentException("hashLoadPercent must be positive: " + loadPercent);
+    }
+    if (loadPercent > 0) {
+      this.loadPercent = loadPercent;
+    }
+    if (expectedEntryCount > 0) {
+      double perSegment = (double) expectedEntryCount / LOCK_SEGMENTS;
+      double required = (perSegment + 3 * Math.sqrt(perSegment) + 1) * LOCK_SEGMENTS;
+      double size = required * 100 / this.loadPercent;
+      int len = initialSize;
+      while (len < size && len < MAXIMUM_HASH_SIZE) {
+        len <<= 1;
+      }
+      initialSize = len;
+    }
+    initArray();
+  }
+
   public long getEntryCapacity() {
-    return entries.length * 1L * HASH_LOAD_PERCENT / 100;
+    return table.entries.length * 1L * loadPercent / 100;
   }
 
   /** For testing */
@@ -116,6 +198,17 @@ public class Hash2<K, V> {
     return segmentMaxFill;
   }
 
+  /** For testing */
+  boolean isExpansionOngoing() {
+    Table<K, V> t = table;
+    for (int si = 0; si < LOCK_SEGMENTS; si++) {
+      if (t.segments[si] != t.entries) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private void calcMaxFill() {
     segmentMaxFill = getEntryCapacity() / LOCK_SEGMENTS;
   }
@@ -128,10 +221,11 @@ public class Hash2<K, V> {
     int si = hash & LOCK_MASK;
     OptimisticLock l = locks[si];
     long stamp = l.tryOptimisticRead();
-    Entry<K, V>[] tab = entries;
-    if (tab == null) {
+    Table<K, V> t = table;
+    if (t == null) {
       throw new CacheClosedException(cache);
     }
+    Entry<K, V>[] tab = t.segments[si];
     Entry<K, V> e;
     int n = tab.length;
     int mask = n - 1;
@@ -148,10 +242,11 @@ public class Hash2<K, V> {
     }
     stamp = l.readLock();
     try {
-      tab = entries;
-      if (tab == null) {
+      t = table;
+      if (t == null) {
         throw new CacheClosedException(cache);
       }
+      tab = t.segments[si];
       n = tab.length;
       mask = n - 1;
       idx = hash & (mask);
@@ -173,22 +268,35 @@ public class Hash2<K, V> {
     return (ek = e.getKeyObj()) == key || (ek.equals(key));
   }
 
+  /**
+   * True if the new entry {@code e} has the same key as the entry {@code f}
+   * already present in the hash table. Only called when the hash codes match.
+   */
+  protected boolean entryKeyIsEqual(Entry<K, V> e, Entry<K, V> f) {
+    return keyObjIsEqual(e.getKeyObj(), f);
+  }
+
 
 
   /**
-   * Insert an entry. Checks if an entry already exists.
+   * Insert an entry. Checks if an entry already exists. If an expansion is ongoing
+   * the segment is moved to the new table first.
    */
   public Entry<K, V> insertWithinLock(Entry<K, V> e, int hash, int keyValue) {
-    K key = e.getKeyObj();
     int si = hash & LOCK_MASK;
-    Entry<K, V> f; Object ek; Entry<K, V>[] tab = entries;
-    if (tab == null) {
+    Entry<K, V> f; Table<K, V> t = table;
+    if (t == null) {
       throw new CacheClosedException(cache);
     }
+    Entry<K, V>[] tab = t.segments[si];
+    if (tab != t.entries) {
+      moveSegmentWithinLock(t, si);
+      tab = t.entries;
+    }
     int n = tab.length, mask = n - 1, idx = hash & (mask);
     f = tab[idx];
     while (f != null) {
-      if (f.hashCode == keyValue && ((ek = f.getKeyObj()) == key || (ek.equals(key)))) {
+      if (f.hashCode == keyValue && entryKeyIsEqual(e, f)) {
         return f;
       }
       f = f.another;
@@ -201,8 +309,7 @@ public class Hash2<K, V> {
 
   /**
    * Checks whether expansion is needed and expand when {@link #insertWithinLock(Entry, int, int)}
-   * is used. No lock may be hold when calling this method, since the table must be locked
-   * completely using the proper lock order.
+   * is used. No lock may be hold when calling this method, since segment locks are acquired.
    *
    * <p>Need for expansion is only checked by comparing whether the associated segment is
    * full. Should be called after insert after giving up the lock.
@@ -215,6 +322,21 @@ public class Hash2<K, V> {
     }
   }
 
+  /**
+   * Number of lock segments, see {@link #segmentIndex(int)}
+   */
+  public int getSegmentCount() {
+    return LOCK_SEGMENTS;
+  }
+
+  /**
+   * Index of the lock segment for the modified hash code. Entries with the same
+   * segment index share the same segment lock.
+   */
+  public int segmentIndex(int hash) {
+    return hash & LOCK_MASK;
+  }
+
   public OptimisticLock getSegmentLock(int hash) {
     return locks[hash & LOCK_MASK];
   }
@@ -231,38 +353,19 @@ public class Hash2<K, V> {
     OptimisticLock l = locks[si];
     long stamp = l.writeLock();
     try {
-      Entry<K, V> f; Entry<K, V>[] tab = entries;
-      if (tab == null) {
-        throw new CacheClosedException(cache);
-      }
-      int n = tab.length, mask = n - 1, idx = hash & (mask);
-      f = tab[idx];
-      if (f == e) {
-        tab[idx] = f.another;
-        segmentSize[si].decrementAndGet();
-        return true;
-      }
-      while (f != null) {
-        Entry<K, V> another = f.another;
-        if (another == e) {
-          f.another = another.another;
-          segmentSize[si].decrementAndGet();
-          return true;
-        }
-        f = another;
-      }
+      return removeWithinLock(e, hash);
     } finally {
       l.unlockWrite(stamp);
     }
-    return false;
   }
 
   public boolean removeWithinLock(Entry<K, V> e, int hash) {
     int si = hash & LOCK_MASK;
-    Entry<K, V> f; Entry<K, V>[] tab = entries;
-    if (tab == null) {
+    Entry<K, V> f; Table<K, V> t = table;
+    if (t == null) {
       throw new CacheClosedException(cache);
     }
+    Entry<K, V>[] tab = t.segments[si];
     int n = tab.length, mask = n - 1, idx = hash & (mask);
     f = tab[idx];
     if (f == e) {
@@ -282,23 +385,94 @@ public class Hash2<K, V> {
     return false;
   }
 
-
   /**
-   * Acquire all segment locks and rehash, if really needed.
+   * Start the expansion, if really needed, and move the full segment to the new table.
+   * The other segments are moved by subsequent inserts.
    */
   private void eventuallyExpand(int segmentIndex) {
-    long[] stamps = lockAll();
-    try {
+    synchronized (expandLock) {
       long size = segmentSize[segmentIndex].get();
       if (size <= segmentMaxFill) {
         return;
       }
-      rehash();
+      Table<K, V> t = finishExpansion();
+      if (t == null) {
+        throw new CacheClosedException(cache);
+      }
+      if (!TABLE_UPDATER.compareAndSet(this, t, expandTable(t))) {
+        return;
+      }
+      calcMaxFill();
+    }
+    OptimisticLock l = locks[segmentIndex];
+    long stamp = l.writeLock();
+    try {
+      Table<K, V> t = table;
+      if (t != null) {
+        moveSegmentWithinLock(t, segmentIndex);
+      }
     } finally {
-      unlockAll(stamps);
+      l.unlockWrite(stamp);
     }
   }
 
+  /**
+   * Move all segments that still reside in the previous table. Needs to be called
+   * while holding the expand lock. Each segment lock is acquired separately.
+   *
+   * @return the completed table or {@code null} if closed
+   */
+  private Table<K, V> finishExpansion() {
+    Table<K, V> t = table;
+    for (int si = 0; t != null && si < LOCK_SEGMENTS; si++) {
+      if (t.segments[si] == t.entries) {
+        continue;
+      }
+      OptimisticLock l = locks[si];
+      long stamp = l.writeLock();
+      try {
+        t = table;
+        if (t != null) {
+          moveSegmentWithinLock(t, si);
+        }
+      } finally {
+        l.unlockWrite(stamp);
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Move the entries of one segment from the previous table to the new table, if not done
+   * already. Needs to be called while holding the segment lock.
+   */
+  private void moveSegmentWithinLock(Table<K, V> t, int si) {
+    Entry<K, V>[] src = t.segments[si];
+    Entry<K, V>[] tab = t.entries;
+    if (src == tab) {
+      return;
+    }
+    int i, sl = src.length, mask = tab.length - 1, idx;
+    Entry<K, V> next, e;
+    for (i = si; i < sl; i += LOCK_SEGMENTS) {
+      e = src[i];
+      while (e != null) {
+        next = e.another; idx = modifiedHashCode(e.hashCode) & mask;
+        e.another = tab[idx]; tab[idx] = e;
+        e = next;
+      }
+      src[i] = null;
+    }
+    t.segments[si] = tab;
+  }
+
+  /**
+   * New table with double the size. All segments still point to the existing table.
+   */
+  private Table<K, V> expandTable(Table<K, V> t) {
+    return new Table<K, V>(new Entry[t.entries.length * 2], t.entries);
+  }
+
   /**
    * Acquire all segment locks and return an array with the lock stamps.
    */
@@ -331,26 +505,18 @@ public class Hash2<K, V> {
   }
 
   /**
-   * Double the hash table size and rehash the entries. Assumes total lock.
+   * Double the hash table size and rehash all entries at once. Assumes total lock.
    */
-  @SuppressWarnings("unchecked")
   void rehash() {
-    Entry<K, V>[] src = entries;
-    if (src == null) {
+    Table<K, V> t = table;
+    if (t == null) {
       throw new CacheClosedException(cache);
     }
-    int i, sl = src.length, n = sl * 2, mask = n - 1, idx;
-    Entry<K, V>[] tab = new Entry[n];
-    long count = 0; Entry next, e;
-    for (i = 0; i < sl; i++) {
-      e = src[i];
-      while (e != null) {
-        count++; next = e.another; idx = modifiedHashCode(e.hashCode) & mask;
-        e.another = tab[idx]; tab[idx] = e;
-        e = next;
-      }
+    t = expandTable(t);
+    for (int si = 0; si < LOCK_SEGMENTS; si++) {
+      moveSegmentWithinLock(t, si);
     }
-    entries = tab;
+    table = t;
     calcMaxFill();
   }
 
@@ -395,29 +561,169 @@ public class Hash2<K, V> {
    */
   public void close() {
     clearOrCloseCount++;
-    entries = null;
+    table = null;
   }
 
   /**
    * Count the entries in the hash table, by scanning through the hash table.
-   * This is used for integrity checks.
+   * This is used for integrity checks. Segments not yet moved by an ongoing expansion
+   * are counted in the previous table.
    */
   public long calcEntryCount() {
+    Table<K, V> t = table;
     long count = 0;
-    for (Entry e : entries) {
-      while (e != null) {
-        count++;
-        e = e.another;
+    for (int si = 0; si < LOCK_SEGMENTS; si++) {
+      Entry<K, V>[] tab = t.segments[si];
+      for (int i = si; i < tab.length; i += LOCK_SEGMENTS) {
+        Entry e = tab[i];
+        while (e != null) {
+          count++;
+          e = e.another;
+        }
       }
     }
     return count;
   }
 
   /**
-   * Entry table used by the iterator.
+   * Sum up the hit counters of the entries in the hash table, by scanning through the
+   * hash table without locking. Concurrent updates may or may not be reflected.
+   */
+  public long sumHitCount() {
+    Table<K, V> t = table;
+    long sum = 0;
+    for (int si = 0; si < LOCK_SEGMENTS; si++) {
+      Entry<K, V>[] tab = t.segments[si];
+      for (int i = si; i < tab.length; i += LOCK_SEGMENTS) {
+        Entry e = tab[i];
+        while (e != null) {
+          sum += e.hitCnt;
+          e = e.another;
+        }
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Entry table used by the iterator. An ongoing expansion is finished first, so the
+   * table contains all entries. No segment lock may be hold when calling this method.
+   *
+   * @return the entry table or {@code null} if closed
    */
   public Entry<K, V>[] getEntries() {
-    return entries;
+    synchronized (expandLock) {
+      Table<K, V> t = finishExpansion();
+      return t != null ? t.entries : null;
+    }
+  }
+
+  /**
+   * Collect the entries of the next non-empty bucket at or after the iteration position.
+   * Only entries with a position in the requested range are collected, since a bucket may
+   * cover a bigger range, e.g. a segment not moved yet by an ongoing expansion.
+   * Reads optimistically and only locks the segment if it was modified concurrently.
+   *
+   * @param position start of the iteration positions, inclusive
+   * @param end end of the iteration positions, exclusive
+   * @param buffer empty list the entries are added to
+   * @return the iteration position after the visited bucket or {@code end},
+   *         if no entries were found
+   * @throws CacheClosedException if closed
+   */
+  public int collectEntries(int position, int end, List<Entry<K, V>> buffer) {
+    while (position < end) {
+      OptimisticLock l = locks[reverseLowerBits(position) & LOCK_MASK];
+      long stamp = l.tryOptimisticRead();
+      int next = collectBucket(position, end, buffer);
+      if (!l.validate(stamp)) {
+        buffer.clear();
+        stamp = l.readLock();
+        try {
+          next = collectBucket(position, end, buffer);
+        } finally {
+          l.unlockRead(stamp);
+        }
+      }
+      if (!buffer.isEmpty()) {
+        return next;
+      }
+      position = next;
+    }
+    return end;
+  }
+
+  /**
+   * Collect entries within the range from the bucket covering the iteration position.
+   * The table is read after the lock stamp, so a segment move is either completed and
+   * visible or invalidates the stamp.
+   *
+   * @return the end of the covered positions
+   */
+  private int collectBucket(int position, int end, List<Entry<K, V>> buffer) {
+    Table<K, V> t = table;
+    if (t == null) {
+      throw new CacheClosedException(cache);
+    }
+    int shift = Integer.numberOfLeadingZeros(t.entries.length) - 1;
+    int limit = Math.min(end, ((position >>> shift) + 1) << shift);
+    int hash = reverseLowerBits(position);
+    Entry<K, V>[] tab = t.segments[hash & LOCK_MASK];
+    Entry<K, V> e = tab[hash & (tab.length - 1)];
+    while (e != null) {
+      int p = reverseLowerBits(modifiedHashCode(e.hashCode));
+      if (p >= position && p < limit) {
+        buffer.add(e);
+      }
+      e = e.another;
+    }
+    return limit;
+  }
+
+  /**
+   * Reverse the lower 30 bits. Converts a hash code to its iteration position and back.
+   */
+  static int reverseLowerBits(int v) {
+    return Integer.reverse(v) >>> 2;
+  }
+
+  /**
+   * Return the first entry found at or after the position in the table, for the random
+   * eviction. Does not lock and does not wait for an ongoing expansion, so segments may
+   * be visited in the previous table. Loops infinitely, if the hash table is empty.
+   */
+  public Entry<K, V> pickEntry(int position) {
+    Table<K, V> t = table;
+    int mask = t.entries.length - 1;
+    for (int i = position & mask; ; i = (i + 1) & mask) {
+      Entry<K, V>[] tab = t.segments[i & LOCK_MASK];
+      Entry<K, V> e = tab[i & (tab.length - 1)];
+      if (e != null) {
+        return e;
+      }
+    }
+  }
+
+  /**
+   * Entry table and the table each segment currently resides in. During an expansion
+   * a segment references the previous table until its entries are moved. The segment
+   * references are only updated while holding the segment lock.
+   */
+  static final class Table<K, V> {
+
+    final Entry<K, V>[] entries;
+    final Entry<K, V>[][] segments;
+
+    /**
+     * @param entries the (new) entry table
+     * @param previous table the segments reside in, or {@code null} if not expanding
+     */
+    Table(Entry<K, V>[] entries, Entry<K, V>[] previous) {
+      this.entries = entries;
+      segments = new Entry[LOCK_SEGMENTS][];
+      Arrays.fill(segments, previous != null ? previous : entries);
+    }
+
   }
 
 }
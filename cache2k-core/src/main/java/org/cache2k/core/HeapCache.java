@@ -34,6 +34,8 @@ import org.cache2k.core.operation.ExaminationEntry;
 import org.cache2k.core.operation.ReadOnlyCacheEntry;
 import org.cache2k.core.operation.Semantic;
 import org.cache2k.core.operation.Operations;
+import org.cache2k.core.storageApi.StorageAdapter;
+import org.cache2k.core.storageApi.StorageEntry;
 import org.cache2k.core.concurrency.DefaultThreadFactoryProvider;
 import org.cache2k.core.concurrency.Job;
 import org.cache2k.core.concurrency.OptimisticLock;
@@ -45,10 +47,12 @@ import org.cache2k.core.util.Log;
 import org.cache2k.core.util.TunableConstants;
 import org.cache2k.core.util.TunableFactory;
 import org.cache2k.event.CacheClosedListener;
+import org.cache2k.expiry.ExpiryPolicy;
 import org.cache2k.integration.AdvancedCacheLoader;
 import org.cache2k.integration.CacheLoaderException;
 import org.cache2k.integration.ExceptionPropagator;
 import org.cache2k.integration.RefreshedTimeWrapper;
+import org.cache2k.processor.EntryProcessingResult;
 import org.cache2k.processor.EntryProcessor;
 
 import java.util.Collection;
@@ -60,6 +64,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RejectedExecutionException;
@@ -112,6 +117,12 @@ public class HeapCache<K, V> extends BaseCache<K, V>
   protected InternalClock clock;
   protected Timing<K, V> timing = Timing.ETERNAL;
 
+  /**
+   * Entry actions processing compact entries, see {@link #setCompactEntries(boolean)}.
+   * {@code null} if the cache uses extended entries.
+   */
+  private ConcurrentHashMap<Entry<K, V>, EntryAction> compactEntryActions;
+
   /** Used for tests */
   public Timing<K, V> getTiming() {
     return timing;
@@ -130,6 +141,13 @@ public class HeapCache<K, V> extends BaseCache<K, V>
   protected CacheBaseInfo info;
   CommonMetrics.Updater metrics;
 
+  /**
+   * Tracks the keys with the most hits, misses and load time, {@code null} if not enabled.
+   *
+   * @see Cache2kConfiguration#getHotKeyCount()
+   */
+  HotKeySampler hotKeys;
+
   /**
    * Counts the number of key mutations. The count is not guarded and racy, but does not need
    * to be exact. We don't put it to the metrics, because we do not want to have this disabled.
@@ -156,6 +174,8 @@ public class HeapCache<K, V> extends BaseCache<K, V>
 
   private Executor executor;
 
+  private int bulkParallelism = 1;
+
   protected volatile Executor loaderExecutor = new LazyLoaderExecutor();
 
   /**
@@ -212,6 +232,8 @@ public class HeapCache<K, V> extends BaseCache<K, V>
   private static final int BACKGROUND_REFRESH = 16;
   private static final int UPDATE_TIME_NEEDED = 32;
   private static final int RECORD_REFRESH_TIME = 64;
+  private static final int COMPACT_ENTRIES = 128;
+  private static final int EVICTION_HIT_RECORDING = 256;
 
   protected final boolean isKeepAfterExpired() {
     return (featureBits & KEEP_AFTER_EXPIRED) > 0;
@@ -233,6 +255,21 @@ public class HeapCache<K, V> extends BaseCache<K, V>
 
   protected final boolean isRecordRefreshTime() { return (featureBits & RECORD_REFRESH_TIME) > 0; }
 
+  /**
+   * Entries are created without the reference for timer tasks and further information.
+   *
+   * @see Entry
+   */
+  protected final boolean isCompactEntries() { return (featureBits & COMPACT_ENTRIES) > 0; }
+
+  /**
+   * Hits are passed to the eviction, which records them in its read buffer or counts
+   * them for the adaptive mode.
+   */
+  protected final boolean isEvictionHitRecording() {
+    return (featureBits & EVICTION_HIT_RECORDING) > 0;
+  }
+
   protected final void setFeatureBit(int bitmask, boolean flag) {
     if (flag) {
       featureBits |= bitmask;
@@ -276,6 +313,9 @@ public class HeapCache<K, V> extends BaseCache<K, V>
     setFeatureBit(BACKGROUND_REFRESH, c.isRefreshAhead());
     setFeatureBit(UPDATE_TIME_NEEDED, c.isRecordRefreshedTime());
     setFeatureBit(RECORD_REFRESH_TIME, c.isRecordRefreshedTime());
+    setFeatureBit(EVICTION_HIT_RECORDING, c.isBoostConcurrency() || c.isAdaptiveEviction());
+    bulkParallelism = c.getBulkParallelism();
+    hash.presize(c.getInitialCapacity(), c.getHashLoadPercent());
 
     metrics = TUNABLE.commonMetricsFactory.create(new CommonMetricsFactory.Parameters() {
       @Override
@@ -288,6 +328,9 @@ public class HeapCache<K, V> extends BaseCache<K, V>
         return false;
       }
     });
+    if (c.getHotKeyCount() > 0) {
+      hotKeys = new HotKeySampler(c.getHotKeyCount());
+    }
 
     if (c.getLoaderExecutor() != null) {
       loaderExecutor = createCustomization((CustomizationSupplier<Executor>) c.getLoaderExecutor());
@@ -340,6 +383,59 @@ public class HeapCache<K, V> extends BaseCache<K, V>
     }
   }
 
+  /**
+   * Called from the builder after the timing and the loader are set, if the configuration
+   * does not need timer tasks, a loader or wiring. A configuration that needs timer tasks
+   * or keeps load exception information is rejected, so a compact entry never needs to
+   * keep more than it can.
+   *
+   * <p>A compact entry has no reference to keep the entry action. A reference would add
+   * 8 bytes to each entry, because of the object alignment, so the entry actions are kept
+   * in a map of the cache. The map only holds entries that are processed by an entry
+   * action at the moment, which happens only for asynchronous operations, so the map is
+   * usually empty.
+   */
+  public void setCompactEntries(boolean f) {
+    if (f && (loader != null || timing.isTimerTaskUsed())) {
+      throw new IllegalStateException(
+        "compact entries cannot keep timer tasks or load exception information");
+    }
+    setFeatureBit(COMPACT_ENTRIES, f);
+    compactEntryActions = f ? new ConcurrentHashMap<Entry<K, V>, EntryAction>() : null;
+  }
+
+  /**
+   * Start processing of the entry by the entry action. Called while holding the entry lock.
+   */
+  void startProcessing(Entry<K, V> e, int ps, EntryAction action) {
+    if (compactEntryActions != null) {
+      e.startProcessing(ps, null);
+      compactEntryActions.put(e, action);
+      return;
+    }
+    e.startProcessing(ps, action);
+  }
+
+  /**
+   * Entry action processing the entry or {@code null}. Called while holding the entry lock.
+   */
+  EntryAction getEntryAction(Entry<K, V> e) {
+    if (compactEntryActions != null) {
+      return compactEntryActions.get(e);
+    }
+    return e.getEntryAction();
+  }
+
+  /**
+   * Processing by the entry action is done. Called while holding the entry lock.
+   */
+  void processingDone(Entry<K, V> e, EntryAction action) {
+    if (compactEntryActions != null) {
+      compactEntryActions.remove(e);
+    }
+    e.processingDone(action);
+  }
+
   public void setClock(InternalClock clock) {
     this.clock = clock;
   }
@@ -573,9 +669,23 @@ public class HeapCache<K, V> extends BaseCache<K, V>
    * the exact correctness of the access statistics.
    *
    * <p>Using a 64 bit counter per entry is basically a big waste of memory. When reducing
-   * to a 32 bit value is has approximately a negative performance impact of 30%.
+   * to a 32 bit value is has approximately a negative performance impact of 30%. Because
+   * of the object alignment a 32 bit counter alone does not reduce the entry size, see
+   * {@link Entry#hitCnt}.
+   *
+   * <p>With {@link Cache2kConfiguration#isBoostConcurrency()} the access is recorded in a
+   * read buffer of the eviction instead, so reading threads do not write to a shared entry.
+   * With {@link Cache2kConfiguration#isAdaptiveEviction()} the eviction counts the hits
+   * of an adaption period as well.
    */
   protected void recordHit(Entry e) {
+    if (hotKeys != null) {
+      hotKeys.hit(e);
+    }
+    if (isEvictionHitRecording()) {
+      eviction.recordHit(e);
+      return;
+    }
     e.hitCnt++;
   }
 
@@ -795,6 +905,39 @@ public class HeapCache<K, V> extends BaseCache<K, V>
     }
   }
 
+  /**
+   * Put within the entry lock for an entry holding its value as primitive. Does the
+   * same as {@link #putValue}, but writes the primitive directly into the entry. Only
+   * an expiry policy needs the value object, so the caller passes a boxed value if
+   * {@link #isValueNeededForPut()} is true, otherwise {@code null}.
+   *
+   * @param bits the primitive value, see {@link PrimitiveValueEntry#setRawValue(long)}
+   */
+  protected final void putPrimitiveValue(Entry<K, V> e, long bits, V value) {
+    long t = isUpdateTimeNeeded() ? clock.millis() : 0;
+    long nextRefreshTime;
+    try {
+      nextRefreshTime = timing.calculateNextRefreshTime(e, value, t);
+    } catch (Exception ex) {
+      insertUpdateStats(e, value, t, t, INSERT_STAT_PUT, Long.MAX_VALUE, false);
+      throw new ExpiryPolicyException(ex);
+    }
+    if (isRecordRefreshTime()) {
+      e.setRefreshTime(t);
+    }
+    ((PrimitiveValueEntry) e).setRawValue(bits);
+    e.resetSuppressedLoadExceptionInformation();
+    insertUpdateStats(e, value, t, t, INSERT_STAT_PUT, nextRefreshTime, false);
+    restartTimer(e, nextRefreshTime);
+  }
+
+  /**
+   * True, if {@link #putPrimitiveValue} needs the boxed value.
+   */
+  protected final boolean isValueNeededForPut() {
+    return timing.isValueNeeded();
+  }
+
   @Override
   public boolean replace(K key, V newValue) {
     return replace(key, false, null, newValue);
@@ -844,15 +987,26 @@ public class HeapCache<K, V> extends BaseCache<K, V>
     Entry e = lookupEntry(key, hc, val);
     if (e == null) {
       metrics.peekMiss();
+      recordHotKeyMiss(key);
       return null;
     }
     if (e.hasFreshData(clock)) {
       return e;
     }
     metrics.peekHitNotFresh();
+    recordHotKeyMiss(key);
     return null;
   }
 
+  /**
+   * Count a miss for the hot key tracking, if enabled.
+   */
+  protected final void recordHotKeyMiss(Object key) {
+    if (hotKeys != null) {
+      hotKeys.miss(key);
+    }
+  }
+
   @Override
   public boolean containsKey(K key) {
     Entry e = lookupEntry(key);
@@ -1270,6 +1424,32 @@ public class HeapCache<K, V> extends BaseCache<K, V>
     return e;
   }
 
+  /**
+   * Fill a newly inserted entry with the data from the storage tier, if present.
+   * The entry needs to be locked for processing by the caller. The data is removed
+   * from the storage, since the entry lives in the heap now.
+   *
+   * @return true, if data was found in the storage
+   */
+  public boolean insertFromStorage(Entry<K, V> e, StorageAdapter storage) {
+    Object key = e.getKey();
+    StorageEntry se = storage.get(key);
+    if (se == null) {
+      return false;
+    }
+    storage.remove(key);
+    long expiry = se.getValueExpiryTime();
+    synchronized (e) {
+      if (isRecordRefreshTime()) {
+        e.setRefreshTime(se.getCreatedOrUpdated());
+      }
+      e.setValueOrException((V) se.getValueOrException());
+      e.setNextRefreshTime(
+        timing.stopStartTimer(expiry == 0 ? ExpiryPolicy.ETERNAL : expiry, e));
+    }
+    return true;
+  }
+
   protected V returnValue(V v) {
     if (v instanceof ExceptionWrapper) {
       ((ExceptionWrapper<K>) v).propagateException();
@@ -1290,7 +1470,7 @@ public class HeapCache<K, V> extends BaseCache<K, V>
     return lookupEntry(key, hc, extractIntKeyValue(key, hc));
   }
 
-  protected Entry<K, V> lookupEntryNoHitRecord(K key) {
+  public Entry<K, V> lookupEntryNoHitRecord(K key) {
     int hc = modifiedHash(key.hashCode());
     return lookupEntryNoHitRecord(key, hc, extractIntKeyValue(key, hc));
   }
@@ -1313,7 +1493,13 @@ public class HeapCache<K, V> extends BaseCache<K, V>
    * needs to be done under the same lock, to allow a check of the consistency.
    */
   protected Entry<K, V> insertNewEntry(K key, int hc, int val) {
-    Entry<K, V> e = new Entry<K, V>(extractIntKeyObj(key), val);
+    return insertNewEntry(newEntry(key, val), hc, val);
+  }
+
+  /**
+   * Insert the newly created entry, or return the entry already present for the key.
+   */
+  protected final Entry<K, V> insertNewEntry(Entry<K, V> e, int hc, int val) {
     Entry<K, V> e2;
     eviction.evictEventuallyBeforeInsertOnSegment(hc);
     OptimisticLock l = hash.getSegmentLock(hc);
@@ -1330,9 +1516,15 @@ public class HeapCache<K, V> extends BaseCache<K, V>
     return e2;
   }
 
+  protected Entry<K, V> newEntry(K key, int val) {
+    return isCompactEntries() ?
+      new Entry<K, V>(extractIntKeyObj(key), val) :
+      new ExtendedEntry<K, V>(extractIntKeyObj(key), val);
+  }
+
   @Override
-  public Entry<K, V>[] getHashEntries() {
-    return hash.getEntries();
+  public Entry<K, V> pickHashEntry(int position) {
+    return hash.pickEntry(position);
   }
 
   /**
@@ -1386,6 +1578,7 @@ public class HeapCache<K, V> extends BaseCache<K, V>
         return;
       }
     }
+    long n0 = metrics.isDisabled() && hotKeys == null ? 0 : System.nanoTime();
     try {
       checkLoaderPresent();
       if (e.isVirgin()) {
@@ -1399,6 +1592,7 @@ public class HeapCache<K, V> extends BaseCache<K, V>
         v = (V) wr.getValue();
       }
     } catch (Throwable _ouch) {
+      recordLoadLatency(e, n0);
       long t = t0;
       if (!metrics.isDisabled() && isUpdateTimeNeeded()) {
         t = clock.millis();
@@ -1406,6 +1600,7 @@ public class HeapCache<K, V> extends BaseCache<K, V>
       loadGotException(e, t0, t, _ouch);
       return;
     }
+    recordLoadLatency(e, n0);
     long t = t0;
     if (!metrics.isDisabled() && isUpdateTimeNeeded()) {
       t = clock.millis();
@@ -1413,6 +1608,35 @@ public class HeapCache<K, V> extends BaseCache<K, V>
     insertOrUpdateAndCalculateExpiry(e, v, t0, t, refreshTime, INSERT_STAT_LOAD);
   }
 
+  /**
+   * Record the loader duration, if metrics or the hot key tracking are enabled.
+   *
+   * @param n0 nano time when the loader was called
+   */
+  private void recordLoadLatency(Entry<K, V> e, long n0) {
+    if (metrics.isDisabled() && hotKeys == null) {
+      return;
+    }
+    long nanos = System.nanoTime() - n0;
+    if (!metrics.isDisabled()) {
+      metrics.loadLatency(nanos);
+    }
+    recordHotKeyLoad(e.getKey(), nanos, e.isGettingRefresh());
+  }
+
+  /**
+   * Count the loader duration for the hot key tracking, if enabled. A load that is
+   * not a refresh counts as miss.
+   */
+  final void recordHotKeyLoad(Object key, long nanos, boolean refresh) {
+    if (hotKeys != null) {
+      hotKeys.load(key, nanos);
+      if (!refresh) {
+        hotKeys.miss(key);
+      }
+    }
+  }
+
   /**
    * Entry was refreshed before, reset timer and make entry visible again.
    */
@@ -1487,6 +1711,11 @@ public class HeapCache<K, V> extends BaseCache<K, V>
     return loader != null;
   }
 
+  @Override
+  public boolean isWriterPresent() {
+    return false;
+  }
+
   @Override
   public boolean isWeigherPresent() {
     return eviction.isWeigherPresent();
@@ -1729,12 +1958,207 @@ public class HeapCache<K, V> extends BaseCache<K, V>
     return convertValueMap(map);
   }
 
+  /**
+   * Insert missing entries of each hash segment while acquiring the segment lock only once,
+   * then update the values like {@link #put(Object, Object)}.
+   */
   public void putAll(Map<? extends K, ? extends V> valueMap) {
-    for (Map.Entry<? extends K, ? extends V> e : valueMap.entrySet()) {
-      put(e.getKey(), e.getValue());
+    final SegmentedKeys<K> keys = SegmentedKeys.ofMap(hash, valueMap);
+    processBulk(keys, new SegmentedKeys.RangeProcessor() {
+      @Override
+      public void process(int start, int end) {
+        while (start < end) {
+          start = putSegment(keys, start);
+        }
+      }
+    });
+  }
+
+  /**
+   * Put the values of keys in the same segment, starting at position {@code start}.
+   *
+   * @return position after the last key of the segment
+   */
+  @SuppressWarnings("unchecked")
+  private int putSegment(SegmentedKeys<K> keys, int start) {
+    int end = keys.segmentEnd(start);
+    int hc = keys.hash(start);
+    Entry<K, V>[] entries = new Entry[end - start];
+    int missingCount = 0;
+    for (int i = start; i < end; i++) {
+      K key = keys.key(i);
+      int hc2 = keys.hash(i);
+      Entry<K, V> e = lookupEntry(key, hc2, extractIntKeyValue(key, hc2));
+      if (e == null) {
+        missingCount++;
+      }
+      entries[i - start] = e;
+    }
+    if (missingCount > 0) {
+      for (int i = 0; i < missingCount; i++) {
+        eviction.evictEventuallyBeforeInsertOnSegment(hc);
+      }
+      OptimisticLock l = hash.getSegmentLock(hc);
+      long stamp = l.writeLock();
+      try {
+        for (int i = start; i < end; i++) {
+          if (entries[i - start] != null) {
+            continue;
+          }
+          K key = keys.key(i);
+          int val = extractIntKeyValue(key, keys.hash(i));
+          Entry<K, V> e = newEntry(key, val);
+          Entry<K, V> e2 = hash.insertWithinLock(e, keys.hash(i), val);
+          if (e == e2) {
+            eviction.submitWithoutTriggeringEviction(e);
+          }
+          entries[i - start] = e2;
+        }
+      } finally {
+        l.unlockWrite(stamp);
+      }
+      hash.checkExpand(hc);
+    }
+    for (int i = start; i < end; i++) {
+      Entry<K, V> e = entries[i - start];
+      V value = (V) keys.value(i);
+      boolean gone;
+      synchronized (e) {
+        e.waitForProcessing();
+        gone = e.isGone();
+        if (!gone) {
+          if (!e.isVirgin()) {
+            metrics.heapHitButNoRead();
+          }
+          putValue(e, value);
+        }
+      }
+      if (gone) {
+        metrics.goneSpin();
+        put(keys.key(i), value);
+      }
+    }
+    return end;
+  }
+
+  /**
+   * Remove the entries of each hash segment while acquiring the segment lock only once.
+   * Same effect as {@link #remove(Object)} for every key.
+   */
+  @Override
+  public void removeAll(Iterable<? extends K> keyIterable) {
+    final SegmentedKeys<K> keys = SegmentedKeys.ofKeys(hash, keyIterable);
+    processBulk(keys, new SegmentedKeys.RangeProcessor() {
+      @Override
+      public void process(int start, int end) {
+        while (start < end) {
+          start = removeSegment(keys, start);
+        }
+      }
+    });
+  }
+
+  /**
+   * Remove the entries of keys in the same segment, starting at position {@code start}.
+   * The entries are locked via the processing state and removed together while the
+   * segment lock is held. If an entry is processed by another operation, the entries
+   * locked so far are removed first, so the thread never waits for an entry while it
+   * holds the processing state of others. Waiting while holding others would deadlock
+   * with a concurrent bulk operation on the same keys in a different order.
+   *
+   * @return position after the last key of the segment
+   */
+  @SuppressWarnings("unchecked")
+  private int removeSegment(SegmentedKeys<K> keys, int start) {
+    int end = keys.segmentEnd(start);
+    Entry<K, V>[] entries = new Entry[end - start];
+    int count = 0;
+    try {
+      for (int i = start; i < end; i++) {
+        K key = keys.key(i);
+        int hc = keys.hash(i);
+        Entry<K, V> e = lookupEntryNoHitRecord(key, hc, extractIntKeyValue(key, hc));
+        if (e == null) {
+          continue;
+        }
+        synchronized (e) {
+          if (!e.isProcessing()) {
+            if (e.isGone()) {
+              continue;
+            }
+            e.startProcessing(Entry.ProcessingState.MUTATE, null);
+            entries[count++] = e;
+            continue;
+          }
+        }
+        removeLocked(entries, count, hc);
+        count = 0;
+        synchronized (e) {
+          e.waitForProcessing();
+          if (e.isGone()) {
+            continue;
+          }
+          e.startProcessing(Entry.ProcessingState.MUTATE, null);
+        }
+        entries[count++] = e;
+      }
+      removeLocked(entries, count, keys.hash(start));
+    } finally {
+      releaseRemoved(entries, count);
+    }
+    return end;
+  }
+
+  /**
+   * Remove the entries locked via the processing state from the hash table and
+   * the eviction and release them. All entries are in the segment of the hash code.
+   */
+  private void removeLocked(Entry<K, V>[] entries, int count, int hc) {
+    if (count == 0) {
+      return;
+    }
+    try {
+      OptimisticLock l = hash.getSegmentLock(hc);
+      long stamp = l.writeLock();
+      try {
+        for (int i = 0; i < count; i++) {
+          Entry<K, V> e = entries[i];
+          if (hash.removeWithinLock(e, extractModifiedHash(e))) {
+            eviction.submitWithoutTriggeringEviction(e);
+          }
+        }
+      } finally {
+        l.unlockWrite(stamp);
+      }
+    } finally {
+      releaseRemoved(entries, count);
+    }
+  }
+
+  private void releaseRemoved(Entry<K, V>[] entries, int count) {
+    for (int i = 0; i < count; i++) {
+      Entry<K, V> e = entries[i];
+      if (e == null) {
+        continue;
+      }
+      entries[i] = null;
+      synchronized (e) {
+        e.setGone();
+        checkForHashCodeChange(e);
+        timing.cancelExpiryTimer(e);
+        e.processingDone();
+      }
     }
   }
 
+  /**
+   * Process the keys by the calling thread and, depending on the configured
+   * bulk parallelism, by the executor.
+   */
+  void processBulk(SegmentedKeys<K> keys, SegmentedKeys.RangeProcessor processor) {
+    keys.process(executor, bulkParallelism, TUNABLE.minimumBulkSizeForParallelism, processor);
+  }
+
   Operations<K, V> spec() { return Operations.SINGLETON; }
 
   @Override
@@ -1742,6 +2166,20 @@ public class HeapCache<K, V> extends BaseCache<K, V>
     return new MyEntryAction<R>(op, key, e);
   }
 
+  @Override
+  protected <R> EntryAction<K, V, R> createEntryAction(
+    K key, Entry<K, V> e, Semantic<K, V, R> op, EntryAction.CompletedCallback<K, V, R> cb) {
+    return new MyEntryAction<R>(op, key, e, cb);
+  }
+
+  /**
+   * Only the loader is called synchronously.
+   */
+  @Override
+  protected Executor getAsyncBlockingExecutor() {
+    return loader != null ? loaderExecutor : null;
+  }
+
   @Override
   protected <R> MyEntryAction<R> createFireAndForgetAction(Entry<K, V> e, Semantic<K, V, R> op) {
     return new MyEntryAction<R>(op, e.getKey(), e, EntryAction.NOOP_CALLBACK);
@@ -1796,6 +2234,27 @@ public class HeapCache<K, V> extends BaseCache<K, V>
     return execute(key, spec().invoke(key, entryProcessor));
   }
 
+  @Override
+  public <R> Map<K, EntryProcessingResult<R>> invokeAll(
+    Iterable<? extends K> keyIterable, final EntryProcessor<K, V, R> entryProcessor) {
+    final SegmentedKeys<K> keys = SegmentedKeys.ofKeys(hash, keyIterable);
+    final Map<K, EntryProcessingResult<R>> m = new HashMap<K, EntryProcessingResult<R>>();
+    processBulk(keys, new SegmentedKeys.RangeProcessor() {
+      @Override
+      public void process(int start, int end) {
+        Map<K, EntryProcessingResult<R>> rangeResult =
+          new HashMap<K, EntryProcessingResult<R>>();
+        for (int i = start; i < end; i++) {
+          invokeAndCollect(keys.key(i), entryProcessor, rangeResult);
+        }
+        synchronized (m) {
+          m.putAll(rangeResult);
+        }
+      }
+    });
+    return m;
+  }
+
   public final long getLocalSize() {
     return hash.getSize();
   }
@@ -1878,6 +2337,24 @@ public class HeapCache<K, V> extends BaseCache<K, V>
     return generateInfo(userCache, clock.millis());
   }
 
+  @Override
+  public final InternalCacheInfo getNonBlockingInfo() {
+    return getNonBlockingInfo(this);
+  }
+
+  /**
+   * Reads the counters without the global lock. Sizes and counters come from
+   * atomic counters or are summed per segment. The hit count sums up the hit counters in
+   * the hash table and the hits transferred by the eviction, without locking. Recording
+   * a hit stays a write to the entry only.
+   */
+  public final InternalCacheInfo getNonBlockingInfo(InternalCache userCache) {
+    long t = clock.millis();
+    CacheBaseInfo inf = new CacheBaseInfo(this, userCache, t, false);
+    inf.setInfoCreationDeltaMs((int) (clock.millis() - t));
+    return inf;
+  }
+
   private CacheBaseInfo generateInfo(final InternalCache userCache, final long t) {
     return executeWithGlobalLock(new Job<CacheBaseInfo>() {
       @Override
@@ -2070,6 +2547,20 @@ public class HeapCache<K, V> extends BaseCache<K, V>
      */
     public int segmentCountOverride = 0;
 
+    /**
+     * Minimum number of keys of a bulk operation, before it is processed in parallel.
+     *
+     * @see org.cache2k.Cache2kBuilder#bulkParallelism(int)
+     */
+    public int minimumBulkSizeForParallelism = 1000;
+
+    /**
+     * Maximum number of entries passed to the writer within one call by a bulk operation.
+     *
+     * @see org.cache2k.integration.CacheWriter#writeAll(Map)
+     */
+    public int writerBatchSize = 1000;
+
   }
 
 }
@@ -0,0 +1,299 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the keys with the most hits, the most misses and the most time spent in the
+ * loader. Each statistic is kept in a space saving sketch, a fixed number of counters
+ * that approximate the top keys of a stream. A key that is not counted replaces the
+ * key with the lowest count and inherits its count as error. The memory is bounded by
+ * the number of counters, the sampler keeps references to the counted keys.
+ *
+ * <p>Hits are sampled: only every 16th hit of a thread is counted with a weight of 16,
+ * so the hit path does not synchronize. Misses and loads are counted always, since
+ * these operations are expensive anyway. The sampler is created only when enabled via
+ * {@link org.cache2k.Cache2kBuilder#hotKeyCount(int)}, otherwise there is no overhead
+ * besides a {@code null} check.
+ *
+ * @author Jens Wilke
+ */
+public class HotKeySampler {
+
+  /**
+   * Counters per reported key. A space saving sketch reports keys with a frequency
+   * above {@code total / counters} reliably, so we keep more counters than we report.
+   */
+  static final int COUNTERS_PER_KEY = 4;
+  static final int HIT_SAMPLE_RATE = 16;
+  private static final int HIT_SAMPLE_MASK = HIT_SAMPLE_RATE - 1;
+
+  /**
+   * Number of slots for the per thread sample counters. The counters are spread by
+   * thread id and padded, so threads do not write to the same cache line.
+   */
+  private static final int SAMPLE_SLOTS = 32;
+  private static final int SAMPLE_SLOT_SPACING = 16;
+  private static final int SAMPLE_SLOT_MASK = SAMPLE_SLOTS - 1;
+
+  private final int topCount;
+  private final int[] hitSampleCounters = new int[SAMPLE_SLOTS * SAMPLE_SLOT_SPACING];
+  private final Sketch hits;
+  private final Sketch misses;
+  private final Sketch loadNanos;
+
+  /**
+   * @param topCount number of keys reported
+   */
+  public HotKeySampler(int topCount) {
+    if (topCount <= 0) {
+      throw new IllegalArgumentException("topCount needs to be positive");
+    }
+    this.topCount = topCount;
+    int counters = topCount * COUNTERS_PER_KEY;
+    hits = new Sketch(counters);
+    misses = new Sketch(counters);
+    loadNanos = new Sketch(counters);
+  }
+
+  public int getTopCount() {
+    return topCount;
+  }
+
+  /**
+   * Count a hit. The counter is incremented without synchronization, lost updates
+   * only change the sampling slightly. The key is requested from the entry only
+   * for a sampled hit, so a primitive key is not boxed on every hit.
+   */
+  public void hit(Entry<?, ?> e) {
+    int idx = ((int) Thread.currentThread().getId() & SAMPLE_SLOT_MASK) * SAMPLE_SLOT_SPACING;
+    if ((++hitSampleCounters[idx] & HIT_SAMPLE_MASK) != 0) {
+      return;
+    }
+    hits.add(e.getKey(), HIT_SAMPLE_RATE);
+  }
+
+  /**
+   * Count a miss, this is a peek without a value or a loader call that is not a refresh.
+   */
+  public void miss(Object key) {
+    misses.add(key, 1);
+  }
+
+  /**
+   * Add the duration of a loader call, including refresh.
+   */
+  public void load(Object key, long nanos) {
+    loadNanos.add(key, nanos < 0 ? 0 : nanos);
+  }
+
+  /**
+   * Keys with the most hits. The count is an estimate, because hits are sampled.
+   */
+  public List<HotKey> getTopHits() {
+    return hits.top(topCount);
+  }
+
+  public List<HotKey> getTopMisses() {
+    return misses.top(topCount);
+  }
+
+  /**
+   * Keys with the most time spent in the loader, the count is in nanoseconds.
+   */
+  public List<HotKey> getTopLoadNanos() {
+    return loadNanos.top(topCount);
+  }
+
+  /**
+   * Fraction of the counted hits of the hottest key, 0 if nothing was counted.
+   */
+  public double getTopHitShare() {
+    return hits.topShare();
+  }
+
+  public double getTopMissShare() {
+    return misses.topShare();
+  }
+
+  public double getTopLoadShare() {
+    return loadNanos.topShare();
+  }
+
+  /**
+   * Keys and counts as comma separated list, e.g. {@code 4711=120, 42=17}.
+   */
+  public static String toString(List<HotKey> l) {
+    StringBuilder sb = new StringBuilder();
+    for (HotKey k : l) {
+      if (sb.length() > 0) {
+        sb.append(", ");
+      }
+      sb.append(k.getKey()).append('=').append(k.getCount());
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Keys and load time in milliseconds as comma separated list.
+   */
+  public static String toMillisString(List<HotKey> l) {
+    StringBuilder sb = new StringBuilder();
+    for (HotKey k : l) {
+      if (sb.length() > 0) {
+        sb.append(", ");
+      }
+      sb.append(k.getKey()).append('=').append(k.getCount() / 1000000D).append("ms");
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public String toString() {
+    return "HotKeySampler{" +
+      "hits=[" + toString(getTopHits()) + "], " +
+      "misses=[" + toString(getTopMisses()) + "], " +
+      "load=[" + toMillisString(getTopLoadNanos()) + "]}";
+  }
+
+  /**
+   * A key with its estimated count. The real count is between
+   * {@code count - error} and {@code count}.
+   */
+  public static final class HotKey {
+
+    private final Object key;
+    private final long count;
+    private final long error;
+
+    HotKey(Object key, long count, long error) {
+      this.key = key;
+      this.count = count;
+      this.error = error;
+    }
+
+    public Object getKey() {
+      return key;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Maximum overestimation of the count.
+     */
+    public long getError() {
+      return error;
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + count;
+    }
+
+  }
+
+  private static final class Counter {
+    Object key;
+    long count;
+    long error;
+  }
+
+  private static final Comparator<HotKey> DESCENDING_COUNT = new Comparator<HotKey>() {
+    @Override
+    public int compare(HotKey o1, HotKey o2) {
+      return o1.count < o2.count ? 1 : (o1.count == o2.count ? 0 : -1);
+    }
+  };
+
+  /**
+   * Space saving sketch with a fixed number of counters. The counter with the lowest
+   * count is searched linearly, since the sketch is small and only searched when a key
+   * is not counted yet.
+   */
+  static final class Sketch {
+
+    private final Counter[] counters;
+    private final Map<Object, Counter> key2counter;
+    private int size;
+    private long total;
+
+    Sketch(int capacity) {
+      counters = new Counter[capacity];
+      key2counter = new HashMap<Object, Counter>(capacity * 2);
+    }
+
+    synchronized void add(Object key, long weight) {
+      total += weight;
+      Counter c = key2counter.get(key);
+      if (c != null) {
+        c.count += weight;
+        return;
+      }
+      if (size < counters.length) {
+        c = counters[size++] = new Counter();
+      } else {
+        c = counters[0];
+        for (int i = 1; i < size; i++) {
+          if (counters[i].count < c.count) {
+            c = counters[i];
+          }
+        }
+        key2counter.remove(c.key);
+        c.error = c.count;
+      }
+      c.key = key;
+      c.count += weight;
+      key2counter.put(key, c);
+    }
+
+    synchronized List<HotKey> top(int n) {
+      HotKey[] a = new HotKey[size];
+      for (int i = 0; i < size; i++) {
+        Counter c = counters[i];
+        a[i] = new HotKey(c.key, c.count, c.error);
+      }
+      Arrays.sort(a, DESCENDING_COUNT);
+      if (a.length == 0) {
+        return Collections.emptyList();
+      }
+      return new ArrayList<HotKey>(Arrays.asList(a).subList(0, Math.min(n, a.length)));
+    }
+
+    synchronized double topShare() {
+      long max = 0;
+      for (int i = 0; i < size; i++) {
+        max = Math.max(max, counters[i].count);
+      }
+      return total == 0 ? 0.0 : Math.min(1.0, max * 1D / total);
+    }
+
+  }
+
+}
@@ -108,6 +108,27 @@ public class IntHeapCache<V> extends HeapCache<Integer, V> implements IntCache<V
     }
   }
 
+  /**
+   * Put for the caches holding values as primitive, see {@link #putPrimitiveValue}.
+   */
+  protected final void putPrimitive(final int key, final long bits, final V value) {
+    for (;;) {
+      Entry e = lookupOrNewEntry(null, modifiedHash(key), key);
+      synchronized (e) {
+        e.waitForProcessing();
+        if (e.isGone()) {
+          metrics.goneSpin();
+          continue;
+        }
+        if (!e.isVirgin()) {
+          metrics.heapHitButNoRead();
+        }
+        putPrimitiveValue(e, bits, value);
+      }
+      return;
+    }
+  }
+
   @Override
   public V get(final int key) {
     Entry<Integer, V> e = getEntryInternal(null, modifiedHash(key), key);
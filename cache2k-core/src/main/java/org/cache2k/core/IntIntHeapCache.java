@@ -0,0 +1,70 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.IntIntCache;
+
+/**
+ * Stores values of type {@code int} as primitive in the entry, see {@link IntIntEntry}.
+ *
+ * @author Jens Wilke
+ */
+public class IntIntHeapCache extends IntHeapCache<Integer> implements IntIntCache {
+
+  @Override
+  protected Entry<Integer, Integer> newEntry(Integer key, int val) {
+    return isCompactEntries() ?
+      new IntIntEntry<Integer>(val) :
+      new IntIntExtendedEntry<Integer>(val);
+  }
+
+  @Override
+  public int getInt(final int key, final int missingValue) {
+    return intValue(getEntryInternal(null, modifiedHash(key), key), missingValue);
+  }
+
+  @Override
+  public int peekInt(final int key, final int missingValue) {
+    return intValue(peekEntryInternal(null, modifiedHash(key), key), missingValue);
+  }
+
+  @Override
+  public void putInt(final int key, final int value) {
+    putPrimitive(key, value, isValueNeededForPut() ? (Integer) value : null);
+  }
+
+  /**
+   * Read the primitive value from the entry. Other values, e.g. an exception, are
+   * handled by the generic code.
+   */
+  private int intValue(Entry<Integer, Integer> e, int missingValue) {
+    if (e == null) {
+      return missingValue;
+    }
+    IntIntEntry pe = (IntIntEntry) e;
+    if (pe.hasIntValue()) {
+      return pe.getIntValue();
+    }
+    Integer v = returnValue(e);
+    return v != null ? v : missingValue;
+  }
+
+}
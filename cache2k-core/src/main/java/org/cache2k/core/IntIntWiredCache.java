@@ -0,0 +1,55 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.IntIntCache;
+
+/**
+ * Delegates to the non specialized versions, since the customizations work with the
+ * value objects. A put without a customization observing it is passed on to the heap
+ * cache, which stores the value without boxing.
+ *
+ * @author Jens Wilke
+ */
+public class IntIntWiredCache extends IntWiredCache<Integer> implements IntIntCache {
+
+  @Override
+  public int getInt(final int key, final int missingValue) {
+    Integer v = get(key);
+    return v != null ? v : missingValue;
+  }
+
+  @Override
+  public int peekInt(final int key, final int missingValue) {
+    Integer v = peek(key);
+    return v != null ? v : missingValue;
+  }
+
+  @Override
+  public void putInt(final int key, final int value) {
+    if (isPutObserved()) {
+      put(key, (Integer) value);
+      return;
+    }
+    ((IntIntHeapCache) heapCache).putInt(key, value);
+  }
+
+}
@@ -67,6 +67,14 @@ public interface InternalCache<K, V>
    */
   InternalCacheInfo getLatestInfo();
 
+  /**
+   * Statistics for monitoring at high frequencies. Other cache operations are not stopped,
+   * so the values may be slightly inconsistent to each other. No integrity check is done.
+   * The hit count sums up the hit counters of the entries without locking, concurrent
+   * hits and evictions may or may not be reflected.
+   */
+  InternalCacheInfo getNonBlockingInfo();
+
   String getEntryState(K key);
 
   /**
@@ -102,6 +110,8 @@ public interface InternalCache<K, V>
 
   boolean isLoaderPresent();
 
+  boolean isWriterPresent();
+
 
   Eviction getEviction();
 
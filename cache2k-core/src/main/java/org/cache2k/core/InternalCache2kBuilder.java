@@ -25,9 +25,16 @@ import org.cache2k.CacheEntry;
 import org.cache2k.configuration.CustomizationSupplier;
 import org.cache2k.core.eviction.EvictionFactory;
 import org.cache2k.core.operation.ExaminationEntry;
+import org.cache2k.core.storage.DroppedEntryListener;
+import org.cache2k.core.storage.JavaSerializationMarshaller;
+import org.cache2k.core.storage.OffHeapStorage;
+import org.cache2k.core.storage.PersistentStorage;
+import org.cache2k.core.storage.StorageTierAdapter;
+import org.cache2k.core.storageApi.StorageAdapter;
 import org.cache2k.core.timing.Timing;
 import org.cache2k.core.util.DefaultClock;
 import org.cache2k.core.util.InternalClock;
+import org.cache2k.core.util.Util;
 import org.cache2k.event.CacheEntryCreatedListener;
 import org.cache2k.event.CacheEntryEvictedListener;
 import org.cache2k.event.CacheEntryExpiredListener;
@@ -40,15 +47,22 @@ import org.cache2k.CacheManager;
 import org.cache2k.core.event.AsyncDispatcher;
 import org.cache2k.core.event.AsyncEvent;
 import org.cache2k.integration.AdvancedCacheLoader;
+import org.cache2k.integration.AsyncBulkCacheLoader;
 import org.cache2k.integration.AsyncCacheLoader;
 import org.cache2k.integration.CacheLoader;
 import org.cache2k.integration.CacheWriter;
 import org.cache2k.integration.FunctionalCacheLoader;
+import org.cache2k.storage.Marshaller;
+import org.cache2k.storage.OffHeapStorageConfiguration;
+import org.cache2k.storage.PersistentStorageConfiguration;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -65,6 +79,10 @@ public class InternalCache2kBuilder<K, V> {
 
   private final CacheManagerImpl manager;
   private final Cache2kConfiguration<K, V> config;
+  /**
+   * Adapter for a synchronous loader which implements {@link CacheLoader#loadAll}.
+   */
+  private AsyncBulkCacheLoader<K, V> syncBulkLoader;
 
   public InternalCache2kBuilder(Cache2kConfiguration<K, V> config,
                                 CacheManager manager) {
@@ -114,6 +132,9 @@ public class InternalCache2kBuilder<K, V> {
             return loader.load(key);
           }
         });
+        if (isLoadAllImplemented(loader)) {
+          syncBulkLoader = new SyncBulkCacheLoaderAdapter<K, V>(loader);
+        }
       } else {
         final FunctionalCacheLoader<K, V> loader = (FunctionalCacheLoader) obj;
         c.setAdvancedLoader(new AdvancedCacheLoader<K, V>() {
@@ -166,6 +187,54 @@ public class InternalCache2kBuilder<K, V> {
     }
   }
 
+  /**
+   * The default implementation of {@link CacheLoader#loadAll} throws an exception.
+   * Only use the bulk load path, if it is overridden.
+   */
+  private static boolean isLoadAllImplemented(CacheLoader<?, ?> loader) {
+    try {
+      return loader.getClass().getMethod("loadAll", Iterable.class, Executor.class)
+        .getDeclaringClass() != CacheLoader.class;
+    } catch (NoSuchMethodException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Adapts {@link CacheLoader#loadAll} to the bulk loader interface. The load is executed
+   * within the calling thread. Keys missing in the result map get a {@code null} value.
+   */
+  private static class SyncBulkCacheLoaderAdapter<K, V> implements AsyncBulkCacheLoader<K, V> {
+
+    private final CacheLoader<K, V> loader;
+
+    SyncBulkCacheLoaderAdapter(CacheLoader<K, V> loader) {
+      this.loader = loader;
+    }
+
+    @Override
+    public void loadAll(Set<K> keys, BulkContext<K, V> context, BulkCallback<K, V> callback)
+      throws Exception {
+      Map<K, V> result = loader.loadAll(keys, context.getLoaderExecutor());
+      for (K key : keys) {
+        callback.onLoadSuccess(key, result.get(key));
+      }
+    }
+
+    @Override
+    public void load(K key, Context<K, V> context, Callback<V> callback) {
+      V value;
+      try {
+        value = loader.load(key);
+      } catch (Throwable ouch) {
+        callback.onLoadFailure(ouch);
+        return;
+      }
+      callback.onLoadSuccess(value);
+    }
+
+  }
+
   public Cache<K, V> build() {
     Cache2kCoreProviderImpl.CACHE_CONFIGURATION_PROVIDER.augmentConfiguration(manager, config);
     return buildAsIs();
@@ -188,8 +257,16 @@ public class InternalCache2kBuilder<K, V> {
     checkConfiguration();
     InternalCache<K, V> cache;
     Class<?> keyType = config.getKeyType().getType();
-    if (keyType == Integer.class) {
+    Class<?> primitiveValueType =
+      config.isPrimitiveValues() ? config.getValueType().getType() : null;
+    if (keyType == Integer.class && primitiveValueType == Integer.class) {
+      cache = (InternalCache<K, V>) new IntIntHeapCache();
+    } else if (keyType == Integer.class) {
       cache = (InternalCache<K, V>) new IntHeapCache<V>();
+    } else if (keyType == Long.class && primitiveValueType == Long.class) {
+      cache = (InternalCache<K, V>) new LongLongHeapCache();
+    } else if (keyType == Long.class && primitiveValueType == Double.class) {
+      cache = (InternalCache<K, V>) new LongDoubleHeapCache();
     } else if (keyType == Long.class) {
       cache = (InternalCache<K, V>) new LongHeapCache<V>();
     } else {
@@ -215,18 +292,31 @@ public class InternalCache2kBuilder<K, V> {
       throw new IllegalArgumentException("refresh ahead enabled, but no loader defined");
     }
 
+    if (config.getWriteBehindDelay() > 0 && config.getWriter() == null) {
+      throw new IllegalArgumentException("write behind enabled, but no writer defined");
+    }
+
     boolean wrap =
       config.getWeigher() != null ||
       config.hasListeners() ||
       config.hasAsyncListeners() ||
       config.getWriter() != null ||
-      config.getAsyncLoader() != null;
+      config.getAsyncLoader() != null ||
+      syncBulkLoader != null ||
+      config.getSections().getSection(OffHeapStorageConfiguration.class) != null ||
+      config.getSections().getSection(PersistentStorageConfiguration.class) != null;
 
 
     WiredCache<K, V> wc = null;
     if (wrap) {
-      if (keyType == Integer.class) {
+      if (cache instanceof IntIntHeapCache) {
+        wc = (WiredCache<K, V>) new IntIntWiredCache();
+      } else if (keyType == Integer.class) {
         wc = (WiredCache<K, V>) new IntWiredCache<V>();
+      } else if (cache instanceof LongLongHeapCache) {
+        wc = (WiredCache<K, V>) new LongLongWiredCache();
+      } else if (cache instanceof LongDoubleHeapCache) {
+        wc = (WiredCache<K, V>) new LongDoubleWiredCache();
       } else if (keyType == Long.class) {
         wc = (WiredCache<K, V>) new LongWiredCache<V>();
       } else {
@@ -241,7 +331,19 @@ public class InternalCache2kBuilder<K, V> {
     if (wrap) {
       wc.loader = bc.loader;
       wc.writer = (CacheWriter<K, V>) bc.createCustomization(config.getWriter());
+      if (config.getWriteBehindDelay() > 0) {
+        wc.writeBehind = new WriteBehindWriter<K, V>(wc.writer,
+          config.getWriteBehindDelay(), config.getWriteBehindQueueCapacity(),
+          HeapCache.TUNABLE.writerBatchSize, bc.getLog(),
+          "cache2k-writebehind-" + Util.compactFullName(manager, name));
+        wc.writer = wc.writeBehind;
+      }
       wc.asyncLoader = (AsyncCacheLoader<K, V>) bc.createCustomization(config.getAsyncLoader());
+      if (wc.asyncLoader instanceof AsyncBulkCacheLoader) {
+        wc.bulkLoader = (AsyncBulkCacheLoader<K, V>) wc.asyncLoader;
+      } else if (wc.asyncLoader == null) {
+        wc.bulkLoader = syncBulkLoader;
+      }
       List<CacheEntryCreatedListener<K, V>> syncCreatedListeners =
         new ArrayList<CacheEntryCreatedListener<K, V>>();
       List<CacheEntryUpdatedListener<K, V>> syncUpdatedListeners =
@@ -349,10 +451,12 @@ public class InternalCache2kBuilder<K, V> {
         bc, bc, wc, config, Runtime.getRuntime().availableProcessors());
       Timing rh = Timing.of(timeReference, config);
       bc.setTiming(rh);
+      wc.storage = createStorage(bc, wc);
       wc.init();
     } else {
       Timing rh = Timing.of(timeReference, config);
       bc.setTiming(rh);
+      bc.setCompactEntries(bc.loader == null && !rh.isTimerTaskUsed());
       bc.eviction = EVICTION_FACTORY.constructEviction(
         bc, bc, HeapCacheListener.NO_OPERATION, config, Runtime.getRuntime().availableProcessors());
       bc.init();
@@ -363,6 +467,53 @@ public class InternalCache2kBuilder<K, V> {
 
   static final EvictionFactory EVICTION_FACTORY = new EvictionFactory();
 
+  /**
+   * Create the off heap or persistent storage tier, if configured.
+   */
+  private StorageAdapter createStorage(HeapCache bc, WiredCache<K, V> wc) {
+    OffHeapStorageConfiguration offHeap =
+      config.getSections().getSection(OffHeapStorageConfiguration.class);
+    PersistentStorageConfiguration persistent =
+      config.getSections().getSection(PersistentStorageConfiguration.class);
+    if (offHeap != null && persistent != null) {
+      throw new IllegalArgumentException(
+        "only one storage tier supported, off heap or persistent");
+    }
+    if (offHeap != null) {
+      return new StorageTierAdapter(bc, wc,
+        new OffHeapStorage(createMarshaller(bc, offHeap.getMarshaller()),
+          offHeap.getCapacityBytes(), offHeap.getBlockSize(),
+          Runtime.getRuntime().availableProcessors(), droppedEntryListener(wc)));
+    }
+    if (persistent != null) {
+      if (persistent.getDirectory() == null) {
+        throw new IllegalArgumentException("directory for persistent storage missing");
+      }
+      File dir = new File(new File(persistent.getDirectory(),
+        PersistentStorage.fileName(manager.getName())), PersistentStorage.fileName(bc.getName()));
+      return new StorageTierAdapter(bc, wc,
+        new PersistentStorage(dir, createMarshaller(bc, persistent.getMarshaller()),
+          bc.getClock(), persistent.getCapacityBytes(), persistent.getSegmentBytes(),
+          bc.getExecutor(), droppedEntryListener(wc)), true);
+    }
+    return null;
+  }
+
+  /**
+   * Eviction listeners are called when the storage drops an entry.
+   */
+  private DroppedEntryListener droppedEntryListener(WiredCache<K, V> wc) {
+    return wc.syncEntryEvictedListeners != null ? wc : null;
+  }
+
+  private Marshaller createMarshaller(HeapCache bc, CustomizationSupplier<Marshaller> s) {
+    Marshaller marshaller = (Marshaller) bc.createCustomization(s);
+    if (marshaller == null) {
+      marshaller = new JavaSerializationMarshaller(manager.getClassLoader());
+    }
+    return marshaller;
+  }
+
   private void checkConfiguration() {
     if (config.getExpireAfterWrite() == Cache2kConfiguration.EXPIRY_NOT_ETERNAL &&
         config.getExpiryPolicy() == null) {
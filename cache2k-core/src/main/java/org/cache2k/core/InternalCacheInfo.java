@@ -239,6 +239,27 @@ public interface InternalCacheInfo {
    */
   long getLoadMillis();
 
+  /**
+   * Latency of the loader calls with nanosecond resolution.
+   *
+   * @see CommonMetrics#getLoadLatency()
+   */
+  LatencyHistogram getLoadLatency();
+
+  /**
+   * Latency of the writer calls with nanosecond resolution.
+   *
+   * @see CommonMetrics#getWriterLatency()
+   */
+  LatencyHistogram getWriterLatency();
+
+  /**
+   * Keys with the most hits, misses and load time, or {@code null} if not enabled.
+   *
+   * @see org.cache2k.configuration.Cache2kConfiguration#getHotKeyCount()
+   */
+  HotKeySampler getHotKeys();
+
   String getIntegrityDescriptor();
 
   /**
@@ -0,0 +1,259 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Lock free histogram of durations in nanoseconds with logarithmic buckets.
+ * Each power of two range is divided into eight buckets, so a percentile
+ * is reported with a relative error of at most 12.5%. Durations longer than
+ * 2<sup>41</sup> nanoseconds (about 36 minutes) are counted in the last bucket.
+ *
+ * <p>The percentiles cover a sliding window of recent values, so a change of the
+ * latency, e.g. a stall of the loader, is visible and not hidden by the values
+ * recorded over the lifetime of the cache. Two interval histograms are kept and
+ * swapped when an interval of one minute has elapsed. The percentiles are calculated
+ * from the current and the previous interval, which covers the values of the last one
+ * to two minutes. The count, the total and the maximum duration cover the whole
+ * lifetime, as needed for cumulative metrics.
+ *
+ * <p>The buckets of an interval are allocated with the first recorded value, so an
+ * unused histogram needs little memory.
+ *
+ * @author Jens Wilke
+ */
+@SuppressWarnings("rawtypes")
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAXIMUM_EXPONENT = 40;
+  static final int BUCKET_COUNT = (MAXIMUM_EXPONENT - SUB_BUCKET_BITS + 2) << SUB_BUCKET_BITS;
+  static final long INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  private static final AtomicLongFieldUpdater<LatencyHistogram> COUNT_UPDATER =
+    AtomicLongFieldUpdater.newUpdater(LatencyHistogram.class, "count");
+  private volatile long count;
+
+  private static final AtomicLongFieldUpdater<LatencyHistogram> TOTAL_NANOS_UPDATER =
+    AtomicLongFieldUpdater.newUpdater(LatencyHistogram.class, "totalNanos");
+  private volatile long totalNanos;
+
+  private static final AtomicLongFieldUpdater<LatencyHistogram> MAX_NANOS_UPDATER =
+    AtomicLongFieldUpdater.newUpdater(LatencyHistogram.class, "maxNanos");
+  private volatile long maxNanos;
+
+  private final long intervalNanos;
+  private volatile Interval current;
+  private volatile Interval previous;
+
+  public LatencyHistogram() {
+    this(INTERVAL_NANOS);
+  }
+
+  LatencyHistogram(long intervalNanos) {
+    this.intervalNanos = intervalNanos;
+  }
+
+  /**
+   * Bucket index of the duration.
+   */
+  static int index(long nanos) {
+    if (nanos < SUB_BUCKETS) {
+      return nanos < 0 ? 0 : (int) nanos;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    if (exponent > MAXIMUM_EXPONENT) {
+      return BUCKET_COUNT - 1;
+    }
+    int shift = exponent - SUB_BUCKET_BITS;
+    return ((shift + 1) << SUB_BUCKET_BITS) + (int) (nanos >>> shift) - SUB_BUCKETS;
+  }
+
+  /**
+   * Highest duration counted in the bucket.
+   */
+  static long upperBound(int index) {
+    int group = index >>> SUB_BUCKET_BITS;
+    if (group == 0) {
+      return index;
+    }
+    long mantissa = (index & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+    return ((mantissa + 1) << (group - 1)) - 1;
+  }
+
+  public void record(long nanos) {
+    record(nanos, System.nanoTime());
+  }
+
+  void record(long nanos, long now) {
+    casMax(MAX_NANOS_UPDATER, this, nanos);
+    currentInterval(now).record(nanos);
+    COUNT_UPDATER.incrementAndGet(this);
+    TOTAL_NANOS_UPDATER.addAndGet(this, nanos);
+  }
+
+  private static <T> void casMax(AtomicLongFieldUpdater<T> updater, T obj, long nanos) {
+    long max;
+    while (nanos > (max = updater.get(obj))) {
+      if (updater.compareAndSet(obj, max, nanos)) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * The interval for recording. Starts a new interval, if the current one is elapsed.
+   * The current interval becomes the previous one, if it ended less than an interval
+   * ago, otherwise its values are too old and dropped.
+   */
+  private Interval currentInterval(long now) {
+    Interval c = current;
+    if (c != null && now - c.start < intervalNanos) {
+      return c;
+    }
+    synchronized (this) {
+      c = current;
+      if (c != null && now - c.start < intervalNanos) {
+        return c;
+      }
+      previous = c != null && now - c.start < intervalNanos * 2 ? c : null;
+      return current = new Interval(now);
+    }
+  }
+
+  /**
+   * Count of all recorded values.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Sum of all recorded values.
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  /**
+   * Maximum of all recorded values.
+   */
+  public long getMaxNanos() {
+    return maxNanos;
+  }
+
+  /**
+   * Duration in nanoseconds, which is not exceeded by the given fraction of the values
+   * recorded in the last one to two minutes, e.g. 0.99 for the 99th percentile.
+   * Concurrent updates may not be reflected.
+   *
+   * @return the upper bound of the bucket of the percentile or 0, if nothing was recorded
+   *         within the window
+   */
+  public long getPercentileNanos(double fraction) {
+    return getPercentileNanos(fraction, System.nanoTime());
+  }
+
+  long getPercentileNanos(double fraction, long now) {
+    long[] counts = new long[BUCKET_COUNT];
+    long windowMax = 0;
+    Interval c = current;
+    Interval p = previous;
+    if (c != null && now - c.start < intervalNanos * 2) {
+      windowMax = c.addCounts(counts);
+      if (p != null && now - c.start < intervalNanos) {
+        windowMax = Math.max(windowMax, p.addCounts(counts));
+      }
+    }
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      count += counts[i];
+    }
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(fraction * count));
+    long sum = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      sum += counts[i];
+      if (sum >= rank) {
+        return Math.min(upperBound(i), windowMax);
+      }
+    }
+    return windowMax;
+  }
+
+  /**
+   * Percentile in milliseconds, see {@link #getPercentileNanos(double)}.
+   */
+  public double getPercentileMillis(double fraction) {
+    return getPercentileNanos(fraction) / 1000000D;
+  }
+
+  @Override
+  public String toString() {
+    return "LatencyHistogram{count=" + getCount() +
+      ", p50=" + getPercentileNanos(0.5) +
+      ", p99=" + getPercentileNanos(0.99) +
+      ", p999=" + getPercentileNanos(0.999) +
+      ", maxNanos=" + maxNanos + "}";
+  }
+
+  /**
+   * Buckets of the values recorded within one interval.
+   */
+  private static final class Interval {
+
+    private static final AtomicLongFieldUpdater<Interval> MAX_NANOS_UPDATER =
+      AtomicLongFieldUpdater.newUpdater(Interval.class, "maxNanos");
+    private volatile long maxNanos;
+
+    final long start;
+    final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    Interval(long start) {
+      this.start = start;
+    }
+
+    void record(long nanos) {
+      casMax(MAX_NANOS_UPDATER, this, nanos);
+      buckets.incrementAndGet(index(nanos));
+    }
+
+    /**
+     * Add the bucket counts to the array.
+     *
+     * @return maximum value recorded in this interval
+     */
+    long addCounts(long[] counts) {
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        counts[i] += buckets.get(i);
+      }
+      return maxNanos;
+    }
+
+  }
+
+}
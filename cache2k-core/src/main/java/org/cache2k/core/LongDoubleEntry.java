@@ -0,0 +1,105 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Entry of the {@link LongDoubleHeapCache} holding a value of type {@code double} as primitive.
+ * The value field of the entry contains a marker in this case. Other values, e.g.
+ * {@code null} or an exception, are stored in the value field as usual. Based on
+ * the compact entry, {@link LongDoubleExtendedEntry} adds the additional reference.
+ *
+ * @author Jens Wilke
+ */
+@SuppressWarnings("unchecked")
+public class LongDoubleEntry<V> extends LongEntry<V> implements PrimitiveValueEntry {
+
+  /**
+   * Marker in the value field, the value is held in {@link #doubleValue}
+   */
+  private static final Object PRIMITIVE_VALUE = new Object();
+
+  private volatile double doubleValue;
+
+  public LongDoubleEntry(long longKey, int hashCode) {
+    super(longKey, hashCode);
+  }
+
+  /**
+   * True, if the entry holds a value of type {@code double}, which is read via
+   * {@link #getDoubleValue()} without boxing.
+   */
+  public boolean hasDoubleValue() {
+    return super.getValueOrException() == PRIMITIVE_VALUE;
+  }
+
+  public double getDoubleValue() {
+    return doubleValue;
+  }
+
+  /**
+   * Set a value of type {@code double} without boxing. The primitive value is written before
+   * the marker, so a reader seeing the marker reads the current value.
+   */
+  @Override
+  public void setRawValue(long bits) {
+    doubleValue = Double.longBitsToDouble(bits);
+    super.setValueOrException((V) PRIMITIVE_VALUE);
+  }
+
+  /**
+   * Unbox a value of type {@code Double}. The primitive value is written before the marker,
+   * so a reader seeing the marker reads the current value.
+   */
+  @Override
+  public void setValueOrException(V v) {
+    if (v instanceof Double) {
+      doubleValue = (Double) v;
+      super.setValueOrException((V) PRIMITIVE_VALUE);
+    } else {
+      super.setValueOrException(v);
+    }
+  }
+
+  @Override
+  public V getValueOrException() {
+    V v = super.getValueOrException();
+    if (v == PRIMITIVE_VALUE) {
+      return (V) Double.valueOf(doubleValue);
+    }
+    return v;
+  }
+
+  @Deprecated
+  @Override
+  public V getValue() {
+    return getValueOrException();
+  }
+
+  @Override
+  public boolean equalsValue(V v) {
+    if (hasDoubleValue()) {
+      return v instanceof Double &&
+        Double.doubleToLongBits((Double) v) == Double.doubleToLongBits(doubleValue);
+    }
+    return super.equalsValue(v);
+  }
+
+}
@@ -0,0 +1,71 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.LongDoubleCache;
+
+/**
+ * Stores values of type {@code double} as primitive in the entry, see {@link LongDoubleEntry}.
+ *
+ * @author Jens Wilke
+ */
+public class LongDoubleHeapCache extends LongHeapCache<Double> implements LongDoubleCache {
+
+  @Override
+  protected Entry<Long, Double> newEntry(long key, int hc) {
+    return isCompactEntries() ?
+      new LongDoubleEntry<Double>(key, hc) :
+      new LongDoubleExtendedEntry<Double>(key, hc);
+  }
+
+  @Override
+  public double getDouble(final long key, final double missingValue) {
+    return doubleValue(getEntryInternal(key), missingValue);
+  }
+
+  @Override
+  public double peekDouble(final long key, final double missingValue) {
+    return doubleValue(peekEntryInternal(key), missingValue);
+  }
+
+  @Override
+  public void putDouble(final long key, final double value) {
+    putPrimitive(key, Double.doubleToRawLongBits(value),
+      isValueNeededForPut() ? (Double) value : null);
+  }
+
+  /**
+   * Read the primitive value from the entry. Other values, e.g. an exception, are
+   * handled by the generic code.
+   */
+  private double doubleValue(Entry<Long, Double> e, double missingValue) {
+    if (e == null) {
+      return missingValue;
+    }
+    LongDoubleEntry pe = (LongDoubleEntry) e;
+    if (pe.hasDoubleValue()) {
+      return pe.getDoubleValue();
+    }
+    Double v = returnValue(e);
+    return v != null ? v : missingValue;
+  }
+
+}
@@ -0,0 +1,45 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Entry of the {@link LongHeapCache}. The key is stored as primitive and the
+ * key object reference is {@code null}. The hash code field holds the
+ * modified hash code of the key, like for other key types.
+ *
+ * @author Jens Wilke
+ * @see LongHash2
+ */
+public class LongEntry<V> extends Entry<Long, V> {
+
+  public final long longKey;
+
+  public LongEntry(long longKey, int hashCode) {
+    super(null, hashCode);
+    this.longKey = longKey;
+  }
+
+  @Override
+  public Long getKey() {
+    return longKey;
+  }
+
+}
@@ -0,0 +1,86 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.core.concurrency.OptimisticLock;
+
+/**
+ * Hash table for the {@link LongHeapCache}. Keys are compared by their primitive
+ * value, which is stored in the {@link LongEntry}. Has an additional lookup
+ * method with a primitive key, so no key object needs to be allocated.
+ *
+ * @author Jens Wilke
+ */
+public class LongHash2<V> extends Hash2<Long, V> {
+
+  public LongHash2(HeapCache<Long, V> cache) {
+    super(cache);
+  }
+
+  /**
+   * Lookup the entry by its primitive key, see {@link #lookup(Object, int, int)}.
+   */
+  public Entry<Long, V> lookup(long key, int hash) {
+    int si = hash & LOCK_MASK;
+    OptimisticLock l = locks[si];
+    long stamp = l.tryOptimisticRead();
+    Table<Long, V> t = table;
+    if (t == null) {
+      throw new CacheClosedException(cache);
+    }
+    Entry<Long, V> e = findEntry(t.segments[si], key, hash);
+    if (l.validate(stamp)) {
+      return e;
+    }
+    stamp = l.readLock();
+    try {
+      t = table;
+      if (t == null) {
+        throw new CacheClosedException(cache);
+      }
+      return findEntry(t.segments[si], key, hash);
+    } finally {
+      l.unlockRead(stamp);
+    }
+  }
+
+  private static <V> Entry<Long, V> findEntry(Entry<Long, V>[] tab, long key, int hash) {
+    Entry<Long, V> e = tab[hash & (tab.length - 1)];
+    while (e != null) {
+      if (e.hashCode == hash && ((LongEntry) e).longKey == key) {
+        return e;
+      }
+      e = e.another;
+    }
+    return null;
+  }
+
+  @Override
+  protected boolean keyObjIsEqual(Long key, Entry e) {
+    return ((LongEntry) e).longKey == key;
+  }
+
+  @Override
+  protected boolean entryKeyIsEqual(Entry<Long, V> e, Entry<Long, V> f) {
+    return ((LongEntry) e).longKey == ((LongEntry) f).longKey;
+  }
+
+}
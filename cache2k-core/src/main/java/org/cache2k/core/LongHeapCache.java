@@ -23,30 +23,165 @@ package org.cache2k.core;
 import org.cache2k.LongCache;
 
 /**
- * Just delegate to the non specialized versions for now.
+ * Stores the long key inline in a {@link LongEntry} and compares keys with
+ * the primitive value. Defines methods from {@link LongCache} so no autoboxing
+ * needs to be done in the access path. Operations that need to pass the key
+ * object to the application, e.g. the loader, use the boxed value.
  *
  * @author Jens Wilke
  */
 public class LongHeapCache<V> extends HeapCache<Long, V> implements LongCache<V> {
 
+  /**
+   * Modified hash code of the key, identical to the hash code of the boxed key.
+   */
+  static int modifiedHash(long key) {
+    return modifiedHash((int) (key ^ (key >>> 32)));
+  }
+
+  @Override
+  public Hash2<Long, V> createHashTable() {
+    return new LongHash2<V>(this);
+  }
+
+  @Override
+  protected Entry<Long, V> newEntry(Long key, int val) {
+    return newEntry(key.longValue(), val);
+  }
+
+  protected Entry<Long, V> newEntry(long key, int hc) {
+    return isCompactEntries() ?
+      new LongEntry<V>(key, hc) :
+      new LongExtendedEntry<V>(key, hc);
+  }
+
+  @Override
+  public Long extractKeyObj(Entry<Long, V> e) {
+    return e.getKey();
+  }
+
+  private Entry<Long, V> lookupEntryNoHitRecord(long key, int hc) {
+    return ((LongHash2<V>) hash).lookup(key, hc);
+  }
+
+  private Entry<Long, V> lookupEntry(long key, int hc) {
+    Entry<Long, V> e = lookupEntryNoHitRecord(key, hc);
+    if (e != null) {
+      recordHit(e);
+    }
+    return e;
+  }
+
+  private Entry<Long, V> lookupOrNewEntry(long key, int hc) {
+    Entry<Long, V> e = lookupEntry(key, hc);
+    if (e == null) {
+      return insertNewEntry(newEntry(key, hc), hc, hc);
+    }
+    return e;
+  }
+
   @Override
   public V peek(final long key) {
-    return super.peek(key);
+    Entry<Long, V> e = peekEntryInternal(key);
+    if (e != null) {
+      return returnValue(e);
+    }
+    return null;
+  }
+
+  protected final Entry<Long, V> peekEntryInternal(long key) {
+    Entry<Long, V> e = lookupEntry(key, modifiedHash(key));
+    if (e == null) {
+      metrics.peekMiss();
+      if (hotKeys != null) {
+        hotKeys.miss(key);
+      }
+      return null;
+    }
+    if (e.hasFreshData(clock)) {
+      return e;
+    }
+    metrics.peekHitNotFresh();
+    if (hotKeys != null) {
+      hotKeys.miss(key);
+    }
+    return null;
   }
 
   @Override
   public boolean containsKey(final long key) {
-    return super.containsKey(key);
+    Entry e = lookupEntry(key, modifiedHash(key));
+    if (e != null) {
+      metrics.heapHitButNoRead();
+      return e.hasFreshData(clock);
+    }
+    return false;
   }
 
   @Override
   public void put(final long key, final V value) {
-    super.put(key, value);
+    for (;;) {
+      Entry e = lookupOrNewEntry(key, modifiedHash(key));
+      synchronized (e) {
+        e.waitForProcessing();
+        if (e.isGone()) {
+          metrics.goneSpin();
+          continue;
+        }
+        if (!e.isVirgin()) {
+          metrics.heapHitButNoRead();
+        }
+        putValue(e, value);
+      }
+      return;
+    }
+  }
+
+  /**
+   * Put for the caches holding values as primitive, see {@link #putPrimitiveValue}.
+   */
+  protected final void putPrimitive(final long key, final long bits, final V value) {
+    for (;;) {
+      Entry e = lookupOrNewEntry(key, modifiedHash(key));
+      synchronized (e) {
+        e.waitForProcessing();
+        if (e.isGone()) {
+          metrics.goneSpin();
+          continue;
+        }
+        if (!e.isVirgin()) {
+          metrics.heapHitButNoRead();
+        }
+        putPrimitiveValue(e, bits, value);
+      }
+      return;
+    }
   }
 
   @Override
   public V get(final long key) {
-    return super.get(key);
+    Entry<Long, V> e = getEntryInternal(key);
+    if (e == null) {
+      return null;
+    }
+    return returnValue(e);
+  }
+
+  /**
+   * Without a loader identical to {@link #peekEntryInternal(long)}. With a loader a hit is
+   * served without boxing, a miss or a not fresh entry is processed by the generic
+   * version, which passes the key object to the loader.
+   */
+  protected final Entry<Long, V> getEntryInternal(long key) {
+    if (loader == null) {
+      return peekEntryInternal(key);
+    }
+    Entry<Long, V> e = lookupEntryNoHitRecord(key, modifiedHash(key));
+    if (e != null && e.hasFreshData(clock)) {
+      recordHit(e);
+      return e;
+    }
+    return getEntryInternal(Long.valueOf(key));
   }
 
   @Override
@@ -0,0 +1,104 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Entry of the {@link LongLongHeapCache} holding a value of type {@code long} as primitive.
+ * The value field of the entry contains a marker in this case. Other values, e.g.
+ * {@code null} or an exception, are stored in the value field as usual. Based on
+ * the compact entry, {@link LongLongExtendedEntry} adds the additional reference.
+ *
+ * @author Jens Wilke
+ */
+@SuppressWarnings("unchecked")
+public class LongLongEntry<V> extends LongEntry<V> implements PrimitiveValueEntry {
+
+  /**
+   * Marker in the value field, the value is held in {@link #longValue}
+   */
+  private static final Object PRIMITIVE_VALUE = new Object();
+
+  private volatile long longValue;
+
+  public LongLongEntry(long longKey, int hashCode) {
+    super(longKey, hashCode);
+  }
+
+  /**
+   * True, if the entry holds a value of type {@code long}, which is read via
+   * {@link #getLongValue()} without boxing.
+   */
+  public boolean hasLongValue() {
+    return super.getValueOrException() == PRIMITIVE_VALUE;
+  }
+
+  public long getLongValue() {
+    return longValue;
+  }
+
+  /**
+   * Set a value of type {@code long} without boxing. The primitive value is written before
+   * the marker, so a reader seeing the marker reads the current value.
+   */
+  @Override
+  public void setRawValue(long bits) {
+    longValue = bits;
+    super.setValueOrException((V) PRIMITIVE_VALUE);
+  }
+
+  /**
+   * Unbox a value of type {@code Long}. The primitive value is written before the marker,
+   * so a reader seeing the marker reads the current value.
+   */
+  @Override
+  public void setValueOrException(V v) {
+    if (v instanceof Long) {
+      longValue = (Long) v;
+      super.setValueOrException((V) PRIMITIVE_VALUE);
+    } else {
+      super.setValueOrException(v);
+    }
+  }
+
+  @Override
+  public V getValueOrException() {
+    V v = super.getValueOrException();
+    if (v == PRIMITIVE_VALUE) {
+      return (V) Long.valueOf(longValue);
+    }
+    return v;
+  }
+
+  @Deprecated
+  @Override
+  public V getValue() {
+    return getValueOrException();
+  }
+
+  @Override
+  public boolean equalsValue(V v) {
+    if (hasLongValue()) {
+      return v instanceof Long && (Long) v == longValue;
+    }
+    return super.equalsValue(v);
+  }
+
+}
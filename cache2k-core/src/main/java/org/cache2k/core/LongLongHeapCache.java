@@ -0,0 +1,70 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.LongLongCache;
+
+/**
+ * Stores values of type {@code long} as primitive in the entry, see {@link LongLongEntry}.
+ *
+ * @author Jens Wilke
+ */
+public class LongLongHeapCache extends LongHeapCache<Long> implements LongLongCache {
+
+  @Override
+  protected Entry<Long, Long> newEntry(long key, int hc) {
+    return isCompactEntries() ?
+      new LongLongEntry<Long>(key, hc) :
+      new LongLongExtendedEntry<Long>(key, hc);
+  }
+
+  @Override
+  public long getLong(final long key, final long missingValue) {
+    return longValue(getEntryInternal(key), missingValue);
+  }
+
+  @Override
+  public long peekLong(final long key, final long missingValue) {
+    return longValue(peekEntryInternal(key), missingValue);
+  }
+
+  @Override
+  public void putLong(final long key, final long value) {
+    putPrimitive(key, value, isValueNeededForPut() ? (Long) value : null);
+  }
+
+  /**
+   * Read the primitive value from the entry. Other values, e.g. an exception, are
+   * handled by the generic code.
+   */
+  private long longValue(Entry<Long, Long> e, long missingValue) {
+    if (e == null) {
+      return missingValue;
+    }
+    LongLongEntry pe = (LongLongEntry) e;
+    if (pe.hasLongValue()) {
+      return pe.getLongValue();
+    }
+    Long v = returnValue(e);
+    return v != null ? v : missingValue;
+  }
+
+}
@@ -0,0 +1,39 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Entry holding its value as primitive, implemented by the entries of the caches with
+ * primitive values. Used by {@link HeapCache#putPrimitiveValue} to write a value without
+ * boxing it.
+ *
+ * @author Jens Wilke
+ */
+public interface PrimitiveValueEntry {
+
+  /**
+   * Set the primitive value, passed as its raw bits in a {@code long}. Values of type
+   * {@code int} are passed as is, values of type {@code double} via
+   * {@link Double#doubleToRawLongBits(double)}.
+   */
+  void setRawValue(long bits);
+
+}
@@ -48,6 +48,15 @@ public class SegmentedEviction implements Eviction, EvictionMetrics {
     return sgs[idx].updateWeight(e);
   }
 
+  @Override
+  public void recordHit(Entry e) {
+    int hc = e.hashCode;
+    Eviction[] sgs = segments;
+    int mask = sgs.length - 1;
+    int idx = hc & mask;
+    sgs[idx].recordHit(e);
+  }
+
   @Override
   public boolean submitWithoutTriggeringEviction(Entry e) {
     int hc = e.hashCode;
@@ -88,6 +97,15 @@ public class SegmentedEviction implements Eviction, EvictionMetrics {
     return count;
   }
 
+  @Override
+  public long getTransferredHitCount() {
+    long sum = 0;
+    for (Eviction ev : segments) {
+      sum += ev.getTransferredHitCount();
+    }
+    return sum;
+  }
+
   @Override
   public void start() {
     for (Eviction ev : segments) {
@@ -0,0 +1,240 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Keys of a bulk operation ordered by the lock segment of the hash table, so that the
+ * keys of one segment can be processed together. The modified hash codes are kept
+ * to avoid calculating them twice. Duplicate keys are removed.
+ *
+ * @author Jens Wilke
+ */
+final class SegmentedKeys<K> {
+
+  private final Hash2<K, ?> hash;
+  private final Object[] keys;
+  private final Object[] values;
+  private final int[] hashes;
+
+  /**
+   * Start position of the keys for each segment, the last element is the key count.
+   */
+  private final int[] segmentStart;
+
+  static <K> SegmentedKeys<K> ofKeys(Hash2<K, ?> hash, Iterable<? extends K> keys) {
+    return new SegmentedKeys<K>(hash, uniqueKeys(keys).toArray(), null);
+  }
+
+  static <K> SegmentedKeys<K> ofMap(Hash2<K, ?> hash, Map<? extends K, ?> map) {
+    List<Object> keys = new ArrayList<Object>(map.size());
+    List<Object> values = new ArrayList<Object>(map.size());
+    for (Map.Entry<? extends K, ?> e : map.entrySet()) {
+      keys.add(e.getKey());
+      values.add(e.getValue());
+    }
+    return new SegmentedKeys<K>(hash, keys.toArray(), values.toArray());
+  }
+
+  private SegmentedKeys(Hash2<K, ?> hash, Object[] unsortedKeys, Object[] unsortedValues) {
+    this.hash = hash;
+    int size = unsortedKeys.length;
+    int[] unsortedHashes = new int[size];
+    int segmentCount = hash.getSegmentCount();
+    segmentStart = new int[segmentCount + 1];
+    for (int i = 0; i < size; i++) {
+      int hc = HeapCache.modifiedHash(unsortedKeys[i].hashCode());
+      unsortedHashes[i] = hc;
+      segmentStart[hash.segmentIndex(hc) + 1]++;
+    }
+    for (int i = 1; i <= segmentCount; i++) {
+      segmentStart[i] += segmentStart[i - 1];
+    }
+    keys = new Object[size];
+    hashes = new int[size];
+    values = unsortedValues != null ? new Object[size] : null;
+    int[] fill = new int[segmentCount];
+    for (int i = 0; i < size; i++) {
+      int hc = unsortedHashes[i];
+      int si = hash.segmentIndex(hc);
+      int pos = segmentStart[si] + fill[si]++;
+      keys[pos] = unsortedKeys[i];
+      hashes[pos] = hc;
+      if (values != null) {
+        values[pos] = unsortedValues[i];
+      }
+    }
+  }
+
+  /**
+   * Always copies the keys, even if a set is passed in. A set with identity semantics or
+   * a custom comparator may contain keys that are equal, which would lead to the same
+   * entry twice within one bulk operation.
+   */
+  private static <K> Collection<? extends K> uniqueKeys(Iterable<? extends K> keys) {
+    Set<K> set = keys instanceof Collection ?
+      new LinkedHashSet<K>(((Collection<?>) keys).size() * 4 / 3 + 1) : new LinkedHashSet<K>();
+    for (K k : keys) {
+      if (k == null) {
+        throw new NullPointerException("null key");
+      }
+      set.add(k);
+    }
+    return set;
+  }
+
+  public int size() {
+    return keys.length;
+  }
+
+  @SuppressWarnings("unchecked")
+  public K key(int i) {
+    return (K) keys[i];
+  }
+
+  /**
+   * Value for the key, only present if constructed from a map.
+   */
+  public Object value(int i) {
+    return values[i];
+  }
+
+  /**
+   * The modified hash code of the key.
+   */
+  public int hash(int i) {
+    return hashes[i];
+  }
+
+  /**
+   * End position of the keys that are in the same segment as the key at position {@code i}
+   */
+  public int segmentEnd(int i) {
+    return segmentStart[hash.segmentIndex(hashes[i]) + 1];
+  }
+
+  /**
+   * Process all keys. If the parallelism is above one and there are enough keys, the keys
+   * are divided into ranges with complete segments. Each range is processed by a separate
+   * task in the executor, the first range is processed by the calling thread. If the executor
+   * rejects a task, the range is processed by the calling thread as well. Returns after all
+   * ranges are processed.
+   *
+   * @throws RuntimeException the first exception or error thrown by a task is rethrown
+   */
+  public void process(Executor executor, int parallelism, int minimumSizeForParallelism,
+                      final RangeProcessor processor) {
+    int size = keys.length;
+    if (size == 0) {
+      return;
+    }
+    if (parallelism <= 1 || size < minimumSizeForParallelism) {
+      processor.process(0, size);
+      return;
+    }
+    List<int[]> ranges = new ArrayList<int[]>();
+    int start = 0;
+    for (int i = 1; i <= parallelism && start < size; i++) {
+      int end = (int) ((long) size * i / parallelism);
+      if (end <= start) {
+        continue;
+      }
+      end = end < size ? segmentEnd(end - 1) : size;
+      ranges.add(new int[]{start, end});
+      start = end;
+    }
+    final CountDownLatch latch = new CountDownLatch(ranges.size() - 1);
+    final Throwable[] firstException = new Throwable[1];
+    for (int i = 1; i < ranges.size(); i++) {
+      final int[] range = ranges.get(i);
+      Runnable r = new Runnable() {
+        @Override
+        public void run() {
+          try {
+            processor.process(range[0], range[1]);
+          } catch (Throwable t) {
+            synchronized (firstException) {
+              if (firstException[0] == null) {
+                firstException[0] = t;
+              }
+            }
+          } finally {
+            latch.countDown();
+          }
+        }
+      };
+      try {
+        executor.execute(r);
+      } catch (RejectedExecutionException ex) {
+        r.run();
+      }
+    }
+    try {
+      processor.process(ranges.get(0)[0], ranges.get(0)[1]);
+    } finally {
+      awaitUninterruptibly(latch);
+    }
+    Throwable t;
+    synchronized (firstException) {
+      t = firstException[0];
+    }
+    if (t instanceof RuntimeException) {
+      throw (RuntimeException) t;
+    }
+    if (t instanceof Error) {
+      throw (Error) t;
+    }
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    boolean interrupt = false;
+    for (;;) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException ex) {
+        interrupt = true;
+      }
+    }
+    if (interrupt) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Processes the keys of a range of positions.
+   */
+  interface RangeProcessor {
+
+    void process(int start, int end);
+
+  }
+
+}
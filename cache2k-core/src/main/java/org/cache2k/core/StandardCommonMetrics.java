@@ -224,4 +224,24 @@ public class StandardCommonMetrics implements CommonMetrics.Updater {
     GONE_SPIN_UPDATER.incrementAndGet(this);
   }
 
+  private final LatencyHistogram loadLatency = new LatencyHistogram();
+  @Override
+  public void loadLatency(final long nanos) {
+    loadLatency.record(nanos);
+  }
+  @Override
+  public LatencyHistogram getLoadLatency() {
+    return loadLatency;
+  }
+
+  private final LatencyHistogram writerLatency = new LatencyHistogram();
+  @Override
+  public void writerLatency(final long nanos) {
+    writerLatency.record(nanos);
+  }
+  @Override
+  public LatencyHistogram getWriterLatency() {
+    return writerLatency;
+  }
+
 }
@@ -21,17 +21,36 @@ package org.cache2k.core;
  */
 
 /**
- * Standard factory for metrics.
+ * Standard factory for metrics. Creates striped counters by default, which
+ * scale better with many threads updating the same cache.
  *
  * @author Jens Wilke
+ * @see StripedCommonMetrics
  */
 public class StandardCommonMetricsFactory implements CommonMetricsFactory {
 
+  private final boolean striped;
+
+  public StandardCommonMetricsFactory() {
+    this(true);
+  }
+
+  /**
+   * @param striped use {@link StripedCommonMetrics}, otherwise {@link StandardCommonMetrics}
+   *                with a single counter for each metric
+   */
+  public StandardCommonMetricsFactory(boolean striped) {
+    this.striped = striped;
+  }
+
   @Override
   public CommonMetrics.Updater create(final Parameters p) {
     if (p.isDisabled()) {
       return new CommonMetrics.BlackHole();
     }
+    if (striped) {
+      return new StripedCommonMetrics();
+    }
     return new StandardCommonMetrics();
   }
 
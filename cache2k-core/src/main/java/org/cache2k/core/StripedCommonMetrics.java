@@ -0,0 +1,226 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.core.concurrency.StripedCounters;
+
+/**
+ * Metrics updater based on striped counters. Updates by concurrent threads
+ * go to different cache lines, which scales better than the single counters of
+ * {@link StandardCommonMetrics}. The counter values are summed up when read.
+ *
+ * @author Jens Wilke
+ * @see StripedCounters
+ */
+public class StripedCommonMetrics implements CommonMetrics.Updater {
+
+  private static final int PUT_NEW_ENTRY = 0;
+  private static final int PUT_HIT = 1;
+  private static final int HEAP_HIT_BUT_NO_READ = 2;
+  private static final int TIMER_EVENT = 3;
+  private static final int LOAD_MILLIS = 4;
+  private static final int REFRESH = 5;
+  private static final int READ_THROUGH = 6;
+  private static final int EXPLICIT_LOAD = 7;
+  private static final int LOAD_EXCEPTION = 8;
+  private static final int SUPPRESSED_EXCEPTION = 9;
+  private static final int EXPIRED_KEPT = 10;
+  private static final int PEEK_MISS = 11;
+  private static final int PEEK_HIT_NOT_FRESH = 12;
+  private static final int REFRESHED_HIT = 13;
+  private static final int REFRESH_REJECTED = 14;
+  private static final int GONE_SPIN = 15;
+  private static final int COUNTER_COUNT = 16;
+
+  private final StripedCounters counters = new StripedCounters(COUNTER_COUNT);
+
+  @Override
+  public void putNewEntry() {
+    counters.increment(PUT_NEW_ENTRY);
+  }
+  @Override
+  public long getPutNewEntryCount() {
+    return counters.get(PUT_NEW_ENTRY);
+  }
+
+  @Override
+  public void putHit() {
+    counters.increment(PUT_HIT);
+  }
+  @Override
+  public long getPutHitCount() {
+    return counters.get(PUT_HIT);
+  }
+
+  @Override
+  public void heapHitButNoRead() {
+    counters.increment(HEAP_HIT_BUT_NO_READ);
+  }
+  @Override
+  public long getHeapHitButNoReadCount() {
+    return counters.get(HEAP_HIT_BUT_NO_READ);
+  }
+
+  @Override
+  public void timerEvent() {
+    counters.increment(TIMER_EVENT);
+  }
+  @Override
+  public long getTimerEventCount() {
+    return counters.get(TIMER_EVENT);
+  }
+
+  @Override
+  public long getLoadMillis() {
+    return counters.get(LOAD_MILLIS);
+  }
+
+  @Override
+  public long getRefreshCount() {
+    return counters.get(REFRESH);
+  }
+
+  @Override
+  public long getReadThroughCount() {
+    return counters.get(READ_THROUGH);
+  }
+
+  @Override
+  public long getExplicitLoadCount() {
+    return counters.get(EXPLICIT_LOAD);
+  }
+
+  @Override
+  public void loadException() {
+    counters.increment(LOAD_EXCEPTION);
+  }
+  @Override
+  public long getLoadExceptionCount() {
+    return counters.get(LOAD_EXCEPTION);
+  }
+
+  @Override
+  public void suppressedException() {
+    counters.increment(SUPPRESSED_EXCEPTION);
+  }
+  @Override
+  public long getSuppressedExceptionCount() {
+    return counters.get(SUPPRESSED_EXCEPTION);
+  }
+
+  @Override
+  public void expiredKept() {
+    counters.increment(EXPIRED_KEPT);
+  }
+  @Override
+  public long getExpiredKeptCount() {
+    return counters.get(EXPIRED_KEPT);
+  }
+
+  @Override
+  public void peekMiss() {
+    counters.increment(PEEK_MISS);
+  }
+  @Override
+  public long getPeekMissCount() {
+    return counters.get(PEEK_MISS);
+  }
+
+  @Override
+  public void peekHitNotFresh() {
+    counters.increment(PEEK_HIT_NOT_FRESH);
+  }
+  @Override
+  public long getPeekHitNotFreshCount() {
+    return counters.get(PEEK_HIT_NOT_FRESH);
+  }
+
+  @Override
+  public void refreshedHit() {
+    counters.increment(REFRESHED_HIT);
+  }
+  @Override
+  public long getRefreshedHitCount() {
+    return counters.get(REFRESHED_HIT);
+  }
+
+  @Override
+  public void refreshRejected() {
+    counters.increment(REFRESH_REJECTED);
+  }
+  @Override
+  public long getRefreshRejectedCount() {
+    return counters.get(REFRESH_REJECTED);
+  }
+
+  @Override
+  public void goneSpin() {
+    counters.increment(GONE_SPIN);
+  }
+  @Override
+  public long getGoneSpinCount() {
+    return counters.get(GONE_SPIN);
+  }
+
+  @Override
+  public void refresh(final long millis) {
+    counters.increment(REFRESH);
+    counters.add(LOAD_MILLIS, millis);
+  }
+
+  @Override
+  public void readThrough(final long millis) {
+    counters.increment(READ_THROUGH);
+    counters.add(LOAD_MILLIS, millis);
+  }
+
+  @Override
+  public void explicitLoad(final long millis) {
+    counters.increment(EXPLICIT_LOAD);
+    counters.add(LOAD_MILLIS, millis);
+  }
+
+  @Override
+  public boolean isDisabled() {
+    return false;
+  }
+
+  private final LatencyHistogram loadLatency = new LatencyHistogram();
+  @Override
+  public void loadLatency(final long nanos) {
+    loadLatency.record(nanos);
+  }
+  @Override
+  public LatencyHistogram getLoadLatency() {
+    return loadLatency;
+  }
+
+  private final LatencyHistogram writerLatency = new LatencyHistogram();
+  @Override
+  public void writerLatency(final long nanos) {
+    writerLatency.record(nanos);
+  }
+  @Override
+  public LatencyHistogram getWriterLatency() {
+    return writerLatency;
+  }
+
+}
@@ -27,10 +27,13 @@ import org.cache2k.core.util.InternalClock;
 import org.cache2k.event.CacheEntryEvictedListener;
 import org.cache2k.event.CacheEntryExpiredListener;
 import org.cache2k.integration.AdvancedCacheLoader;
+import org.cache2k.integration.AsyncBulkCacheLoader;
 import org.cache2k.CacheEntry;
 import org.cache2k.event.CacheEntryCreatedListener;
 import org.cache2k.integration.AsyncCacheLoader;
 import org.cache2k.integration.ExceptionPropagator;
+import org.cache2k.processor.EntryProcessingException;
+import org.cache2k.processor.EntryProcessingResult;
 import org.cache2k.processor.EntryProcessor;
 import org.cache2k.event.CacheEntryRemovedListener;
 import org.cache2k.event.CacheEntryUpdatedListener;
@@ -39,15 +42,18 @@ import org.cache2k.integration.CacheWriter;
 import org.cache2k.CacheOperationCompletionListener;
 import org.cache2k.core.operation.ExaminationEntry;
 import org.cache2k.core.operation.Progress;
+import org.cache2k.core.operation.ResultEntry;
 import org.cache2k.core.operation.Semantic;
 import org.cache2k.core.operation.Operations;
 import org.cache2k.core.util.Log;
 import org.cache2k.core.storageApi.PurgeableStorage;
 import org.cache2k.core.storageApi.StorageAdapter;
 import org.cache2k.core.storageApi.StorageEntry;
+import org.cache2k.core.storage.DroppedEntryListener;
 
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -63,7 +69,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  * @author Jens Wilke
  */
 public class WiredCache<K, V> extends BaseCache<K, V>
-  implements StorageAdapter.Parent, HeapCacheListener<K, V> {
+  implements StorageAdapter.Parent, HeapCacheListener<K, V>, DroppedEntryListener {
 
   @SuppressWarnings("unchecked")
   final Operations<K, V> ops = Operations.SINGLETON;
@@ -72,7 +78,13 @@ public class WiredCache<K, V> extends BaseCache<K, V>
   StorageAdapter storage;
   AdvancedCacheLoader<K, V> loader;
   AsyncCacheLoader<K, V> asyncLoader;
+  /**
+   * Loader for the bulk operations. Either the async loader, or an adapter for the
+   * synchronous loader if it implements bulk loading. {@code null} if not supported.
+   */
+  AsyncBulkCacheLoader<K, V> bulkLoader;
   CacheWriter<K, V> writer;
+  WriteBehindWriter<K, V> writeBehind;
   CacheEntryRemovedListener<K, V>[] syncEntryRemovedListeners;
   CacheEntryCreatedListener<K, V>[] syncEntryCreatedListeners;
   CacheEntryUpdatedListener<K, V>[] syncEntryUpdatedListeners;
@@ -231,11 +243,153 @@ public class WiredCache<K, V> extends BaseCache<K, V>
     execute(key, ops.put(key, value));
   }
 
+  /**
+   * True, if a put passes the value to a customization: the writer, the storage, the weigher
+   * or a listener. If not, e.g. when wired only because of a loader, a put can be done by
+   * the heap cache directly.
+   */
+  protected final boolean isPutObserved() {
+    return writer != null || storage != null || heapCache.isWeigherPresent() ||
+      syncEntryCreatedListeners != null || syncEntryUpdatedListeners != null ||
+      syncEntryRemovedListeners != null || syncEntryExpiredListeners != null;
+  }
+
   @Override
   public void putAll(Map<? extends K, ? extends V> m) {
-    for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
-      put(e.getKey(), e.getValue());
+    final SegmentedKeys<K> keys = SegmentedKeys.ofMap(heapCache.hash, m);
+    BulkOperation<V> op = new BulkOperation<V>() {
+      @SuppressWarnings("unchecked")
+      @Override
+      Semantic<K, V, V> semantic(int i) {
+        return ops.put(keys.key(i), (V) keys.value(i));
+      }
+    };
+    executeBulk(keys, op);
+    op.propagateException();
+  }
+
+  @Override
+  public void removeAll(Iterable<? extends K> keyIterable) {
+    final SegmentedKeys<K> keys = SegmentedKeys.ofKeys(heapCache.hash, keyIterable);
+    BulkOperation<V> op = new BulkOperation<V>() {
+      @Override
+      Semantic<K, V, V> semantic(int i) {
+        return ops.remove(keys.key(i));
+      }
+    };
+    executeBulk(keys, op);
+    op.propagateException();
+  }
+
+  @Override
+  public <R> Map<K, EntryProcessingResult<R>> invokeAll(
+    Iterable<? extends K> keyIterable, final EntryProcessor<K, V, R> entryProcessor) {
+    final SegmentedKeys<K> keys = SegmentedKeys.ofKeys(heapCache.hash, keyIterable);
+    final Map<K, EntryProcessingResult<R>> m = new HashMap<K, EntryProcessingResult<R>>();
+    BulkOperation<R> op = new BulkOperation<R>() {
+      @Override
+      Semantic<K, V, R> semantic(int i) {
+        return ops.invoke(keys.key(i), entryProcessor);
+      }
+
+      @Override
+      void completed(int i, EntryAction<K, V, R> ea) {
+        RuntimeException t = ea.exceptionToPropagate;
+        if (t != null && !(t instanceof EntryProcessingException)) {
+          super.completed(i, ea);
+          return;
+        }
+        EntryProcessingResult<R> result;
+        if (t != null) {
+          result = BaseCache.<R>processingException(t.getCause());
+        } else if (ea.result != null) {
+          result = processingResult(ea.result);
+        } else {
+          return;
+        }
+        synchronized (m) {
+          m.put(keys.key(i), result);
+        }
+      }
+    };
+    executeBulk(keys, op);
+    op.propagateException();
+    return m;
+  }
+
+  /**
+   * Start an entry action for every key without waiting for its completion. An action on
+   * an entry that is processed by a concurrent operation is queued and does not block the
+   * others. If a writer is present, the writer is called in batches.
+   */
+  private <R> void executeBulk(final SegmentedKeys<K> keys, final BulkOperation<R> op) {
+    heapCache.processBulk(keys, new SegmentedKeys.RangeProcessor() {
+      @Override
+      public void process(int start, int end) {
+        final WriterBatch<K, V> batch =
+          new WriterBatch<K, V>(writer, metrics(), HeapCache.TUNABLE.writerBatchSize);
+        try {
+          for (int i = start; i < end; i++) {
+            final int index = i;
+            MyEntryAction<R> action = new MyEntryAction<R>(op.semantic(i), keys.key(i), null,
+              new EntryAction.CompletedCallback<K, V, R>() {
+                @Override
+                public void entryActionCompleted(EntryAction<K, V, R> ea) {
+                  try {
+                    op.completed(index, ea);
+                  } finally {
+                    batch.actionCompleted();
+                  }
+                }
+              });
+            if (writer != null) {
+              action.writerBatch = batch;
+            }
+            batch.actionStarted();
+            try {
+              action.start();
+            } catch (RuntimeException ex) {
+              batch.actionCompleted();
+              throw ex;
+            }
+            if (batch.isFull()) {
+              batch.write();
+            }
+          }
+        } finally {
+          batch.writeAndAwaitCompletion();
+        }
+      }
+    });
+  }
+
+  /**
+   * Operation and result handling of a bulk operation. By default the first exception
+   * is kept and propagated after all keys are processed.
+   */
+  abstract class BulkOperation<R> {
+
+    private RuntimeException exception;
+
+    abstract Semantic<K, V, R> semantic(int i);
+
+    void completed(int i, EntryAction<K, V, R> ea) {
+      if (ea.exceptionToPropagate != null) {
+        synchronized (this) {
+          if (exception == null) {
+            exception = ea.exceptionToPropagate;
+          }
+        }
+      }
+    }
+
+    synchronized void propagateException() {
+      if (exception != null) {
+        exception.fillInStackTrace();
+        throw exception;
+      }
     }
+
   }
 
   @Override
@@ -273,7 +427,9 @@ public class WiredCache<K, V> extends BaseCache<K, V>
       listener.onCompleted();
       return;
     }
-    if (asyncLoader != null) {
+    if (bulkLoader != null) {
+      executeBulkLoad(listener, keysToLoad, (Semantic<K, V, Object>) Operations.GET);
+    } else if (asyncLoader != null) {
       loadAllWithAsyncLoader(listener, keysToLoad);
     } else {
       loadAllWithSyncLoader(listener, keysToLoad);
@@ -336,7 +492,9 @@ public class WiredCache<K, V> extends BaseCache<K, V>
     CacheOperationCompletionListener listener =
       l != null ? l : HeapCache.DUMMY_LOAD_COMPLETED_LISTENER;
     Set<K> keySet = heapCache.generateKeySet(keys);
-    if (asyncLoader != null) {
+    if (bulkLoader != null) {
+      executeBulkLoad(listener, keySet, (Semantic<K, V, Object>) ops.unconditionalLoad);
+    } else if (asyncLoader != null) {
       reloadAllWithAsyncLoader(listener, keySet);
     } else {
       reloadAllWithSyncLoader(listener, keySet);
@@ -360,6 +518,41 @@ public class WiredCache<K, V> extends BaseCache<K, V>
     }
   }
 
+  /**
+   * Load the keys with one request to the bulk loader. With an async loader the call
+   * does not block. A synchronous bulk loader is executed via the loader thread pool.
+   * The completion listener is called when all keys are processed.
+   */
+  private void executeBulkLoad(final CacheOperationCompletionListener listener,
+                               Set<K> keySet, final Semantic<K, V, Object> op) {
+    final BulkAction<K, V, Object> action = new MyBulkAction<Object>(keySet) {
+      @Override
+      protected Semantic<K, V, Object> operation(K key) {
+        return op;
+      }
+
+      @Override
+      protected void bulkOperationCompleted() {
+        listener.onCompleted();
+      }
+    };
+    if (asyncLoader != null) {
+      action.start();
+      return;
+    }
+    Runnable r = new HeapCache.RunWithCatch(this) {
+      @Override
+      public void action() {
+        action.start();
+      }
+    };
+    try {
+      heapCache.loaderExecutor.execute(r);
+    } catch (RejectedExecutionException ex) {
+      r.run();
+    }
+  }
+
   /**
    * Execute asynchronously, returns immediately and uses callback to notify on
    * operation completion. Call does not block.
@@ -424,6 +617,11 @@ public class WiredCache<K, V> extends BaseCache<K, V>
     return loader != null || asyncLoader != null;
   }
 
+  @Override
+  public boolean isWriterPresent() {
+    return writer != null;
+  }
+
   V returnValue(V v) {
     return heapCache.returnValue(v);
   }
@@ -447,12 +645,15 @@ public class WiredCache<K, V> extends BaseCache<K, V>
    }
 
   /**
-   * Just a simple loop at the moment. We need to deal with possible null values
-   * and exceptions. This is a simple placeholder implementation that covers it
-   * all by working on the entry.
+   * Just a simple loop at the moment, if there is no bulk loader. We need to deal with
+   * possible null values and exceptions. This is a simple placeholder implementation that
+   * covers it all by working on the entry.
    */
   @Override
   public Map<K, V> getAll(Iterable<? extends K> keys) {
+    if (bulkLoader != null) {
+      return getAllWithBulkLoader(keys);
+    }
     Map<K, CacheEntry<K, V>> map = new HashMap<K, CacheEntry<K, V>>();
     for (K k : keys) {
       CacheEntry<K, V> e = execute(k, ops.getEntry(k));
@@ -463,6 +664,36 @@ public class WiredCache<K, V> extends BaseCache<K, V>
     return heapCache.convertCacheEntry2ValueMap(map);
   }
 
+  /**
+   * Process all keys via the bulk action and wait for completion. Fresh entries are
+   * returned directly, all missing keys are loaded with one request. Exceptions
+   * are propagated when the value is requested from the map, same as the sequential
+   * implementation.
+   */
+  private Map<K, V> getAllWithBulkLoader(Iterable<? extends K> keys) {
+    Set<K> keySet = new LinkedHashSet<K>();
+    for (K k : keys) {
+      keySet.add(k);
+    }
+    BulkAction<K, V, ResultEntry<K, V>> action =
+      new MyBulkAction<ResultEntry<K, V>>(keySet) {
+        @Override
+        protected Semantic<K, V, ResultEntry<K, V>> operation(K key) {
+          return ops.getEntry(key);
+        }
+      };
+    action.start();
+    action.waitForCompletion();
+    Map<K, CacheEntry<K, V>> map = new HashMap<K, CacheEntry<K, V>>();
+    for (EntryAction<K, V, ResultEntry<K, V>> ea : action.getActions()) {
+      finishExecution(ea);
+      if (ea.result != null) {
+        map.put(ea.key, ea.result);
+      }
+    }
+    return heapCache.convertCacheEntry2ValueMap(map);
+  }
+
   @Override
   public CacheEntry<K, V> getEntry(K key) {
     return execute(key, ops.getEntry(key));
@@ -557,6 +788,11 @@ public class WiredCache<K, V> extends BaseCache<K, V>
     return heapCache.getInfo(this);
   }
 
+  @Override
+  public InternalCacheInfo getNonBlockingInfo() {
+    return heapCache.getNonBlockingInfo(this);
+  }
+
   @Override
   public CommonMetrics getCommonMetrics() {
     return heapCache.getCommonMetrics();
@@ -611,6 +847,9 @@ public class WiredCache<K, V> extends BaseCache<K, V>
   @Override
   public void close() {
     try {
+      if (storage != null) {
+        storage.flush();
+      }
       heapCache.closePart1();
     } catch (CacheClosedException ex) {
       return;
@@ -690,10 +929,18 @@ public class WiredCache<K, V> extends BaseCache<K, V>
   }
 
   /**
-   * Calls eviction listeners.
+   * Moves the entry to the storage tier, if present, otherwise calls eviction listeners.
+   * The entry is not evicted from the cache when moved to the storage, so no
+   * listeners are called in this case. The listeners are called by
+   * {@link #onDropped(StorageEntry)} when the storage drops the entry.
    */
   @Override
   public void onEvictionFromHeap(Entry<K, V> e) {
+    StorageAdapter storage = this.storage;
+    if (storage != null) {
+      storage.evict(e);
+      return;
+    }
     CacheEntry<K, V> currentEntry = heapCache.returnCacheEntry(e);
     if (syncEntryEvictedListeners != null) {
       for (CacheEntryEvictedListener<K, V> l : syncEntryEvictedListeners) {
@@ -702,12 +949,52 @@ public class WiredCache<K, V> extends BaseCache<K, V>
     }
   }
 
+  /**
+   * The storage tier dropped an entry because of its capacity, so the entry is
+   * evicted from the cache. Expired entries are not reported.
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public void onDropped(StorageEntry e) {
+    CacheEntryEvictedListener<K, V>[] listeners = syncEntryEvictedListeners;
+    if (listeners == null) {
+      return;
+    }
+    long t = e.getValueExpiryTime();
+    if (t != 0 && t <= heapCache.getClock().millis()) {
+      return;
+    }
+    CacheEntry<K, V> currentEntry =
+      heapCache.returnCacheEntry((K) e.getKey(), (V) e.getValueOrException());
+    for (CacheEntryEvictedListener<K, V> l : listeners) {
+      l.onEntryEvicted(this, currentEntry);
+    }
+  }
+
 
   @Override
   protected <R> EntryAction<K, V, R> createEntryAction(K key, Entry<K, V> e, Semantic<K, V, R> op) {
     return new MyEntryAction<R>(op, key, e);
   }
 
+  @Override
+  protected <R> EntryAction<K, V, R> createEntryAction(
+    K key, Entry<K, V> e, Semantic<K, V, R> op, EntryAction.CompletedCallback<K, V, R> cb) {
+    return new MyEntryAction<R>(op, key, e, cb);
+  }
+
+  /**
+   * The async loader and the bulk loader don't block. A synchronous loader, the writer
+   * and the storage do.
+   */
+  @Override
+  protected Executor getAsyncBlockingExecutor() {
+    if (loader != null || writer != null || storage != null) {
+      return heapCache.loaderExecutor;
+    }
+    return null;
+  }
+
   @Override
   public String getEntryState(K key) {
     return heapCache.getEntryState(key);
@@ -774,6 +1061,30 @@ public class WiredCache<K, V> extends BaseCache<K, V>
     enqueueTimerAction(e, ops.expireEvent);
   }
 
+  /**
+   * Bulk action for this cache. The entry actions use the bulk action as loader.
+   */
+  abstract class MyBulkAction<R> extends BulkAction<K, V, R> {
+
+    MyBulkAction(Set<K> keys) {
+      super(bulkLoader, keys);
+    }
+
+    protected abstract Semantic<K, V, R> operation(K key);
+
+    @Override
+    protected EntryAction<K, V, R> createEntryAction(K key) {
+      final BulkAction<K, V, R> bulkAction = this;
+      return new MyEntryAction<R>(operation(key), key, null, this) {
+        @Override
+        protected AsyncCacheLoader<K, V> asyncLoader() {
+          return bulkAction;
+        }
+      };
+    }
+
+  }
+
   /**
    * Wire the entry action to the resources of this cache.
    */
@@ -788,6 +1099,33 @@ public class WiredCache<K, V> extends BaseCache<K, V>
       super(WiredCache.this.heapCache, WiredCache.this, op, k, e, cb);
     }
 
+    /**
+     * Collects the writer call, if started by a bulk operation.
+     */
+    WriterBatch<K, V> writerBatch;
+
+    @Override
+    public void mutationCallWriter() {
+      if (writerBatch == null || (!remove && newValueOrException instanceof ExceptionWrapper)) {
+        super.mutationCallWriter();
+        return;
+      }
+      heapEntry.nextProcessingStep(Entry.ProcessingState.WRITE);
+      writerBatch.add(this);
+    }
+
+    /**
+     * Write a pending mutation of the key before loading, so the loader does not see
+     * outdated data.
+     */
+    @Override
+    public void load() {
+      if (writeBehind != null) {
+        writeBehind.flush(key);
+      }
+      super.load();
+    }
+
     @Override
     protected boolean mightHaveListeners() {
       return true;
@@ -838,6 +1176,11 @@ public class WiredCache<K, V> extends BaseCache<K, V>
       return asyncLoader;
     }
 
+    @Override
+    protected StorageAdapter storage() {
+      return storage;
+    }
+
     @Override
     protected Executor executor() { return heapCache.getExecutor(); }
 
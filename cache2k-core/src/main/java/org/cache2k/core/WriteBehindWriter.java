@@ -0,0 +1,359 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.core.util.Log;
+import org.cache2k.integration.CacheWriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writer that queues the mutations and writes them in batches by a separate thread,
+ * also known as write behind. Mutations of the same key are coalesced, the position in
+ * the queue is determined by the oldest mutation not yet written.
+ *
+ * <p>The queue is written, when the oldest mutation reaches the delay or the queue contains
+ * enough keys for a batch. If the queue capacity is reached, a mutation waits until there is
+ * space again. When closed, the queue is written completely.
+ *
+ * <p>Calls to the writer are done while holding the write lock, so mutations of the same
+ * key are written in order. {@link #flush(Object)} writes a pending mutation before a value
+ * is loaded, since the loader would see outdated data otherwise.
+ *
+ * @author Jens Wilke
+ */
+public class WriteBehindWriter<K, V> extends CacheWriter<K, V> implements Closeable {
+
+  /**
+   * Marks a pending removal in the queue.
+   */
+  private static final Object DELETE = new Object();
+
+  private final CacheWriter<K, V> writer;
+  private final long delayMillis;
+  private final int capacity;
+  private final int batchSize;
+  private final Log log;
+  private final Thread thread;
+
+  /**
+   * Serializes the calls to the writer. Acquired before the monitor of this object.
+   */
+  private final Object writeLock = new Object();
+
+  /**
+   * Mutations not yet written. Guarded by: this
+   */
+  private final LinkedHashMap<K, Pending> queue = new LinkedHashMap<K, Pending>();
+
+  /** Guarded by: this */
+  private boolean closed;
+
+  /** Guarded by: writeLock */
+  private long writtenCount;
+
+  /** Guarded by: writeLock */
+  private long exceptionCount;
+
+  public WriteBehindWriter(CacheWriter<K, V> writer, long delayMillis, int capacity,
+                           int batchSize, Log log, String threadName) {
+    this.writer = writer;
+    this.delayMillis = delayMillis;
+    this.capacity = capacity;
+    this.batchSize = batchSize;
+    this.log = log;
+    thread = HeapCache.TUNABLE.threadFactoryProvider.newThreadFactory(threadName)
+      .newThread(new Runnable() {
+        @Override
+        public void run() {
+          runFlushLoop();
+        }
+      });
+    thread.start();
+  }
+
+  @Override
+  public void write(K key, V value) {
+    enqueue(key, value);
+  }
+
+  @Override
+  public void delete(K key) {
+    enqueue(key, DELETE);
+  }
+
+  @Override
+  public void writeAll(Map<K, V> entries) {
+    Iterator<Map.Entry<K, V>> it = entries.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<K, V> e = it.next();
+      enqueue(e.getKey(), e.getValue());
+      it.remove();
+    }
+  }
+
+  @Override
+  public void deleteAll(Collection<K> keys) {
+    Iterator<K> it = keys.iterator();
+    while (it.hasNext()) {
+      enqueue(it.next(), DELETE);
+      it.remove();
+    }
+  }
+
+  /**
+   * Queue the mutation or replace a pending mutation of the same key. Waits if the
+   * queue capacity is reached. After close, the mutation is written directly.
+   */
+  private void enqueue(K key, Object value) {
+    boolean interrupt = false;
+    boolean queued = false;
+    synchronized (this) {
+      Pending p = queue.get(key);
+      if (p != null) {
+        p.value = value;
+        return;
+      }
+      while (queue.size() >= capacity && !closed) {
+        notifyAll();
+        try {
+          wait();
+        } catch (InterruptedException ex) {
+          interrupt = true;
+        }
+      }
+      if (!closed) {
+        queue.put(key, new Pending(value, System.currentTimeMillis()));
+        if (queue.size() == 1 || queue.size() >= batchSize) {
+          notifyAll();
+        }
+        queued = true;
+      }
+    }
+    if (interrupt) {
+      Thread.currentThread().interrupt();
+    }
+    if (!queued) {
+      Map<K, Object> batch = new LinkedHashMap<K, Object>();
+      batch.put(key, value);
+      synchronized (writeLock) {
+        writeBatch(batch);
+      }
+    }
+  }
+
+  /**
+   * Write a pending mutation of the key. If a batch with the key is written concurrently,
+   * wait for its completion.
+   */
+  public void flush(K key) {
+    synchronized (writeLock) {
+      Pending p;
+      synchronized (this) {
+        p = queue.remove(key);
+        notifyAll();
+      }
+      if (p != null) {
+        Map<K, Object> batch = new LinkedHashMap<K, Object>();
+        batch.put(key, p.value);
+        writeBatch(batch);
+      }
+    }
+  }
+
+  /**
+   * Write all pending mutations by the calling thread.
+   */
+  public void flush() {
+    synchronized (writeLock) {
+      for (;;) {
+        Map<K, Object> batch = takeBatch();
+        if (batch.isEmpty()) {
+          return;
+        }
+        writeBatch(batch);
+      }
+    }
+  }
+
+  public synchronized int getQueueSize() {
+    return queue.size();
+  }
+
+  /**
+   * Number of mutations passed to the writer successfully.
+   */
+  public long getWrittenCount() {
+    synchronized (writeLock) {
+      return writtenCount;
+    }
+  }
+
+  /**
+   * Number of mutations that were not written because of an exception.
+   */
+  public long getExceptionCount() {
+    synchronized (writeLock) {
+      return exceptionCount;
+    }
+  }
+
+  private synchronized Map<K, Object> takeBatch() {
+    Map<K, Object> batch = new LinkedHashMap<K, Object>();
+    Iterator<Map.Entry<K, Pending>> it = queue.entrySet().iterator();
+    while (it.hasNext() && batch.size() < batchSize) {
+      Map.Entry<K, Pending> e = it.next();
+      batch.put(e.getKey(), e.getValue().value);
+      it.remove();
+    }
+    notifyAll();
+    return batch;
+  }
+
+  /**
+   * Wait until a batch is due and write it, until closed and the queue is empty.
+   */
+  private void runFlushLoop() {
+    boolean interrupt = false;
+    for (;;) {
+      synchronized (this) {
+        for (;;) {
+          if (queue.isEmpty()) {
+            if (closed) {
+              return;
+            }
+            try {
+              wait();
+            } catch (InterruptedException ex) {
+              interrupt = true;
+            }
+            continue;
+          }
+          if (closed || queue.size() >= batchSize) {
+            break;
+          }
+          long oldest = queue.values().iterator().next().time;
+          long delta = oldest + delayMillis - System.currentTimeMillis();
+          if (delta <= 0) {
+            break;
+          }
+          try {
+            wait(delta);
+          } catch (InterruptedException ex) {
+            interrupt = true;
+          }
+        }
+      }
+      synchronized (writeLock) {
+        writeBatch(takeBatch());
+      }
+      if (interrupt) {
+        log.warn("write behind thread interrupted, ignoring");
+        interrupt = false;
+      }
+    }
+  }
+
+  /**
+   * Call the writer for the batch. Needs to be called while holding the write lock.
+   * Exceptions are logged, the mutations that were not written are dropped.
+   */
+  @SuppressWarnings("unchecked")
+  private void writeBatch(Map<K, Object> batch) {
+    Map<K, V> writes = new LinkedHashMap<K, V>();
+    Set<K> deletes = new LinkedHashSet<K>();
+    for (Map.Entry<K, Object> e : batch.entrySet()) {
+      if (e.getValue() == DELETE) {
+        deletes.add(e.getKey());
+      } else {
+        writes.put(e.getKey(), (V) e.getValue());
+      }
+    }
+    if (!writes.isEmpty()) {
+      int size = writes.size();
+      try {
+        writer.writeAll(writes);
+        writtenCount += size;
+      } catch (Throwable t) {
+        writtenCount += size - writes.size();
+        exceptionCount += writes.size();
+        log.warn("write behind failed, " + writes.size() + " values not written", t);
+      }
+    }
+    if (!deletes.isEmpty()) {
+      int size = deletes.size();
+      try {
+        writer.deleteAll(deletes);
+        writtenCount += size;
+      } catch (Throwable t) {
+        writtenCount += size - deletes.size();
+        exceptionCount += deletes.size();
+        log.warn("write behind failed, " + deletes.size() + " removals not written", t);
+      }
+    }
+  }
+
+  /**
+   * Write all pending mutations and wait for the thread to finish. Closes the writer,
+   * if closeable.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      closed = true;
+      notifyAll();
+    }
+    boolean interrupt = false;
+    while (thread.isAlive()) {
+      try {
+        thread.join();
+      } catch (InterruptedException ex) {
+        interrupt = true;
+      }
+    }
+    if (interrupt) {
+      Thread.currentThread().interrupt();
+    }
+    if (writer instanceof Closeable) {
+      ((Closeable) writer).close();
+    }
+  }
+
+  private static final class Pending {
+
+    Object value;
+    final long time;
+
+    Pending(Object value, long time) {
+      this.value = value;
+      this.time = time;
+    }
+
+  }
+
+}
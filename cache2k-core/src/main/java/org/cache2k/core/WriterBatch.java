@@ -0,0 +1,166 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.integration.CacheWriter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks the entry actions started by a bulk operation and collects their writer calls,
+ * so the writer is called with batches via {@link CacheWriter#writeAll(Map)} and
+ * {@link CacheWriter#deleteAll(java.util.Collection)}. An action that reaches the writer
+ * step is added to the batch and keeps the entry locked until the batch is written.
+ *
+ * <p>The batch is only written by the thread that started the actions. While waiting
+ * for the completion, the collected actions are written immediately, so no entry
+ * stays locked while waiting for an entry locked by a concurrent operation.
+ *
+ * <p>The writer latency metric records the duration of a complete batch.
+ *
+ * @author Jens Wilke
+ */
+final class WriterBatch<K, V> {
+
+  private final CacheWriter<K, V> writer;
+  private final CommonMetrics.Updater metrics;
+  private final int maximumSize;
+  private List<EntryAction<K, V, ?>> actions = new ArrayList<EntryAction<K, V, ?>>();
+  private int outstandingCount;
+
+  WriterBatch(CacheWriter<K, V> writer, CommonMetrics.Updater metrics, int maximumSize) {
+    this.writer = writer;
+    this.metrics = metrics;
+    this.maximumSize = maximumSize;
+  }
+
+  synchronized void actionStarted() {
+    outstandingCount++;
+  }
+
+  synchronized void actionCompleted() {
+    outstandingCount--;
+    notifyAll();
+  }
+
+  /**
+   * Called by the entry action instead of calling the writer. The action continues with
+   * {@link EntryAction#onWriteSuccess()} or {@link EntryAction#onWriteFailure(Throwable)}
+   * after the batch is written.
+   */
+  synchronized void add(EntryAction<K, V, ?> action) {
+    actions.add(action);
+    notifyAll();
+  }
+
+  synchronized boolean isFull() {
+    return actions.size() >= maximumSize;
+  }
+
+  /**
+   * Call the writer with the collected values and removals and continue the actions.
+   * Entries remaining in the map or collection after an exception fail, the others
+   * succeed.
+   */
+  void write() {
+    List<EntryAction<K, V, ?>> list;
+    synchronized (this) {
+      if (actions.isEmpty()) {
+        return;
+      }
+      list = actions;
+      actions = new ArrayList<EntryAction<K, V, ?>>();
+    }
+    Map<K, V> writes = new LinkedHashMap<K, V>();
+    Set<K> deletes = new LinkedHashSet<K>();
+    for (EntryAction<K, V, ?> a : list) {
+      if (a.remove) {
+        deletes.add(a.key);
+      } else {
+        writes.put(a.key, a.newValueOrException);
+      }
+    }
+    Throwable writeException = null;
+    Throwable deleteException = null;
+    long n0 = metrics.isDisabled() ? 0 : System.nanoTime();
+    if (!writes.isEmpty()) {
+      try {
+        writer.writeAll(writes);
+      } catch (Throwable t) {
+        writeException = t;
+      }
+    }
+    if (!deletes.isEmpty()) {
+      try {
+        writer.deleteAll(deletes);
+      } catch (Throwable t) {
+        deleteException = t;
+      }
+    }
+    if (!metrics.isDisabled()) {
+      metrics.writerLatency(System.nanoTime() - n0);
+    }
+    for (EntryAction<K, V, ?> a : list) {
+      Throwable t;
+      if (a.remove) {
+        t = deletes.contains(a.key) ? deleteException : null;
+      } else {
+        t = writes.containsKey(a.key) ? writeException : null;
+      }
+      if (t == null) {
+        a.onWriteSuccess();
+      } else {
+        a.onWriteFailure(t);
+      }
+    }
+  }
+
+  /**
+   * Write the collected actions until all started actions are completed.
+   */
+  void writeAndAwaitCompletion() {
+    boolean interrupt = false;
+    for (;;) {
+      write();
+      synchronized (this) {
+        if (outstandingCount <= 0) {
+          break;
+        }
+        if (actions.isEmpty()) {
+          try {
+            wait();
+          } catch (InterruptedException ex) {
+            interrupt = true;
+          }
+        }
+      }
+    }
+    if (interrupt) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
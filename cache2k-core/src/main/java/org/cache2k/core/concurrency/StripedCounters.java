@@ -0,0 +1,115 @@
+package org.cache2k.core.concurrency;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed number of counters, which are striped to avoid contention when updated
+ * by many threads, similar to {@code java.util.concurrent.atomic.LongAdder}.
+ * All counters of one stripe are kept together, since a thread usually updates
+ * more than one counter. Initially there is one stripe. The stripes are doubled
+ * when an update fails because of contention, up to the number of CPUs. Reading a
+ * counter sums up the stripes, the result is not an atomic snapshot if there are
+ * concurrent updates.
+ *
+ * <p>A thread selects its stripe by its id. Stripes are never copied, so no
+ * update gets lost when the stripes are expanded.
+ *
+ * @author Jens Wilke
+ */
+public class StripedCounters {
+
+  /* GraalVM: This runs at runtime, see native-image.properties */
+  private static final int MAXIMUM_STRIPES =
+    Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+
+  /**
+   * Longs in front of and after the counters of a stripe, so a stripe does not share
+   * a cache line with another object.
+   */
+  private static final int PADDING = 8;
+
+  private final int counterCount;
+  private volatile AtomicLongArray[] stripes;
+
+  public StripedCounters(int counterCount) {
+    this.counterCount = counterCount;
+    stripes = new AtomicLongArray[]{newStripe()};
+  }
+
+  private AtomicLongArray newStripe() {
+    return new AtomicLongArray(PADDING + counterCount + PADDING);
+  }
+
+  public void increment(int counter) {
+    add(counter, 1);
+  }
+
+  public void add(int counter, long delta) {
+    AtomicLongArray[] sa = stripes;
+    AtomicLongArray a = sa[(int) Thread.currentThread().getId() & (sa.length - 1)];
+    int idx = PADDING + counter;
+    long v = a.get(idx);
+    if (!a.compareAndSet(idx, v, v + delta)) {
+      a.addAndGet(idx, delta);
+      expand(sa);
+    }
+  }
+
+  /**
+   * Double the stripes, if not done by another thread already. Existing stripes
+   * are kept, so the counts stay valid.
+   */
+  private void expand(AtomicLongArray[] sa) {
+    if (sa.length >= MAXIMUM_STRIPES) {
+      return;
+    }
+    synchronized (this) {
+      if (stripes != sa) {
+        return;
+      }
+      AtomicLongArray[] na = new AtomicLongArray[sa.length * 2];
+      System.arraycopy(sa, 0, na, 0, sa.length);
+      for (int i = sa.length; i < na.length; i++) {
+        na[i] = newStripe();
+      }
+      stripes = na;
+    }
+  }
+
+  public long get(int counter) {
+    long sum = 0;
+    int idx = PADDING + counter;
+    for (AtomicLongArray a : stripes) {
+      sum += a.get(idx);
+    }
+    return sum;
+  }
+
+  /**
+   * Current number of stripes. For testing.
+   */
+  public int getStripeCount() {
+    return stripes.length;
+  }
+
+}
@@ -28,6 +28,9 @@ import org.cache2k.core.IntegerTo16BitFloatingPoint;
 import org.cache2k.core.concurrency.Job;
 import org.cache2k.Weigher;
 
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * Base class for different eviction algorithms, implementing statistics counting and
  * chunking.
@@ -55,10 +58,15 @@ public abstract class AbstractEviction implements Eviction, EvictionMetrics {
 
   private final Weigher weigher;
   protected final HeapCacheForEviction heapCache;
-  private final Object lock = new Object();
+  /**
+   * Lock for the eviction data structures. A lock instead of a monitor, so a reading
+   * thread can drain the read buffer if the lock is free, see {@link #recordHit(Entry)}.
+   */
+  private final Lock lock = new ReentrantLock();
   private final HeapCacheListener listener;
   private final boolean noListenerCall;
   private final boolean noChunking;
+  private final ReadBuffer readBuffer;
 
   /**
    * Set when size is reached.
@@ -96,10 +104,22 @@ public abstract class AbstractEviction implements Eviction, EvictionMetrics {
   private long evictedCount;
   private long totalWeight;
   private long evictedWeight;
+  private long unrecordedHitCount;
 
   public AbstractEviction(HeapCacheForEviction heapCache, HeapCacheListener listener,
                           long maxSize, Weigher weigher, long maxWeight,
                           boolean noChunking) {
+    this(heapCache, listener, maxSize, weigher, maxWeight, noChunking, null);
+  }
+
+  /**
+   * @param readBuffer if not {@code null} accesses are recorded in the buffer
+   *                   and transferred to the entries in batches
+   */
+  public AbstractEviction(HeapCacheForEviction heapCache, HeapCacheListener listener,
+                          long maxSize, Weigher weigher, long maxWeight,
+                          boolean noChunking, ReadBuffer readBuffer) {
+    this.readBuffer = readBuffer;
     this.weigher = weigher;
     this.heapCache = heapCache;
     this.listener = listener;
@@ -112,7 +132,11 @@ public abstract class AbstractEviction implements Eviction, EvictionMetrics {
 
   @Override
   public boolean submitWithoutTriggeringEviction(Entry e) {
-    synchronized (lock) {
+    lock.lock();
+    try {
+      if (readBuffer != null) {
+        drainReadBuffer();
+      }
       if (e.isNotYetInsertedInReplacementList()) {
         insertIntoReplacementList(e);
         newEntryCounter++;
@@ -120,9 +144,60 @@ public abstract class AbstractEviction implements Eviction, EvictionMetrics {
         removeEventually(e);
       }
       return isEvictionNeeded(1);
+    } finally {
+      lock.unlock();
     }
   }
 
+  /**
+   * Record the hit in the read buffer. If the stripe is full, drain the buffer if the
+   * lock is free and record again. If the lock is taken or the stripe is still full,
+   * increment the hit counter of the entry directly, like it is done without a read
+   * buffer, so the hit is not lost and no counter shared by the readers is written.
+   */
+  @Override
+  public void recordHit(Entry e) {
+    if (readBuffer == null) {
+      e.hitCnt++;
+      return;
+    }
+    if (readBuffer.record(e)) {
+      return;
+    }
+    if (lock.tryLock()) {
+      try {
+        unrecordedHitCount += readBuffer.drain();
+      } finally {
+        lock.unlock();
+      }
+      if (readBuffer.record(e)) {
+        return;
+      }
+    }
+    e.hitCnt++;
+  }
+
+  /**
+   * Transfer the recorded accesses into the entries. Called when the lock is needed
+   * anyway, so the reading threads never wait for the lock.
+   */
+  private void drainReadBuffer() {
+    lock.lock();
+    try {
+      unrecordedHitCount += readBuffer.drain();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Hits that were recorded by the read buffer but not transferred into the hit
+   * counter of an entry.
+   */
+  protected long getUnrecordedHitCount() {
+    return unrecordedHitCount;
+  }
+
   private static int calculateChunkSize(boolean noChunking, long maxSize) {
     if (noChunking) { return 1; }
     if (maxSize < MINIMUM_CAPACITY_FOR_CHUNKING && maxSize >= 0) {
@@ -172,9 +247,12 @@ public abstract class AbstractEviction implements Eviction, EvictionMetrics {
     if (!isWeigherPresent()) {
       return false;
     }
-    synchronized (lock) {
+    lock.lock();
+    try {
       updateAccumulatedWeightInLock(e);
       return isEvictionNeeded(0);
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -257,21 +335,30 @@ public abstract class AbstractEviction implements Eviction, EvictionMetrics {
    */
   private void evictEventually(int spaceNeeded) {
     Entry[] chunk;
-    synchronized (lock) {
+    lock.lock();
+    try {
       chunk = fillEvictionChunk(spaceNeeded);
+    } finally {
+      lock.unlock();
     }
     if (chunk == null) { return; }
     boolean needsEviction = evictChunk(chunk, spaceNeeded);
     if (!needsEviction) { return; }
     long loop = 1;
     if (weigher != null) {
-      synchronized (lock) {
+      lock.lock();
+      try {
         loop = getSize();
+      } finally {
+        lock.unlock();
       }
     }
     while (needsEviction && loop-- > 0) {
-      synchronized (lock) {
+      lock.lock();
+      try {
         chunk = fillEvictionChunk(spaceNeeded);
+      } finally {
+        lock.unlock();
       }
       needsEviction = evictChunk(chunk, spaceNeeded);
     }
@@ -281,6 +368,9 @@ public abstract class AbstractEviction implements Eviction, EvictionMetrics {
     if (!isEvictionNeeded(spaceNeeded)) {
       return null;
     }
+    if (readBuffer != null) {
+      drainReadBuffer();
+    }
     if (evictionRunningCount == 0 && estimatedEntryCapacity < getSize()) {
       updatesSizesAfterLimitReached();
     }
@@ -299,13 +389,16 @@ public abstract class AbstractEviction implements Eviction, EvictionMetrics {
   private boolean evictChunk(Entry[] chunk, int spaceNeeded) {
     if (chunk == null) { return false; }
     int processCount = removeFromHash(chunk);
-    synchronized (lock) {
+    lock.lock();
+    try {
       if (processCount > 0) {
         removeAllFromReplacementListOnEvict(chunk);
       }
       evictionRunningCount -= chunk.length;
       evictChunkReuse = chunk;
       return isEvictionNeeded(spaceNeeded);
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -452,8 +545,14 @@ public abstract class AbstractEviction implements Eviction, EvictionMetrics {
   @Override
   public void stop() { }
 
+  /**
+   * Drains the read buffer, the eviction needs no queue otherwise.
+   */
   @Override
   public boolean drain() {
+    if (readBuffer != null) {
+      drainReadBuffer();
+    }
     return false;
   }
 
@@ -462,8 +561,11 @@ public abstract class AbstractEviction implements Eviction, EvictionMetrics {
 
   @Override
   public <T> T runLocked(Job<T> j) {
-    synchronized (lock) {
+    lock.lock();
+    try {
       return j.call();
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -498,17 +600,23 @@ public abstract class AbstractEviction implements Eviction, EvictionMetrics {
       throw new IllegalArgumentException("Capacity or weight of 0 is not supported");
     }
     Entry[] chunk;
-    synchronized (lock) {
+    lock.lock();
+    try {
       modifyCapacityLimits(entryCountOrWeight);
       chunk = fillEvictionChunk(0);
+    } finally {
+      lock.unlock();
     }
     while (chunk != null) {
       evictChunk(chunk, 0);
-      synchronized (lock) {
+      lock.lock();
+      try {
         chunk = fillEvictionChunk(0);
         if (chunk == null) {
           updatesSizesAfterLimitReached();
         }
+      } finally {
+        lock.unlock();
       }
     }
   }
@@ -24,19 +24,35 @@ import org.cache2k.Weigher;
 import org.cache2k.core.Entry;
 import org.cache2k.core.HeapCacheListener;
 import org.cache2k.core.IntegrityState;
+import org.cache2k.core.concurrency.StripedCounters;
 import org.cache2k.core.util.TunableConstants;
 import org.cache2k.core.util.TunableFactory;
 
 /**
  * Eviction algorithm inspired from CLOCK Pro with 3 clocks.
  *
- * <p>Uses a static allocation for hot and cold space sizes. No online or dynamic
- * optimization is done yet. However, the hit rate for all measured access traces is better
- * then LRU and it is resistant to scans.
+ * <p>Uses a static allocation for hot and cold space sizes by default. The hit rate for all
+ * measured access traces is better then LRU and it is resistant to scans.
+ *
+ * <p>In the adaptive mode the hot and ghost sizes are adjusted at runtime by hill climbing.
+ * After a period of as many inserts as the cache holds entries, the hit rate of the period
+ * is compared with the previous one. The hot size is moved further in the same direction if
+ * the hit rate did not decrease, otherwise the direction is reversed and the step is halved.
+ * The direction is also reversed at the limits, so a plateau without any hit rate change
+ * is crossed.
+ * A big change of the hit rate indicates a changed workload and restarts with the initial
+ * step. A smaller hot size gives new entries more time in the cold clock to get a hit, which
+ * favors recency. A bigger hot size favors frequency. The ghost size follows the hot size,
+ * since ghost hits insert directly into the hot clock.
  *
  * <p>From cache2k version 1.2 to version 1.4 the implementation was simplefied and the
  * demotion of hot entries removed. The result achieves similar or better hitrates.
  *
+ * <p>Optionally a {@link FrequencySketch} is used as admission filter. Once eviction is
+ * active, a new entry that was requested less often than the next cold eviction candidate
+ * is inserted at the cold hand instead of the tail, so it is evicted first unless it
+ * receives a hit. This protects the cold clock against scans of entries accessed only once.
+ *
  * <p>The Clock-Pro algorithm is explained by the authors in
  * <a href="http://www.ece.eng.wayne.edu/~sjiang/pubs/papers/jiang05_CLOCK-Pro.pdf">CLOCK-Pro:
  * An Effective Improvement of the CLOCK Replacement</a>
@@ -71,10 +87,35 @@ public class ClockProPlusEviction extends AbstractEviction {
   private long hotMax = Long.MAX_VALUE;
   private long ghostMax = Long.MAX_VALUE;
 
+  private final FrequencySketch sketch;
+  /**
+   * Cold entry that has precedence over the new entries rejected by the admission filter,
+   * which are inserted in front of it.
+   */
+  private Entry admissionVictim;
+  private long admissionRejectCnt;
+
+  private final boolean adaptive;
+  /** Hits counted in adaptive mode, see {@link #recordHit(Entry)} */
+  private final StripedCounters adaptHits;
+  private int hotMaxPercentage = HOT_MAX_PERCENTAGE;
+  private int adaptStep = ADAPTIVE_STEP_PERCENTAGE;
+  private int adaptDirection = -1;
+  private long adaptPeriodInsertCnt;
+  private long adaptPeriodStartHits;
+  /** Hit rate of the previous period in percent, or negative if not yet known */
+  private double adaptPreviousHitRate = -1;
+  private long adaptCnt;
+
   private static final int GHOST_LOAD_PERCENT;
   private static final int HOT_MAX_PERCENTAGE;
   private static final int HIT_COUNTER_DECREASE_SHIFT;
   private static final int GHOST_MAX_PERCENTAGE;
+  private static final int ADAPTIVE_STEP_PERCENTAGE;
+  private static final int ADAPTIVE_HOT_MIN_PERCENTAGE;
+  private static final int ADAPTIVE_HOT_MAX_PERCENTAGE;
+  private static final int ADAPTIVE_RESTART_THRESHOLD_PERCENTAGE;
+  private static final int ADAPTIVE_MINIMUM_PERIOD;
 
   static {
     Tunable tunable = TunableFactory.get(Tunable.class);
@@ -82,12 +123,41 @@ public class ClockProPlusEviction extends AbstractEviction {
     HOT_MAX_PERCENTAGE = tunable.hotMaxPercentage;
     HIT_COUNTER_DECREASE_SHIFT = tunable.hitCounterDecreaseShift;
     GHOST_MAX_PERCENTAGE = tunable.ghostMaxPercentage;
+    ADAPTIVE_STEP_PERCENTAGE = tunable.adaptiveStepPercentage;
+    ADAPTIVE_HOT_MIN_PERCENTAGE = tunable.adaptiveHotMinPercentage;
+    ADAPTIVE_HOT_MAX_PERCENTAGE = tunable.adaptiveHotMaxPercentage;
+    ADAPTIVE_RESTART_THRESHOLD_PERCENTAGE = tunable.adaptiveRestartThresholdPercentage;
+    ADAPTIVE_MINIMUM_PERIOD = tunable.adaptiveMinimumPeriod;
   }
 
   public ClockProPlusEviction(HeapCacheForEviction heapCache, HeapCacheListener listener,
                               long maxSize, Weigher weigher, long maxWeight,
                               boolean noChunking) {
-    super(heapCache, listener, maxSize, weigher, maxWeight, noChunking);
+    this(heapCache, listener, maxSize, weigher, maxWeight, noChunking, null);
+  }
+
+  public ClockProPlusEviction(HeapCacheForEviction heapCache, HeapCacheListener listener,
+                              long maxSize, Weigher weigher, long maxWeight,
+                              boolean noChunking, ReadBuffer readBuffer) {
+    this(heapCache, listener, maxSize, weigher, maxWeight, noChunking, readBuffer, false);
+  }
+
+  public ClockProPlusEviction(HeapCacheForEviction heapCache, HeapCacheListener listener,
+                              long maxSize, Weigher weigher, long maxWeight,
+                              boolean noChunking, ReadBuffer readBuffer,
+                              boolean admissionFilter) {
+    this(heapCache, listener, maxSize, weigher, maxWeight, noChunking, readBuffer,
+      admissionFilter, false);
+  }
+
+  public ClockProPlusEviction(HeapCacheForEviction heapCache, HeapCacheListener listener,
+                              long maxSize, Weigher weigher, long maxWeight,
+                              boolean noChunking, ReadBuffer readBuffer,
+                              boolean admissionFilter, boolean adaptive) {
+    super(heapCache, listener, maxSize, weigher, maxWeight, noChunking, readBuffer);
+    sketch = admissionFilter ? new FrequencySketch() : null;
+    this.adaptive = adaptive;
+    adaptHits = adaptive ? new StripedCounters(1) : null;
 
     coldSize = 0;
     hotSize = 0;
@@ -122,14 +192,101 @@ public class ClockProPlusEviction extends AbstractEviction {
    */
   @Override
   protected void updateHotMax() {
-    hotMax = getSize() * HOT_MAX_PERCENTAGE / 100;
-    ghostMax = getSize() * GHOST_MAX_PERCENTAGE / 100 + 1;
+    updateHotAndGhostMax();
+    if (sketch != null) {
+      sketch.ensureCapacity(getSize());
+    }
+  }
+
+  /**
+   * The ghost size is scaled by the same factor as the hot size, in the static mode
+   * this yields the configured percentages.
+   */
+  private void updateHotAndGhostMax() {
+    hotMax = getSize() * hotMaxPercentage / 100;
+    ghostMax = getSize() * GHOST_MAX_PERCENTAGE * hotMaxPercentage / HOT_MAX_PERCENTAGE / 100 + 1;
     trimGhostSize();
   }
 
+  /**
+   * Current percentage of the hot clock size. Constant if not in adaptive mode.
+   */
+  public int getHotMaxPercentage() {
+    return hotMaxPercentage;
+  }
+
+  /**
+   * Count inserts after the eviction is active and adapt the hot size at
+   * the end of each period.
+   */
+  private void countInsertAndEventuallyAdapt() {
+    if (hotMax == Long.MAX_VALUE) {
+      return;
+    }
+    if (++adaptPeriodInsertCnt >= Math.max(getSize(), ADAPTIVE_MINIMUM_PERIOD)) {
+      adapt();
+    }
+  }
+
+  /**
+   * Counts the hit in adaptive mode in addition to the hit counter of the entry, so the
+   * hits of a period are known without scanning the clocks. The hit counters of the
+   * entries do not serve this purpose, since the hot hand only decreases them partially.
+   */
+  @Override
+  public void recordHit(Entry e) {
+    if (adaptHits != null) {
+      adaptHits.increment(0);
+    }
+    super.recordHit(e);
+  }
+
+  /**
+   * One step of the hill climbing. Runs on the insert path, so it only reads the
+   * striped hit counter and does not scan the clocks.
+   */
+  private void adapt() {
+    long hits = adaptHits.get(0);
+    long periodHits = hits - adaptPeriodStartHits;
+    double hitRate = periodHits * 100D / (periodHits + adaptPeriodInsertCnt);
+    if (adaptPreviousHitRate >= 0) {
+      double delta = hitRate - adaptPreviousHitRate;
+      if (Math.abs(delta) >= ADAPTIVE_RESTART_THRESHOLD_PERCENTAGE) {
+        adaptStep = ADAPTIVE_STEP_PERCENTAGE;
+      }
+      if (delta < 0) {
+        adaptDirection = -adaptDirection;
+        adaptStep = Math.max(1, adaptStep >> 1);
+      }
+    }
+    hotMaxPercentage += adaptDirection * adaptStep;
+    if (hotMaxPercentage <= ADAPTIVE_HOT_MIN_PERCENTAGE) {
+      hotMaxPercentage = ADAPTIVE_HOT_MIN_PERCENTAGE;
+      adaptDirection = 1;
+    } else if (hotMaxPercentage >= ADAPTIVE_HOT_MAX_PERCENTAGE) {
+      hotMaxPercentage = ADAPTIVE_HOT_MAX_PERCENTAGE;
+      adaptDirection = -1;
+    }
+    updateHotAndGhostMax();
+    adaptPreviousHitRate = hitRate;
+    adaptPeriodStartHits = hits;
+    adaptPeriodInsertCnt = 0;
+    adaptCnt++;
+  }
+
+  public long getAdmissionRejectCount() {
+    return admissionRejectCnt;
+  }
+
+  @Override
+  public long getTransferredHitCount() {
+    return hotHits + coldHits + getUnrecordedHitCount();
+  }
+
   @Override
   public long getHitCount() {
-    return hotHits + coldHits + sumUpListHits(handCold) + sumUpListHits(handHot);
+    return hotHits + coldHits + sumUpListHits(handCold) + sumUpListHits(handHot) +
+      getUnrecordedHitCount();
   }
 
   @Override
@@ -164,6 +321,7 @@ public class ClockProPlusEviction extends AbstractEviction {
     }
     handHot = null;
     hotSize = 0;
+    admissionVictim = null;
     return count;
   }
 
@@ -188,6 +346,9 @@ public class ClockProPlusEviction extends AbstractEviction {
    */
   @Override
   protected void removeFromReplacementList(Entry e) {
+    if (e == admissionVictim) {
+      admissionVictim = null;
+    }
     if (e.isHot()) {
       hotHits += e.hitCnt;
       handHot = Entry.removeFromCyclicList(handHot, e);
@@ -244,14 +405,44 @@ public class ClockProPlusEviction extends AbstractEviction {
        */
       ghostHits++;
     }
+    if (adaptive) {
+      countInsertAndEventuallyAdapt();
+    }
     if (g != null || (coldSize == 0 && hotSize < getHotMax())) {
       e.setHot(true);
       hotSize++;
       handHot = Entry.insertIntoTailCyclicList(handHot, e);
+      if (sketch != null) {
+        sketch.increment(e.hashCode);
+      }
       return;
     }
     coldSize++;
     handCold = Entry.insertIntoTailCyclicList(handCold, e);
+    if (sketch != null) {
+      admitOrReject(e);
+    }
+  }
+
+  /**
+   * Compare the frequency of the new entry, which is at the tail of the cold clock, with
+   * the next eviction candidate. If the new entry is less frequent move it to the
+   * cold hand. No admission control before the eviction is active.
+   */
+  private void admitOrReject(Entry e) {
+    sketch.increment(e.hashCode);
+    if (hotMax == Long.MAX_VALUE) {
+      return;
+    }
+    Entry victim = admissionVictim != null ? admissionVictim : handCold;
+    if (victim == e || victim.hitCnt > 0) {
+      return;
+    }
+    if (sketch.frequency(e.hashCode) < sketch.frequency(victim.hashCode)) {
+      admissionVictim = victim;
+      handCold = e;
+      admissionRejectCnt++;
+    }
   }
 
   private Entry runHandHot() {
@@ -296,6 +487,9 @@ public class ClockProPlusEviction extends AbstractEviction {
   @Override
   protected Entry findEvictionCandidate() {
     Entry hand = handCold;
+    if (hand == admissionVictim) {
+      admissionVictim = null;
+    }
     if (hotSize > getHotMax() || hand == null) {
       return runHandHot();
     }
@@ -309,6 +503,12 @@ public class ClockProPlusEviction extends AbstractEviction {
         }
         coldHits += hand.hitCnt;
         Entry e = hand;
+        if (sketch != null) {
+          sketch.increment(e.hashCode);
+        }
+        if (e == admissionVictim) {
+          admissionVictim = null;
+        }
         hand = Entry.removeFromCyclicList(e);
         coldSize--;
         e.setHot(true);
@@ -356,6 +556,11 @@ public class ClockProPlusEviction extends AbstractEviction {
       ", coldHits=" + (coldHits + sumUpListHits(handCold)) +
       ", hotHits=" + (hotHits + sumUpListHits(handHot)) +
       ", ghostHits=" + ghostHits +
+      (sketch != null ? ", admissionRejectCnt=" + admissionRejectCnt +
+        ", sketchResetCnt=" + sketch.getResetCount() : "") +
+      (adaptive ? ", hotMaxPercentage=" + hotMaxPercentage +
+        ", adaptCnt=" + adaptCnt +
+        ", adaptHitRate=" + Math.round(adaptPreviousHitRate) : "") +
       ", coldRunCnt=" + coldRunCnt + // identical to the evictions anyways
       ", coldScanCnt=" + coldScanCnt +
       ", hotRunCnt=" + hotRunCnt +
@@ -502,6 +707,22 @@ public class ClockProPlusEviction extends AbstractEviction {
 
     public int ghostMaxPercentage = 50;
 
+    /** Initial step of the hot size adjustment in adaptive mode */
+    public int adaptiveStepPercentage = 6;
+
+    public int adaptiveHotMinPercentage = 25;
+
+    public int adaptiveHotMaxPercentage = 99;
+
+    /**
+     * Change of the hit rate in percentage points between two periods that is
+     * regarded as workload change and restarts the adjustment with the initial step.
+     */
+    public int adaptiveRestartThresholdPercentage = 5;
+
+    /** Minimum count of inserts for one adaptation period */
+    public int adaptiveMinimumPeriod = 100;
+
   }
 
 }
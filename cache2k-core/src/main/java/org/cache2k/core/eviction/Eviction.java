@@ -39,6 +39,13 @@ public interface Eviction {
    */
   boolean submitWithoutTriggeringEviction(Entry e);
 
+  /**
+   * Record an access to the entry for the eviction algorithm. Increments the hit counter
+   * of the entry directly or records the access in a read buffer, which is drained in
+   * batches.
+   */
+  void recordHit(Entry e);
+
   /**
    * Updates the weight on the entry and recalculates the total weight if needed.
    *
@@ -111,6 +118,16 @@ public interface Eviction {
 
   EvictionMetrics getMetrics();
 
+  /**
+   * Hits that are not held in the hit counter of an entry in the hash table any more,
+   * e.g. of removed entries or transferred by the clock hand. Read without taking
+   * the eviction lock. Together with the sum of the hit counters in the hash table
+   * this is the hit count, without blocking the eviction.
+   *
+   * @see EvictionMetrics#getHitCount()
+   */
+  long getTransferredHitCount();
+
   boolean isWeigherPresent();
 
   /**
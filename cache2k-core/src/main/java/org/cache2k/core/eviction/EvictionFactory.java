@@ -22,6 +22,7 @@ package org.cache2k.core.eviction;
 
 import org.cache2k.Weigher;
 import org.cache2k.configuration.Cache2kConfiguration;
+import org.cache2k.configuration.EvictionAlgorithm;
 import org.cache2k.core.CustomizationContext;
 import org.cache2k.core.HeapCache;
 import org.cache2k.core.HeapCacheListener;
@@ -33,7 +34,7 @@ import org.cache2k.core.SegmentedEviction;
 public class EvictionFactory {
 
   /**
-   * Construct segmented or queued eviction. For the moment hard coded.
+   * Construct segmented or queued eviction with the configured algorithm.
    * If capacity is at least 1000 we use 2 segments if 2 or more CPUs are available.
    * Segmenting the eviction only improves for lots of concurrent inserts or evictions,
    * there is no effect on read performance.
@@ -60,17 +61,28 @@ public class EvictionFactory {
         throw new IllegalArgumentException("entryCapacity of 0 is not supported.");
       }
     }
+    EvictionAlgorithm algorithm = config.getEvictionAlgorithm();
+    if (algorithm == null) {
+      algorithm = EvictionAlgorithm.CLOCK_PRO;
+    }
+    if (algorithm != EvictionAlgorithm.CLOCK_PRO &&
+      (config.isAdmissionFilter() || config.isAdaptiveEviction())) {
+      throw new IllegalArgumentException(
+        "admissionFilter and adaptiveEviction are only supported by CLOCK_PRO, " +
+        "evictionAlgorithm=" + algorithm);
+    }
     int segmentCountOverride = HeapCache.TUNABLE.segmentCountOverride;
     int segmentCount =
       EvictionFactory.determineSegmentCount(
-        strictEviction, availableProcessors,
+        strictEviction || algorithm == EvictionAlgorithm.RANDOM, availableProcessors,
         boostConcurrency, entryCapacity, maximumWeight, segmentCountOverride);
     Eviction[] segments = new Eviction[segmentCount];
     long maxSize = EvictionFactory.determineMaxSize(entryCapacity, segmentCount);
     long maxWeight = EvictionFactory.determineMaxWeight(maximumWeight, segmentCount);
     for (int i = 0; i < segments.length; i++) {
-      Eviction ev = new ClockProPlusEviction(hc, l, maxSize, weigher, maxWeight, strictEviction);
-      segments[i] = ev;
+      ReadBuffer readBuffer = boostConcurrency ? new ReadBuffer(availableProcessors) : null;
+      segments[i] = constructSegment(algorithm, hc, l, maxSize, weigher, maxWeight,
+        strictEviction, readBuffer, config.isAdmissionFilter(), config.isAdaptiveEviction());
     }
     if (segmentCount == 1) {
       return segments[0];
@@ -78,6 +90,28 @@ public class EvictionFactory {
     return new SegmentedEviction(segments);
   }
 
+  private static Eviction constructSegment(EvictionAlgorithm algorithm,
+                                           HeapCacheForEviction hc, HeapCacheListener l,
+                                           long maxSize, Weigher weigher, long maxWeight,
+                                           boolean noChunking, ReadBuffer readBuffer,
+                                           boolean admissionFilter, boolean adaptive) {
+    switch (algorithm) {
+      case RANDOM:
+        return new RandomEviction(hc, l, maxSize, weigher, maxWeight, readBuffer);
+      case SEGMENTED_LRU:
+        return new SegmentedLruEviction(
+          hc, l, maxSize, weigher, maxWeight, noChunking, readBuffer);
+      case S3_FIFO:
+        return new S3FifoEviction(hc, l, maxSize, weigher, maxWeight, noChunking, readBuffer);
+      case WINDOW_TINY_LFU:
+        return new WindowTinyLfuEviction(
+          hc, l, maxSize, weigher, maxWeight, noChunking, readBuffer);
+      default:
+        return new ClockProPlusEviction(
+          hc, l, maxSize, weigher, maxWeight, noChunking, readBuffer, admissionFilter, adaptive);
+    }
+  }
+
   public static long determineMaxSize(long entryCapacity, int segmentCount) {
     if (entryCapacity < 0) {
       return -1;
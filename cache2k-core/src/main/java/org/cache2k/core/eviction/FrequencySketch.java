@@ -0,0 +1,137 @@
+ package org.cache2k.core.eviction;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Count-min sketch with 4 bit counters that estimates the access frequency of a hash code
+ * in the recent past. Used as admission filter, as described in
+ * <a href="https://arxiv.org/abs/1512.00727">TinyLFU: A Highly Efficient Cache Admission
+ * Policy</a>.
+ *
+ * <p>Each long in the table holds 16 counters. A hash code is mapped to four counters within
+ * four different longs, the frequency is the minimum of the four. After a number of increments
+ * proportional to the table size all counters are halved, so older accesses count less.
+ *
+ * <p>The sketch is not thread safe, it is only used while holding the eviction lock.
+ *
+ * @author Jens Wilke
+ */
+final class FrequencySketch {
+
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+  private static final int MINIMUM_TABLE_SIZE = 8;
+  private static final int SAMPLE_FACTOR = 10;
+
+  private long[] table;
+  private int tableMask;
+  private int sampleSize;
+  private int incrementCount;
+  private long resetCount;
+
+  FrequencySketch() {
+    ensureCapacity(0);
+  }
+
+  /**
+   * Enlarge the table to track the given number of entries. The counts are reset.
+   */
+  void ensureCapacity(long maximumSize) {
+    int maximum = (int) Math.min(maximumSize, 1 << 28);
+    int len = MINIMUM_TABLE_SIZE;
+    while (len < maximum) {
+      len <<= 1;
+    }
+    if (table != null && table.length >= len) {
+      return;
+    }
+    table = new long[len];
+    tableMask = len - 1;
+    sampleSize = len * SAMPLE_FACTOR;
+    incrementCount = 0;
+  }
+
+  /**
+   * Estimated number of occurrences of the hash code, maximum is 15.
+   */
+  int frequency(int hash) {
+    int start = (hash & 3) << 2;
+    int frequency = 15;
+    for (int i = 0; i < 4; i++) {
+      int idx = indexOf(hash, i);
+      int count = (int) ((table[idx] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Increment the counters of the hash code, unless at maximum. Halves all counters
+   * when the sample size is reached.
+   */
+  void increment(int hash) {
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && ++incrementCount == sampleSize) {
+      reset();
+    }
+  }
+
+  long getResetCount() {
+    return resetCount;
+  }
+
+  private boolean incrementAt(int idx, int counter) {
+    int offset = counter << 2;
+    long mask = 0xfL << offset;
+    if ((table[idx] & mask) != mask) {
+      table[idx] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  private int indexOf(int hash, int i) {
+    long h = (hash + SEEDS[i]) * SEEDS[i];
+    h += h >>> 32;
+    return ((int) h) & tableMask;
+  }
+
+  /**
+   * Halve all counters. The increment count is reduced by the counts lost by rounding.
+   */
+  private void reset() {
+    int odd = 0;
+    long[] tab = table;
+    for (int i = 0; i < tab.length; i++) {
+      odd += Long.bitCount(tab[i] & ONE_MASK);
+      tab[i] = (tab[i] >>> 1) & RESET_MASK;
+    }
+    incrementCount = (incrementCount >>> 1) - (odd >>> 2);
+    resetCount++;
+  }
+
+}
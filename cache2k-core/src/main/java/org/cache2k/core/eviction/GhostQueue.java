@@ -0,0 +1,102 @@
+ package org.cache2k.core.eviction;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Remembers the hash codes of recently evicted entries in insertion order. Only the
+ * hash codes are kept in two int arrays. Membership is approximate: colliding hash codes
+ * replace each other, so a lookup may miss an entry that was added.
+ *
+ * <p>Not thread safe, used only while holding the eviction lock.
+ *
+ * @author Jens Wilke
+ */
+final class GhostQueue {
+
+  private int[] queue;
+  private int[] table;
+  private int mask;
+  private int position;
+  private int size;
+
+  GhostQueue() {
+    resize(16);
+  }
+
+  /**
+   * Set the maximum number of remembered hash codes. The content is lost if the
+   * capacity changes.
+   */
+  void resize(long capacity) {
+    int cap = (int) Math.max(1, Math.min(capacity, 1 << 28));
+    if (queue != null && queue.length == cap) {
+      return;
+    }
+    queue = new int[cap];
+    int len = 2;
+    while (len < cap * 2) {
+      len <<= 1;
+    }
+    table = new int[len];
+    mask = len - 1;
+    position = 0;
+    size = 0;
+  }
+
+  void add(int hash) {
+    if (size == queue.length) {
+      int old = queue[position];
+      int idx = index(old);
+      if (table[idx] == fingerprint(old)) {
+        table[idx] = 0;
+      }
+    } else {
+      size++;
+    }
+    queue[position] = hash;
+    position = position + 1 == queue.length ? 0 : position + 1;
+    table[index(hash)] = fingerprint(hash);
+  }
+
+  boolean contains(int hash) {
+    return table[index(hash)] == fingerprint(hash);
+  }
+
+  int size() {
+    return size;
+  }
+
+  int capacity() {
+    return queue.length;
+  }
+
+  private int index(int hash) {
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  /**
+   * Never 0, which marks an empty slot.
+   */
+  private static int fingerprint(int hash) {
+    return hash | 1;
+  }
+
+}
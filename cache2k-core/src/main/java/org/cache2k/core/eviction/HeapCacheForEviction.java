@@ -32,9 +32,10 @@ import org.cache2k.core.Entry;
 public interface HeapCacheForEviction<K, V> {
 
   /**
-   * Hash table entry array, used reaa only by random eviction.
+   * Pick an entry from the hash table at or after the position, used only by
+   * random eviction.
    */
-  Entry<K, V>[] getHashEntries();
+  Entry<K, V> pickHashEntry(int position);
 
   /**
    * After removing the entry from the eviction data structure,
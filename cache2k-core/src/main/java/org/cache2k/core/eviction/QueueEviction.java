@@ -0,0 +1,187 @@
+ package org.cache2k.core.eviction;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Weigher;
+import org.cache2k.core.Entry;
+import org.cache2k.core.HeapCacheListener;
+import org.cache2k.core.IntegrityState;
+
+/**
+ * Base for eviction algorithms that keep entries in up to four queues. Each queue is
+ * a double linked list with a sentinel head, new entries are inserted after the head and
+ * the tail is the oldest entry. The queue of an entry is stored in the entry, see
+ * {@link Entry#getEvictionQueue()}.
+ *
+ * <p>Accesses only increment the hit counter of an entry and never reorder the queues.
+ * The algorithms inspect the hit counter when an entry reaches the tail of a queue, so an LRU
+ * queue is approximated with a second chance. A selected eviction candidate is moved to the
+ * head of its queue, so the next call selects another entry, as required by
+ * {@link #findEvictionCandidate()}.
+ *
+ * @author Jens Wilke
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class QueueEviction extends AbstractEviction {
+
+  private final Entry[] heads;
+  private final long[] sizes;
+  private long hits;
+
+  public QueueEviction(HeapCacheForEviction heapCache, HeapCacheListener listener,
+                       long maxSize, Weigher weigher, long maxWeight,
+                       boolean noChunking, ReadBuffer readBuffer, int queueCount) {
+    super(heapCache, listener, maxSize, weigher, maxWeight, noChunking, readBuffer);
+    heads = new Entry[queueCount];
+    sizes = new long[queueCount];
+    for (int i = 0; i < queueCount; i++) {
+      heads[i] = new Entry().shortCircuit();
+    }
+  }
+
+  /**
+   * Name of the queue for the statistics output.
+   */
+  protected abstract String getQueueName(int q);
+
+  protected final long getQueueSize(int q) {
+    return sizes[q];
+  }
+
+  /**
+   * Oldest entry of the queue or {@code null} if empty.
+   */
+  protected final Entry tail(int q) {
+    Entry head = heads[q];
+    Entry e = head.prev;
+    return e == head ? null : e;
+  }
+
+  protected final void insert(Entry e, int q) {
+    e.setEvictionQueue(q);
+    Entry.insertInList(heads[q], e);
+    sizes[q]++;
+  }
+
+  /**
+   * Move the entry to the head of the queue, which may be its current queue.
+   */
+  protected final void moveToHead(Entry e, int q) {
+    e.prev.next = e.next;
+    e.next.prev = e.prev;
+    sizes[e.getEvictionQueue()]--;
+    insert(e, q);
+  }
+
+  /**
+   * Reset the hit counter and add the hits to the total.
+   *
+   * @return the hits of the entry since the last call
+   */
+  protected long consumeHits(Entry e) {
+    return reduceHits(e, 0);
+  }
+
+  /**
+   * Set the hit counter to a lower value and add the difference to the total. Used
+   * by algorithms that keep a residual frequency in the hit counter.
+   *
+   * @return the previous value of the hit counter
+   */
+  protected long reduceHits(Entry e, long v) {
+    long cnt = e.hitCnt;
+    hits += cnt - v;
+    e.hitCnt = v;
+    return cnt;
+  }
+
+  @Override
+  protected void removeFromReplacementList(Entry e) {
+    hits += e.hitCnt;
+    sizes[e.getEvictionQueue()]--;
+    Entry.removeFromList(e);
+  }
+
+  @Override
+  protected long removeAllFromReplacementList() {
+    long count = 0;
+    for (int q = 0; q < heads.length; q++) {
+      Entry head = heads[q];
+      Entry e = head.next;
+      while (e != head) {
+        Entry next = e.next;
+        hits += e.hitCnt;
+        e.removedFromList();
+        count++;
+        e = next;
+      }
+      head.shortCircuit();
+      sizes[q] = 0;
+    }
+    return count;
+  }
+
+  @Override
+  public long getSize() {
+    long sum = 0;
+    for (long size : sizes) {
+      sum += size;
+    }
+    return sum;
+  }
+
+  @Override
+  public long getTransferredHitCount() {
+    return hits + getUnrecordedHitCount();
+  }
+
+  @Override
+  public long getHitCount() {
+    long sum = hits;
+    for (Entry head : heads) {
+      for (Entry e = head.next; e != head; e = e.next) {
+        sum += e.hitCnt;
+      }
+    }
+    return sum + getUnrecordedHitCount();
+  }
+
+  @Override
+  public void checkIntegrity(IntegrityState integrityState) {
+    for (int q = 0; q < heads.length; q++) {
+      integrityState
+        .check("checkCyclicListIntegrity(" + getQueueName(q) + ")",
+          Entry.checkCyclicListIntegrity(heads[q]))
+        .checkEquals("getCyclicListEntryCount(" + getQueueName(q) + ") == size",
+          Entry.getCyclicListEntryCount(heads[q]) - 1, sizes[q]);
+    }
+  }
+
+  @Override
+  public String getExtraStatistics() {
+    StringBuilder sb = new StringBuilder(super.getExtraStatistics());
+    for (int q = 0; q < heads.length; q++) {
+      sb.append(", ").append(getQueueName(q)).append("Size=").append(sizes[q]);
+    }
+    return sb.toString();
+  }
+
+}
@@ -33,20 +33,19 @@ public class RandomEviction extends AbstractEviction {
 
   private int evictionIndex = 0;
   private long size = 0;
+  private long hits = 0;
   private final Entry head = new Entry().shortCircuit();
 
   public RandomEviction(HeapCacheForEviction heapCache, HeapCacheListener listener,
-                        long maxSize, Weigher weigher, long maxWeight) {
-    super(heapCache, listener, maxSize, weigher, maxWeight, false);
-  }
-
-  @Override
-  public boolean updateWeight(Entry e) {
-    return false;
+                        long maxSize, Weigher weigher, long maxWeight,
+                        ReadBuffer readBuffer) {
+    super(heapCache, listener, maxSize, weigher, maxWeight, false, readBuffer);
   }
 
   @Override
   protected void removeFromReplacementList(Entry e) {
+    hits += e.hitCnt;
+    size--;
     Entry.removeFromList(e);
   }
 
@@ -56,26 +55,28 @@ public class RandomEviction extends AbstractEviction {
     Entry.insertInList(head, e);
   }
 
+  /**
+   * Pick an entry from the hash table. Since the hash table is read without lock, an entry
+   * may be inserted in the hash but not yet in the eviction, those are skipped. Needs to
+   * run without eviction segments, since the hash contains the entries of all segments.
+   */
   @Override
   protected Entry findEvictionCandidate() {
-    Entry[] h0 = heapCache.getHashEntries();
-    int idx = evictionIndex % (h0.length);
     Entry e;
-    while ((e = h0[idx]) == null) {
-      idx++;
-      if (idx >= h0.length) {
-        idx = 0;
+    do {
+      e = heapCache.pickHashEntry(evictionIndex);
+      evictionIndex += e.hashCode | 1;
+      if (evictionIndex < 0) {
+        evictionIndex = -evictionIndex;
       }
-    }
-    evictionIndex += e.hashCode;
-    if (evictionIndex < 0) {
-      evictionIndex = -evictionIndex;
-    }
+    } while (e.isNotYetInsertedInReplacementList());
     return e;
   }
 
   @Override
   public void checkIntegrity(IntegrityState integrityState) {
+    integrityState.checkEquals("getListEntryCount() == size",
+      Entry.getCyclicListEntryCount(head) - 1, size);
   }
 
   @Override
@@ -85,21 +86,28 @@ public class RandomEviction extends AbstractEviction {
     Entry e = this.head.prev;
     while (e != head) {
       Entry next = e.prev;
+      hits += e.hitCnt;
       e.removedFromList();
       count++;
       e = next;
     }
+    head.shortCircuit();
+    size = 0;
     return count;
   }
 
   @Override
-  public String getExtraStatistics() {
-    return "";
+  public long getTransferredHitCount() {
+    return hits + getUnrecordedHitCount();
   }
 
   @Override
   public long getHitCount() {
-    return 0;
+    long sum = hits;
+    for (Entry e = head.next; e != head; e = e.next) {
+      sum += e.hitCnt;
+    }
+    return sum + getUnrecordedHitCount();
   }
 
   @Override
@@ -0,0 +1,158 @@
+package org.cache2k.core.eviction;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.core.Entry;
+import org.cache2k.core.util.TunableConstants;
+import org.cache2k.core.util.TunableFactory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records entry accesses so a cache read does not need to write to the entry.
+ * The buffer is split into stripes, a thread selects its stripe by its id.
+ * Each stripe is a bounded ring with multiple producers and a single consumer.
+ * A reading thread never waits for the buffer to be drained.
+ *
+ * <p>The recorded accesses are transferred into the hit counter of the entries
+ * by {@link #drain()}, which is done by the eviction while holding its lock,
+ * when an entry is inserted or evicted, or by a reading thread finding its stripe
+ * full, if the lock is free. If the lock is not free, the reading thread increments
+ * the hit counter of the entry itself, see {@link AbstractEviction#recordHit(Entry)}.
+ * So no access is lost and a read never writes to a counter shared by all readers.
+ *
+ * @author Jens Wilke
+ */
+public final class ReadBuffer {
+
+  static final int STRIPE_SIZE = 16;
+  static final int STRIPE_MASK = STRIPE_SIZE - 1;
+
+  /**
+   * Array elements in front of and after the data of a stripe, so stripes and the
+   * counters updated by readers and by the draining thread do not share a cache line.
+   */
+  private static final int PADDING = 8;
+
+  private static final int MAXIMUM_STRIPES = TunableFactory.get(Tunable.class).maximumStripes;
+
+  private final Stripe[] stripes;
+  private final int stripeMask;
+
+  public ReadBuffer(int availableProcessors) {
+    int n = Math.max(1, Math.min(MAXIMUM_STRIPES, availableProcessors));
+    n = 1 << (32 - Integer.numberOfLeadingZeros(n - 1));
+    stripes = new Stripe[n];
+    for (int i = 0; i < n; i++) {
+      stripes[i] = new Stripe();
+    }
+    stripeMask = n - 1;
+  }
+
+  /**
+   * Record an access to the entry.
+   *
+   * @return {@code false}, if the stripe is full and the access was not recorded
+   */
+  public boolean record(Entry e) {
+    return stripes[stripeIndex()].offer(e);
+  }
+
+  private int stripeIndex() {
+    int h = (int) Thread.currentThread().getId() * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & stripeMask;
+  }
+
+  /**
+   * Increment the hit counter of the recorded entries. Only one thread may drain at
+   * a time, which is ensured by the eviction lock.
+   *
+   * @return hits that are not transferred into an entry, because the entry is not part
+   *         of the eviction any more
+   */
+  public long drain() {
+    long unrecorded = 0;
+    for (Stripe s : stripes) {
+      unrecorded += s.drain();
+    }
+    return unrecorded;
+  }
+
+  static final class Stripe {
+
+    /** Producer side, write position */
+    private static final int WRITE = PADDING;
+    /** Consumer side, read position */
+    private static final int READ = PADDING + 1 + PADDING;
+    private static final int COUNTERS_LENGTH = READ + 1 + PADDING;
+
+    final AtomicReferenceArray<Entry> buffer =
+      new AtomicReferenceArray<Entry>(PADDING + STRIPE_SIZE + PADDING);
+    final AtomicLongArray counters = new AtomicLongArray(COUNTERS_LENGTH);
+
+    boolean offer(Entry e) {
+      for (;;) {
+        long tail = counters.get(WRITE);
+        if (tail - counters.get(READ) >= STRIPE_SIZE) {
+          return false;
+        }
+        if (counters.compareAndSet(WRITE, tail, tail + 1)) {
+          buffer.lazySet(PADDING + ((int) tail & STRIPE_MASK), e);
+          return true;
+        }
+      }
+    }
+
+    long drain() {
+      long unrecorded = 0;
+      long head = counters.get(READ);
+      long tail = counters.get(WRITE);
+      for (; head != tail; head++) {
+        int idx = PADDING + ((int) head & STRIPE_MASK);
+        Entry e = buffer.get(idx);
+        if (e == null) {
+          break;
+        }
+        buffer.lazySet(idx, null);
+        if (e.isRemovedFromReplacementList()) {
+          unrecorded++;
+        } else {
+          e.hitCnt++;
+        }
+      }
+      counters.lazySet(READ, head);
+      return unrecorded;
+    }
+
+  }
+
+  public static class Tunable extends TunableConstants {
+
+    /**
+     * Upper limit of stripes. The number of stripes is the number of processors
+     * rounded to the next power of two, limited by this value.
+     */
+    public int maximumStripes = 32;
+
+  }
+
+}
@@ -0,0 +1,119 @@
+ package org.cache2k.core.eviction;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Weigher;
+import org.cache2k.core.Entry;
+import org.cache2k.core.HeapCacheListener;
+
+/**
+ * S3-FIFO eviction, as described in
+ * <a href="https://dl.acm.org/doi/10.1145/3600006.3613147">FIFO queues are all you need for
+ * cache eviction</a>.
+ *
+ * <p>New entries are inserted into the small queue, or into the main queue if their hash
+ * code is in the ghost queue. Entries leaving the small queue move to the main queue if they
+ * had a hit, otherwise they are evicted and remembered in the ghost queue. Entries at the
+ * tail of the main queue are reinserted as long as their hit counter, capped at 3,
+ * is not used up. The remaining frequency is kept in the hit counter.
+ *
+ * @author Jens Wilke
+ */
+public class S3FifoEviction extends QueueEviction {
+
+  static final int SMALL = 0;
+  static final int MAIN = 1;
+
+  private static final int SMALL_PERCENTAGE = 10;
+  private static final int MAXIMUM_FREQUENCY = 3;
+
+  private final GhostQueue ghosts = new GhostQueue();
+  private long smallMax = Long.MAX_VALUE;
+  private long ghostHits;
+
+  public S3FifoEviction(HeapCacheForEviction heapCache, HeapCacheListener listener,
+                        long maxSize, Weigher weigher, long maxWeight,
+                        boolean noChunking, ReadBuffer readBuffer) {
+    super(heapCache, listener, maxSize, weigher, maxWeight, noChunking, readBuffer, 2);
+  }
+
+  @Override
+  protected String getQueueName(int q) {
+    return q == SMALL ? "small" : "main";
+  }
+
+  @Override
+  protected void updateHotMax() {
+    long size = getSize();
+    smallMax = Math.max(1, size * SMALL_PERCENTAGE / 100);
+    ghosts.resize(size - smallMax);
+  }
+
+  @Override
+  protected void insertIntoReplacementList(Entry e) {
+    if (ghosts.contains(e.hashCode)) {
+      ghostHits++;
+      insert(e, MAIN);
+    } else {
+      insert(e, SMALL);
+    }
+  }
+
+  @Override
+  protected void removeFromReplacementListOnEvict(Entry e) {
+    if (e.getEvictionQueue() == SMALL) {
+      ghosts.add(e.hashCode);
+    }
+    removeFromReplacementList(e);
+  }
+
+  @Override
+  protected Entry findEvictionCandidate() {
+    for (;;) {
+      if (getQueueSize(SMALL) > smallMax || getQueueSize(MAIN) == 0) {
+        Entry e = tail(SMALL);
+        if (consumeHits(e) > 0) {
+          moveToHead(e, MAIN);
+          continue;
+        }
+        moveToHead(e, SMALL);
+        return e;
+      }
+      Entry e = tail(MAIN);
+      long frequency = Math.min(MAXIMUM_FREQUENCY, e.hitCnt);
+      moveToHead(e, MAIN);
+      if (frequency > 0) {
+        reduceHits(e, frequency - 1);
+        continue;
+      }
+      return e;
+    }
+  }
+
+  @Override
+  public String getExtraStatistics() {
+    return super.getExtraStatistics() +
+      ", ghostSize=" + ghosts.size() +
+      ", ghostMaxSize=" + ghosts.capacity() +
+      ", ghostHits=" + ghostHits;
+  }
+
+}
@@ -0,0 +1,92 @@
+ package org.cache2k.core.eviction;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Weigher;
+import org.cache2k.core.Entry;
+import org.cache2k.core.HeapCacheListener;
+
+/**
+ * Segmented LRU. New entries are inserted into the probation queue. An entry that had a hit
+ * when it reaches the tail of the probation queue moves to the protected queue. When the
+ * protected queue exceeds its share, entries from its tail without hits are moved back to
+ * the probation queue. Entries are evicted from the tail of the probation queue.
+ *
+ * @author Jens Wilke
+ */
+public class SegmentedLruEviction extends QueueEviction {
+
+  static final int PROBATION = 0;
+  static final int PROTECTED = 1;
+
+  private static final int PROTECTED_PERCENTAGE = 80;
+
+  private long protectedMax = Long.MAX_VALUE;
+
+  public SegmentedLruEviction(HeapCacheForEviction heapCache, HeapCacheListener listener,
+                              long maxSize, Weigher weigher, long maxWeight,
+                              boolean noChunking, ReadBuffer readBuffer) {
+    super(heapCache, listener, maxSize, weigher, maxWeight, noChunking, readBuffer, 2);
+  }
+
+  @Override
+  protected String getQueueName(int q) {
+    return q == PROBATION ? "probation" : "protected";
+  }
+
+  @Override
+  protected void updateHotMax() {
+    protectedMax = getSize() * PROTECTED_PERCENTAGE / 100;
+  }
+
+  @Override
+  protected void insertIntoReplacementList(Entry e) {
+    insert(e, PROBATION);
+  }
+
+  @Override
+  protected Entry findEvictionCandidate() {
+    for (;;) {
+      if (getQueueSize(PROTECTED) > protectedMax) {
+        Entry e = tail(PROTECTED);
+        if (consumeHits(e) > 0) {
+          moveToHead(e, PROTECTED);
+        } else {
+          moveToHead(e, PROBATION);
+        }
+        continue;
+      }
+      Entry e = tail(PROBATION);
+      if (e == null) {
+        e = tail(PROTECTED);
+        moveToHead(e, PROTECTED);
+        return e;
+      }
+      if (consumeHits(e) > 0) {
+        moveToHead(e, PROTECTED);
+        continue;
+      }
+      moveToHead(e, PROBATION);
+      return e;
+    }
+  }
+
+}
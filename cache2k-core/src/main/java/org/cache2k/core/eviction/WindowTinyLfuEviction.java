@@ -0,0 +1,150 @@
+ package org.cache2k.core.eviction;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Weigher;
+import org.cache2k.core.Entry;
+import org.cache2k.core.HeapCacheListener;
+
+/**
+ * Window TinyLFU, as described in
+ * <a href="https://arxiv.org/abs/1512.00727">TinyLFU: A Highly Efficient Cache Admission
+ * Policy</a>.
+ *
+ * <p>New entries are inserted into a small window queue. When the window exceeds its share
+ * the oldest window entry competes with the eviction candidate of the main area, which is a
+ * segmented LRU of a probation and a protected queue. The entry with the lower estimated
+ * frequency is evicted. Frequencies are counted by a {@link FrequencySketch} on inserts and
+ * on hits that are found when an entry reaches the tail of a queue. When the eviction starts,
+ * all entries are in the window and the main area is filled up to its share first.
+ *
+ * @author Jens Wilke
+ */
+public class WindowTinyLfuEviction extends QueueEviction {
+
+  static final int WINDOW = 0;
+  static final int PROBATION = 1;
+  static final int PROTECTED = 2;
+
+  private static final int WINDOW_PERCENTAGE = 1;
+  private static final int PROTECTED_PERCENTAGE = 80;
+  private static final int MAXIMUM_INCREMENTS = 15;
+
+  private final FrequencySketch sketch = new FrequencySketch();
+  private long windowMax = Long.MAX_VALUE;
+  private long protectedMax = Long.MAX_VALUE;
+  private long admittedCnt;
+  private long rejectedCnt;
+
+  public WindowTinyLfuEviction(HeapCacheForEviction heapCache, HeapCacheListener listener,
+                               long maxSize, Weigher weigher, long maxWeight,
+                               boolean noChunking, ReadBuffer readBuffer) {
+    super(heapCache, listener, maxSize, weigher, maxWeight, noChunking, readBuffer, 3);
+  }
+
+  @Override
+  protected String getQueueName(int q) {
+    switch (q) {
+      case WINDOW: return "window";
+      case PROBATION: return "probation";
+      default: return "protected";
+    }
+  }
+
+  @Override
+  protected void updateHotMax() {
+    long size = getSize();
+    windowMax = Math.max(1, size * WINDOW_PERCENTAGE / 100);
+    protectedMax = (size - windowMax) * PROTECTED_PERCENTAGE / 100;
+    sketch.ensureCapacity(size);
+  }
+
+  @Override
+  protected void insertIntoReplacementList(Entry e) {
+    sketch.increment(e.hashCode);
+    insert(e, WINDOW);
+  }
+
+  /**
+   * Transfer the hits to the sketch.
+   *
+   * @return true if the entry had hits
+   */
+  private boolean recordHits(Entry e) {
+    long cnt = consumeHits(e);
+    for (long i = Math.min(cnt, MAXIMUM_INCREMENTS); i > 0; i--) {
+      sketch.increment(e.hashCode);
+    }
+    return cnt > 0;
+  }
+
+  @Override
+  protected Entry findEvictionCandidate() {
+    for (;;) {
+      if (getQueueSize(PROTECTED) > protectedMax) {
+        Entry e = tail(PROTECTED);
+        moveToHead(e, recordHits(e) ? PROTECTED : PROBATION);
+        continue;
+      }
+      Entry victim = tail(PROBATION);
+      if (victim != null && recordHits(victim)) {
+        moveToHead(victim, PROTECTED);
+        continue;
+      }
+      if (victim == null && getQueueSize(WINDOW) == 0) {
+        victim = tail(PROTECTED);
+        moveToHead(victim, PROTECTED);
+        return victim;
+      }
+      if (victim != null && getQueueSize(WINDOW) <= windowMax) {
+        moveToHead(victim, PROBATION);
+        return victim;
+      }
+      Entry candidate = tail(WINDOW);
+      if (recordHits(candidate)) {
+        moveToHead(candidate, WINDOW);
+        continue;
+      }
+      if (victim == null) {
+        moveToHead(candidate, PROBATION);
+        continue;
+      }
+      if (sketch.frequency(candidate.hashCode) > sketch.frequency(victim.hashCode)) {
+        admittedCnt++;
+        moveToHead(candidate, PROBATION);
+        moveToHead(victim, PROBATION);
+        return victim;
+      }
+      rejectedCnt++;
+      moveToHead(candidate, WINDOW);
+      return candidate;
+    }
+  }
+
+  @Override
+  public String getExtraStatistics() {
+    return super.getExtraStatistics() +
+      ", admittedCnt=" + admittedCnt +
+      ", rejectedCnt=" + rejectedCnt +
+      ", sketchResetCnt=" + sketch.getResetCount();
+  }
+
+}
@@ -0,0 +1,67 @@
+package org.cache2k.core.storage;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Releases the memory of direct and memory mapped buffers without waiting for the
+ * garbage collector.
+ *
+ * @author Jens Wilke
+ */
+final class DirectBuffers {
+
+  private DirectBuffers() { }
+
+  /**
+   * Free the memory of a direct buffer or release the mapping of a mapped buffer. Uses
+   * {@code Unsafe.invokeCleaner} on Java 9 and later and the cleaner of the buffer on
+   * Java 8. If both are not available, the memory is released by the garbage collector.
+   * The buffer must not be accessed afterwards.
+   */
+  static void release(ByteBuffer b) {
+    if (b == null || !b.isDirect()) {
+      return;
+    }
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner;
+      try {
+        invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      } catch (NoSuchMethodException java8) {
+        Method cleanerMethod = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+        Object cleaner = cleanerMethod.invoke(b);
+        if (cleaner != null) {
+          cleaner.getClass().getMethod("clean").invoke(cleaner);
+        }
+        return;
+      }
+      Field f = unsafeClass.getDeclaredField("theUnsafe");
+      f.setAccessible(true);
+      invokeCleaner.invoke(f.get(null), b);
+    } catch (Throwable ignore) {
+    }
+  }
+
+}
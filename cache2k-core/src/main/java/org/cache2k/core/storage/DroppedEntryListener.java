@@ -0,0 +1,36 @@
+package org.cache2k.core.storage;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.core.storageApi.StorageEntry;
+
+/**
+ * Notified when a storage tier drops an entry, because the capacity is reached
+ * or the value does not fit into the storage. Called by the thread that stores
+ * an entry, outside of the storage locks.
+ *
+ * @author Jens Wilke
+ */
+public interface DroppedEntryListener {
+
+  void onDropped(StorageEntry e);
+
+}
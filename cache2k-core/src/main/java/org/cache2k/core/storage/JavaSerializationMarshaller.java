@@ -0,0 +1,84 @@
+package org.cache2k.core.storage;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.storage.Marshaller;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+
+/**
+ * Default marshaller using Java serialization. Classes are resolved via the
+ * class loader of the cache manager.
+ *
+ * @author Jens Wilke
+ */
+public class JavaSerializationMarshaller implements Marshaller {
+
+  private final ClassLoader classLoader;
+
+  public JavaSerializationMarshaller(ClassLoader classLoader) {
+    this.classLoader = classLoader;
+  }
+
+  @Override
+  public byte[] marshall(Object o) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(bos);
+    oos.writeObject(o);
+    oos.close();
+    return bos.toByteArray();
+  }
+
+  @Override
+  public Object unmarshall(byte[] data) throws IOException, ClassNotFoundException {
+    ObjectInputStream ois = new ClassLoaderObjectInputStream(new ByteArrayInputStream(data));
+    try {
+      return ois.readObject();
+    } finally {
+      ois.close();
+    }
+  }
+
+  private class ClassLoaderObjectInputStream extends ObjectInputStream {
+
+    ClassLoaderObjectInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc)
+      throws IOException, ClassNotFoundException {
+      try {
+        return Class.forName(desc.getName(), false, classLoader);
+      } catch (ClassNotFoundException ex) {
+        return super.resolveClass(desc);
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,514 @@
+package org.cache2k.core.storage;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.core.storageApi.CacheStorage;
+import org.cache2k.core.storageApi.StorageEntry;
+import org.cache2k.storage.Marshaller;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps marshalled values in direct memory outside of the Java heap. The memory
+ * is split into segments with separate locks. Each segment allocates direct byte
+ * buffers, called slabs, on demand and divides them into blocks of fixed size.
+ * A value occupies a chain of blocks, the first four bytes of a block hold
+ * the index of the next block. Free blocks are chained the same way.
+ *
+ * <p>The key and the metadata of a stored value are kept on the heap in an access
+ * ordered hash map per segment. If the capacity is reached the least recently
+ * used values are dropped. Values that are bigger than the segment capacity are
+ * not stored at all.
+ *
+ * <p>Marshalling is done outside of the segment lock. The storage does not check
+ * the expiry, this is done by the {@link StorageTierAdapter}. Dropped values are
+ * reported to the {@link DroppedEntryListener}, if present.
+ *
+ * @author Jens Wilke
+ */
+public class OffHeapStorage implements CacheStorage {
+
+  static final int NO_BLOCK = -1;
+  static final int NULL_VALUE = -1;
+  static final int NEXT_POINTER_SIZE = 4;
+  static final int SLAB_SIZE = 1024 * 1024;
+  static final long MINIMUM_SEGMENT_CAPACITY = SLAB_SIZE;
+
+  private final Marshaller marshaller;
+  private final Segment[] segments;
+  private final int segmentMask;
+  private final DroppedEntryListener droppedEntryListener;
+
+  public OffHeapStorage(Marshaller marshaller, long capacityBytes, int blockSize) {
+    this(marshaller, capacityBytes, blockSize, Runtime.getRuntime().availableProcessors(),
+      null);
+  }
+
+  /**
+   * @param droppedEntryListener notified about values dropped because the capacity is
+   *                             reached, or {@code null}
+   */
+  public OffHeapStorage(Marshaller marshaller, long capacityBytes, int blockSize,
+                        int concurrencyLevel, DroppedEntryListener droppedEntryListener) {
+    if (blockSize <= NEXT_POINTER_SIZE) {
+      throw new IllegalArgumentException("blockSize too small: " + blockSize);
+    }
+    this.marshaller = marshaller;
+    this.droppedEntryListener = droppedEntryListener;
+    int segmentCount = 1;
+    while (segmentCount < concurrencyLevel &&
+      capacityBytes / (segmentCount << 1) >= MINIMUM_SEGMENT_CAPACITY) {
+      segmentCount <<= 1;
+    }
+    long blocksPerSegment = capacityBytes / segmentCount / blockSize;
+    if (blocksPerSegment > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+        "capacity too big for block size, increase block size: " + capacityBytes);
+    }
+    if (blocksPerSegment == 0) {
+      throw new IllegalArgumentException(
+        "capacity needs to be at least one block: " + capacityBytes);
+    }
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment((int) blocksPerSegment, blockSize,
+        droppedEntryListener != null);
+    }
+    segmentMask = segmentCount - 1;
+  }
+
+  private Segment segment(Object key) {
+    int h = key.hashCode();
+    h ^= h >>> 16;
+    return segments[h & segmentMask];
+  }
+
+  @Override
+  public StorageEntry get(Object key) throws Exception {
+    Segment s = segment(key);
+    Record r;
+    byte[] data;
+    synchronized (s) {
+      r = s.index.get(key);
+      if (r == null) {
+        return null;
+      }
+      data = s.read(r);
+    }
+    Object value = data == null ? null : marshaller.unmarshall(data);
+    return new SimpleStorageEntry(key, value, r.createdOrUpdated, r.valueExpiryTime);
+  }
+
+  /**
+   * Marshall the value and store it. If the value is too big for the storage,
+   * an existing mapping is removed.
+   */
+  @Override
+  public void put(StorageEntry e) throws Exception {
+    Object key = e.getKey();
+    Object value = e.getValueOrException();
+    byte[] data;
+    try {
+      data = value == null ? null : marshaller.marshall(value);
+    } catch (Exception ex) {
+      remove(key);
+      throw ex;
+    }
+    Segment s = segment(key);
+    boolean stored;
+    List<Dropped> dropped;
+    synchronized (s) {
+      stored = s.put(key, data, e.getCreatedOrUpdated(), e.getValueExpiryTime());
+      dropped = s.takeDropped();
+    }
+    if (droppedEntryListener == null) {
+      return;
+    }
+    if (!stored) {
+      droppedEntryListener.onDropped(e);
+    }
+    if (dropped != null) {
+      for (Dropped d : dropped) {
+        Object droppedValue = d.data == null ? null : marshaller.unmarshall(d.data);
+        droppedEntryListener.onDropped(new SimpleStorageEntry(d.key, droppedValue,
+          d.record.createdOrUpdated, d.record.valueExpiryTime));
+      }
+    }
+  }
+
+  @Override
+  public boolean remove(Object key) {
+    Segment s = segment(key);
+    synchronized (s) {
+      Record r = s.index.remove(key);
+      if (r == null) {
+        return false;
+      }
+      s.free(r);
+      return true;
+    }
+  }
+
+  @Override
+  public boolean contains(Object key) {
+    Segment s = segment(key);
+    synchronized (s) {
+      return s.index.containsKey(key);
+    }
+  }
+
+  /**
+   * Removes all values and frees the direct memory of the slabs. Slabs are allocated
+   * again when needed.
+   */
+  @Override
+  public void clear() {
+    for (Segment s : segments) {
+      synchronized (s) {
+        s.reset();
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    clear();
+  }
+
+  /**
+   * Visit all entries. Takes a snapshot array of the index entries of each segment,
+   * so entries stored or removed concurrently may be missed or reported. A value that
+   * was removed after the snapshot is skipped. The access order of the entries is not
+   * changed. The visit runs in the calling thread, the executor of the context is
+   * not used.
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public void visit(VisitContext ctx, EntryFilter f, EntryVisitor v) throws Exception {
+    for (Segment s : segments) {
+      Object[] snapshot;
+      synchronized (s) {
+        snapshot = s.index.entrySet().toArray();
+      }
+      for (Object o : snapshot) {
+        if (ctx != null && ctx.shouldStop()) {
+          return;
+        }
+        Map.Entry<Object, Record> me = (Map.Entry<Object, Record>) o;
+        Object key = me.getKey();
+        if (f != null && !f.shouldInclude(key)) {
+          continue;
+        }
+        if (v == null) {
+          continue;
+        }
+        Record r = me.getValue();
+        byte[] data;
+        synchronized (s) {
+          if (r.freed) {
+            continue;
+          }
+          data = s.read(r);
+        }
+        Object value = data == null ? null : marshaller.unmarshall(data);
+        v.visit(new SimpleStorageEntry(key, value, r.createdOrUpdated, r.valueExpiryTime));
+      }
+    }
+  }
+
+  @Override
+  public int getEntryCount() {
+    int cnt = 0;
+    for (Segment s : segments) {
+      synchronized (s) {
+        cnt += s.index.size();
+      }
+    }
+    return cnt;
+  }
+
+  /**
+   * Bytes of direct memory currently allocated by the storage.
+   */
+  public long getAllocatedBytes() {
+    long sum = 0;
+    for (Segment s : segments) {
+      synchronized (s) {
+        sum += s.allocatedBytes();
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Values dropped from the storage because the capacity was reached or
+   * the value did not fit.
+   */
+  public long getEvictedCount() {
+    long sum = 0;
+    for (Segment s : segments) {
+      synchronized (s) {
+        sum += s.evictedCount;
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Position of a stored value. Kept on the heap within the segment index.
+   */
+  static final class Record {
+
+    final int firstBlock;
+    final int length;
+    final long createdOrUpdated;
+    final long valueExpiryTime;
+    /** The blocks were returned to the free list. Guarded by the segment lock. */
+    boolean freed;
+
+    Record(int firstBlock, int length, long createdOrUpdated, long valueExpiryTime) {
+      this.firstBlock = firstBlock;
+      this.length = length;
+      this.createdOrUpdated = createdOrUpdated;
+      this.valueExpiryTime = valueExpiryTime;
+    }
+
+  }
+
+  /**
+   * Value dropped because of the capacity, read before its blocks are freed.
+   */
+  static final class Dropped {
+
+    final Object key;
+    final byte[] data;
+    final Record record;
+
+    Dropped(Object key, byte[] data, Record record) {
+      this.key = key;
+      this.data = data;
+      this.record = record;
+    }
+
+  }
+
+  /**
+   * Part of the storage with its own lock and memory. All methods need to be called
+   * while holding the segment monitor.
+   */
+  static final class Segment {
+
+    final int blockSize;
+    final int payloadSize;
+    final int maxBlocks;
+    final int blocksPerSlab;
+    final LinkedHashMap<Object, Record> index = new LinkedHashMap<Object, Record>(16, .75F, true);
+    ByteBuffer[] slabs;
+    /** Blocks below this index were handed out at least once */
+    int usedBlocksWatermark;
+    /** Start of the chain of blocks that were freed */
+    int freeListHead;
+    int freeBlocks;
+    long evictedCount;
+    /** Read the data of dropped values, to report them after releasing the lock */
+    final boolean collectDropped;
+    List<Dropped> dropped;
+
+    Segment(int maxBlocks, int blockSize, boolean collectDropped) {
+      this.collectDropped = collectDropped;
+      this.blockSize = blockSize;
+      this.maxBlocks = maxBlocks;
+      payloadSize = blockSize - NEXT_POINTER_SIZE;
+      blocksPerSlab = Math.max(1, Math.min(maxBlocks, SLAB_SIZE / blockSize));
+      reset();
+    }
+
+    void reset() {
+      index.clear();
+      if (slabs != null) {
+        for (ByteBuffer b : slabs) {
+          DirectBuffers.release(b);
+        }
+      }
+      slabs = new ByteBuffer[(maxBlocks + blocksPerSlab - 1) / blocksPerSlab];
+      usedBlocksWatermark = 0;
+      freeListHead = NO_BLOCK;
+      freeBlocks = maxBlocks;
+    }
+
+    long allocatedBytes() {
+      long sum = 0;
+      for (ByteBuffer b : slabs) {
+        if (b != null) {
+          sum += b.capacity();
+        }
+      }
+      return sum;
+    }
+
+    int blocksNeeded(byte[] data) {
+      if (data == null || data.length == 0) {
+        return 0;
+      }
+      return (data.length + payloadSize - 1) / payloadSize;
+    }
+
+    /**
+     * Store the value and drop the least recently used values, if needed.
+     *
+     * @return {@code false}, if the value is too big and not stored
+     */
+    boolean put(Object key, byte[] data, long createdOrUpdated, long valueExpiryTime) {
+      Record r = index.remove(key);
+      if (r != null) {
+        free(r);
+      }
+      int needed = blocksNeeded(data);
+      if (needed > maxBlocks) {
+        evictedCount++;
+        return false;
+      }
+      Iterator<Map.Entry<Object, Record>> it = index.entrySet().iterator();
+      while (freeBlocks < needed) {
+        Map.Entry<Object, Record> eldest = it.next();
+        it.remove();
+        Record er = eldest.getValue();
+        if (collectDropped) {
+          if (dropped == null) {
+            dropped = new ArrayList<Dropped>();
+          }
+          dropped.add(new Dropped(eldest.getKey(), read(er), er));
+        }
+        free(er);
+        evictedCount++;
+      }
+      int first = write(data, needed);
+      int length = data == null ? NULL_VALUE : data.length;
+      index.put(key, new Record(first, length, createdOrUpdated, valueExpiryTime));
+      return true;
+    }
+
+    /**
+     * Values dropped by the last put, or {@code null}.
+     */
+    List<Dropped> takeDropped() {
+      List<Dropped> l = dropped;
+      dropped = null;
+      return l;
+    }
+
+    /**
+     * Write the data into a newly allocated chain of blocks.
+     *
+     * @return index of the first block
+     */
+    int write(byte[] data, int blockCount) {
+      int first = NO_BLOCK;
+      int previous = NO_BLOCK;
+      int offset = 0;
+      for (int i = 0; i < blockCount; i++) {
+        int block = allocateBlock();
+        if (previous == NO_BLOCK) {
+          first = block;
+        } else {
+          setNext(previous, block);
+        }
+        ByteBuffer slab = slab(block);
+        int pos = position(block);
+        slab.putInt(pos, NO_BLOCK);
+        slab.position(pos + NEXT_POINTER_SIZE);
+        int len = Math.min(payloadSize, data.length - offset);
+        slab.put(data, offset, len);
+        offset += len;
+        previous = block;
+      }
+      return first;
+    }
+
+    byte[] read(Record r) {
+      if (r.length == NULL_VALUE) {
+        return null;
+      }
+      byte[] data = new byte[r.length];
+      int offset = 0;
+      int block = r.firstBlock;
+      while (offset < data.length) {
+        ByteBuffer slab = slab(block);
+        int pos = position(block);
+        slab.position(pos + NEXT_POINTER_SIZE);
+        int len = Math.min(payloadSize, data.length - offset);
+        slab.get(data, offset, len);
+        offset += len;
+        block = slab.getInt(pos);
+      }
+      return data;
+    }
+
+    void free(Record r) {
+      r.freed = true;
+      int block = r.firstBlock;
+      while (block != NO_BLOCK) {
+        ByteBuffer slab = slab(block);
+        int pos = position(block);
+        int next = slab.getInt(pos);
+        slab.putInt(pos, freeListHead);
+        freeListHead = block;
+        freeBlocks++;
+        block = next;
+      }
+    }
+
+    int allocateBlock() {
+      freeBlocks--;
+      if (freeListHead != NO_BLOCK) {
+        int block = freeListHead;
+        freeListHead = slab(block).getInt(position(block));
+        return block;
+      }
+      int block = usedBlocksWatermark++;
+      int slabIndex = block / blocksPerSlab;
+      if (slabs[slabIndex] == null) {
+        int blocks = Math.min(blocksPerSlab, maxBlocks - slabIndex * blocksPerSlab);
+        slabs[slabIndex] = ByteBuffer.allocateDirect(blocks * blockSize);
+      }
+      return block;
+    }
+
+    void setNext(int block, int next) {
+      slab(block).putInt(position(block), next);
+    }
+
+    ByteBuffer slab(int block) {
+      return slabs[block / blocksPerSlab];
+    }
+
+    int position(int block) {
+      return (block % blocksPerSlab) * blockSize;
+    }
+
+  }
+
+}
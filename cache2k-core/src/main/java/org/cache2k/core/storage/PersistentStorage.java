@@ -0,0 +1,717 @@
+package org.cache2k.core.storage;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.core.CacheStorageException;
+import org.cache2k.core.storageApi.CacheStorage;
+import org.cache2k.core.storageApi.StorageEntry;
+import org.cache2k.core.util.InternalClock;
+import org.cache2k.storage.Marshaller;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+
+/**
+ * Storage in local files that survives a restart. The entries are appended to a log,
+ * which consists of memory mapped segment files of fixed size. A removal is recorded
+ * by appending a tombstone. The index of the keys is held on the heap and points to
+ * the position of the latest record of a key.
+ *
+ * <p>When the files use more than the configured capacity, the oldest segment is
+ * processed: If it contains mostly garbage, the live records are copied to the
+ * head of the log, otherwise its entries are dropped. Since only the oldest segment
+ * is processed, tombstones can be dropped safely. Each segment keeps the locations
+ * of its records, so only the records of the processed segment are visited. The
+ * live records are read from the old segment without holding the lock.
+ *
+ * <p>When opened, the index is rebuilt from the files in the background. Only the
+ * keys are read, the values stay in the files until requested. Records with an
+ * expiry time in the past and records with a wrong checksum are skipped. Operations
+ * wait until the index is complete.
+ *
+ * <p>Record layout: length of the remaining record (int), CRC32 of the bytes following
+ * the checksum (int), created or updated time (long), value expiry time (long), key
+ * length (int), value length or a negative marker (int), key bytes, value bytes.
+ * The length is written last, so an incomplete record terminates the log.
+ *
+ * <p>All operations are synchronized on the storage instance, marshalling is done
+ * outside of the lock. Entries dropped because of the capacity are reported to the
+ * {@link DroppedEntryListener}, if present. The segment files are unmapped when deleted or closed.
+ *
+ * <p>Limitation: The storage is used as exclusive tier by the {@link StorageTierAdapter},
+ * an entry is removed from the log when it is read back into the heap. The heap content
+ * is written to the log only at an orderly close. After a crash, the entries that were
+ * in the heap, which are typically the most frequently accessed ones, are lost.
+ *
+ * @author Jens Wilke
+ */
+public class PersistentStorage implements CacheStorage {
+
+  static final String FILE_SUFFIX = ".log";
+  static final int LENGTH_SIZE = 4;
+  static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4;
+  static final int NULL_VALUE = -1;
+  static final int TOMBSTONE = -2;
+
+  private final File directory;
+  private final Marshaller marshaller;
+  private final InternalClock clock;
+  private final long capacityBytes;
+  private final int segmentBytes;
+  private final DroppedEntryListener droppedEntryListener;
+  private final Map<Object, Location> index = new HashMap<Object, Location>();
+  private final List<Segment> segments = new ArrayList<Segment>();
+  private final CountDownLatch indexLoaded = new CountDownLatch(1);
+  private volatile Throwable loadException;
+  private Segment active;
+  private long nextSegmentId;
+  /** A thread processes the oldest segment, {@link #clear()} and {@link #close()} wait */
+  private boolean maintaining;
+  private boolean closed;
+  private long droppedCount;
+
+  /**
+   * Open the storage in the directory and start reading the index with the executor.
+   */
+  public PersistentStorage(File directory, Marshaller marshaller, InternalClock clock,
+                           long capacityBytes, int segmentBytes, Executor executor) {
+    this(directory, marshaller, clock, capacityBytes, segmentBytes, executor, null);
+  }
+
+  /**
+   * @param droppedEntryListener notified about entries dropped because the capacity is
+   *                             reached, or {@code null}
+   */
+  public PersistentStorage(File directory, Marshaller marshaller, InternalClock clock,
+                           long capacityBytes, int segmentBytes, Executor executor,
+                           DroppedEntryListener droppedEntryListener) {
+    if (capacityBytes < segmentBytes) {
+      throw new IllegalArgumentException(
+        "capacity needs to be at least one segment: " + capacityBytes);
+    }
+    this.directory = directory;
+    this.marshaller = marshaller;
+    this.clock = clock;
+    this.capacityBytes = capacityBytes;
+    this.segmentBytes = segmentBytes;
+    this.droppedEntryListener = droppedEntryListener;
+    Runnable r = new Runnable() {
+      @Override
+      public void run() {
+        loadIndex();
+      }
+    };
+    try {
+      executor.execute(r);
+    } catch (RejectedExecutionException ex) {
+      r.run();
+    }
+  }
+
+  /**
+   * Converts a name into a string usable as file name.
+   */
+  public static String fileName(String s) {
+    StringBuilder sb = new StringBuilder();
+    for (char c : s.toCharArray()) {
+      if (Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '_') {
+        sb.append(c);
+      } else {
+        sb.append('_');
+      }
+    }
+    return sb.toString();
+  }
+
+  private synchronized void loadIndex() {
+    try {
+      if (!directory.isDirectory() && !directory.mkdirs()) {
+        throw new IOException("cannot create directory: " + directory);
+      }
+      File[] files = directory.listFiles(new FileFilter() {
+        @Override
+        public boolean accept(File f) {
+          return f.isFile() && f.getName().endsWith(FILE_SUFFIX);
+        }
+      });
+      Arrays.sort(files, new Comparator<File>() {
+        @Override
+        public int compare(File o1, File o2) {
+          long id1 = segmentId(o1);
+          long id2 = segmentId(o2);
+          return id1 < id2 ? -1 : (id1 == id2 ? 0 : 1);
+        }
+      });
+      long now = clock.millis();
+      for (File f : files) {
+        long id = segmentId(f);
+        if (id < 0) {
+          continue;
+        }
+        Segment s = Segment.open(f, id, segmentBytes);
+        scan(s, now);
+        segments.add(s);
+        nextSegmentId = id + 1;
+      }
+    } catch (Throwable t) {
+      loadException = t;
+    } finally {
+      indexLoaded.countDown();
+    }
+  }
+
+  static long segmentId(File f) {
+    String n = f.getName();
+    try {
+      return Long.parseLong(n.substring(0, n.length() - FILE_SUFFIX.length()), 16);
+    } catch (NumberFormatException ex) {
+      return -1;
+    }
+  }
+
+  /**
+   * Read all records of the segment and update the index. Stops at the first record
+   * that is incomplete or has a wrong checksum.
+   */
+  private void scan(Segment s, long now) {
+    ByteBuffer b = s.buffer;
+    int pos = 0;
+    while (pos + HEADER_SIZE <= b.capacity()) {
+      int length = b.getInt(pos);
+      int recordSize = LENGTH_SIZE + length;
+      if (length < HEADER_SIZE - LENGTH_SIZE || pos + recordSize > b.capacity()) {
+        break;
+      }
+      byte[] record = copy(b, pos, recordSize);
+      if (ByteBuffer.wrap(record).getInt(4) != checksum(record)) {
+        break;
+      }
+      ByteBuffer rb = ByteBuffer.wrap(record);
+      long createdOrUpdated = rb.getLong(8);
+      long valueExpiryTime = rb.getLong(16);
+      int keyLength = rb.getInt(24);
+      int valueLength = rb.getInt(28);
+      Object key;
+      try {
+        key = marshaller.unmarshall(Arrays.copyOfRange(record, HEADER_SIZE, HEADER_SIZE + keyLength));
+      } catch (Exception ex) {
+        pos += recordSize;
+        continue;
+      }
+      removeFromIndex(key);
+      if (valueLength != TOMBSTONE && (valueExpiryTime == 0 || valueExpiryTime > now)) {
+        link(new Location(key, s, pos, recordSize, keyLength, valueLength,
+          createdOrUpdated, valueExpiryTime));
+      }
+      pos += recordSize;
+    }
+    s.writePosition = pos;
+  }
+
+  /**
+   * Wait until the index is loaded. Needs to be called before acquiring the lock.
+   */
+  private void awaitIndex() {
+    try {
+      indexLoaded.await();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new CacheStorageException("interrupted while loading index", ex);
+    }
+    if (loadException != null) {
+      throw new CacheStorageException("loading index failed", loadException);
+    }
+  }
+
+  @Override
+  public StorageEntry get(Object key) throws Exception {
+    awaitIndex();
+    Location l;
+    byte[] data;
+    synchronized (this) {
+      l = index.get(key);
+      if (l == null) {
+        return null;
+      }
+      data = l.valueLength == NULL_VALUE ? null :
+        copy(l.segment.buffer, l.position + HEADER_SIZE + l.keyLength, l.valueLength);
+    }
+    Object value = data == null ? null : marshaller.unmarshall(data);
+    return new SimpleStorageEntry(key, value, l.createdOrUpdated, l.valueExpiryTime);
+  }
+
+  /**
+   * Append the entry to the log. If the entry is too big for a segment, an existing
+   * mapping is removed.
+   */
+  @Override
+  public void put(StorageEntry e) throws Exception {
+    Object key = e.getKey();
+    Object value = e.getValueOrException();
+    byte[] keyData = marshaller.marshall(key);
+    byte[] record;
+    try {
+      byte[] valueData = value == null ? null : marshaller.marshall(value);
+      record = buildRecord(keyData, valueData, value == null ? NULL_VALUE : 0,
+        e.getCreatedOrUpdated(), e.getValueExpiryTime());
+    } catch (Exception ex) {
+      remove(key);
+      throw ex;
+    }
+    awaitIndex();
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      if (record.length > segmentBytes) {
+        if (removeFromIndex(key)) {
+          append(buildRecord(keyData, null, TOMBSTONE, 0, 0));
+        }
+        droppedCount++;
+      }
+    }
+    if (record.length > segmentBytes) {
+      if (droppedEntryListener != null) {
+        droppedEntryListener.onDropped(e);
+      }
+      return;
+    }
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      removeFromIndex(key);
+      Location l = append(record);
+      link(new Location(key, l.segment, l.position, record.length, keyData.length,
+        value == null ? NULL_VALUE : record.length - HEADER_SIZE - keyData.length,
+        e.getCreatedOrUpdated(), e.getValueExpiryTime()));
+    }
+    maintainCapacity();
+  }
+
+  @Override
+  public boolean remove(Object key) throws Exception {
+    awaitIndex();
+    synchronized (this) {
+      if (closed || !removeFromIndex(key)) {
+        return false;
+      }
+      append(buildRecord(marshaller.marshall(key), null, TOMBSTONE, 0, 0));
+    }
+    maintainCapacity();
+    return true;
+  }
+
+  /**
+   * Make the location the current record of the key.
+   */
+  private void link(Location l) {
+    index.put(l.key, l);
+    l.segment.locations.add(l);
+    l.segment.liveBytes += l.size;
+  }
+
+  private boolean removeFromIndex(Object key) {
+    Location l = index.remove(key);
+    if (l == null) {
+      return false;
+    }
+    l.segment.liveBytes -= l.size;
+    return true;
+  }
+
+  @Override
+  public boolean contains(Object key) {
+    awaitIndex();
+    synchronized (this) {
+      return index.containsKey(key);
+    }
+  }
+
+  /**
+   * Remove all entries and delete the files.
+   */
+  @Override
+  public void clear() {
+    awaitIndex();
+    synchronized (this) {
+      awaitMaintenance();
+      index.clear();
+      for (Segment s : segments) {
+        s.delete();
+      }
+      segments.clear();
+      active = null;
+    }
+  }
+
+  /**
+   * Write the segments to disk. The files are kept for the next start.
+   */
+  @Override
+  public void close() {
+    awaitIndex();
+    synchronized (this) {
+      awaitMaintenance();
+      closed = true;
+      for (Segment s : segments) {
+        s.close();
+      }
+      index.clear();
+      segments.clear();
+      active = null;
+    }
+  }
+
+  /**
+   * Wait until a running compaction is finished, since it reads from a segment
+   * without holding the lock.
+   */
+  private void awaitMaintenance() {
+    boolean interrupted = false;
+    while (maintaining) {
+      try {
+        wait();
+      } catch (InterruptedException ex) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Visit all entries. Takes a snapshot of the keys, so entries stored or removed
+   * concurrently may be missed or reported. The visit runs in the calling thread,
+   * the executor of the context is not used.
+   */
+  @Override
+  public void visit(VisitContext ctx, EntryFilter f, EntryVisitor v) throws Exception {
+    awaitIndex();
+    List<Object> keys;
+    synchronized (this) {
+      keys = new ArrayList<Object>(index.keySet());
+    }
+    for (Object key : keys) {
+      if (ctx != null && ctx.shouldStop()) {
+        return;
+      }
+      if (f != null && !f.shouldInclude(key)) {
+        continue;
+      }
+      StorageEntry e = get(key);
+      if (e != null) {
+        v.visit(e);
+      }
+    }
+  }
+
+  @Override
+  public int getEntryCount() {
+    awaitIndex();
+    synchronized (this) {
+      return index.size();
+    }
+  }
+
+  public synchronized int getSegmentCount() {
+    return segments.size();
+  }
+
+  /**
+   * Entries dropped because the capacity was reached or the entry did not fit
+   * into a segment.
+   */
+  public synchronized long getDroppedCount() {
+    return droppedCount;
+  }
+
+  /**
+   * Build the complete record including the checksum and the length.
+   */
+  static byte[] buildRecord(byte[] keyData, byte[] valueData, int valueMarker,
+                            long createdOrUpdated, long valueExpiryTime) {
+    int valueLength = valueData == null ? 0 : valueData.length;
+    byte[] record = new byte[HEADER_SIZE + keyData.length + valueLength];
+    ByteBuffer b = ByteBuffer.wrap(record);
+    b.putInt(record.length - LENGTH_SIZE);
+    b.putInt(0);
+    b.putLong(createdOrUpdated);
+    b.putLong(valueExpiryTime);
+    b.putInt(keyData.length);
+    b.putInt(valueData == null ? valueMarker : valueLength);
+    b.put(keyData);
+    if (valueData != null) {
+      b.put(valueData);
+    }
+    b.putInt(4, checksum(record));
+    return record;
+  }
+
+  static int checksum(byte[] record) {
+    CRC32 crc = new CRC32();
+    crc.update(record, 8, record.length - 8);
+    return (int) crc.getValue();
+  }
+
+  static byte[] copy(ByteBuffer b, int position, int length) {
+    byte[] data = new byte[length];
+    ByteBuffer dup = b.duplicate();
+    dup.position(position);
+    dup.get(data);
+    return data;
+  }
+
+  /**
+   * Append the record to the active segment. The length is written last, to
+   * make the record valid.
+   */
+  private Location append(byte[] record) throws IOException {
+    if (active == null || active.writePosition + record.length > active.buffer.capacity()) {
+      roll();
+    }
+    Segment s = active;
+    int pos = s.writePosition;
+    ByteBuffer dup = s.buffer.duplicate();
+    dup.position(pos + LENGTH_SIZE);
+    dup.put(record, LENGTH_SIZE, record.length - LENGTH_SIZE);
+    s.buffer.putInt(pos, record.length - LENGTH_SIZE);
+    s.writePosition = pos + record.length;
+    return new Location(null, s, pos, record.length, 0, 0, 0, 0);
+  }
+
+  /**
+   * Start a new segment. The capacity is checked by the caller after releasing the lock.
+   */
+  private void roll() throws IOException {
+    File f = new File(directory, Long.toHexString(nextSegmentId) + FILE_SUFFIX);
+    Segment s = Segment.open(f, nextSegmentId++, segmentBytes);
+    segments.add(s);
+    active = s;
+  }
+
+  private boolean isOverCapacity() {
+    return segments.size() > 1 && (long) segments.size() * segmentBytes > capacityBytes;
+  }
+
+  /**
+   * Process the oldest segments until the capacity is met. Only one thread does
+   * this at a time, other threads continue without waiting.
+   */
+  private void maintainCapacity() throws Exception {
+    synchronized (this) {
+      if (maintaining || closed || !isOverCapacity()) {
+        return;
+      }
+      maintaining = true;
+    }
+    try {
+      while (processOldestSegment()) { }
+    } finally {
+      synchronized (this) {
+        maintaining = false;
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Compact the oldest segment, if it contains mostly garbage, otherwise drop its
+   * entries. Only the records of the segment are visited. When compacting, the live
+   * records are read without holding the lock and appended afterwards, if the key was
+   * not updated or removed in the meantime.
+   *
+   * @return {@code true} if a segment was processed
+   */
+  private boolean processOldestSegment() throws Exception {
+    Segment oldest;
+    List<Location> move = new ArrayList<Location>();
+    List<Location> dropped = new ArrayList<Location>();
+    List<byte[]> droppedValues = new ArrayList<byte[]>();
+    synchronized (this) {
+      if (!isOverCapacity()) {
+        return false;
+      }
+      oldest = segments.get(0);
+      long now = clock.millis();
+      boolean compact = oldest.liveBytes * 2 < oldest.writePosition;
+      for (Location l : oldest.locations) {
+        if (index.get(l.key) != l) {
+          continue;
+        }
+        boolean fresh = l.valueExpiryTime == 0 || l.valueExpiryTime > now;
+        if (compact && fresh) {
+          move.add(l);
+        } else {
+          index.remove(l.key);
+          if (fresh) {
+            droppedCount++;
+            if (droppedEntryListener != null) {
+              dropped.add(l);
+              droppedValues.add(l.valueLength == NULL_VALUE ? null :
+                copy(oldest.buffer, l.position + HEADER_SIZE + l.keyLength, l.valueLength));
+            }
+          }
+        }
+      }
+      if (move.isEmpty()) {
+        deleteSegment(oldest);
+      }
+    }
+    for (int i = 0; i < dropped.size(); i++) {
+      Location l = dropped.get(i);
+      byte[] data = droppedValues.get(i);
+      Object value = data == null ? null : marshaller.unmarshall(data);
+      droppedEntryListener.onDropped(
+        new SimpleStorageEntry(l.key, value, l.createdOrUpdated, l.valueExpiryTime));
+    }
+    if (move.isEmpty()) {
+      return true;
+    }
+    List<byte[]> records = new ArrayList<byte[]>(move.size());
+    for (Location l : move) {
+      records.add(copy(oldest.buffer, l.position, l.size));
+    }
+    synchronized (this) {
+      for (int i = 0; i < move.size(); i++) {
+        Location l = move.get(i);
+        if (index.get(l.key) != l) {
+          continue;
+        }
+        Location moved = append(records.get(i));
+        link(new Location(l.key, moved.segment, moved.position, l.size, l.keyLength,
+          l.valueLength, l.createdOrUpdated, l.valueExpiryTime));
+      }
+      deleteSegment(oldest);
+    }
+    return true;
+  }
+
+  private void deleteSegment(Segment s) {
+    segments.remove(s);
+    s.delete();
+  }
+
+  /**
+   * Position of the latest record of a key.
+   */
+  static final class Location {
+
+    final Object key;
+    final Segment segment;
+    final int position;
+    final int size;
+    final int keyLength;
+    final int valueLength;
+    final long createdOrUpdated;
+    final long valueExpiryTime;
+
+    Location(Object key, Segment segment, int position, int size, int keyLength,
+             int valueLength, long createdOrUpdated, long valueExpiryTime) {
+      this.key = key;
+      this.segment = segment;
+      this.position = position;
+      this.size = size;
+      this.keyLength = keyLength;
+      this.valueLength = valueLength;
+      this.createdOrUpdated = createdOrUpdated;
+      this.valueExpiryTime = valueExpiryTime;
+    }
+
+  }
+
+  /**
+   * A memory mapped file of the log.
+   */
+  static final class Segment {
+
+    final long id;
+    final File file;
+    final MappedByteBuffer buffer;
+    int writePosition;
+    /** Bytes of records that are referenced by the index */
+    long liveBytes;
+    /**
+     * Locations of the records in this segment, including outdated ones. A location is
+     * live if the index references it.
+     */
+    final List<Location> locations = new ArrayList<Location>();
+
+    Segment(long id, File file, MappedByteBuffer buffer) {
+      this.id = id;
+      this.file = file;
+      this.buffer = buffer;
+    }
+
+    /**
+     * Map an existing file or create a new one with the given size.
+     */
+    static Segment open(File f, long id, int size) throws IOException {
+      RandomAccessFile raf = new RandomAccessFile(f, "rw");
+      try {
+        long length = Math.max(raf.length(), size);
+        MappedByteBuffer b = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+        return new Segment(id, f, b);
+      } finally {
+        raf.close();
+      }
+    }
+
+    /**
+     * Write the buffer to the file and release the mapping.
+     */
+    void close() {
+      buffer.force();
+      DirectBuffers.release(buffer);
+    }
+
+    /**
+     * Invalidate the first record, in case the file cannot be deleted while mapped,
+     * and delete the file.
+     */
+    void delete() {
+      buffer.putInt(0, 0);
+      buffer.force();
+      DirectBuffers.release(buffer);
+      if (!file.delete()) {
+        file.deleteOnExit();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,351 @@
+package org.cache2k.core.storage;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.core.Entry;
+import org.cache2k.core.ExceptionWrapper;
+import org.cache2k.core.HeapCache;
+import org.cache2k.core.concurrency.Job;
+import org.cache2k.core.storageApi.CacheStorage;
+import org.cache2k.core.storageApi.StorageAdapter;
+import org.cache2k.core.storageApi.StorageEntry;
+import org.cache2k.expiry.ExpiryPolicy;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+/**
+ * Connects a {@link CacheStorage} as second tier below the heap cache. Entries
+ * evicted from the heap are put into the storage and read back and removed from
+ * the storage when the key is accessed again. The storage holds no entry that is
+ * present in the heap, at the same time. For a persistent storage this means that
+ * only entries that were evicted or present in the heap at an orderly shutdown
+ * are available after a restart.
+ *
+ * <p>Exceptions from the storage are logged and counted as internal exceptions,
+ * in this case the value is treated as not present.
+ *
+ * @author Jens Wilke
+ */
+public class StorageTierAdapter extends StorageAdapter {
+
+  private final HeapCache heapCache;
+  private final Parent parent;
+  private final CacheStorage storage;
+  private final boolean persistent;
+
+  public StorageTierAdapter(HeapCache heapCache, Parent parent, CacheStorage storage) {
+    this(heapCache, parent, storage, false);
+  }
+
+  /**
+   * @param persistent the storage content survives a restart, the heap entries are
+   *                   written to the storage on shutdown
+   */
+  public StorageTierAdapter(HeapCache heapCache, Parent parent, CacheStorage storage,
+                            boolean persistent) {
+    this.heapCache = heapCache;
+    this.parent = parent;
+    this.storage = storage;
+    this.persistent = persistent;
+  }
+
+  public CacheStorage getStorage() {
+    return storage;
+  }
+
+  @Override
+  public void open() { }
+
+  @Override
+  public Future<Void> cancelTimerJobs() {
+    return null;
+  }
+
+  /**
+   * Closes the storage and releases its resources.
+   */
+  @Override
+  public Future<Void> shutdown() {
+    try {
+      storage.close();
+    } catch (Throwable t) {
+      rethrow("shutdown", t);
+    }
+    return null;
+  }
+
+  /**
+   * If the storage is persistent, write the entries of the heap to the storage,
+   * so they are available after a restart. Called before the cache is closed.
+   */
+  @Override
+  public void flush() {
+    if (!persistent) {
+      return;
+    }
+    Iterator<Entry> it = heapCache.iterateAllHeapEntries();
+    while (it.hasNext()) {
+      evict(it.next());
+    }
+  }
+
+  /**
+   * Expired values are removed when accessed or dropped when the storage capacity is reached.
+   */
+  @Override
+  public void purge() { }
+
+  /**
+   * Clear the heap and the storage, while the heap is locked. This way no entries can be
+   * evicted to the storage while clearing.
+   */
+  @Override
+  public void clear() {
+    heapCache.executeWithGlobalLock(new Job<Void>() {
+      @Override
+      public Void call() {
+        heapCache.clearLocalCache();
+        try {
+          storage.clear();
+        } catch (Throwable t) {
+          rethrow("clear", t);
+        }
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public boolean checkStorageStillDisconnectedForClear() {
+    return false;
+  }
+
+  @Override
+  public void disconnectStorageForClear() { }
+
+  @Override
+  public Future<Void> clearAndReconnect() {
+    clear();
+    return null;
+  }
+
+  /**
+   * Not used, the storage receives entries only on eviction from the heap.
+   */
+  @Override
+  public void put(Entry e, long nextRefreshTime) { }
+
+  /**
+   * Read the entry from the storage. An expired entry is removed and {@code null}
+   * is returned.
+   */
+  @Override
+  public StorageEntry get(Object key) {
+    StorageEntry se;
+    try {
+      se = storage.get(key);
+    } catch (Throwable t) {
+      heapCache.logAndCountInternalException("storage get", t);
+      remove(key);
+      return null;
+    }
+    if (se == null) {
+      return null;
+    }
+    long t = se.getValueExpiryTime();
+    if (t != 0 && t <= heapCache.getClock().millis()) {
+      remove(key);
+      return null;
+    }
+    return se;
+  }
+
+  @Override
+  public boolean remove(Object key) {
+    try {
+      return storage.remove(key);
+    } catch (Throwable t) {
+      heapCache.logAndCountInternalException("storage remove", t);
+      return false;
+    }
+  }
+
+  /**
+   * Move the entry to the storage. Called while the entry is locked for eviction.
+   * Only fresh values are kept, exceptions are not stored.
+   */
+  @Override
+  public void evict(Entry e) {
+    if (!e.hasFreshData(heapCache.getClock()) ||
+      e.getValueOrException() instanceof ExceptionWrapper) {
+      return;
+    }
+    try {
+      storage.put(e);
+    } catch (Throwable t) {
+      heapCache.logAndCountInternalException("storage put", t);
+    }
+  }
+
+  @Override
+  public void expire(Entry e) { }
+
+  /**
+   * Iterate the fresh entries of the heap and then the entries of the storage. An entry
+   * may move between the heap and the storage while iterating. The storage keys are
+   * collected before the heap is iterated, for entries that move to the heap, and again
+   * afterwards, for entries that are evicted to the storage. For each storage key the
+   * heap is checked first, and the heap entry is returned if present. The keys returned
+   * are remembered, so each key is returned only once.
+   */
+  @Override
+  public Iterator<Entry> iterateAll() {
+    final Iterator<Entry> heapIterator = heapCache.iterateAllHeapEntries();
+    final List<Object> keysBeforeHeap = collectStorageKeys();
+    return new Iterator<Entry>() {
+
+      final Set<Object> returnedKeys = new HashSet<Object>();
+      Iterator<Object> keyIterator;
+      boolean keysAfterHeap;
+      Entry next;
+
+      @Override
+      public boolean hasNext() {
+        if (next != null) {
+          return true;
+        }
+        while (heapIterator.hasNext()) {
+          Entry e = heapIterator.next();
+          if (e.hasFreshData(heapCache.getClock())) {
+            returnedKeys.add(e.getKey());
+            next = e;
+            return true;
+          }
+        }
+        if (keyIterator == null) {
+          keyIterator = keysBeforeHeap.iterator();
+        }
+        for (;;) {
+          while (keyIterator.hasNext()) {
+            Object key = keyIterator.next();
+            if (!returnedKeys.add(key)) {
+              continue;
+            }
+            next = readEntry(key);
+            if (next != null) {
+              return true;
+            }
+          }
+          if (keysAfterHeap) {
+            return false;
+          }
+          keysAfterHeap = true;
+          keyIterator = collectStorageKeys().iterator();
+        }
+      }
+
+      @Override
+      public Entry next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        Entry e = next;
+        next = null;
+        return e;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  private List<Object> collectStorageKeys() {
+    final List<Object> keys = new ArrayList<Object>();
+    try {
+      storage.visit(null, new CacheStorage.EntryFilter() {
+        @Override
+        public boolean shouldInclude(Object key) {
+          keys.add(key);
+          return false;
+        }
+      }, null);
+    } catch (Throwable t) {
+      rethrow("iterate", t);
+    }
+    return keys;
+  }
+
+  /**
+   * Return the heap entry, if the entry was moved to the heap and the data is present,
+   * otherwise an entry constructed from the storage, which is not inserted into the heap. The heap is
+   * checked again, if the storage entry is removed concurrently, since a key moving
+   * to the heap is inserted there before it is removed from the storage.
+   */
+  @SuppressWarnings("unchecked")
+  private Entry readEntry(Object key) {
+    Entry e = heapCache.lookupEntryNoHitRecord(key);
+    if (e != null && e.hasFreshData(heapCache.getClock())) {
+      return e;
+    }
+    StorageEntry se = get(key);
+    if (se == null) {
+      e = heapCache.lookupEntryNoHitRecord(key);
+      return e != null && e.hasFreshData(heapCache.getClock()) ? e : null;
+    }
+    int hc = HeapCache.modifiedHash(key.hashCode());
+    e = new Entry(heapCache.extractIntKeyObj(key), heapCache.extractIntKeyValue(key, hc));
+    e.setValueOrException(se.getValueOrException());
+    long t = se.getValueExpiryTime();
+    e.setNextRefreshTime(t == 0 ? ExpiryPolicy.ETERNAL : t);
+    return e;
+  }
+
+  @Override
+  public long getTotalEntryCount() {
+    return heapCache.getLocalSize() + storage.getEntryCount();
+  }
+
+  @Override
+  public int getAlert() {
+    return 0;
+  }
+
+  /**
+   * Disconnect the storage from the cache, the cache continues with the heap only.
+   */
+  @Override
+  public void disable(Throwable t) {
+    heapCache.logAndCountInternalException("storage disabled", t);
+    parent.resetStorage(this, null);
+    try {
+      storage.close();
+    } catch (Throwable ignore) { }
+  }
+
+}
@@ -20,12 +20,20 @@ package org.cache2k.core.timing;
  * #L%
  */
 
+import org.cache2k.core.util.TunableConstants;
+import org.cache2k.core.util.TunableFactory;
+
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Scheduler shared by all caches which have no clock with its own scheduler.
+ * Delivers timer events with a pool of daemon threads. Threads are started
+ * on demand up to the configured thread count.
+ *
  * @author Jens Wilke
  */
 public class DefaultScheduler implements Scheduler {
@@ -33,7 +41,7 @@ public class DefaultScheduler implements Scheduler {
   public static final Scheduler INSTANCE = new DefaultScheduler();
 
   private ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(
-    1, new DaemonThreadFactory());
+    threadCount(TunableFactory.get(Tunable.class)), new DaemonThreadFactory());
 
   private DefaultScheduler() { }
 
@@ -44,14 +52,35 @@ public class DefaultScheduler implements Scheduler {
     executor.schedule(runnable, delay, TimeUnit.MILLISECONDS);
   }
 
+  static int threadCount(Tunable t) {
+    if (t.threadCount > 0) {
+      return t.threadCount;
+    }
+    return Math.max(1, Runtime.getRuntime().availableProcessors() / t.processorsPerThread);
+  }
+
   static final class DaemonThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
     public Thread newThread(Runnable r) {
       Thread t = new Thread(r);
       t.setDaemon(true);
-      t.setName("cache2k-scheduler");
+      int n = count.getAndIncrement();
+      t.setName(n == 0 ? "cache2k-scheduler" : "cache2k-scheduler-" + n);
       t.setPriority(Thread.MAX_PRIORITY);
       return t;
     }
   }
 
+  public static class Tunable extends TunableConstants {
+
+    /**
+     * Number of threads delivering timer events. Default is 0, which means
+     * one thread for {@link #processorsPerThread} processors.
+     */
+    public int threadCount = 0;
+
+    public int processorsPerThread = 8;
+
+  }
+
 }
@@ -74,6 +74,11 @@ class DynamicTiming<K, V> extends StaticTiming<K, V> {
     policyFactory = null;
   }
 
+  @Override
+  public boolean isValueNeeded() {
+    return expiryPolicy != null;
+  }
+
   long calcNextRefreshTime(K key, V newObject, long now, Entry entry) {
     return calcNextRefreshTime(
       key, newObject, now, entry,
@@ -93,6 +98,7 @@ class DynamicTiming<K, V> extends StaticTiming<K, V> {
 
   @Override
   public synchronized void close() {
+    closeSweeper();
     super.cancelAll();
     cache.closeCustomization(expiryPolicy, "expiryPolicy");
   }
@@ -0,0 +1,81 @@
+package org.cache2k.core.timing;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Partitions the timer tasks of a cache into independent timers, selected by the
+ * hash of the task. Each shard has its own lock and schedules its own processing,
+ * so concurrent updates of entries and the delivery of timer events don't contend
+ * on a single timer.
+ *
+ * @author Jens Wilke
+ */
+public class ShardedTimer implements SimpleTimer {
+
+  private final SimpleTimer[] shards;
+  private final int mask;
+
+  /**
+   * @param shards timer instances, the length needs to be a power of two
+   */
+  public ShardedTimer(SimpleTimer[] shards) {
+    if (Integer.bitCount(shards.length) != 1) {
+      throw new IllegalArgumentException("shard count needs to be a power of two");
+    }
+    this.shards = shards;
+    mask = shards.length - 1;
+  }
+
+  private SimpleTimer shard(SimpleTimerTask task) {
+    int h = task.shardHash();
+    return shards[(h ^ (h >>> 16)) & mask];
+  }
+
+  @Override
+  public void schedule(SimpleTimerTask task, long time) {
+    shard(task).schedule(task, time);
+  }
+
+  @Override
+  public void cancel(SimpleTimerTask t) {
+    shard(t).cancel(t);
+  }
+
+  @Override
+  public void cancel() {
+    for (SimpleTimer t : shards) {
+      t.cancel();
+    }
+  }
+
+  /**
+   * All shards are created with identical parameters, so use the lag of the first one.
+   */
+  @Override
+  public long getLag() {
+    return shards[0].getLag();
+  }
+
+  public int getShardCount() {
+    return shards.length;
+  }
+
+}
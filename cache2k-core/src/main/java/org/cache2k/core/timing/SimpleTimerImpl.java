@@ -32,9 +32,9 @@ public class SimpleTimerImpl implements SimpleTimer {
   private final Lock lock = new ReentrantLock();
   private final InternalClock clock;
   private final Scheduler scheduler;
-  private final TimerStructure structure = new QueueTimerStructure();
+  private final TimerStructure structure;
   private long nextScheduled = Long.MAX_VALUE;
-  private long lag = 0;
+  private final long lag;
 
   private final Runnable timerAction = new Runnable() {
     @Override
@@ -44,7 +44,18 @@ public class SimpleTimerImpl implements SimpleTimer {
   };
 
   public SimpleTimerImpl(InternalClock c) {
+    this(c, new QueueTimerStructure(), 0);
+  }
+
+  /**
+   * @param structure data structure holding the scheduled tasks
+   * @param lag time tasks may be delayed, needs to be at least the precision
+   *            of the structure
+   */
+  public SimpleTimerImpl(InternalClock c, TimerStructure structure, long lag) {
     this.clock = c;
+    this.structure = structure;
+    this.lag = lag;
     if (c instanceof Scheduler) {
       scheduler = (Scheduler) clock;
     } else {
@@ -66,6 +66,12 @@ public abstract class SimpleTimerTask implements Runnable {
    */
   volatile long executionTime;
 
+  /**
+   * Links within a slot of the {@link TimingWheelTimerStructure}. Only
+   * accessed while holding the timer lock.
+   */
+  SimpleTimerTask prev, next;
+
   /**
    * Creates a new timer task.
    */
@@ -111,6 +117,14 @@ public abstract class SimpleTimerTask implements Runnable {
     return STATE_UPDATER.compareAndSet(this, VIRGIN, SCHEDULED);
   }
 
+  /**
+   * Selects the shard of a {@link ShardedTimer}. Needs to stay constant while the
+   * task is scheduled.
+   */
+  protected int shardHash() {
+    return System.identityHashCode(this);
+  }
+
   public boolean isCancelled() {
     return state == CANCELLED;
   }
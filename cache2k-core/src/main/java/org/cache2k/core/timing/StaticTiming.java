@@ -26,12 +26,14 @@ import org.cache2k.configuration.CustomizationSupplier;
 import org.cache2k.core.DefaultResiliencePolicy;
 import org.cache2k.core.Entry;
 import org.cache2k.core.ExceptionWrapper;
+import org.cache2k.core.ExpirySweeper;
 import org.cache2k.core.HeapCache;
 import org.cache2k.core.InternalCache;
 import org.cache2k.core.util.InternalClock;
 import org.cache2k.expiry.Expiry;
 import org.cache2k.expiry.ExpiryPolicy;
 import org.cache2k.expiry.ExpiryTimeValues;
+import org.cache2k.expiry.TimerConfiguration;
 import org.cache2k.integration.ExceptionInformation;
 import org.cache2k.integration.ResiliencePolicy;
 
@@ -52,6 +54,9 @@ public class StaticTiming<K, V> extends Timing<K, V> {
   InternalCache cache;
   ResiliencePolicy<K, V> resiliencePolicy;
   CustomizationSupplier<ResiliencePolicy<K, V>> resiliencePolicyFactory;
+  TimerConfiguration timerConfiguration;
+  boolean lazyExpiry;
+  ExpirySweeper<K, V> sweeper;
 
   StaticTiming(InternalClock c, Cache2kConfiguration<K, V> cc) {
     clock = c;
@@ -100,6 +105,11 @@ public class StaticTiming<K, V> extends Timing<K, V> {
     resiliencePolicy.init(ctx);
     refreshAhead = c.isRefreshAhead();
     sharpExpiry = c.isSharpExpiry();
+    timerConfiguration = c.getSections().getSection(TimerConfiguration.class);
+    lazyExpiry = timerConfiguration != null && timerConfiguration.isLazyExpiry();
+    if (lazyExpiry && refreshAhead) {
+      throw new IllegalArgumentException("lazy expiry cannot be used with refresh ahead");
+    }
   }
 
   @Override
@@ -109,7 +119,39 @@ public class StaticTiming<K, V> extends Timing<K, V> {
       resiliencePolicy = c.createCustomization(resiliencePolicyFactory);
     }
     resiliencePolicyFactory = null;
-    timer = new SimpleTimerImpl(clock);
+    timer = createTimer();
+    if (lazyExpiry) {
+      sweeper = new ExpirySweeper<K, V>(c, clock, scheduler(),
+        timerConfiguration.getSweepIntervalMillis());
+      sweeper.start();
+    }
+  }
+
+  Scheduler scheduler() {
+    return clock instanceof Scheduler ? (Scheduler) clock : DefaultScheduler.INSTANCE;
+  }
+
+  SimpleTimer createTimer() {
+    if (timerConfiguration == null || timerConfiguration.getShardCount() == 1) {
+      return createTimerShard();
+    }
+    int count = 1;
+    while (count < timerConfiguration.getShardCount()) {
+      count <<= 1;
+    }
+    SimpleTimer[] shards = new SimpleTimer[count];
+    for (int i = 0; i < count; i++) {
+      shards[i] = createTimerShard();
+    }
+    return new ShardedTimer(shards);
+  }
+
+  SimpleTimer createTimerShard() {
+    if (timerConfiguration != null && timerConfiguration.isTimingWheel()) {
+      long precision = timerConfiguration.getPrecisionMillis();
+      return new SimpleTimerImpl(clock, new TimingWheelTimerStructure(precision), precision);
+    }
+    return new SimpleTimerImpl(clock);
   }
 
   @Override
@@ -122,6 +164,7 @@ public class StaticTiming<K, V> extends Timing<K, V> {
 
   @Override
   public void close() {
+    closeSweeper();
     SimpleTimer timer = this.timer;
     if (timer != null) {
       timer.cancel();
@@ -129,6 +172,13 @@ public class StaticTiming<K, V> extends Timing<K, V> {
     this.timer = null;
   }
 
+  void closeSweeper() {
+    ExpirySweeper<K, V> sweeper = this.sweeper;
+    if (sweeper != null) {
+      sweeper.close();
+    }
+  }
+
   @Override
   public long calculateNextRefreshTime(Entry<K, V> e, V v, long loadTime) {
     return calcNextRefreshTime(e.getKey(), v, loadTime, e, null, expiryMillis, sharpExpiry);
@@ -194,6 +244,9 @@ public class StaticTiming<K, V> extends Timing<K, V> {
     if (Math.abs(expiryTime) <= now) {
       return expiredEventuallyStartBackgroundRefresh(e, expiryTime < 0);
     }
+    if (lazyExpiry) {
+      return -Math.abs(expiryTime);
+    }
     if (expiryTime < 0) {
       long timerTime = -expiryTime - SAFETY_GAP_MILLIS - timer.getLag();
       if (timerTime >= now) {
@@ -256,6 +309,14 @@ public class StaticTiming<K, V> extends Timing<K, V> {
     }
   }
 
+  /**
+   * With lazy expiry entries are expired by the sweeper and not by timer tasks.
+   */
+  @Override
+  public boolean isTimerTaskUsed() {
+    return !lazyExpiry;
+  }
+
   public void cancelExpiryTimer(Entry<K, V> e) {
     Tasks tsk = (Tasks) e.getTask();
     SimpleTimer timer = this.timer;
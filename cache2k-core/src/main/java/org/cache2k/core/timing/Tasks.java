@@ -30,13 +30,24 @@ import org.cache2k.core.InternalCache;
 abstract class Tasks<K, V> extends SimpleTimerTask {
   private Entry<K, V> entry;
   private InternalCache<K, V> cache;
+  private int hash;
 
   Tasks<K, V> to(InternalCache<K, V> c, Entry<K, V> e) {
     cache = c;
     entry = e;
+    hash = e.hashCode;
     return this;
   }
 
+  /**
+   * Use the entry hash, so the tasks of an entry always go to the same shard.
+   * The entry reference is cleared on cancel, so the hash is kept separately.
+   */
+  @Override
+  protected int shardHash() {
+    return hash;
+  }
+
   /**
    * Null out references to avoid mem leaks, when timer is cancelled.
    */
@@ -121,6 +121,12 @@ public abstract class Timing<K, V>  {
    */
   public ExpiryPolicy<K, V> getExpiryPolicy() { return null; }
 
+  /**
+   * True, if {@link #calculateNextRefreshTime} passes the value to an expiry policy.
+   * Otherwise the value parameter may be {@code null}.
+   */
+  public boolean isValueNeeded() { return false; }
+
   /**
    * Calculates the expiry time for a value that was just loaded or inserted into the cache.
    *
@@ -168,6 +174,11 @@ public abstract class Timing<K, V>  {
     return true;
   }
 
+  /**
+   * True, if timer tasks are attached to the entries.
+   */
+  public boolean isTimerTaskUsed() { return false; }
+
   /**
    * Cancel the timer on the entry, if a timer was set.
    */
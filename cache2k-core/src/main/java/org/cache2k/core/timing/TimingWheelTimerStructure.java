@@ -0,0 +1,289 @@
+package org.cache2k.core.timing;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Hashed hierarchical timing wheel. Time is divided into ticks of the configured
+ * precision. Each level has 64 slots, a slot of level {@code n} spans {@code 64^n}
+ * ticks. A task is placed on the level of the highest six bit group in which its tick
+ * differs from the current tick, so no wrap around happens within a level. When
+ * the time reaches the start of a slot on a higher level, its tasks are cascaded to
+ * the lower levels. Eleven levels cover the whole range of a {@code long}.
+ *
+ * <p>The tasks of a slot are kept in a doubly linked list with a sentinel, so schedule
+ * and cancel need constant time. A bit mask per level records the occupied slots,
+ * which allows to skip empty time ranges quickly.
+ *
+ * <p>A task is executed after the end of its tick, which means it is delayed up to
+ * the precision but never executed early.
+ *
+ * @author Jens Wilke
+ */
+public class TimingWheelTimerStructure extends TimerStructure {
+
+  static final int SLOT_BITS = 6;
+  static final int SLOTS = 1 << SLOT_BITS;
+  static final int SLOT_MASK = SLOTS - 1;
+  static final int LEVELS = (63 + SLOT_BITS - 1) / SLOT_BITS;
+  static final int DUE_LEVEL = -1;
+
+  private final long precision;
+  private final Slot[][] wheel = new Slot[LEVELS][];
+  private final long[] occupied = new long[LEVELS];
+  /** Tasks which time is reached, but are not yet run */
+  private final Slot due = new Slot(DUE_LEVEL, 0);
+  /** All ticks before this one are processed */
+  private long currentTick;
+  /** Number of scheduled tasks, including the due tasks */
+  private int size;
+
+  public TimingWheelTimerStructure(long precisionMillis) {
+    if (precisionMillis <= 0) {
+      throw new IllegalArgumentException("precision must be positive: " + precisionMillis);
+    }
+    precision = precisionMillis;
+    for (int l = 0; l < LEVELS; l++) {
+      Slot[] slots = new Slot[SLOTS];
+      for (int i = 0; i < SLOTS; i++) {
+        slots[i] = new Slot(l, i);
+      }
+      wheel[l] = slots;
+    }
+  }
+
+  public long getPrecision() {
+    return precision;
+  }
+
+  /**
+   * Always return true and let the timer decide whether the processing needs to be
+   * scheduled earlier. Processing at the task time plus the precision moves the task
+   * through all levels, so no separate wake up for cascading is needed.
+   */
+  @Override
+  public boolean schedule(SimpleTimerTask task, long time) {
+    task.executionTime = time;
+    size++;
+    long tick = time / precision;
+    if (tick < currentTick) {
+      due.insert(task);
+    } else {
+      insert(task, tick);
+    }
+    return true;
+  }
+
+  /**
+   * Insert the task into the wheel relative to the current tick.
+   */
+  private void insert(SimpleTimerTask task, long tick) {
+    long diff = tick ^ currentTick;
+    int level = diff == 0 ? 0 : (63 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS;
+    int index = (int) ((tick >>> (level * SLOT_BITS)) & SLOT_MASK);
+    wheel[level][index].insert(task);
+    occupied[level] |= 1L << index;
+  }
+
+  @Override
+  public void cancel(SimpleTimerTask t) {
+    if (t.cancel() && t.next != null) {
+      remove(t);
+    }
+  }
+
+  private void remove(SimpleTimerTask t) {
+    SimpleTimerTask prev = t.prev;
+    SimpleTimerTask next = t.next;
+    prev.next = next;
+    next.prev = prev;
+    t.prev = t.next = null;
+    size--;
+    if (prev == next) {
+      Slot s = (Slot) prev;
+      if (s.level != DUE_LEVEL) {
+        occupied[s.level] &= ~(1L << s.index);
+      }
+    }
+  }
+
+  @Override
+  public void cancel() {
+    due.clear();
+    for (int l = 0; l < LEVELS; l++) {
+      for (Slot s : wheel[l]) {
+        s.clear();
+      }
+      occupied[l] = 0;
+    }
+    size = 0;
+  }
+
+  @Override
+  public SimpleTimerTask removeNextToRun(long now) {
+    advance(now / precision);
+    while (!due.isEmpty()) {
+      SimpleTimerTask task = due.next;
+      due.unlink(task);
+      size--;
+      if (task.execute()) {
+        return task;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Time when the next tick with tasks ends, or the time of the next cascade.
+   */
+  @Override
+  public long nextRun() {
+    if (!due.isEmpty()) {
+      return currentTick * precision;
+    }
+    if (size == 0) {
+      return -1;
+    }
+    return (nextEventTick() + 1) * precision;
+  }
+
+  /**
+   * Process all ticks before {@code nowTick}. Move tasks to the due list and
+   * cascade higher levels. Jumps over ticks without events.
+   */
+  private void advance(long nowTick) {
+    while (currentTick < nowTick) {
+      if (size == 0) {
+        currentTick = nowTick;
+        return;
+      }
+      long tick = nextEventTick();
+      if (tick >= nowTick) {
+        currentTick = nowTick;
+        return;
+      }
+      currentTick = tick;
+      for (int l = LEVELS - 1; l > 0; l--) {
+        int shift = l * SLOT_BITS;
+        if ((tick & ((1L << shift) - 1)) == 0) {
+          cascade(l, (int) ((tick >>> shift) & SLOT_MASK));
+        }
+      }
+      int index = (int) (tick & SLOT_MASK);
+      Slot s = wheel[0][index];
+      while (!s.isEmpty()) {
+        SimpleTimerTask task = s.next;
+        s.unlink(task);
+        due.insert(task);
+      }
+      occupied[0] &= ~(1L << index);
+      currentTick = tick + 1;
+    }
+  }
+
+  /**
+   * Reinsert the tasks of the slot relative to the current tick, which moves them
+   * to lower levels.
+   */
+  private void cascade(int level, int index) {
+    if ((occupied[level] & (1L << index)) == 0) {
+      return;
+    }
+    occupied[level] &= ~(1L << index);
+    Slot s = wheel[level][index];
+    while (!s.isEmpty()) {
+      SimpleTimerTask task = s.next;
+      s.unlink(task);
+      insert(task, task.executionTime / precision);
+    }
+  }
+
+  /**
+   * The earliest tick at which a slot is due on the lowest level or needs to be cascaded
+   * on a higher level. Not below the current tick.
+   */
+  private long nextEventTick() {
+    long min = Long.MAX_VALUE;
+    for (int l = 0; l < LEVELS; l++) {
+      long bits = occupied[l];
+      if (bits == 0) {
+        continue;
+      }
+      int shift = l * SLOT_BITS;
+      int index = (int) ((currentTick >>> shift) & SLOT_MASK);
+      long candidates = bits & (-1L << index);
+      if (candidates == 0) {
+        continue;
+      }
+      int upperShift = shift + SLOT_BITS;
+      long upper = upperShift >= 64 ? 0 : (currentTick >>> upperShift) << upperShift;
+      long tick = upper | ((long) Long.numberOfTrailingZeros(candidates) << shift);
+      min = Math.min(min, Math.max(tick, currentTick));
+    }
+    return min;
+  }
+
+  /**
+   * Sentinel of a circular task list.
+   */
+  static final class Slot extends SimpleTimerTask {
+
+    final int level;
+    final int index;
+
+    Slot(int level, int index) {
+      this.level = level;
+      this.index = index;
+      prev = next = this;
+    }
+
+    boolean isEmpty() {
+      return next == this;
+    }
+
+    void insert(SimpleTimerTask t) {
+      t.next = this;
+      t.prev = prev;
+      prev.next = t;
+      prev = t;
+    }
+
+    void unlink(SimpleTimerTask t) {
+      t.prev.next = t.next;
+      t.next.prev = t.prev;
+      t.prev = t.next = null;
+    }
+
+    void clear() {
+      SimpleTimerTask t = next;
+      while (t != this) {
+        SimpleTimerTask n = t.next;
+        t.prev = t.next = null;
+        t = n;
+      }
+      prev = next = this;
+    }
+
+    @Override
+    public void run() { }
+
+  }
+
+}
@@ -25,6 +25,7 @@ import org.cache2k.CacheManager;
 import org.cache2k.configuration.Cache2kConfiguration;
 import org.cache2k.configuration.CustomizationSupplierByClassName;
 import org.cache2k.core.spi.CacheConfigurationProvider;
+import org.cache2k.expiry.TimerConfiguration;
 import org.cache2k.impl.xmlConfiguration.generic.ConfigurationException;
 import org.cache2k.impl.xmlConfiguration.generic.ConfigurationParser;
 import org.cache2k.impl.xmlConfiguration.generic.ConfigurationTokenizer;
@@ -35,6 +36,8 @@ import org.cache2k.impl.xmlConfiguration.generic.TokenizerFactory;
 import org.cache2k.impl.xmlConfiguration.generic.Util;
 import org.cache2k.impl.xmlConfiguration.generic.VariableExpander;
 import org.cache2k.jcache.JCacheConfiguration;
+import org.cache2k.storage.OffHeapStorageConfiguration;
+import org.cache2k.storage.PersistentStorageConfiguration;
 
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -56,6 +59,9 @@ public class CacheConfigurationProviderImpl
   private static final Map<String, String> VERSION_1_SECTION_TYPES = new HashMap<String, String>() {
     {
       put("jcache", JCacheConfiguration.class.getName());
+      put("offHeapStorage", OffHeapStorageConfiguration.class.getName());
+      put("persistentStorage", PersistentStorageConfiguration.class.getName());
+      put("timer", TimerConfiguration.class.getName());
       put("byClassName", CustomizationSupplierByClassName.class.getName());
     }
   };
@@ -50,12 +50,23 @@ public class StandardPropertyParser implements PropertyParser {
 
   public Object parse(Class<?> targetType, String value) throws Exception {
     ValueConverter p = type2parser.get(targetType);
+    if (p == null && targetType.isEnum()) {
+      return parseEnum(targetType, value);
+    }
     if (p == null) {
       throw new IllegalArgumentException("Unknown target type: " + targetType);
     }
     return p.parse(value);
   }
 
+  /**
+   * Enum constant by name, case insensitive.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Object parseEnum(Class<?> targetType, String value) {
+    return Enum.valueOf((Class<? extends Enum>) targetType, value.trim().toUpperCase());
+  }
+
   private void addParser(Class<?> type, ValueConverter<?> p) {
     type2parser.put(type, p);
   }
@@ -0,0 +1,199 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.expiry.TimerConfiguration;
+import org.cache2k.integration.CacheLoader;
+import org.cache2k.processor.EntryProcessor;
+import org.cache2k.processor.MutableCacheEntry;
+import org.cache2k.testing.category.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class CompactEntryTest {
+
+  private static Class<?> entryType(Cache<Integer, Integer> c) {
+    c.put(1, 1);
+    HeapCache<Integer, Integer> hc = c.requestInterface(HeapCache.class);
+    Class<?> type = hc.lookupEntryNoHitRecord(1).getClass();
+    c.close();
+    return type;
+  }
+
+  @Test
+  public void eternalIsCompact() {
+    assertEquals(Entry.class, entryType(
+      Cache2kBuilder.of(Integer.class, Integer.class).eternal(true).build()));
+  }
+
+  @Test
+  public void expiryWithTimerIsExtended() {
+    assertEquals(ExtendedEntry.class, entryType(
+      Cache2kBuilder.of(Integer.class, Integer.class)
+        .expireAfterWrite(5, TimeUnit.MINUTES)
+        .build()));
+  }
+
+  @Test
+  public void lazyExpiryIsCompact() {
+    assertEquals(Entry.class, entryType(
+      Cache2kBuilder.of(Integer.class, Integer.class)
+        .expireAfterWrite(5, TimeUnit.MINUTES)
+        .with(new TimerConfiguration.Builder().lazyExpiry(true))
+        .build()));
+  }
+
+  @Test
+  public void loaderIsExtended() {
+    assertEquals(ExtendedEntry.class, entryType(
+      Cache2kBuilder.of(Integer.class, Integer.class)
+        .eternal(true)
+        .loader(new CacheLoader<Integer, Integer>() {
+          @Override
+          public Integer load(Integer key) {
+            return key;
+          }
+        })
+        .build()));
+  }
+
+  @Test
+  public void operationsOnCompactEntry() {
+    Cache<Integer, Integer> c =
+      Cache2kBuilder.of(Integer.class, Integer.class).eternal(true).build();
+    c.put(1, 1);
+    int v = c.invoke(1, new EntryProcessor<Integer, Integer, Integer>() {
+      @Override
+      public Integer process(MutableCacheEntry<Integer, Integer> e) {
+        e.setValue(e.getValue() + 1);
+        return e.getValue();
+      }
+    });
+    assertEquals(2, v);
+    assertEquals((Integer) 2, c.peek(1));
+    c.remove(1);
+    assertFalse(c.containsKey(1));
+    c.close();
+  }
+
+  @Test(expected = CacheInternalError.class)
+  public void compactEntryRejectsTask() {
+    new Entry<Integer, Integer>().setRefreshProbationNextRefreshTime(4711);
+  }
+
+  /**
+   * Compact entries cannot keep the information needed with a loader or timer tasks.
+   */
+  @Test
+  public void compactEntriesRejectedWithLoader() {
+    Cache<Integer, Integer> c = Cache2kBuilder.of(Integer.class, Integer.class)
+      .loader(new CacheLoader<Integer, Integer>() {
+        @Override
+        public Integer load(Integer key) {
+          return key;
+        }
+      })
+      .build();
+    HeapCache<Integer, Integer> hc = c.requestInterface(HeapCache.class);
+    try {
+      hc.setCompactEntries(true);
+      fail("exception expected");
+    } catch (IllegalStateException expected) {
+    } finally {
+      c.close();
+    }
+  }
+
+  /**
+   * Size of the entry objects with compressed references and compressed class pointers,
+   * the default for heaps below 32 GB. A new field in the compact entry shows up here.
+   */
+  @Test
+  public void entrySizes() throws Exception {
+    Object unsafe = unsafe();
+    Method arrayIndexScale = unsafe.getClass().getMethod("arrayIndexScale", Class.class);
+    assumeTrue((Integer) arrayIndexScale.invoke(unsafe, Object[].class) == 4);
+    assumeTrue(firstFieldOffset(unsafe, Entry.class) == 12);
+    assertEquals(64, instanceSize(unsafe, Entry.class));
+    assertEquals(72, instanceSize(unsafe, ExtendedEntry.class));
+    assertEquals(80, instanceSize(unsafe, LongLongEntry.class));
+    assertEquals(88, instanceSize(unsafe, LongLongExtendedEntry.class));
+    assertEquals(72, instanceSize(unsafe, IntIntEntry.class));
+    assertEquals(72, instanceSize(unsafe, IntIntExtendedEntry.class));
+  }
+
+  private static Object unsafe() throws Exception {
+    Field f = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+    f.setAccessible(true);
+    return f.get(null);
+  }
+
+  private static long fieldOffset(Object unsafe, Field f) throws Exception {
+    return (Long) unsafe.getClass().getMethod("objectFieldOffset", Field.class).invoke(unsafe, f);
+  }
+
+  private static long firstFieldOffset(Object unsafe, Class<?> type) throws Exception {
+    long min = Long.MAX_VALUE;
+    for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+      for (Field f : c.getDeclaredFields()) {
+        if (!Modifier.isStatic(f.getModifiers())) {
+          min = Math.min(min, fieldOffset(unsafe, f));
+        }
+      }
+    }
+    return min;
+  }
+
+  /**
+   * End of the last field, aligned to 8 bytes.
+   */
+  private static long instanceSize(Object unsafe, Class<?> type) throws Exception {
+    long end = 0;
+    for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+      for (Field f : c.getDeclaredFields()) {
+        if (Modifier.isStatic(f.getModifiers())) {
+          continue;
+        }
+        Class<?> t = f.getType();
+        int size = t == long.class || t == double.class ? 8 :
+          t == int.class || t == float.class || !t.isPrimitive() ? 4 :
+          t == short.class || t == char.class ? 2 : 1;
+        end = Math.max(end, fieldOffset(unsafe, f) + size);
+      }
+    }
+    return (end + 7) & ~7L;
+  }
+
+}
@@ -0,0 +1,120 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.CacheEntry;
+import org.cache2k.event.CacheEntryExpiredListener;
+import org.cache2k.expiry.TimerConfiguration;
+import org.cache2k.integration.CacheLoader;
+import org.cache2k.testing.category.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class ExpirySweeperTest {
+
+  private static final long MAX_WAIT = 10000;
+
+  private Cache2kBuilder<Integer, Integer> builder() {
+    return Cache2kBuilder.of(Integer.class, Integer.class)
+      .expireAfterWrite(1, TimeUnit.MILLISECONDS)
+      .with(new TimerConfiguration.Builder().lazyExpiry(true).sweepIntervalMillis(64));
+  }
+
+  @Test
+  public void noTimerTasksAndSweep() throws Exception {
+    Cache<Integer, Integer> c = builder().build();
+    HeapCache<Integer, Integer> hc = c.requestInterface(HeapCache.class);
+    for (int i = 0; i < 100; i++) {
+      c.put(i, i);
+    }
+    Entry<Integer, Integer> e = hc.lookupEntryNoHitRecord(1);
+    if (e != null) {
+      assertNull(e.getTask());
+      assertTrue(e.needsTimeCheck() || e.isGone() || e.isExpiredState());
+    }
+    long t0 = System.currentTimeMillis();
+    while (hc.getTotalEntryCount() > 0) {
+      assertTrue("swept within time", System.currentTimeMillis() - t0 < MAX_WAIT);
+      Thread.sleep(1);
+    }
+    assertNull(c.peek(1));
+    c.close();
+  }
+
+  @Test
+  public void expiredValueNotReturnedBeforeSweep() {
+    Cache<Integer, Integer> c = Cache2kBuilder.of(Integer.class, Integer.class)
+      .expireAfterWrite(1, TimeUnit.MILLISECONDS)
+      .with(new TimerConfiguration.Builder().lazyExpiry(true).sweepIntervalMillis(1000000))
+      .build();
+    c.put(1, 1);
+    long t0 = System.currentTimeMillis();
+    while (System.currentTimeMillis() - t0 < 3) { }
+    assertNull(c.peek(1));
+    assertFalse(c.containsKey(1));
+    c.close();
+  }
+
+  @Test
+  public void listenerCalledBySweep() throws Exception {
+    final AtomicInteger expired = new AtomicInteger();
+    Cache<Integer, Integer> c = builder()
+      .addListener(new CacheEntryExpiredListener<Integer, Integer>() {
+        @Override
+        public void onEntryExpired(Cache<Integer, Integer> cache,
+                                   CacheEntry<Integer, Integer> entry) {
+          expired.incrementAndGet();
+        }
+      })
+      .build();
+    for (int i = 0; i < 10; i++) {
+      c.put(i, i);
+    }
+    long t0 = System.currentTimeMillis();
+    while (expired.get() < 10) {
+      assertTrue("listener called within time", System.currentTimeMillis() - t0 < MAX_WAIT);
+      Thread.sleep(1);
+    }
+    c.close();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void refreshAheadRejected() {
+    builder().refreshAhead(true).loader(new CacheLoader<Integer, Integer>() {
+      @Override
+      public Integer load(Integer key) {
+        return key;
+      }
+    }).build();
+  }
+
+}
@@ -22,11 +22,19 @@ package org.cache2k.core;
 
 import static org.junit.Assert.*;
 
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
 import org.cache2k.core.concurrency.Job;
+import org.cache2k.core.concurrency.OptimisticLock;
 import org.cache2k.testing.category.FastTests;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * @author Jens Wilke
  */
@@ -53,4 +61,150 @@ public class Hash2Test {
     }
   }
 
+  /**
+   * Segments are moved to the new table one by one. Entries need to be found
+   * in the previous and the new table while the expansion is ongoing.
+   */
+  @Test
+  public void incrementalExpansion() {
+    Hash2<Integer, Integer> ht = new Hash2<Integer, Integer>(null);
+    int count = 10000;
+    boolean expansionSeen = false;
+    for (int i = 0; i < count; i++) {
+      insert(ht, i);
+      if (ht.isExpansionOngoing()) {
+        expansionSeen = true;
+        for (int j = 0; j <= i; j++) {
+          assertNotNull(ht.lookup(j, j, j));
+        }
+        assertEquals(i + 1, ht.calcEntryCount());
+      }
+    }
+    assertTrue(expansionSeen);
+    assertEquals(count, ht.getSize());
+    assertEquals(count, ht.calcEntryCount());
+    Entry[] tab = ht.getEntries();
+    assertFalse(ht.isExpansionOngoing());
+    int found = 0;
+    for (Entry e : tab) {
+      for (; e != null; e = e.another) {
+        found++;
+      }
+    }
+    assertEquals(count, found);
+    for (int i = 0; i < count; i++) {
+      assertNotNull(ht.lookup(i, i, i));
+    }
+  }
+
+  @Test
+  public void presizedNoExpansion() {
+    Hash2<Integer, Integer> ht = new Hash2<Integer, Integer>(null);
+    int count = 100000;
+    ht.presize(count, 0);
+    int size = ht.getEntries().length;
+    assertTrue(ht.getEntryCapacity() >= count);
+    for (int i = 0; i < count; i++) {
+      insert(ht, i);
+    }
+    assertEquals(size, ht.getEntries().length);
+  }
+
+  @Test
+  public void loadPercent() {
+    Hash2<Integer, Integer> ht = new Hash2<Integer, Integer>(null);
+    ht.presize(-1, 200);
+    assertEquals(ht.getEntries().length * 2, ht.getEntryCapacity());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void loadPercentNegative() {
+    new Hash2<Integer, Integer>(null).presize(-1, -1);
+  }
+
+  @Test
+  public void presizedByBuilder() {
+    Cache<Integer, Integer> c = Cache2kBuilder.of(Integer.class, Integer.class)
+      .initialCapacity(50000)
+      .hashLoadPercent(50)
+      .build();
+    Hash2 ht = c.requestInterface(HeapCache.class).hash;
+    int size = ht.getEntries().length;
+    assertEquals(size / 2, ht.getEntryCapacity());
+    assertTrue(ht.getEntryCapacity() >= 50000);
+    for (int i = 0; i < 50000; i++) {
+      c.put(i, i);
+    }
+    assertEquals(size, ht.getEntries().length);
+    c.close();
+  }
+
+  /**
+   * Iterate while inserting entries that cause several expansions. Every entry present
+   * at the start is returned exactly once, also entries in segments not yet moved.
+   */
+  @Test
+  public void iterationDuringExpansion() {
+    Hash2<Integer, Integer> ht = new Hash2<Integer, Integer>(null);
+    int initialCount = 1000;
+    for (int i = 0; i < initialCount; i++) {
+      insert(ht, i);
+    }
+    Set<Integer> seen = new HashSet<Integer>();
+    List<Entry<Integer, Integer>> buffer = new ArrayList<Entry<Integer, Integer>>();
+    int position = 0;
+    int k = initialCount;
+    boolean expansionSeen = false;
+    while (position < Hash2.ITERATION_POSITIONS) {
+      buffer.clear();
+      position = ht.collectEntries(position, Hash2.ITERATION_POSITIONS, buffer);
+      for (Entry<Integer, Integer> e : buffer) {
+        assertTrue("no duplicate " + e.getKey(), seen.add(e.getKey()));
+      }
+      for (int i = 0; i < 10 && k < initialCount * 20; i++) {
+        insert(ht, k++);
+        expansionSeen |= ht.isExpansionOngoing();
+      }
+    }
+    assertTrue(expansionSeen);
+    for (int i = 0; i < initialCount; i++) {
+      assertTrue("found " + i, seen.contains(i));
+    }
+  }
+
+  @Test
+  public void iterationPositionRanges() {
+    Hash2<Integer, Integer> ht = new Hash2<Integer, Integer>(null);
+    int count = 3333;
+    for (int i = 0; i < count; i++) {
+      insert(ht, i);
+    }
+    Set<Integer> seen = new HashSet<Integer>();
+    List<Entry<Integer, Integer>> buffer = new ArrayList<Entry<Integer, Integer>>();
+    int ranges = 7;
+    for (int r = 0; r < ranges; r++) {
+      int position = (int) (Hash2.ITERATION_POSITIONS * (long) r / ranges);
+      int end = (int) (Hash2.ITERATION_POSITIONS * (long) (r + 1) / ranges);
+      while (position < end) {
+        buffer.clear();
+        position = ht.collectEntries(position, end, buffer);
+        for (Entry<Integer, Integer> e : buffer) {
+          assertTrue("no duplicate " + e.getKey(), seen.add(e.getKey()));
+        }
+      }
+    }
+    assertEquals(count, seen.size());
+  }
+
+  private static void insert(Hash2<Integer, Integer> ht, int k) {
+    OptimisticLock l = ht.getSegmentLock(k);
+    long stamp = l.writeLock();
+    try {
+      ht.insertWithinLock(new Entry<Integer, Integer>(k, k), k, k);
+    } finally {
+      l.unlockWrite(stamp);
+    }
+    ht.checkExpand(k);
+  }
+
 }
@@ -0,0 +1,176 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.integration.CacheLoader;
+import org.cache2k.integration.CacheWriter;
+import org.cache2k.testing.category.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class HotKeySamplerTest {
+
+  @Test
+  public void sketchFindsFrequentKeys() {
+    HotKeySampler s = new HotKeySampler(2);
+    for (int i = 0; i < 10000; i++) {
+      s.miss(i);
+      if (i % 3 == 0) {
+        s.miss(-1);
+      }
+      if (i % 5 == 0) {
+        s.miss(-2);
+      }
+    }
+    List<HotKeySampler.HotKey> l = s.getTopMisses();
+    assertEquals(2, l.size());
+    assertEquals(-1, l.get(0).getKey());
+    assertEquals(-2, l.get(1).getKey());
+    HotKeySampler.HotKey k = l.get(0);
+    assertTrue(k.getCount() >= 3334 && k.getCount() - k.getError() <= 3334);
+    assertTrue(s.getTopMissShare() > 0.2);
+  }
+
+  /**
+   * The key is only requested for a sampled hit, so primitive keys are not boxed
+   * on every hit.
+   */
+  @Test
+  public void keyRequestedForSampledHitOnly() {
+    final int[] keyRequests = new int[1];
+    Entry<Integer, Integer> e = new Entry<Integer, Integer>(42, 42) {
+      @Override
+      public Integer getKey() {
+        keyRequests[0]++;
+        return super.getKey();
+      }
+    };
+    HotKeySampler s = new HotKeySampler(1);
+    int count = HotKeySampler.HIT_SAMPLE_RATE * 10;
+    for (int i = 0; i < count; i++) {
+      s.hit(e);
+    }
+    assertEquals(10, keyRequests[0]);
+    assertEquals("42=" + count, HotKeySampler.toString(s.getTopHits()));
+  }
+
+  @Test
+  public void empty() {
+    HotKeySampler s = new HotKeySampler(3);
+    assertTrue(s.getTopHits().isEmpty());
+    assertEquals(0.0, s.getTopHitShare(), 0.0);
+    assertEquals("", HotKeySampler.toString(s.getTopHits()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroCount() {
+    new HotKeySampler(0);
+  }
+
+  @Test
+  public void disabledByDefault() {
+    Cache<Integer, Integer> c = Cache2kBuilder.of(Integer.class, Integer.class).build();
+    assertNull(c.requestInterface(InternalCache.class).getInfo().getHotKeys());
+    c.close();
+  }
+
+  @Test
+  public void hitsMissesAndLoads() {
+    Cache<Integer, Integer> c = Cache2kBuilder.of(Integer.class, Integer.class)
+      .hotKeyCount(3)
+      .loader(new CacheLoader<Integer, Integer>() {
+        @Override
+        public Integer load(Integer key) throws Exception {
+          if (key == 4711) {
+            Thread.sleep(1);
+          }
+          return key;
+        }
+      })
+      .build();
+    checkHitsMissesAndLoads(c);
+  }
+
+  /**
+   * With a writer the cache operations are processed by the wired cache.
+   */
+  @Test
+  public void hitsMissesAndLoadsWired() {
+    Cache<Integer, Integer> c = Cache2kBuilder.of(Integer.class, Integer.class)
+      .hotKeyCount(3)
+      .loader(new CacheLoader<Integer, Integer>() {
+        @Override
+        public Integer load(Integer key) throws Exception {
+          if (key == 4711) {
+            Thread.sleep(1);
+          }
+          return key;
+        }
+      })
+      .writer(new CacheWriter<Integer, Integer>() {
+        @Override
+        public void write(Integer key, Integer value) { }
+        @Override
+        public void delete(Integer key) { }
+      })
+      .build();
+    checkHitsMissesAndLoads(c);
+  }
+
+  private static void checkHitsMissesAndLoads(Cache<Integer, Integer> c) {
+    for (int i = 0; i < 1000; i++) {
+      c.get(42);
+      c.peek(-i);
+      c.peek(123);
+    }
+    c.get(4711);
+    HotKeySampler s = c.requestInterface(InternalCache.class).getInfo().getHotKeys();
+    assertEquals(42, s.getTopHits().get(0).getKey());
+    assertEquals(123, s.getTopMisses().get(0).getKey());
+    assertEquals(4711, s.getTopLoadNanos().get(0).getKey());
+    assertTrue(s.getTopLoadNanos().get(0).getCount() >= 1000000);
+    c.close();
+  }
+
+  @Test
+  public void longKeys() {
+    Cache<Long, Integer> c = Cache2kBuilder.of(Long.class, Integer.class)
+      .hotKeyCount(1)
+      .build();
+    for (int i = 0; i < 100; i++) {
+      c.peek(123L);
+    }
+    HotKeySampler s = c.requestInterface(InternalCache.class).getInfo().getHotKeys();
+    assertEquals("123=100", HotKeySampler.toString(s.getTopMisses()));
+    c.close();
+  }
+
+}
@@ -0,0 +1,138 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.integration.CacheLoader;
+import org.cache2k.integration.CacheWriter;
+import org.cache2k.testing.category.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class LatencyHistogramTest {
+
+  @Test
+  public void bucketBounds() {
+    for (long v = 0; v < 100000; v++) {
+      int idx = LatencyHistogram.index(v);
+      assertTrue(v <= LatencyHistogram.upperBound(idx));
+      if (idx > 0) {
+        assertTrue(v > LatencyHistogram.upperBound(idx - 1));
+      }
+    }
+    assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.index(Long.MAX_VALUE));
+    assertEquals(0, LatencyHistogram.index(-1));
+  }
+
+  @Test
+  public void empty() {
+    LatencyHistogram h = new LatencyHistogram();
+    assertEquals(0, h.getCount());
+    assertEquals(0, h.getPercentileNanos(0.99));
+  }
+
+  @Test
+  public void percentiles() {
+    LatencyHistogram h = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      h.record(i * 1000L);
+    }
+    h.record(2000000000L);
+    assertEquals(1001, h.getCount());
+    assertEquals(2000000000L, h.getMaxNanos());
+    assertEquals(2000000000L, h.getPercentileNanos(1));
+    assertEquals(2.0, h.getPercentileMillis(1) / 1000, 0.0001);
+    assertWithinBucket(500000, h.getPercentileNanos(0.5));
+    assertWithinBucket(990000, h.getPercentileNanos(0.99));
+  }
+
+  /**
+   * Old values drop out of the percentiles, the lifetime count, total and maximum stay.
+   */
+  @Test
+  public void percentilesCoverRecentIntervals() {
+    long interval = 1000;
+    LatencyHistogram h = new LatencyHistogram(interval);
+    for (int i = 0; i < 1000; i++) {
+      h.record(1000, 0);
+    }
+    h.record(1000000, interval);
+    assertEquals(1000000, h.getPercentileNanos(1, interval));
+    assertWithinBucket(1000, h.getPercentileNanos(0.99, interval));
+    h.record(1000000, interval * 2);
+    assertEquals(1000000, h.getPercentileNanos(0.5, interval * 2));
+    assertEquals(1000000, h.getPercentileNanos(0.5, interval * 3));
+    assertEquals(0, h.getPercentileNanos(0.5, interval * 4));
+    assertEquals(1002, h.getCount());
+    assertEquals(1000 * 1000 + 2 * 1000000, h.getTotalNanos());
+    assertEquals(1000000, h.getMaxNanos());
+  }
+
+  /**
+   * A gap longer than two intervals drops the values of the last interval.
+   */
+  @Test
+  public void oldIntervalDropped() {
+    long interval = 1000;
+    LatencyHistogram h = new LatencyHistogram(interval);
+    h.record(1000000, 0);
+    h.record(1000, interval * 5);
+    assertWithinBucket(1000, h.getPercentileNanos(1, interval * 5));
+  }
+
+  private static void assertWithinBucket(long expected, long v) {
+    assertTrue("v=" + v, v >= expected && v <= expected * 1.125);
+  }
+
+  @Test
+  public void loaderAndWriterLatency() {
+    Cache<Integer, Integer> c = Cache2kBuilder.of(Integer.class, Integer.class)
+      .loader(new CacheLoader<Integer, Integer>() {
+        @Override
+        public Integer load(Integer key) throws Exception {
+          Thread.sleep(1);
+          return key;
+        }
+      })
+      .writer(new CacheWriter<Integer, Integer>() {
+        @Override
+        public void write(Integer key, Integer value) { }
+        @Override
+        public void delete(Integer key) { }
+      })
+      .build();
+    c.get(1);
+    c.put(2, 2);
+    InternalCacheInfo info = c.requestInterface(InternalCache.class).getInfo();
+    assertEquals(1, info.getLoadLatency().getCount());
+    assertTrue(info.getLoadLatency().getPercentileMillis(0.5) >= 1);
+    assertEquals(1, info.getWriterLatency().getCount());
+    c.close();
+  }
+
+}
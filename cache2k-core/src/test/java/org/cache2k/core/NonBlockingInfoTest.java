@@ -0,0 +1,91 @@
+package org.cache2k.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.testing.category.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class NonBlockingInfoTest {
+
+  private static void assertSameCounters(InternalCacheInfo expected, InternalCacheInfo info) {
+    assertEquals(expected.getSize(), info.getSize());
+    assertEquals(expected.getGetCount(), info.getGetCount());
+    assertEquals(expected.getMissCount(), info.getMissCount());
+    assertEquals(expected.getHeapHitCount(), info.getHeapHitCount());
+    assertEquals(expected.getPutCount(), info.getPutCount());
+    assertEquals(expected.getEvictedCount(), info.getEvictedCount());
+    assertEquals(expected.getRemoveCount(), info.getRemoveCount());
+    assertEquals(expected.getNewEntryCount(), info.getNewEntryCount());
+  }
+
+  private static void exercise(Cache<Integer, Integer> c) {
+    for (int i = 0; i < 2000; i++) {
+      c.put(i, i);
+      c.peek(i);
+      c.peek(i + 10000);
+    }
+    c.remove(1999);
+  }
+
+  @Test
+  public void sameCountersAsLatestInfo() {
+    Cache<Integer, Integer> c = Cache2kBuilder.of(Integer.class, Integer.class)
+      .entryCapacity(1000)
+      .build();
+    exercise(c);
+    InternalCache ic = c.requestInterface(InternalCache.class);
+    InternalCacheInfo info = ic.getNonBlockingInfo();
+    assertSameCounters(ic.getLatestInfo(), info);
+    assertTrue(info.getEvictedCount() > 0);
+    c.close();
+  }
+
+  @Test
+  public void sameCountersWithReadBufferAndSegments() {
+    Cache<Integer, Integer> c = Cache2kBuilder.of(Integer.class, Integer.class)
+      .entryCapacity(1000)
+      .boostConcurrency(true)
+      .build();
+    exercise(c);
+    InternalCache ic = c.requestInterface(InternalCache.class);
+    assertSameCounters(ic.getLatestInfo(), ic.getNonBlockingInfo());
+    c.close();
+  }
+
+  @Test
+  public void noIntegrityCheck() {
+    Cache<Integer, Integer> c = Cache2kBuilder.of(Integer.class, Integer.class).build();
+    InternalCacheInfo info = c.requestInterface(InternalCache.class).getNonBlockingInfo();
+    assertEquals(0, info.getSize());
+    assertNotNull(info.toString());
+    c.close();
+  }
+
+}
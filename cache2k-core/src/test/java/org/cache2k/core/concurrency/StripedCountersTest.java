@@ -0,0 +1,80 @@
+package org.cache2k.core.concurrency;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.testing.category.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class StripedCountersTest {
+
+  @Test
+  public void singleThread() {
+    StripedCounters c = new StripedCounters(3);
+    c.increment(0);
+    c.add(2, 4711);
+    assertEquals(1, c.get(0));
+    assertEquals(0, c.get(1));
+    assertEquals(4711, c.get(2));
+    assertEquals(1, c.getStripeCount());
+  }
+
+  /**
+   * Concurrent updates may expand the stripes, no update may get lost.
+   */
+  @Test
+  public void concurrentUpdates() throws Exception {
+    final StripedCounters c = new StripedCounters(2);
+    final int threadCount = 8;
+    final int count = 100000;
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < threadCount; i++) {
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < count; j++) {
+            c.increment(0);
+            c.add(1, 2);
+          }
+        }
+      });
+    }
+    for (Thread t : threads) {
+      t.start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertEquals(threadCount * count, c.get(0));
+    assertEquals(threadCount * count * 2L, c.get(1));
+    assertTrue(c.getStripeCount() <= Runtime.getRuntime().availableProcessors() * 2);
+  }
+
+}
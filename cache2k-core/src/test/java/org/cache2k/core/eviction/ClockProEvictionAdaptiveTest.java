@@ -0,0 +1,128 @@
+package org.cache2k.core.eviction;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.core.InternalCache;
+import org.cache2k.testing.category.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Run simple access patterns that provide test coverage on the clock pro
+ * eviction with adaptive hot size.
+ *
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class ClockProEvictionAdaptiveTest extends ClockProEvictionTest {
+
+  protected Cache<Integer, Integer> provideCache(long size) {
+    return builder(Integer.class, Integer.class)
+      .eternal(true)
+      .entryCapacity(size)
+      .adaptiveEviction(true)
+      .build();
+  }
+
+  /**
+   * Every new key is requested again after a short time, which is longer than the
+   * time an entry stays in the cold clock with the static hot size.
+   * The adaptive mode needs to reduce the hot size to get hits.
+   */
+  @Test
+  public void recencyBiasedTrace() {
+    Cache<Integer, Integer> adaptive = buildCache(true);
+    Cache<Integer, Integer> fixed = buildCache(false);
+    long hitsAdaptive = runRecencyTrace(adaptive);
+    long hitsStatic = runRecencyTrace(fixed);
+    assertTrue("more hits with adaptive mode, " + hitsAdaptive + " > " + hitsStatic,
+      hitsAdaptive > hitsStatic);
+    String statistics = extraStatistics(adaptive);
+    assertTrue(statistics, statistics.contains("hotMaxPercentage="));
+    assertFalse(statistics, statistics.contains("hotMaxPercentage=97,"));
+    adaptive.close();
+    fixed.close();
+  }
+
+  /**
+   * Skewed requests on a working set bigger than the cache mixed with a scan. The adaptive
+   * mode should stay close to the static sizing, which works well for this trace.
+   */
+  @Test
+  public void frequencyBiasedTrace() {
+    Cache<Integer, Integer> adaptive = buildCache(true);
+    Cache<Integer, Integer> fixed = buildCache(false);
+    long hitsAdaptive = runFrequencyTrace(adaptive);
+    long hitsStatic = runFrequencyTrace(fixed);
+    assertTrue("similar hits with adaptive mode, " + hitsAdaptive + " vs. " + hitsStatic,
+      hitsAdaptive > hitsStatic * 95 / 100);
+    adaptive.close();
+    fixed.close();
+  }
+
+  private static long runFrequencyTrace(Cache<Integer, Integer> c) {
+    Random random = new Random(1802);
+    int scanKey = 1000000;
+    long hits = 0;
+    for (int i = 0; i < 200000; i++) {
+      int k = (int) (random.nextDouble() * random.nextDouble() * 1200);
+      if (c.get(k) != null) {
+        hits++;
+      } else {
+        c.put(k, k);
+      }
+      if (i % 2 == 0) {
+        c.put(scanKey++, 0);
+      }
+    }
+    return hits;
+  }
+
+  private static String extraStatistics(Cache<Integer, Integer> c) {
+    return c.requestInterface(InternalCache.class).getInfo().getExtraStatistics();
+  }
+
+  private static Cache<Integer, Integer> buildCache(boolean adaptive) {
+    return Cache2kBuilder.of(Integer.class, Integer.class)
+      .eternal(true)
+      .entryCapacity(500)
+      .adaptiveEviction(adaptive)
+      .build();
+  }
+
+  private static long runRecencyTrace(Cache<Integer, Integer> c) {
+    long hits = 0;
+    for (int i = 0; i < 100000; i++) {
+      c.put(i, i);
+      if (i >= 60 && c.get(i - 60) != null) {
+        hits++;
+      }
+    }
+    return hits;
+  }
+
+}
@@ -0,0 +1,89 @@
+package org.cache2k.core.eviction;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.testing.category.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Run simple access patterns that provide test coverage on the clock pro
+ * eviction with the admission filter enabled.
+ *
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class ClockProEvictionWithAdmissionFilterTest extends ClockProEvictionTest {
+
+  protected Cache<Integer, Integer> provideCache(long size) {
+    return builder(Integer.class, Integer.class)
+      .eternal(true)
+      .entryCapacity(size)
+      .admissionFilter(true)
+      .build();
+  }
+
+  /**
+   * Requests of a skewed working set that is bigger than the cache, mixed with a scan over
+   * keys that are requested only once. Count the hits while the scan is running.
+   */
+  @Test
+  public void scanResistance() {
+    long hitsWithFilter = runScanTrace(true);
+    long hitsWithoutFilter = runScanTrace(false);
+    assertTrue("more hits with filter, " + hitsWithFilter + " > " + hitsWithoutFilter,
+      hitsWithFilter > hitsWithoutFilter);
+  }
+
+  private static long runScanTrace(boolean admissionFilter) {
+    Cache<Integer, Integer> c = Cache2kBuilder.of(Integer.class, Integer.class)
+      .eternal(true)
+      .entryCapacity(500)
+      .admissionFilter(admissionFilter)
+      .build();
+    Random random = new Random(1802);
+    int scanKey = 1000000;
+    long hits = 0;
+    for (int i = 0; i < 200000; i++) {
+      int k = (int) (random.nextDouble() * random.nextDouble() * 1200);
+      boolean scan = i >= 50000 && i < 150000;
+      if (c.containsKey(k)) {
+        if (scan) {
+          hits++;
+        }
+      } else {
+        c.put(k, k);
+      }
+      if (scan) {
+        c.put(scanKey++, 0);
+      }
+    }
+    c.close();
+    return hits;
+  }
+
+}
@@ -0,0 +1,225 @@
+package org.cache2k.core.eviction;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.Weigher;
+import org.cache2k.configuration.EvictionAlgorithm;
+import org.cache2k.core.CanCheckIntegrity;
+import org.cache2k.core.InternalCache;
+import org.cache2k.testing.category.FastTests;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Run access patterns on all eviction algorithms and check that the capacity is
+ * respected and the data structures stay consistent.
+ *
+ * @author Jens Wilke
+ */
+@Category(FastTests.class) @RunWith(Parameterized.class)
+public class EvictionAlgorithmTest {
+
+  private final EvictionAlgorithm algorithm;
+  private Cache<Integer, Integer> cache;
+
+  public EvictionAlgorithmTest(EvictionAlgorithm algorithm) {
+    this.algorithm = algorithm;
+  }
+
+  @Parameterized.Parameters(name = "{0}")
+  public static Collection<Object[]> data() {
+    List<Object[]> l = new ArrayList<Object[]>();
+    for (EvictionAlgorithm a : EvictionAlgorithm.values()) {
+      l.add(new Object[]{a});
+    }
+    return l;
+  }
+
+  @After
+  public void tearDown() {
+    if (cache != null) {
+      ((CanCheckIntegrity) cache).checkIntegrity();
+      cache.close();
+    }
+  }
+
+  private Cache2kBuilder<Integer, Integer> builder() {
+    return Cache2kBuilder.of(Integer.class, Integer.class)
+      .eternal(true)
+      .evictionAlgorithm(algorithm);
+  }
+
+  private int size() {
+    return cache.asMap().size();
+  }
+
+  @Test
+  public void algorithmSelected() {
+    cache = builder().build();
+    String info = cache.requestInterface(InternalCache.class).getInfo().getExtraStatistics();
+    String expected = algorithm == EvictionAlgorithm.CLOCK_PRO ?
+      ClockProPlusEviction.class.getSimpleName() : algorithmClassName();
+    assertTrue(info, info.contains("impl=" + expected));
+  }
+
+  private String algorithmClassName() {
+    switch (algorithm) {
+      case RANDOM: return RandomEviction.class.getSimpleName();
+      case SEGMENTED_LRU: return SegmentedLruEviction.class.getSimpleName();
+      case S3_FIFO: return S3FifoEviction.class.getSimpleName();
+      default: return WindowTinyLfuEviction.class.getSimpleName();
+    }
+  }
+
+  @Test
+  public void admissionFilterOnlyWithClockPro() {
+    try {
+      cache = builder().admissionFilter(true).build();
+      assertEquals(EvictionAlgorithm.CLOCK_PRO, algorithm);
+    } catch (IllegalArgumentException expected) {
+      assertNotEquals(EvictionAlgorithm.CLOCK_PRO, algorithm);
+    }
+  }
+
+  @Test
+  public void adaptiveEvictionOnlyWithClockPro() {
+    try {
+      cache = builder().adaptiveEviction(true).build();
+      assertEquals(EvictionAlgorithm.CLOCK_PRO, algorithm);
+    } catch (IllegalArgumentException expected) {
+      assertNotEquals(EvictionAlgorithm.CLOCK_PRO, algorithm);
+    }
+  }
+
+  @Test
+  public void hitsRecordedWithBoostConcurrency() {
+    cache = builder().entryCapacity(100).boostConcurrency(true).build();
+    cache.put(1, 1);
+    for (int i = 0; i < 10; i++) {
+      cache.get(1);
+    }
+    for (int i = 2; i < 50; i++) {
+      cache.put(i, i);
+    }
+    assertEquals(10, cache.requestInterface(InternalCache.class).getLatestInfo().getHeapHitCount());
+  }
+
+  @Test
+  public void capacityRespected() {
+    cache = builder().entryCapacity(100).build();
+    for (int i = 0; i < 1000; i++) {
+      cache.put(i, i);
+      cache.get(i % 20);
+    }
+    assertEquals(100, size());
+  }
+
+  @Test
+  public void capacityRespectedSegmented() {
+    cache = builder().entryCapacity(5000).strictEviction(false).build();
+    for (int i = 0; i < 50000; i++) {
+      cache.put(i, i);
+      cache.get(i % 500);
+    }
+    assertTrue(size() <= 5000);
+    assertTrue(size() > 4000);
+  }
+
+  @Test
+  public void capacityRespectedWithWeigher() {
+    cache = builder()
+      .weigher(new Weigher<Integer, Integer>() {
+        @Override
+        public int weigh(Integer key, Integer value) {
+          return 1;
+        }
+      })
+      .maximumWeight(100)
+      .build();
+    for (int i = 0; i < 1000; i++) {
+      cache.put(i, i);
+    }
+    assertEquals(100, size());
+  }
+
+  /**
+   * Entries that are accessed between inserts of new keys should stay in the cache.
+   * Not checked for random eviction.
+   */
+  @Test
+  public void frequentlyAccessedEntriesStay() {
+    cache = builder().entryCapacity(100).build();
+    for (int i = 0; i < 10; i++) {
+      cache.put(i, i);
+    }
+    for (int i = 1000; i < 5000; i++) {
+      cache.put(i, i);
+      for (int k = 0; k < 10; k++) {
+        cache.get(k);
+      }
+    }
+    if (algorithm == EvictionAlgorithm.RANDOM) {
+      return;
+    }
+    for (int k = 0; k < 10; k++) {
+      assertTrue("contains " + k, cache.containsKey(k));
+    }
+    assertTrue(cache.requestInterface(InternalCache.class).getInfo().getHeapHitCount() > 0);
+  }
+
+  @Test
+  public void clearAndRefill() {
+    cache = builder().entryCapacity(100).build();
+    for (int i = 0; i < 500; i++) {
+      cache.put(i, i);
+    }
+    cache.clear();
+    assertEquals(0, size());
+    for (int i = 0; i < 500; i++) {
+      cache.put(i, i);
+    }
+    assertEquals(100, size());
+  }
+
+  @Test
+  public void removeWhileEvicting() {
+    cache = builder().entryCapacity(100).build();
+    for (int i = 0; i < 1000; i++) {
+      cache.put(i, i);
+      if (i % 3 == 0) {
+        cache.remove(i - 50);
+      }
+    }
+    assertTrue(size() <= 100);
+  }
+
+}
@@ -0,0 +1,93 @@
+package org.cache2k.core.eviction;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.testing.category.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class FrequencySketchTest {
+
+  @Test
+  public void incrementAndFrequency() {
+    FrequencySketch sketch = new FrequencySketch();
+    sketch.ensureCapacity(100);
+    assertEquals(0, sketch.frequency(4711));
+    sketch.increment(4711);
+    sketch.increment(4711);
+    assertEquals(2, sketch.frequency(4711));
+  }
+
+  @Test
+  public void frequencyIsCappedAt15() {
+    FrequencySketch sketch = new FrequencySketch();
+    for (int i = 0; i < 20; i++) {
+      sketch.increment(123);
+    }
+    assertEquals(15, sketch.frequency(123));
+  }
+
+  /**
+   * After the sample size is reached the counters are halved.
+   */
+  @Test
+  public void aging() {
+    FrequencySketch sketch = new FrequencySketch();
+    sketch.ensureCapacity(64);
+    for (int i = 0; i < 10; i++) {
+      sketch.increment(-1);
+    }
+    int i = 0;
+    while (sketch.getResetCount() == 0) {
+      sketch.increment(i++);
+    }
+    assertTrue(sketch.frequency(-1) <= 5);
+  }
+
+  /**
+   * The estimate is never below the real count. Few hash codes should be
+   * overestimated.
+   */
+  @Test
+  public void estimate() {
+    FrequencySketch sketch = new FrequencySketch();
+    sketch.ensureCapacity(1000);
+    for (int i = 0; i < 1000; i++) {
+      sketch.increment(i * 0x9E3779B9);
+    }
+    int overestimated = 0;
+    for (int i = 0; i < 1000; i++) {
+      int f = sketch.frequency(i * 0x9E3779B9);
+      assertTrue(f >= 1);
+      if (f > 1) {
+        overestimated++;
+      }
+    }
+    assertTrue("overestimated: " + overestimated, overestimated < 100);
+  }
+
+}
@@ -0,0 +1,113 @@
+package org.cache2k.core.eviction;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.core.Entry;
+import org.cache2k.core.HeapCache;
+import org.cache2k.core.InternalCache;
+import org.cache2k.testing.category.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class ReadBufferTest {
+
+  @Test
+  public void recordAndDrain() {
+    ReadBuffer b = new ReadBuffer(1);
+    Entry e = new Entry();
+    for (int i = 0; i < 5; i++) {
+      b.record(e);
+    }
+    assertEquals(0, e.hitCnt);
+    assertEquals(0, b.drain());
+    assertEquals(5, e.hitCnt);
+    assertEquals(0, b.drain());
+    assertEquals(5, e.hitCnt);
+  }
+
+  @Test
+  public void fullStripeNotRecorded() {
+    ReadBuffer b = new ReadBuffer(1);
+    Entry e = new Entry();
+    for (int i = 0; i < ReadBuffer.STRIPE_SIZE; i++) {
+      assertTrue(b.record(e));
+    }
+    assertFalse(b.record(e));
+    assertEquals(0, b.drain());
+    assertEquals(ReadBuffer.STRIPE_SIZE, e.hitCnt);
+    assertTrue(b.record(e));
+  }
+
+  @Test
+  public void removedEntryNotCounted() {
+    ReadBuffer b = new ReadBuffer(1);
+    Entry e = new Entry();
+    b.record(e);
+    e.removedFromList();
+    assertEquals(1, b.drain());
+    assertEquals(0, e.hitCnt);
+  }
+
+  /**
+   * Without inserts the buffer is drained by the reading thread when its stripe is full,
+   * so the hits reach the entry.
+   */
+  @Test
+  public void readOnlyPhaseTransfersHits() {
+    Cache<Integer, Integer> c = Cache2kBuilder.of(Integer.class, Integer.class)
+      .boostConcurrency(true)
+      .build();
+    c.put(1, 1);
+    final int count = 1000;
+    for (int i = 0; i < count; i++) {
+      c.get(1);
+    }
+    Entry e = c.requestInterface(HeapCache.class).lookupEntryNoHitRecord(1);
+    assertTrue(e.hitCnt > count - ReadBuffer.STRIPE_SIZE);
+    c.close();
+  }
+
+  @Test
+  public void hitStatistics() {
+    Cache<Integer, Integer> c = Cache2kBuilder.of(Integer.class, Integer.class)
+      .boostConcurrency(true)
+      .build();
+    c.put(1, 1);
+    c.put(2, 2);
+    final int count = 1000;
+    for (int i = 0; i < count; i++) {
+      c.get(1);
+      c.get(2);
+    }
+    assertEquals(count * 2,
+      c.requestInterface(InternalCache.class).getLatestInfo().getHeapHitCount());
+    c.close();
+  }
+
+}
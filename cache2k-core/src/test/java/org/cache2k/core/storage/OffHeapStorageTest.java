@@ -0,0 +1,162 @@
+package org.cache2k.core.storage;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.core.storageApi.CacheStorage;
+import org.cache2k.core.storageApi.StorageEntry;
+import org.cache2k.testing.category.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class OffHeapStorageTest {
+
+  final JavaSerializationMarshaller marshaller =
+    new JavaSerializationMarshaller(getClass().getClassLoader());
+
+  OffHeapStorage storage(long capacity, int blockSize) {
+    return new OffHeapStorage(marshaller, capacity, blockSize, 1, null);
+  }
+
+  static StorageEntry entry(Object key, Object value) {
+    return new SimpleStorageEntry(key, value, 4711, 0);
+  }
+
+  @Test
+  public void putGetRemove() throws Exception {
+    OffHeapStorage s = storage(1024 * 1024, 64);
+    assertNull(s.get(1));
+    s.put(new SimpleStorageEntry(1, "one", 123, 4711));
+    StorageEntry e = s.get(1);
+    assertEquals(1, e.getKey());
+    assertEquals("one", e.getValueOrException());
+    assertEquals(123, e.getCreatedOrUpdated());
+    assertEquals(4711, e.getValueExpiryTime());
+    assertTrue(s.contains(1));
+    assertEquals(1, s.getEntryCount());
+    assertTrue(s.remove(1));
+    assertFalse(s.remove(1));
+    assertNull(s.get(1));
+    assertEquals(0, s.getEntryCount());
+  }
+
+  @Test
+  public void nullValue() throws Exception {
+    OffHeapStorage s = storage(1024, 64);
+    s.put(entry(1, null));
+    assertTrue(s.contains(1));
+    assertNull(s.get(1).getValueOrException());
+  }
+
+  @Test
+  public void valueSpansMultipleBlocks() throws Exception {
+    OffHeapStorage s = storage(1024 * 1024, 32);
+    char[] ca = new char[1000];
+    Arrays.fill(ca, 'x');
+    String v = new String(ca);
+    s.put(entry(1, v));
+    s.put(entry(2, "short"));
+    assertEquals(v, s.get(1).getValueOrException());
+    assertEquals("short", s.get(2).getValueOrException());
+  }
+
+  @Test
+  public void updateFreesBlocks() throws Exception {
+    OffHeapStorage s = storage(64 * 1024, 64);
+    for (int i = 0; i < 10000; i++) {
+      s.put(entry(1, "value" + i));
+    }
+    assertEquals("value9999", s.get(1).getValueOrException());
+    assertEquals(0, s.getEvictedCount());
+  }
+
+  /**
+   * Capacity is reached, the least recently used values are dropped.
+   */
+  @Test
+  public void dropLeastRecentlyUsedIfFull() throws Exception {
+    OffHeapStorage s = storage(8 * 1024, 128);
+    for (int i = 0; i < 1000; i++) {
+      s.put(entry(i, i));
+      s.get(0);
+    }
+    assertTrue(s.getEvictedCount() > 0);
+    assertTrue(s.getEntryCount() < 1000);
+    assertTrue(s.contains(0));
+    assertTrue(s.contains(999));
+    assertFalse(s.contains(1));
+    assertTrue(s.getAllocatedBytes() <= 8 * 1024);
+  }
+
+  @Test
+  public void valueTooBigIsNotStored() throws Exception {
+    OffHeapStorage s = storage(256, 64);
+    s.put(entry(1, "x"));
+    s.put(entry(1, new byte[1000]));
+    assertFalse(s.contains(1));
+    assertEquals(1, s.getEvictedCount());
+  }
+
+  @Test
+  public void clearReleasesMemory() throws Exception {
+    OffHeapStorage s = storage(1024 * 1024, 64);
+    for (int i = 0; i < 100; i++) {
+      s.put(entry(i, i));
+    }
+    assertTrue(s.getAllocatedBytes() > 0);
+    s.clear();
+    assertEquals(0, s.getEntryCount());
+    assertEquals(0, s.getAllocatedBytes());
+    s.put(entry(1, 1));
+    assertEquals(1, s.get(1).getValueOrException());
+  }
+
+  @Test
+  public void visit() throws Exception {
+    OffHeapStorage s = storage(1024 * 1024, 64);
+    for (int i = 0; i < 100; i++) {
+      s.put(entry(i, i));
+    }
+    final List<Object> values = new ArrayList<Object>();
+    s.visit(null, new CacheStorage.EntryFilter() {
+      @Override
+      public boolean shouldInclude(Object key) {
+        return ((Integer) key) % 2 == 0;
+      }
+    }, new CacheStorage.EntryVisitor() {
+      @Override
+      public void visit(StorageEntry e) {
+        values.add(e.getValueOrException());
+      }
+    });
+    assertEquals(50, values.size());
+  }
+
+}
@@ -0,0 +1,245 @@
+package org.cache2k.core.storage;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.core.storageApi.StorageEntry;
+import org.cache2k.core.util.DefaultClock;
+import org.cache2k.testing.category.FastTests;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class PersistentStorageTest {
+
+  static final Executor SYNC_EXECUTOR = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  final JavaSerializationMarshaller marshaller =
+    new JavaSerializationMarshaller(getClass().getClassLoader());
+
+  PersistentStorage storage;
+
+  PersistentStorage open(long capacity, int segmentSize) {
+    if (storage != null) {
+      storage.close();
+    }
+    return storage = new PersistentStorage(folder.getRoot(), marshaller, DefaultClock.INSTANCE,
+      capacity, segmentSize, SYNC_EXECUTOR);
+  }
+
+  PersistentStorage open() {
+    return open(1024 * 1024, 64 * 1024);
+  }
+
+  @After
+  public void tearDown() {
+    if (storage != null) {
+      storage.close();
+    }
+  }
+
+  static StorageEntry entry(Object key, Object value) {
+    return new SimpleStorageEntry(key, value, 4711, 0);
+  }
+
+  @Test
+  public void putGetRemove() throws Exception {
+    PersistentStorage s = open();
+    assertNull(s.get(1));
+    s.put(new SimpleStorageEntry(1, "one", 123, Long.MAX_VALUE));
+    StorageEntry e = s.get(1);
+    assertEquals("one", e.getValueOrException());
+    assertEquals(123, e.getCreatedOrUpdated());
+    assertEquals(Long.MAX_VALUE, e.getValueExpiryTime());
+    assertTrue(s.contains(1));
+    assertTrue(s.remove(1));
+    assertFalse(s.remove(1));
+    assertNull(s.get(1));
+    s.put(entry(2, null));
+    assertTrue(s.contains(2));
+    assertNull(s.get(2).getValueOrException());
+  }
+
+  @Test
+  public void reopen() throws Exception {
+    PersistentStorage s = open();
+    for (int i = 0; i < 100; i++) {
+      s.put(entry(i, "value" + i));
+    }
+    s.put(entry(1, "updated"));
+    s.remove(2);
+    s = open();
+    assertEquals(99, s.getEntryCount());
+    assertEquals("value0", s.get(0).getValueOrException());
+    assertEquals("updated", s.get(1).getValueOrException());
+    assertNull(s.get(2));
+    assertEquals(4711, s.get(3).getCreatedOrUpdated());
+  }
+
+  @Test
+  public void expiredEntriesAreSkippedOnReopen() throws Exception {
+    PersistentStorage s = open();
+    long now = DefaultClock.INSTANCE.millis();
+    s.put(new SimpleStorageEntry(1, "expired", now, now - 1));
+    s.put(new SimpleStorageEntry(2, "fresh", now, now + 60000));
+    s = open();
+    assertNull(s.get(1));
+    assertEquals("fresh", s.get(2).getValueOrException());
+  }
+
+  /**
+   * Corrupt the length of the last record. The log is read up to the
+   * corrupted record.
+   */
+  @Test
+  public void incompleteRecordIsIgnored() throws Exception {
+    PersistentStorage s = open();
+    s.put(entry(1, "one"));
+    s.put(entry(2, "two"));
+    s.close();
+    storage = null;
+    File[] files = folder.getRoot().listFiles();
+    assertEquals(1, files.length);
+    RandomAccessFile raf = new RandomAccessFile(files[0], "rw");
+    byte[] first = PersistentStorage.buildRecord(marshaller.marshall(1),
+      marshaller.marshall("one"), 0, 4711, 0);
+    raf.seek(first.length + 20);
+    raf.write(0x55);
+    raf.close();
+    s = open();
+    assertEquals("one", s.get(1).getValueOrException());
+    assertNull(s.get(2));
+  }
+
+  /**
+   * Segments are compacted or dropped when the capacity is reached.
+   */
+  @Test
+  public void capacity() throws Exception {
+    int segmentSize = 4 * 1024;
+    PersistentStorage s = open(4 * segmentSize, segmentSize);
+    for (int i = 0; i < 1000; i++) {
+      s.put(entry(i % 10, "value" + i));
+    }
+    assertTrue(s.getSegmentCount() <= 4);
+    assertEquals(10, s.getEntryCount());
+    assertEquals(0, s.getDroppedCount());
+    for (int i = 0; i < 10; i++) {
+      assertEquals("value" + (990 + i), s.get(i).getValueOrException());
+    }
+    for (int i = 0; i < 1000; i++) {
+      s.put(entry(i, "value" + i));
+    }
+    assertTrue(s.getDroppedCount() > 0);
+    assertEquals("value999", s.get(999).getValueOrException());
+    s = open(4 * segmentSize, segmentSize);
+    assertEquals("value999", s.get(999).getValueOrException());
+    assertTrue(folder.getRoot().listFiles().length <= 4);
+  }
+
+  /**
+   * Compaction reads the old segment without the lock. Updates by other threads
+   * in the meantime must not be overwritten by the moved records. Entries may be
+   * dropped, since the threads fill the capacity.
+   */
+  @Test
+  public void concurrentUpdatesDuringCompaction() throws Exception {
+    int segmentSize = 4 * 1024;
+    final PersistentStorage s = open(4 * segmentSize, segmentSize);
+    final int keysPerThread = 10;
+    final int updates = 2000;
+    Thread[] threads = new Thread[4];
+    final Throwable[] failure = new Throwable[1];
+    for (int t = 0; t < threads.length; t++) {
+      final int offset = t * keysPerThread;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int i = 0; i < updates; i++) {
+              s.put(entry(offset + i % keysPerThread, "value" + i));
+            }
+          } catch (Throwable ex) {
+            failure[0] = ex;
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertNull(failure[0]);
+    int present = 0;
+    for (int k = 0; k < threads.length * keysPerThread; k++) {
+      StorageEntry e = s.get(k);
+      if (e == null) {
+        continue;
+      }
+      present++;
+      int last = updates - keysPerThread + k % keysPerThread;
+      assertEquals("value" + last, e.getValueOrException());
+    }
+    assertTrue(threads.length * keysPerThread - present <= s.getDroppedCount());
+  }
+
+  @Test
+  public void entryTooBig() throws Exception {
+    PersistentStorage s = open(4096, 1024);
+    s.put(entry(1, "x"));
+    s.put(entry(1, new byte[2000]));
+    assertFalse(s.contains(1));
+    assertEquals(1, s.getDroppedCount());
+  }
+
+  @Test
+  public void clear() throws Exception {
+    PersistentStorage s = open();
+    for (int i = 0; i < 100; i++) {
+      s.put(entry(i, i));
+    }
+    s.clear();
+    assertEquals(0, s.getEntryCount());
+    s.put(entry(1, 1));
+    s = open();
+    assertEquals(1, s.getEntryCount());
+  }
+
+}
@@ -0,0 +1,127 @@
+package org.cache2k.core.timing;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.expiry.TimerConfiguration;
+import org.cache2k.testing.category.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class ShardedTimerTest {
+
+  @Test
+  public void tasksAreSpreadAndCancelledInSameShard() {
+    RecordingTimer[] shards = new RecordingTimer[4];
+    for (int i = 0; i < shards.length; i++) {
+      shards[i] = new RecordingTimer();
+    }
+    ShardedTimer timer = new ShardedTimer(shards);
+    for (int i = 0; i < 100; i++) {
+      HashedTask t = new HashedTask(i);
+      timer.schedule(t, 1000);
+      timer.cancel(t);
+    }
+    for (RecordingTimer t : shards) {
+      assertTrue(t.scheduled > 0);
+      assertEquals(t.scheduled, t.cancelled);
+    }
+    timer.cancel();
+    for (RecordingTimer t : shards) {
+      assertTrue(t.cancelledAll);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void powerOfTwo() {
+    new ShardedTimer(new SimpleTimer[3]);
+  }
+
+  @Test
+  public void schedulerThreadCount() {
+    DefaultScheduler.Tunable t = new DefaultScheduler.Tunable();
+    assertTrue(DefaultScheduler.threadCount(t) >= 1);
+    t.threadCount = 3;
+    assertEquals(3, DefaultScheduler.threadCount(t));
+  }
+
+  @Test
+  public void cacheExpiryWithShards() throws Exception {
+    Cache<Integer, Integer> c = Cache2kBuilder.of(Integer.class, Integer.class)
+      .expireAfterWrite(1, TimeUnit.MILLISECONDS)
+      .with(new TimerConfiguration.Builder().shardCount(3).timingWheel(true).precisionMillis(1))
+      .build();
+    for (int i = 0; i < 100; i++) {
+      c.put(i, i);
+    }
+    long t0 = System.currentTimeMillis();
+    while (c.keys().iterator().hasNext()) {
+      assertTrue("expired within time", System.currentTimeMillis() - t0 < 10000);
+      Thread.sleep(1);
+    }
+    c.close();
+  }
+
+  static class HashedTask extends SimpleTimerTask {
+    final int hash;
+    HashedTask(int hash) {
+      this.hash = hash;
+    }
+    @Override
+    protected int shardHash() {
+      return hash;
+    }
+    @Override
+    public void run() { }
+  }
+
+  static class RecordingTimer implements SimpleTimer {
+    int scheduled;
+    int cancelled;
+    boolean cancelledAll;
+    @Override
+    public void schedule(SimpleTimerTask task, long time) {
+      scheduled++;
+    }
+    @Override
+    public void cancel(SimpleTimerTask t) {
+      cancelled++;
+    }
+    @Override
+    public void cancel() {
+      cancelledAll = true;
+    }
+    @Override
+    public long getLag() {
+      return 0;
+    }
+  }
+
+}
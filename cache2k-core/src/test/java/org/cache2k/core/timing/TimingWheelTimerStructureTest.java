@@ -0,0 +1,187 @@
+package org.cache2k.core.timing;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.expiry.TimerConfiguration;
+import org.cache2k.testing.category.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class TimingWheelTimerStructureTest {
+
+  static final long PRECISION = 10;
+
+  final TimingWheelTimerStructure wheel = new TimingWheelTimerStructure(PRECISION);
+
+  private List<MyTask> runUntil(long time) {
+    List<MyTask> l = new ArrayList<MyTask>();
+    SimpleTimerTask t;
+    while ((t = wheel.removeNextToRun(time)) != null) {
+      ((MyTask) t).executedAt = time;
+      l.add((MyTask) t);
+    }
+    return l;
+  }
+
+  private MyTask schedule(long time) {
+    MyTask t = new MyTask();
+    t.schedule();
+    wheel.schedule(t, time);
+    return t;
+  }
+
+  @Test
+  public void empty() {
+    assertEquals(-1, wheel.nextRun());
+    assertNull(wheel.removeNextToRun(Long.MAX_VALUE / 2));
+    assertEquals(-1, wheel.nextRun());
+  }
+
+  @Test
+  public void executedAfterEndOfTick() {
+    MyTask t = schedule(123);
+    assertEquals(130, wheel.nextRun());
+    assertTrue(runUntil(129).isEmpty());
+    assertEquals(1, runUntil(130).size());
+    assertTrue(t.isExecuted());
+    assertEquals(-1, wheel.nextRun());
+  }
+
+  @Test
+  public void cancel() {
+    MyTask t1 = schedule(123);
+    MyTask t2 = schedule(125);
+    wheel.cancel(t1);
+    assertTrue(t1.isCancelled());
+    List<MyTask> l = runUntil(200);
+    assertEquals(1, l.size());
+    assertSame(t2, l.get(0));
+    schedule(1000);
+    wheel.cancel();
+    assertEquals(-1, wheel.nextRun());
+    assertTrue(runUntil(2000).isEmpty());
+  }
+
+  @Test
+  public void pastTimeIsDueImmediately() {
+    runUntil(5000);
+    MyTask t = schedule(100);
+    assertTrue(wheel.nextRun() <= 5000);
+    assertEquals(1, runUntil(5000).size());
+    assertTrue(t.isExecuted());
+  }
+
+  @Test
+  public void farFutureIsCascaded() {
+    long time = TimeUnit.DAYS.toMillis(3650) + 7;
+    MyTask t = schedule(time);
+    long next = wheel.nextRun();
+    int wakeups = 0;
+    while (!t.isExecuted()) {
+      assertTrue(next > 0);
+      assertTrue(next <= time + PRECISION);
+      runUntil(next);
+      next = wheel.nextRun();
+      wakeups++;
+    }
+    assertTrue("only a few wakeups for cascading", wakeups <= TimingWheelTimerStructure.LEVELS);
+    assertEquals(-1, wheel.nextRun());
+  }
+
+  /**
+   * Random schedules and cancels with random advances of the time. Every task
+   * needs to run within one precision interval after its time.
+   */
+  @Test
+  public void randomNeverEarlyNeverMissed() {
+    Random random = new Random(1802);
+    List<MyTask> tasks = new ArrayList<MyTask>();
+    long now = 0;
+    for (int i = 0; i < 20000; i++) {
+      int op = random.nextInt(10);
+      if (op < 6) {
+        long delta = random.nextInt(3) == 0 ? random.nextInt(1000000) : random.nextInt(500);
+        MyTask t = schedule(now + delta);
+        t.time = now + delta;
+        tasks.add(t);
+      } else if (op < 8 && !tasks.isEmpty()) {
+        wheel.cancel(tasks.get(random.nextInt(tasks.size())));
+      } else {
+        long next = wheel.nextRun();
+        now = next >= 0 && random.nextBoolean() ? Math.max(now, next) : now + random.nextInt(50);
+        runUntil(now);
+      }
+    }
+    now += 2000000;
+    runUntil(now);
+    assertEquals(-1, wheel.nextRun());
+    for (MyTask t : tasks) {
+      if (t.isCancelled()) {
+        assertEquals(0, t.executedAt);
+        continue;
+      }
+      assertTrue(t.isExecuted());
+      assertTrue("not early", t.executedAt >= t.time);
+      if (t.executedAt < now) {
+        assertTrue("not late", t.executedAt < t.time + PRECISION + 50);
+      }
+    }
+  }
+
+  @Test
+  public void cacheExpiryWithTimingWheel() throws Exception {
+    Cache<Integer, Integer> c = Cache2kBuilder.of(Integer.class, Integer.class)
+      .expireAfterWrite(1, TimeUnit.MILLISECONDS)
+      .with(new TimerConfiguration.Builder().timingWheel(true).precisionMillis(1))
+      .build();
+    c.put(1, 1);
+    long t0 = System.currentTimeMillis();
+    while (c.containsKey(1)) {
+      assertTrue("expired within time", System.currentTimeMillis() - t0 < 10000);
+      Thread.sleep(1);
+    }
+    c.close();
+  }
+
+  static class MyTask extends SimpleTimerTask {
+    long time;
+    long executedAt;
+    @Override
+    public void run() { }
+    boolean isExecuted() {
+      return !isScheduled() && !isCancelled();
+    }
+  }
+
+}
@@ -244,6 +244,9 @@ public class JmxSupportTest {
     checkAttribute("HashQuality", -1);
     checkAttribute("MillisPerLoad", 0.0);
     checkAttribute("TotalLoadMillis", 0L);
+    checkAttribute("LoadMillisP99", 0.0);
+    checkAttribute("WriterMillisP999", 0.0);
+    checkAttribute("HotKeysByHits", "");
     checkAttribute("Implementation", "LongHeapCache");
     checkAttribute("ClearedTime", null);
     checkAttribute("Alert", 0);
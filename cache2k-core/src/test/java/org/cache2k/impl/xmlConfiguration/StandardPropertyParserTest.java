@@ -20,6 +20,7 @@ package org.cache2k.impl.xmlConfiguration;
  * #L%
  */
 
+import org.cache2k.configuration.EvictionAlgorithm;
 import org.cache2k.impl.xmlConfiguration.generic.StandardPropertyParser;
 import org.cache2k.testing.category.FastTests;
 import org.junit.Test;
@@ -58,4 +59,10 @@ public class StandardPropertyParserTest {
     StandardPropertyParser.parseLongWithUnitSuffix("xy");
   }
 
+  @Test
+  public void parseEnum() throws Exception {
+    assertEquals(EvictionAlgorithm.S3_FIFO,
+      new StandardPropertyParser().parse(EvictionAlgorithm.class, "s3_fifo"));
+  }
+
 }
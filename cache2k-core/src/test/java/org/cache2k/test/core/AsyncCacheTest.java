@@ -0,0 +1,282 @@
+package org.cache2k.test.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.AsyncCache;
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.CacheEntry;
+import org.cache2k.expiry.ExpiryPolicy;
+import org.cache2k.expiry.TimerConfiguration;
+import org.cache2k.integration.AsyncCacheLoader;
+import org.cache2k.integration.CacheLoader;
+import org.cache2k.integration.CacheLoaderException;
+import org.cache2k.processor.EntryProcessor;
+import org.cache2k.processor.MutableCacheEntry;
+import org.cache2k.testing.category.FastTests;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the asynchronous view of the cache.
+ *
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class AsyncCacheTest {
+
+  Cache<Integer, Integer> cache;
+
+  @After
+  public void tearDown() {
+    if (cache != null) {
+      cache.close();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private AsyncCache<Integer, Integer> async(Cache2kBuilder<Integer, Integer> b) {
+    cache = b.build();
+    return cache.requestInterface(AsyncCache.class);
+  }
+
+  private static Cache2kBuilder<Integer, Integer> builder() {
+    return Cache2kBuilder.of(Integer.class, Integer.class).eternal(true);
+  }
+
+  @Test
+  public void heapOnly() throws Exception {
+    AsyncCache<Integer, Integer> c = async(builder());
+    c.putAsync(1, 123).get();
+    assertEquals((Integer) 123, c.getAsync(1).get());
+    assertEquals((Integer) 123, cache.peek(1));
+    assertNull(c.getAsync(2).get());
+  }
+
+  @Test
+  public void invoke() throws Exception {
+    AsyncCache<Integer, Integer> c = async(builder());
+    CompletableFuture<String> f = c.invokeAsync(1,
+      new EntryProcessor<Integer, Integer, String>() {
+        @Override
+        public String process(MutableCacheEntry<Integer, Integer> e) {
+          e.setValue(4711);
+          return "done";
+        }
+      });
+    assertEquals("done", f.get());
+    assertEquals((Integer) 4711, cache.peek(1));
+  }
+
+  /**
+   * A heap cache with lazy expiry uses compact entries. A second asynchronous operation
+   * on an entry that is processed by another asynchronous operation is enqueued and the
+   * calling thread does not wait. The first operation is held in the expiry policy.
+   */
+  @Test
+  public void twoOperationsOnSameEntry() throws Exception {
+    final CountDownLatch processing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AsyncCache<Integer, Integer> c = async(Cache2kBuilder.of(Integer.class, Integer.class)
+      .with(new TimerConfiguration.Builder().lazyExpiry(true))
+      .expiryPolicy(new ExpiryPolicy<Integer, Integer>() {
+        @Override
+        public long calculateExpiryTime(Integer key, Integer value, long loadTime,
+                                        CacheEntry<Integer, Integer> oldEntry) {
+          if (value == 1) {
+            processing.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException ex) {
+              Thread.currentThread().interrupt();
+            }
+          }
+          return ETERNAL;
+        }
+      }));
+    final List<CompletableFuture<Void>> first = new ArrayList<CompletableFuture<Void>>();
+    Thread t = new Thread() {
+      @Override
+      public void run() {
+        first.add(c.putAsync(1, 1));
+      }
+    };
+    t.start();
+    assertTrue(processing.await(1, TimeUnit.MINUTES));
+    CompletableFuture<Void> second = c.putAsync(1, 2);
+    assertFalse(second.isDone());
+    release.countDown();
+    t.join();
+    first.get(0).get(1, TimeUnit.MINUTES);
+    second.get(1, TimeUnit.MINUTES);
+    assertEquals((Integer) 2, cache.peek(1));
+  }
+
+  /**
+   * The calling thread does not wait for an ongoing synchronous operation on the
+   * same entry of a heap cache. The synchronous put is held in the expiry policy.
+   */
+  @Test
+  public void syncOperationDoesNotBlockCaller() throws Exception {
+    final CountDownLatch processing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    AsyncCache<Integer, Integer> c = async(Cache2kBuilder.of(Integer.class, Integer.class)
+      .expiryPolicy(new ExpiryPolicy<Integer, Integer>() {
+        @Override
+        public long calculateExpiryTime(Integer key, Integer value, long loadTime,
+                                        CacheEntry<Integer, Integer> oldEntry) {
+          if (value == 1) {
+            processing.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException ex) {
+              Thread.currentThread().interrupt();
+            }
+          }
+          return ETERNAL;
+        }
+      }));
+    Thread t = new Thread() {
+      @Override
+      public void run() {
+        cache.put(1, 1);
+      }
+    };
+    t.start();
+    assertTrue(processing.await(1, TimeUnit.MINUTES));
+    CompletableFuture<Void> f = c.putAsync(1, 2);
+    assertFalse(f.isDone());
+    release.countDown();
+    f.get(1, TimeUnit.MINUTES);
+    t.join();
+    assertEquals((Integer) 2, cache.peek(1));
+  }
+
+  /**
+   * The calling thread does not wait for a synchronous loader.
+   */
+  @Test
+  public void loaderDoesNotBlockCaller() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    AsyncCache<Integer, Integer> c = async(builder()
+      .loader(new CacheLoader<Integer, Integer>() {
+        @Override
+        public Integer load(Integer key) throws Exception {
+          release.await();
+          return key * 2;
+        }
+      }));
+    CompletableFuture<Integer> f = c.getAsync(7);
+    assertFalse(f.isDone());
+    release.countDown();
+    assertEquals((Integer) 14, f.get(1, TimeUnit.MINUTES));
+  }
+
+  /**
+   * A second request on the same key while the async loader is running
+   * is queued and completes after the load.
+   */
+  @Test
+  public void asyncLoaderConcurrentRequest() throws Exception {
+    final List<AsyncCacheLoader.Callback<Integer>> callbacks =
+      new ArrayList<AsyncCacheLoader.Callback<Integer>>();
+    final CountDownLatch loadStarted = new CountDownLatch(1);
+    AsyncCache<Integer, Integer> c = async(builder()
+      .loader(new AsyncCacheLoader<Integer, Integer>() {
+        @Override
+        public void load(Integer key, Context<Integer, Integer> context,
+                         Callback<Integer> callback) {
+          synchronized (callbacks) {
+            callbacks.add(callback);
+          }
+          loadStarted.countDown();
+        }
+      }));
+    CompletableFuture<Integer> f1 = c.getAsync(7);
+    CompletableFuture<Integer> f2 = c.getAsync(7);
+    assertTrue(loadStarted.await(1, TimeUnit.MINUTES));
+    assertFalse(f1.isDone());
+    assertFalse(f2.isDone());
+    synchronized (callbacks) {
+      assertEquals(1, callbacks.size());
+      callbacks.get(0).onLoadSuccess(4711);
+    }
+    assertEquals((Integer) 4711, f1.get(1, TimeUnit.MINUTES));
+    assertEquals((Integer) 4711, f2.get(1, TimeUnit.MINUTES));
+  }
+
+  @Test
+  public void loaderException() throws Exception {
+    AsyncCache<Integer, Integer> c = async(builder()
+      .loader(new CacheLoader<Integer, Integer>() {
+        @Override
+        public Integer load(Integer key) {
+          throw new IllegalStateException("test");
+        }
+      }));
+    try {
+      c.getAsync(1).get(1, TimeUnit.MINUTES);
+      fail("exception expected");
+    } catch (ExecutionException ex) {
+      assertTrue(ex.getCause() instanceof CacheLoaderException);
+    }
+  }
+
+  @Test
+  public void getAll() throws Exception {
+    AsyncCache<Integer, Integer> c = async(builder()
+      .loader(new CacheLoader<Integer, Integer>() {
+        @Override
+        public Integer load(Integer key) {
+          return key * 2;
+        }
+      }));
+    Map<Integer, Integer> map = c.getAllAsync(Arrays.asList(1, 2, 3)).get(1, TimeUnit.MINUTES);
+    assertEquals(3, map.size());
+    assertEquals((Integer) 6, map.get(3));
+    assertTrue(c.getAllAsync(new ArrayList<Integer>()).get().isEmpty());
+  }
+
+  @Test
+  public void closed() throws Exception {
+    AsyncCache<Integer, Integer> c = async(builder());
+    cache.close();
+    try {
+      c.getAsync(1).get();
+      fail("exception expected");
+    } catch (ExecutionException ex) {
+      assertTrue(ex.getCause() instanceof IllegalStateException);
+    }
+  }
+
+}
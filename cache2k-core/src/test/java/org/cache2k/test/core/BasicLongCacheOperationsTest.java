@@ -279,4 +279,40 @@ public class BasicLongCacheOperationsTest {
       .expectAllZero();
   }
 
+  /*
+   * keys with colliding hash codes
+   */
+
+  /**
+   * Same hash code as {@link #KEY}
+   */
+  final static long COLLIDING_KEY = KEY << 32;
+
+  @Test
+  public void collision_Put() {
+    assertEquals(Long.valueOf(KEY).hashCode(), Long.valueOf(COLLIDING_KEY).hashCode());
+    cache.put(KEY, VALUE);
+    cache.put(COLLIDING_KEY, OTHER_VALUE);
+    assertEquals(VALUE, cache.peek(KEY));
+    assertEquals(OTHER_VALUE, cache.peek(COLLIDING_KEY));
+    assertEquals(OTHER_VALUE, cache.get(COLLIDING_KEY));
+    assertEquals(OTHER_VALUE, cache.peek((Long) COLLIDING_KEY));
+    assertEquals(2, size());
+    cache.remove(KEY);
+    assertFalse(cache.containsKey(KEY));
+    assertTrue(cache.containsKey(COLLIDING_KEY));
+  }
+
+  @Test
+  public void collision_BoxedAndPrimitive() {
+    cache.put((Long) COLLIDING_KEY, VALUE);
+    assertNull(cache.peek(KEY));
+    assertFalse(cache.containsKey((Long) KEY));
+    assertEquals(VALUE, cache.peek(COLLIDING_KEY));
+    assertEquals(1, size());
+    cache.put(COLLIDING_KEY, OTHER_VALUE);
+    assertEquals(1, size());
+    assertEquals(COLLIDING_KEY, (long) cache.peekEntry(COLLIDING_KEY).getKey());
+  }
+
 }
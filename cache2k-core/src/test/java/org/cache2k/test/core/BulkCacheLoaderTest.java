@@ -0,0 +1,265 @@
+package org.cache2k.test.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.integration.AsyncBulkCacheLoader;
+import org.cache2k.integration.CacheLoader;
+import org.cache2k.integration.CacheLoaderException;
+import org.cache2k.test.util.CacheRule;
+import org.cache2k.test.util.IntCacheRule;
+import org.cache2k.test.util.TestingBase;
+import org.cache2k.testing.category.FastTests;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.cache2k.test.core.StaticUtil.*;
+
+/**
+ * Test the bulk load path via {@link CacheLoader#loadAll} and {@link AsyncBulkCacheLoader}.
+ *
+ * @author Jens Wilke
+ * @see org.cache2k.core.BulkAction
+ */
+@Category(FastTests.class)
+public class BulkCacheLoaderTest extends TestingBase {
+
+  @Rule
+  public CacheRule<Integer, Integer> target = new IntCacheRule();
+
+  final List<Set<Integer>> bulkRequests = new ArrayList<Set<Integer>>();
+  final AtomicInteger singleLoadCount = new AtomicInteger();
+
+  Cache<Integer, Integer> syncBulkCache() {
+    return target.cache(new CacheRule.Specialization<Integer, Integer>() {
+      @Override
+      public void extend(Cache2kBuilder<Integer, Integer> b) {
+        b.loader(new CacheLoader<Integer, Integer>() {
+          @Override
+          public Integer load(Integer key) {
+            singleLoadCount.incrementAndGet();
+            return key * 2;
+          }
+
+          @Override
+          public Map<Integer, Integer> loadAll(Iterable<? extends Integer> keys,
+                                               Executor executor) {
+            Set<Integer> request = new HashSet<Integer>();
+            for (Integer k : keys) {
+              request.add(k);
+            }
+            synchronized (bulkRequests) {
+              bulkRequests.add(request);
+            }
+            Map<Integer, Integer> result = new HashMap<Integer, Integer>();
+            for (Integer k : request) {
+              if (k < 0) {
+                throw new IllegalArgumentException("negative key");
+              }
+              result.put(k, k * 2);
+            }
+            return result;
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Completes the keys individually in a separate thread.
+   */
+  Cache<Integer, Integer> asyncBulkCache() {
+    return target.cache(new CacheRule.Specialization<Integer, Integer>() {
+      @Override
+      public void extend(Cache2kBuilder<Integer, Integer> b) {
+        b.loader(new AsyncBulkCacheLoader<Integer, Integer>() {
+          @Override
+          public void loadAll(final Set<Integer> keys, BulkContext<Integer, Integer> context,
+                              final BulkCallback<Integer, Integer> callback) {
+            synchronized (bulkRequests) {
+              bulkRequests.add(new HashSet<Integer>(keys));
+            }
+            context.getLoaderExecutor().execute(new Runnable() {
+              @Override
+              public void run() {
+                for (Integer k : keys) {
+                  if (k < 0) {
+                    callback.onLoadFailure(k, new IllegalArgumentException("negative key"));
+                  } else {
+                    callback.onLoadSuccess(k, k * 2);
+                  }
+                }
+              }
+            });
+          }
+
+          @Override
+          public void load(Integer key, Context<Integer, Integer> context,
+                           Callback<Integer> callback) {
+            singleLoadCount.incrementAndGet();
+            callback.onLoadSuccess(key * 2);
+          }
+        });
+      }
+    });
+  }
+
+  private static Set<Integer> setOf(Integer... keys) {
+    Set<Integer> set = new HashSet<Integer>();
+    for (Integer k : keys) {
+      set.add(k);
+    }
+    return set;
+  }
+
+  @Test
+  public void getAll_sync_oneRequest() {
+    checkGetAllOneRequest(syncBulkCache());
+  }
+
+  @Test
+  public void getAll_async_oneRequest() {
+    checkGetAllOneRequest(asyncBulkCache());
+  }
+
+  private void checkGetAllOneRequest(Cache<Integer, Integer> c) {
+    c.get(1);
+    assertEquals(1, singleLoadCount.get());
+    Map<Integer, Integer> map = c.getAll(toIterable(1, 2, 3, 4));
+    assertEquals(4, map.size());
+    assertEquals((Integer) 2, map.get(1));
+    assertEquals((Integer) 8, map.get(4));
+    assertEquals(1, bulkRequests.size());
+    assertEquals("present key not requested", setOf(2, 3, 4), bulkRequests.get(0));
+    c.getAll(toIterable(1, 2, 3, 4));
+    assertEquals("all present, no additional request", 1, bulkRequests.size());
+    assertEquals(1, singleLoadCount.get());
+  }
+
+  @Test
+  public void getAll_sync_exception() {
+    checkGetAllException(syncBulkCache());
+  }
+
+  @Test
+  public void getAll_async_exception() {
+    checkGetAllException(asyncBulkCache());
+  }
+
+  private void checkGetAllException(Cache<Integer, Integer> c) {
+    Map<Integer, Integer> map = c.getAll(toIterable(1, -1));
+    assertEquals(1, bulkRequests.size());
+    try {
+      map.get(-1);
+      fail("exception expected");
+    } catch (CacheLoaderException expected) {
+      assertTrue(expected.getCause() instanceof IllegalArgumentException);
+    }
+  }
+
+  @Test
+  public void loadAll_sync_oneRequest() {
+    checkLoadAllOneRequest(syncBulkCache());
+  }
+
+  @Test
+  public void loadAll_async_oneRequest() {
+    checkLoadAllOneRequest(asyncBulkCache());
+  }
+
+  private void checkLoadAllOneRequest(Cache<Integer, Integer> c) {
+    c.put(1, 1);
+    load(c, 1, 2, 3);
+    assertEquals(1, bulkRequests.size());
+    assertEquals(setOf(2, 3), bulkRequests.get(0));
+    assertEquals((Integer) 1, c.peek(1));
+    assertEquals((Integer) 6, c.peek(3));
+    assertEquals(0, singleLoadCount.get());
+  }
+
+  @Test
+  public void reloadAll_sync_oneRequest() {
+    checkReloadAllOneRequest(syncBulkCache());
+  }
+
+  @Test
+  public void reloadAll_async_oneRequest() {
+    checkReloadAllOneRequest(asyncBulkCache());
+  }
+
+  private void checkReloadAllOneRequest(Cache<Integer, Integer> c) {
+    c.put(1, 1);
+    reload(c, 1, 2, 3);
+    assertEquals(1, bulkRequests.size());
+    assertEquals(setOf(1, 2, 3), bulkRequests.get(0));
+    assertEquals((Integer) 2, c.peek(1));
+    assertEquals(0, singleLoadCount.get());
+  }
+
+  /**
+   * Overlapping requests from different threads complete and don't dead lock.
+   */
+  @Test
+  public void getAll_async_concurrentOverlapping() throws Exception {
+    final Cache<Integer, Integer> c = asyncBulkCache();
+    final int threadCount = 4;
+    final int keyCount = 100;
+    final AtomicInteger valueMismatch = new AtomicInteger();
+    Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      final int offset = i * keyCount / 2;
+      threads[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          List<Integer> keys = new ArrayList<Integer>();
+          for (int k = 0; k < keyCount; k++) {
+            keys.add((k + offset) % keyCount);
+          }
+          Map<Integer, Integer> map = c.getAll(keys);
+          for (Integer k : keys) {
+            if (map.get(k) != k * 2) {
+              valueMismatch.incrementAndGet();
+            }
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertEquals(0, valueMismatch.get());
+    assertEquals(keyCount, c.asMap().size());
+  }
+
+}
@@ -0,0 +1,218 @@
+package org.cache2k.test.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.processor.EntryProcessingResult;
+import org.cache2k.processor.EntryProcessor;
+import org.cache2k.processor.MutableCacheEntry;
+import org.cache2k.testing.category.FastTests;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test bulk operations that are grouped by hash segment, sequentially and in parallel,
+ * for the heap cache and the wired cache.
+ *
+ * @author Jens Wilke
+ */
+@RunWith(Parameterized.class)
+@Category(FastTests.class)
+public class BulkOperationsTest {
+
+  static final int COUNT = 12345;
+
+  @Parameterized.Parameters(name = "parallelism={0}, wired={1}")
+  public static Iterable<Object[]> data() {
+    return Arrays.asList(new Object[][]{{1, false}, {4, false}, {1, true}, {4, true}});
+  }
+
+  final int parallelism;
+  final boolean wired;
+  final ExecutorService executor = Executors.newCachedThreadPool();
+  Cache<Integer, Integer> cache;
+
+  public BulkOperationsTest(int parallelism, boolean wired) {
+    this.parallelism = parallelism;
+    this.wired = wired;
+  }
+
+  @After
+  public void tearDown() {
+    if (cache != null) {
+      cache.close();
+    }
+    executor.shutdown();
+  }
+
+  private Cache<Integer, Integer> build() {
+    Cache2kBuilder<Integer, Integer> b = Cache2kBuilder.of(Integer.class, Integer.class)
+      .eternal(true)
+      .entryCapacity(COUNT * 2)
+      .executor(executor)
+      .bulkParallelism(parallelism);
+    if (wired) {
+      b.writer(new CacheWriterTest.BatchWriter());
+    }
+    return cache = b.build();
+  }
+
+  private static Map<Integer, Integer> map(int start, int end) {
+    Map<Integer, Integer> map = new HashMap<Integer, Integer>();
+    for (int i = start; i < end; i++) {
+      map.put(i, i * 2);
+    }
+    return map;
+  }
+
+  @Test
+  public void putAll() {
+    Cache<Integer, Integer> c = build();
+    c.put(1, 4711);
+    Map<Integer, Integer> map = map(0, COUNT);
+    c.putAll(map);
+    assertEquals(map, c.peekAll(map.keySet()));
+    assertEquals(COUNT, c.asMap().size());
+  }
+
+  @Test
+  public void removeAll() {
+    Cache<Integer, Integer> c = build();
+    c.putAll(map(0, COUNT));
+    List<Integer> keys = new ArrayList<Integer>();
+    for (int i = 0; i < COUNT; i += 2) {
+      keys.add(i);
+      keys.add(i);
+    }
+    keys.add(-1);
+    c.removeAll(keys);
+    assertEquals(COUNT / 2, c.asMap().size());
+    for (int i = 0; i < COUNT; i++) {
+      assertEquals(i % 2 == 1, c.containsKey(i));
+    }
+    c.put(0, 1);
+    assertEquals(1, (int) c.peek(0));
+  }
+
+  /**
+   * Two bulk removes of the same keys in opposite order. A thread must not wait for an
+   * entry while it holds others, otherwise both threads wait for each other.
+   */
+  @Test
+  public void removeAllConcurrentInOppositeOrder() throws Exception {
+    final Cache<Integer, Integer> c = build();
+    final List<Integer> ascending = new ArrayList<Integer>();
+    for (int i = 0; i < 2000; i++) {
+      ascending.add(i);
+    }
+    final List<Integer> descending = new ArrayList<Integer>(ascending);
+    Collections.reverse(descending);
+    for (int round = 0; round < 50; round++) {
+      c.putAll(map(0, 2000));
+      Future<?> f1 = executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          c.removeAll(ascending);
+        }
+      });
+      Future<?> f2 = executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          c.removeAll(descending);
+        }
+      });
+      f1.get(30, TimeUnit.SECONDS);
+      f2.get(30, TimeUnit.SECONDS);
+      assertEquals(0, c.asMap().size());
+    }
+  }
+
+  /**
+   * A set with identity semantics contains equal keys, which are removed once.
+   */
+  @SuppressWarnings("UnnecessaryBoxing")
+  @Test
+  public void removeAllIdentitySet() {
+    Cache<Integer, Integer> c = build();
+    c.putAll(map(0, 10));
+    Set<Integer> keys = Collections.newSetFromMap(new IdentityHashMap<Integer, Boolean>());
+    keys.add(new Integer(1000));
+    keys.add(new Integer(1000));
+    keys.add(new Integer(5));
+    c.put(1000, 1);
+    c.removeAll(keys);
+    assertFalse(c.containsKey(1000));
+    assertFalse(c.containsKey(5));
+    assertEquals(9, c.asMap().size());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void removeAllNullKeyInSet() {
+    Cache<Integer, Integer> c = build();
+    c.removeAll(new HashSet<Integer>(Arrays.asList(1, null)));
+  }
+
+  @Test
+  public void invokeAll() {
+    Cache<Integer, Integer> c = build();
+    c.putAll(map(0, COUNT));
+    Map<Integer, EntryProcessingResult<Integer>> result =
+      c.invokeAll(map(0, COUNT + 1).keySet(), new EntryProcessor<Integer, Integer, Integer>() {
+        @Override
+        public Integer process(MutableCacheEntry<Integer, Integer> e) {
+          if (e.getKey() == 7) {
+            throw new IllegalStateException("seven");
+          }
+          if (!e.exists()) {
+            return null;
+          }
+          e.setValue(e.getValue() + 1);
+          return e.getKey();
+        }
+      });
+    assertEquals(COUNT, result.size());
+    assertEquals(123, (int) result.get(123).getResult());
+    assertEquals(123 * 2 + 1, (int) c.peek(123));
+    assertEquals(IllegalStateException.class, result.get(7).getException().getClass());
+    assertEquals(14, (int) c.peek(7));
+  }
+
+}
@@ -0,0 +1,165 @@
+package org.cache2k.test.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.CacheEntry;
+import org.cache2k.CacheStreams;
+import org.cache2k.core.WiredCache;
+import org.cache2k.integration.CacheLoader;
+import org.cache2k.testing.category.FastTests;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the stream view on the cache entries.
+ *
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class CacheStreamsTest {
+
+  static final int COUNT = 12345;
+  static final long KEY_SUM = (long) COUNT * (COUNT - 1) / 2;
+  static final ToLongFunction<CacheEntry<Integer, Integer>> KEY =
+    new ToLongFunction<CacheEntry<Integer, Integer>>() {
+      @Override
+      public long applyAsLong(CacheEntry<Integer, Integer> e) {
+        return e.getKey();
+      }
+    };
+
+  Cache<Integer, Integer> cache;
+
+  @After
+  public void tearDown() {
+    if (cache != null) {
+      cache.close();
+    }
+  }
+
+  private Cache<Integer, Integer> fill(Cache2kBuilder<Integer, Integer> b) {
+    cache = b.eternal(true).entryCapacity(COUNT * 2).build();
+    for (int i = 0; i < COUNT; i++) {
+      cache.put(i, i);
+    }
+    return cache;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static CacheStreams<Integer, Integer> streams(Cache<Integer, Integer> c) {
+    return c.requestInterface(CacheStreams.class);
+  }
+
+  @Test
+  public void sequential() {
+    Cache<Integer, Integer> c = fill(Cache2kBuilder.of(Integer.class, Integer.class));
+    assertEquals(COUNT, streams(c).stream().count());
+    assertEquals(KEY_SUM, streams(c).stream().mapToLong(KEY).sum());
+  }
+
+  @Test
+  public void parallel() {
+    Cache<Integer, Integer> c = fill(Cache2kBuilder.of(Integer.class, Integer.class));
+    assertEquals(KEY_SUM, streams(c).parallelStream().mapToLong(KEY).sum());
+    assertEquals(COUNT, streams(c).parallelStream().count());
+  }
+
+  @Test
+  public void parallelInCustomPool() throws Exception {
+    Cache<Integer, Integer> c = fill(Cache2kBuilder.of(Integer.class, Integer.class));
+    final CacheStreams<Integer, Integer> streams = streams(c);
+    ForkJoinPool pool = new ForkJoinPool(3);
+    long sum = pool.submit(new Callable<Long>() {
+      @Override
+      public Long call() {
+        return streams.parallelStream().mapToLong(KEY).sum();
+      }
+    }).get();
+    pool.shutdown();
+    assertEquals(KEY_SUM, sum);
+  }
+
+  @Test
+  public void split() {
+    Cache<Integer, Integer> c = fill(Cache2kBuilder.of(Integer.class, Integer.class));
+    Spliterator<CacheEntry<Integer, Integer>> s1 = streams(c).spliterator();
+    assertTrue(s1.hasCharacteristics(Spliterator.CONCURRENT));
+    long estimate = s1.estimateSize();
+    Spliterator<CacheEntry<Integer, Integer>> s2 = s1.trySplit();
+    assertNotNull(s2);
+    assertTrue(s1.estimateSize() < estimate);
+    final Set<Integer> keys = new HashSet<Integer>();
+    Consumer<CacheEntry<Integer, Integer>> collect = new Consumer<CacheEntry<Integer, Integer>>() {
+      @Override
+      public void accept(CacheEntry<Integer, Integer> e) {
+        assertTrue(keys.add(e.getKey()));
+      }
+    };
+    s1.forEachRemaining(collect);
+    int firstHalf = keys.size();
+    assertTrue(firstHalf > 0);
+    s2.forEachRemaining(collect);
+    assertTrue(keys.size() > firstHalf);
+    assertEquals(COUNT, keys.size());
+  }
+
+  /**
+   * A loader does not wire the cache, the stream runs on the heap cache, like without
+   * a loader. Loading is not triggered by the stream.
+   */
+  @Test
+  public void withLoader() {
+    Cache<Integer, Integer> c = fill(Cache2kBuilder.of(Integer.class, Integer.class)
+      .loader(new CacheLoader<Integer, Integer>() {
+        @Override
+        public Integer load(Integer key) {
+          return key;
+        }
+      }));
+    assertEquals(KEY_SUM, streams(c).parallelStream().mapToLong(KEY).sum());
+  }
+
+  /**
+   * A listener wires the cache, the stream operates on the wired cache.
+   */
+  @Test
+  public void wiredCache() {
+    Cache<Integer, Integer> c =
+      fill(StaticUtil.enforceWiredCache(Cache2kBuilder.of(Integer.class, Integer.class)));
+    assertNotNull(c.requestInterface(WiredCache.class));
+    assertEquals(COUNT, streams(c).stream().count());
+    assertEquals(KEY_SUM, streams(c).parallelStream().mapToLong(KEY).sum());
+  }
+
+}
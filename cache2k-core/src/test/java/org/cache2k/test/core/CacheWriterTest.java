@@ -24,6 +24,7 @@ import org.cache2k.Cache;
 import org.cache2k.Cache2kBuilder;
 import org.cache2k.integration.CacheLoader;
 import org.cache2k.integration.CacheWriter;
+import org.cache2k.processor.EntryProcessingResult;
 import org.cache2k.processor.EntryProcessor;
 import org.cache2k.processor.MutableCacheEntry;
 import org.cache2k.test.util.TestingBase;
@@ -33,7 +34,11 @@ import org.junit.experimental.categories.Category;
 
 import static org.junit.Assert.*;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Tests for the CacheWriter and its exception handling.
@@ -316,6 +321,89 @@ public class CacheWriterTest extends TestingBase {
     c.removeAll();
   }
 
+  @Test
+  public void testPutAllCallsWriteAll() {
+    BatchWriter w = new BatchWriter();
+    Cache<Integer, Integer> c = builder(Integer.class, Integer.class)
+      .writer(w)
+      .entryCapacity(10000)
+      .build();
+    HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
+    for (int i = 0; i < 2345; i++) {
+      map.put(i, i);
+    }
+    c.putAll(map);
+    assertEquals(map, w.content);
+    assertEquals(map.size(), c.asMap().size());
+    assertTrue("batches are used", w.writeAllCount <= 3);
+  }
+
+  @Test
+  public void testRemoveAllCallsDeleteAll() {
+    BatchWriter w = new BatchWriter();
+    Cache<Integer, Integer> c = builder(Integer.class, Integer.class)
+      .writer(w)
+      .build();
+    HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
+    for (int i = 0; i < 123; i++) {
+      map.put(i, i);
+    }
+    c.putAll(map);
+    c.removeAll(map.keySet());
+    assertTrue(w.content.isEmpty());
+    assertEquals(1, w.deleteAllCount);
+    assertEquals(0, c.asMap().size());
+  }
+
+  /**
+   * The default implementation of write all calls write for each entry. The entries
+   * written before the exception are updated in the cache, the others are not.
+   */
+  @Test
+  public void testPutAllPartialWriterException() {
+    MyWriter w = new MyWriter();
+    Cache<Integer, Integer> c = createIntegerCacheWithWriter(w);
+    HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
+    for (int i = 2; i < 100; i++) {
+      map.put(i, i);
+    }
+    map.put(1, 777);
+    try {
+      c.putAll(map);
+      fail("exception expected");
+    } catch (Exception ex) {
+      assertEquals(EXCEPTION_TEXT, ex.toString());
+    }
+    assertFalse(c.containsKey(1));
+    for (int i = 2; i < 100; i++) {
+      assertEquals(w.content.get(i), c.peek(i));
+    }
+  }
+
+  @Test
+  public void testInvokeAllCallsWriteAll() {
+    BatchWriter w = new BatchWriter();
+    Cache<Integer, Integer> c = builder(Integer.class, Integer.class)
+      .writer(w)
+      .build();
+    Set<Integer> keys = new HashSet<Integer>();
+    for (int i = 0; i < 100; i++) {
+      keys.add(i);
+    }
+    Map<Integer, EntryProcessingResult<Integer>> result =
+      c.invokeAll(keys, new EntryProcessor<Integer, Integer, Integer>() {
+        @Override
+        public Integer process(MutableCacheEntry<Integer, Integer> e) {
+          e.setValue(e.getKey() * 2);
+          return e.getKey();
+        }
+      });
+    assertEquals(keys.size(), result.size());
+    assertEquals(7, (int) result.get(7).getResult());
+    assertEquals(14, (int) w.content.get(7));
+    assertEquals(1, w.writeAllCount);
+  }
+
   private Cache<Integer, Integer> prepCacheForExceptionTest() {
     MyWriter w = new MyWriter();
     Cache<Integer, Integer> c = createIntegerCacheWithWriter(w);
@@ -334,6 +422,40 @@ public class CacheWriterTest extends TestingBase {
     return getCache();
   }
 
+  public static class BatchWriter extends CacheWriter<Integer, Integer> {
+
+    final Map<Integer, Integer> content = new HashMap<Integer, Integer>();
+    int writeAllCount;
+    int deleteAllCount;
+
+    @Override
+    public synchronized void write(Integer key, Integer value) {
+      content.put(key, value);
+    }
+
+    @Override
+    public synchronized void delete(Integer key) {
+      content.remove(key);
+    }
+
+    @Override
+    public synchronized void writeAll(Map<Integer, Integer> entries) {
+      writeAllCount++;
+      content.putAll(entries);
+      entries.clear();
+    }
+
+    @Override
+    public synchronized void deleteAll(Collection<Integer> keys) {
+      deleteAllCount++;
+      for (Integer k : keys) {
+        content.remove(k);
+      }
+      keys.clear();
+    }
+
+  }
+
   public static class MyWriter extends CacheWriter<Integer, Integer> {
 
     final HashMap<Integer, Integer> deletedCount = new HashMap<Integer, Integer>();
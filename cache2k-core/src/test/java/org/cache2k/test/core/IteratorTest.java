@@ -24,13 +24,17 @@ import org.cache2k.Cache;
 import org.cache2k.Cache2kBuilder;
 import org.cache2k.CacheEntry;
 import org.cache2k.core.CacheClosedException;
+import org.cache2k.core.ConcurrentEntryIterator;
+import org.cache2k.core.HeapCache;
 import org.cache2k.testing.category.FastTests;
 import org.junit.After;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
@@ -122,6 +126,42 @@ public class IteratorTest {
     c.close();
   }
 
+  /**
+   * Split the iteration into several parts, which together return every entry once,
+   * while the hash table expands.
+   */
+  @Test
+  public void splitWithExpansion() {
+    Cache<Integer, Integer> c = createCacheWith20Entries();
+    HeapCache<Integer, Integer> hc = c.requestInterface(HeapCache.class);
+    ConcurrentEntryIterator<Integer, Integer> it = hc.iterateAllHeapEntries();
+    List<ConcurrentEntryIterator<Integer, Integer>> parts =
+      new ArrayList<ConcurrentEntryIterator<Integer, Integer>>();
+    parts.add(it);
+    for (int i = 0; i < 3; i++) {
+      int n = parts.size();
+      for (int j = 0; j < n; j++) {
+        parts.add(parts.get(j).trySplit());
+      }
+    }
+    assertEquals(8, parts.size());
+    assertTrue(it.estimateSize() < 20);
+    Set<Integer> keysSeen = new HashSet<Integer>();
+    for (ConcurrentEntryIterator<Integer, Integer> part : parts) {
+      while (part.hasNext()) {
+        assertTrue(keysSeen.add(part.next().getKey()));
+        if (keysSeen.size() == 10) {
+          for (int i = 20; i < 5555; i++) {
+            c.put(i, i);
+          }
+        }
+      }
+    }
+    for (int i = 0; i < 20; i++) {
+      assertTrue(keysSeen.contains(i));
+    }
+  }
+
   @Test(expected = CacheClosedException.class)
   public void testClose() {
     Cache<Integer, Integer> c = createCacheWith20Entries();
@@ -0,0 +1,273 @@
+package org.cache2k.test.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.CacheEntry;
+import org.cache2k.core.InternalCache;
+import org.cache2k.core.storage.StorageTierAdapter;
+import org.cache2k.event.CacheEntryEvictedListener;
+import org.cache2k.expiry.ExpiryPolicy;
+import org.cache2k.integration.CacheLoader;
+import org.cache2k.storage.OffHeapStorageConfiguration;
+import org.cache2k.test.util.CacheRule;
+import org.cache2k.test.util.IntCacheRule;
+import org.cache2k.test.util.TestingBase;
+import org.cache2k.testing.category.FastTests;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the cache with the off heap storage tier enabled. The heap holds only
+ * a few entries, so most of the entries are read from the storage.
+ *
+ * @author Jens Wilke
+ * @see org.cache2k.core.storage.OffHeapStorage
+ */
+@Category(FastTests.class)
+public class OffHeapStorageTierTest extends TestingBase {
+
+  static final int HEAP_CAPACITY = 10;
+  static final int COUNT = 100;
+
+  @Rule
+  public CacheRule<Integer, Integer> target = new IntCacheRule();
+
+  final AtomicInteger evictedCount = new AtomicInteger();
+  final AtomicInteger loadCount = new AtomicInteger();
+
+  Cache<Integer, Integer> cache() {
+    return cache(new CacheRule.Specialization<Integer, Integer>() {
+      @Override
+      public void extend(Cache2kBuilder<Integer, Integer> b) { }
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  Cache<Integer, Integer> cache(final CacheRule.Specialization<Integer, Integer> rb) {
+    return target.cache(new CacheRule.Specialization<Integer, Integer>() {
+      @Override
+      public void extend(Cache2kBuilder<Integer, Integer> b) {
+        b.entryCapacity(HEAP_CAPACITY)
+          .with(new OffHeapStorageConfiguration.Builder()
+            .capacityBytes(1024 * 1024))
+          .addListener(new CacheEntryEvictedListener<Integer, Integer>() {
+            @Override
+            public void onEntryEvicted(Cache<Integer, Integer> cache,
+                                       CacheEntry<Integer, Integer> entry) {
+              evictedCount.incrementAndGet();
+            }
+          });
+        rb.extend(b);
+      }
+    });
+  }
+
+  static void fill(Cache<Integer, Integer> c) {
+    for (int i = 0; i < COUNT; i++) {
+      c.put(i, i * 2);
+    }
+  }
+
+  @Test
+  public void storageIsConnected() {
+    Cache<Integer, Integer> c = cache();
+    assertTrue(
+      c.requestInterface(InternalCache.class).getStorage() instanceof StorageTierAdapter);
+  }
+
+  @Test
+  public void evictedEntriesAreRetained() {
+    Cache<Integer, Integer> c = cache();
+    fill(c);
+    for (int i = 0; i < COUNT; i++) {
+      assertEquals((Integer) (i * 2), c.peek(i));
+    }
+    for (int i = 0; i < COUNT; i++) {
+      assertEquals((Integer) (i * 2), c.get(i));
+      assertTrue(c.containsKey(i));
+    }
+    assertEquals(COUNT, c.requestInterface(InternalCache.class).getTotalEntryCount());
+    assertEquals("no eviction listener calls", 0, evictedCount.get());
+  }
+
+  @Test
+  public void updateAndRemove() {
+    Cache<Integer, Integer> c = cache();
+    fill(c);
+    assertTrue(c.containsAndRemove(0));
+    assertFalse(c.containsKey(0));
+    assertEquals((Integer) 2, c.peekAndPut(1, 4711));
+    assertEquals((Integer) 4711, c.peek(1));
+    fill(c);
+    assertEquals((Integer) 2, c.peek(1));
+    c.remove(2);
+    fill(c);
+    c.remove(3);
+    assertNull(c.peek(3));
+    assertEquals(COUNT - 1, c.requestInterface(InternalCache.class).getTotalEntryCount());
+  }
+
+  @Test
+  public void iterateAll() {
+    Cache<Integer, Integer> c = cache();
+    fill(c);
+    Set<Integer> keys = new HashSet<Integer>();
+    for (CacheEntry<Integer, Integer> e : c.entries()) {
+      assertEquals((Integer) (e.getKey() * 2), e.getValue());
+      keys.add(e.getKey());
+    }
+    assertEquals(COUNT, keys.size());
+  }
+
+  /**
+   * Entries move between the heap and the storage while iterating. Every entry
+   * is returned exactly once.
+   */
+  @Test
+  public void iterateAllWhileEntriesMove() {
+    Cache<Integer, Integer> c = cache();
+    fill(c);
+    List<Integer> keys = new ArrayList<Integer>();
+    boolean first = true;
+    for (CacheEntry<Integer, Integer> e : c.entries()) {
+      assertEquals((Integer) (e.getKey() * 2), e.getValue());
+      keys.add(e.getKey());
+      if (first) {
+        first = false;
+        for (int i = COUNT - 1; i >= 0; i--) {
+          c.peek(i);
+        }
+      }
+    }
+    assertEquals(COUNT, keys.size());
+    assertEquals(COUNT, new HashSet<Integer>(keys).size());
+  }
+
+  @Test
+  public void clear() {
+    Cache<Integer, Integer> c = cache();
+    fill(c);
+    c.clear();
+    for (int i = 0; i < COUNT; i++) {
+      assertFalse(c.containsKey(i));
+    }
+    assertEquals(0, c.requestInterface(InternalCache.class).getTotalEntryCount());
+  }
+
+  @Test
+  public void loaderNotCalledForStoredEntry() {
+    Cache<Integer, Integer> c = cache(new CacheRule.Specialization<Integer, Integer>() {
+      @Override
+      public void extend(Cache2kBuilder<Integer, Integer> b) {
+        b.loader(new CacheLoader<Integer, Integer>() {
+          @Override
+          public Integer load(Integer key) {
+            loadCount.incrementAndGet();
+            return key * 2;
+          }
+        });
+      }
+    });
+    for (int i = 0; i < COUNT; i++) {
+      c.get(i);
+    }
+    assertEquals(COUNT, loadCount.get());
+    for (int i = 0; i < COUNT; i++) {
+      assertEquals((Integer) (i * 2), c.get(i));
+    }
+    assertEquals(COUNT, loadCount.get());
+  }
+
+  /**
+   * Entries dropped by the storage because of its capacity are evicted from the
+   * cache and reported to the eviction listener.
+   */
+  @Test
+  public void droppedFromStorageCallsEvictionListener() {
+    final Set<Integer> evictedKeys = new HashSet<Integer>();
+    Cache<Integer, Integer> c = target.cache(new CacheRule.Specialization<Integer, Integer>() {
+      @Override
+      public void extend(Cache2kBuilder<Integer, Integer> b) {
+        b.entryCapacity(HEAP_CAPACITY)
+          .with(new OffHeapStorageConfiguration.Builder()
+            .capacityBytes(4096))
+          .addListener(new CacheEntryEvictedListener<Integer, Integer>() {
+            @Override
+            public void onEntryEvicted(Cache<Integer, Integer> cache,
+                                       CacheEntry<Integer, Integer> entry) {
+              assertEquals((Integer) (entry.getKey() * 2), entry.getValue());
+              synchronized (evictedKeys) {
+                evictedKeys.add(entry.getKey());
+              }
+            }
+          });
+      }
+    });
+    fill(c);
+    Set<Integer> snapshot;
+    synchronized (evictedKeys) {
+      snapshot = new HashSet<Integer>(evictedKeys);
+    }
+    assertTrue("storage dropped entries", snapshot.size() > 0);
+    assertEquals(COUNT,
+      snapshot.size() + c.requestInterface(InternalCache.class).getTotalEntryCount());
+    for (int k : snapshot) {
+      assertFalse(c.containsKey(k));
+    }
+  }
+
+  /**
+   * An expired entry in the storage is not returned.
+   */
+  @Test
+  public void expiredEntryIsDropped() {
+    final long expiryTime = millis() + 200;
+    Cache<Integer, Integer> c = cache(new CacheRule.Specialization<Integer, Integer>() {
+      @Override
+      public void extend(Cache2kBuilder<Integer, Integer> b) {
+        b.expiryPolicy(new ExpiryPolicy<Integer, Integer>() {
+          @Override
+          public long calculateExpiryTime(Integer key, Integer value, long loadTime,
+                                          CacheEntry<Integer, Integer> oldEntry) {
+            return key == 0 ? expiryTime : ETERNAL;
+          }
+        });
+      }
+    });
+    fill(c);
+    sleep(300);
+    assertFalse(c.containsKey(0));
+    assertNull(c.peek(0));
+    assertEquals((Integer) 2, c.peek(1));
+  }
+
+}
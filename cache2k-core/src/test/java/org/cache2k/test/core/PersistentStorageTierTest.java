@@ -0,0 +1,129 @@
+package org.cache2k.test.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.CacheEntry;
+import org.cache2k.expiry.ExpiryPolicy;
+import org.cache2k.storage.PersistentStorageConfiguration;
+import org.cache2k.testing.category.FastTests;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Warm restart of a cache with the persistent storage tier.
+ *
+ * @author Jens Wilke
+ * @see org.cache2k.core.storage.PersistentStorage
+ */
+@Category(FastTests.class)
+public class PersistentStorageTierTest {
+
+  static final int COUNT = 100;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  Cache<Integer, String> build(final long expiryTime) {
+    return Cache2kBuilder.of(Integer.class, String.class)
+      .name(PersistentStorageTierTest.class, "cache")
+      .entryCapacity(10)
+      .expiryPolicy(new ExpiryPolicy<Integer, String>() {
+        @Override
+        public long calculateExpiryTime(Integer key, String value, long loadTime,
+                                        CacheEntry<Integer, String> oldEntry) {
+          return key % 10 == 0 ? expiryTime : ETERNAL;
+        }
+      })
+      .with(new PersistentStorageConfiguration.Builder()
+        .directory(folder.getRoot().getPath())
+        .capacityBytes(1024 * 1024)
+        .segmentBytes(64 * 1024))
+      .build();
+  }
+
+  @Test
+  public void warmRestart() {
+    long expiryTime = System.currentTimeMillis() + 200;
+    Cache<Integer, String> c = build(expiryTime);
+    for (int i = 0; i < COUNT; i++) {
+      c.put(i, "value" + i);
+    }
+    c.remove(1);
+    c.close();
+    c = build(expiryTime);
+    try {
+      for (int i = 2; i < COUNT; i++) {
+        if (i % 10 != 0) {
+          assertEquals("value" + i, c.peek(i));
+        }
+      }
+      assertNull(c.peek(1));
+    } finally {
+      c.close();
+    }
+  }
+
+  @Test
+  public void expiredEntriesAreSkipped() throws Exception {
+    long expiryTime = System.currentTimeMillis() + 200;
+    Cache<Integer, String> c = build(expiryTime);
+    for (int i = 0; i < COUNT; i++) {
+      c.put(i, "value" + i);
+    }
+    c.close();
+    Thread.sleep(300);
+    c = build(expiryTime);
+    try {
+      for (int i = 0; i < COUNT; i++) {
+        if (i % 10 == 0) {
+          assertFalse(c.containsKey(i));
+        } else {
+          assertTrue(c.containsKey(i));
+        }
+      }
+    } finally {
+      c.close();
+    }
+  }
+
+  @Test
+  public void clearRemovesPersistentEntries() {
+    Cache<Integer, String> c = build(ExpiryPolicy.ETERNAL);
+    for (int i = 0; i < COUNT; i++) {
+      c.put(i, "value" + i);
+    }
+    c.clear();
+    c.close();
+    c = build(ExpiryPolicy.ETERNAL);
+    try {
+      assertFalse(c.keys().iterator().hasNext());
+    } finally {
+      c.close();
+    }
+  }
+
+}
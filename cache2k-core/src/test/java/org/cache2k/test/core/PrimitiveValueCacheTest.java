@@ -0,0 +1,286 @@
+package org.cache2k.test.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.CacheEntry;
+import org.cache2k.IntIntCache;
+import org.cache2k.LongDoubleCache;
+import org.cache2k.LongLongCache;
+import org.cache2k.core.HeapCache;
+import org.cache2k.core.InternalCache;
+import org.cache2k.core.IntIntEntry;
+import org.cache2k.core.LongDoubleEntry;
+import org.cache2k.core.LongLongEntry;
+import org.cache2k.core.LongLongExtendedEntry;
+import org.cache2k.core.WiredCache;
+import org.cache2k.event.CacheEntryCreatedListener;
+import org.cache2k.expiry.ExpiryPolicy;
+import org.cache2k.expiry.ExpiryTimeValues;
+import org.cache2k.integration.AsyncCacheLoader;
+import org.cache2k.integration.CacheLoader;
+import org.cache2k.integration.CacheLoaderException;
+import org.cache2k.testing.category.FastTests;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the caches holding primitive values.
+ *
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class PrimitiveValueCacheTest {
+
+  static final long MISSING = Long.MIN_VALUE;
+
+  Cache<?, ?> cache;
+
+  @After
+  public void tearDown() {
+    if (cache != null) {
+      cache.requestInterface(InternalCache.class).checkIntegrity();
+      cache.close();
+    }
+  }
+
+  private static Object entry(Cache<?, ?> c, Object key) {
+    return c.requestInterface(HeapCache.class).lookupEntryNoHitRecord(key);
+  }
+
+  private LongLongCache longLong(Cache2kBuilder<Long, Long> b) {
+    LongLongCache c = b.buildForLongLong();
+    cache = c;
+    return c;
+  }
+
+  @Test
+  public void longLong() {
+    LongLongCache c = longLong(Cache2kBuilder.of(Long.class, Long.class));
+    assertEquals(MISSING, c.getLong(1, MISSING));
+    assertEquals(MISSING, c.peekLong(1, MISSING));
+    c.putLong(1, 4711);
+    c.putLong(1L << 32, Long.MAX_VALUE);
+    assertEquals(4711, c.getLong(1, MISSING));
+    assertEquals(4711, c.peekLong(1, MISSING));
+    assertEquals(Long.MAX_VALUE, c.getLong(1L << 32, MISSING));
+    assertEquals((Long) 4711L, c.get(1L));
+    assertTrue(c.containsAndRemove(1L << 32));
+    assertEquals(LongLongEntry.class, entry(c, 1L).getClass());
+    c.put(Long.valueOf(2), Long.valueOf(123));
+    assertEquals(123, c.peekLong(2, MISSING));
+    assertTrue(c.replaceIfEquals(2L, 123L, 124L));
+    assertFalse(c.replaceIfEquals(2L, 123L, 125L));
+    assertEquals(124, c.peekLong(2, MISSING));
+  }
+
+  @Test
+  public void longLong_nullValue() {
+    LongLongCache c = longLong(
+      Cache2kBuilder.of(Long.class, Long.class).permitNullValues(true));
+    c.put(1L, null);
+    assertTrue(c.containsKey(1L));
+    assertEquals(MISSING, c.peekLong(1, MISSING));
+    c.putLong(1, 1);
+    assertEquals(1, c.peekLong(1, MISSING));
+  }
+
+  @Test
+  public void longLong_expired() {
+    LongLongCache c = longLong(
+      Cache2kBuilder.of(Long.class, Long.class).keepDataAfterExpired(true));
+    c.putLong(1, 1);
+    c.expireAt(1L, ExpiryTimeValues.NOW);
+    assertEquals(MISSING, c.peekLong(1, MISSING));
+    assertEquals(MISSING, c.getLong(1, MISSING));
+  }
+
+  @Test
+  public void longLong_loader() {
+    LongLongCache c = longLong(
+      Cache2kBuilder.of(Long.class, Long.class)
+        .loader(new CacheLoader<Long, Long>() {
+          @Override
+          public Long load(Long key) {
+            return key * 2;
+          }
+        }));
+    assertEquals(MISSING, c.peekLong(1, MISSING));
+    assertEquals(2, c.getLong(1, MISSING));
+    assertEquals(2, c.peekLong(1, MISSING));
+    assertEquals(LongLongExtendedEntry.class, entry(c, 1L).getClass());
+  }
+
+  /**
+   * The methods with primitive keys of {@link org.cache2k.LongCache} are available.
+   */
+  @Test
+  public void longLong_primitiveKey() {
+    LongLongCache c = longLong(Cache2kBuilder.of(Long.class, Long.class));
+    c.putLong(1, 4711);
+    assertEquals((Long) 4711L, c.get(1));
+    assertEquals((Long) 4711L, c.peek(1));
+    assertTrue(c.containsKey(1));
+    c.remove(1);
+    assertFalse(c.containsKey(1));
+  }
+
+  @Test(expected = CacheLoaderException.class)
+  public void longLong_loaderException() {
+    LongLongCache c = longLong(
+      Cache2kBuilder.of(Long.class, Long.class)
+        .loader(new CacheLoader<Long, Long>() {
+          @Override
+          public Long load(Long key) {
+            throw new IllegalStateException();
+          }
+        }));
+    c.getLong(1, MISSING);
+  }
+
+  @Test
+  public void longLong_wired() {
+    LongLongCache c = longLong(
+      StaticUtil.enforceWiredCache(Cache2kBuilder.of(Long.class, Long.class)));
+    c.putLong(1, 4711);
+    assertEquals(4711, c.getLong(1, MISSING));
+    assertEquals(4711, c.peekLong(1, MISSING));
+    assertEquals(MISSING, c.peekLong(2, MISSING));
+  }
+
+  /**
+   * The direct put path boxes the value for the expiry policy, which sees the previous
+   * value in the entry.
+   */
+  @Test
+  public void longLong_expiryPolicy() {
+    final List<Long> previousValues = new ArrayList<Long>();
+    LongLongCache c = longLong(
+      Cache2kBuilder.of(Long.class, Long.class)
+        .expiryPolicy(new ExpiryPolicy<Long, Long>() {
+          @Override
+          public long calculateExpiryTime(Long key, Long value, long loadTime,
+                                          CacheEntry<Long, Long> oldEntry) {
+            previousValues.add(oldEntry != null ? oldEntry.getValue() : null);
+            return value == 0 ? NOW : ETERNAL;
+          }
+        }));
+    c.putLong(1, 4711);
+    c.putLong(1, 4712);
+    assertEquals(4712, c.peekLong(1, MISSING));
+    c.putLong(1, 0);
+    assertEquals(MISSING, c.peekLong(1, MISSING));
+    assertEquals(3, previousValues.size());
+    assertNull(previousValues.get(0));
+    assertEquals((Long) 4711L, previousValues.get(1));
+    assertEquals((Long) 4712L, previousValues.get(2));
+  }
+
+  /**
+   * Wired only because of the async loader, the put is passed on to the heap cache.
+   */
+  @Test
+  public void longLong_wiredPutNotObserved() {
+    LongLongCache c = longLong(
+      Cache2kBuilder.of(Long.class, Long.class)
+        .loader(new AsyncCacheLoader<Long, Long>() {
+          @Override
+          public void load(Long key, Context<Long, Long> context, Callback<Long> callback) {
+            callback.onLoadSuccess(key * 2);
+          }
+        }));
+    assertTrue(c instanceof WiredCache);
+    c.putLong(1, 4711);
+    assertEquals(4711, c.peekLong(1, MISSING));
+    assertEquals(4, c.getLong(2, MISSING));
+    LongLongEntry e = (LongLongEntry)
+      ((WiredCache<?, ?>) c).getHeapCache().lookupEntryNoHitRecord(1L);
+    assertTrue(e.hasLongValue());
+  }
+
+  @Test
+  public void longLong_wiredPutObserved() {
+    final List<Long> created = new ArrayList<Long>();
+    LongLongCache c = longLong(
+      Cache2kBuilder.of(Long.class, Long.class)
+        .addListener(new CacheEntryCreatedListener<Long, Long>() {
+          @Override
+          public void onEntryCreated(Cache<Long, Long> cache, CacheEntry<Long, Long> entry) {
+            created.add(entry.getValue());
+          }
+        }));
+    c.putLong(1, 4711);
+    assertEquals(4711, c.peekLong(1, MISSING));
+    assertEquals(1, created.size());
+    assertEquals((Long) 4711L, created.get(0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void longLong_wrongValueType() {
+    Cache2kBuilder.of(Long.class, Integer.class).buildForLongLong();
+  }
+
+  @Test
+  public void longLong_notEnabled() {
+    Cache<Long, Long> c = Cache2kBuilder.of(Long.class, Long.class).build();
+    cache = c;
+    assertFalse(c instanceof LongLongCache);
+  }
+
+  @Test
+  public void longDouble() {
+    LongDoubleCache c = Cache2kBuilder.of(Long.class, Double.class).buildForLongDouble();
+    cache = c;
+    c.putDouble(1, Math.PI);
+    c.putDouble(2, Double.NaN);
+    assertEquals(Math.PI, c.getDouble(1, -1), 0);
+    assertEquals(-1, c.peekDouble(3, -1), 0);
+    assertTrue(Double.isNaN(c.peekDouble(2, -1)));
+    assertTrue(c.replaceIfEquals(2L, Double.NaN, 1.0));
+    assertEquals((Double) 1.0, c.peek(2L));
+    assertEquals(LongDoubleEntry.class, entry(c, 1L).getClass());
+    c.putDouble(1, -0.0);
+    assertEquals(Double.doubleToRawLongBits(-0.0),
+      Double.doubleToRawLongBits(c.peekDouble(1, -1)));
+  }
+
+  @Test
+  public void intInt() {
+    IntIntCache c = Cache2kBuilder.of(Integer.class, Integer.class).buildForIntInt();
+    cache = c;
+    c.putInt(1, 4711);
+    assertEquals(4711, c.getInt(1, -1));
+    assertEquals(-1, c.peekInt(2, -1));
+    assertEquals((Integer) 4711, c.peek(1));
+    assertEquals(1, (int) c.peekEntry(1).getKey());
+    assertEquals(IntIntEntry.class, entry(c, 1).getClass());
+    c.putInt(2, Integer.MIN_VALUE);
+    assertEquals(Integer.MIN_VALUE, c.peekInt(2, -1));
+  }
+
+}
@@ -0,0 +1,216 @@
+package org.cache2k.test.core;
+
+/*
+ * #%L
+ * cache2k implementation
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.expiry.ExpiryTimeValues;
+import org.cache2k.integration.CacheLoader;
+import org.cache2k.integration.CacheWriter;
+import org.cache2k.testing.category.FastTests;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the write behind mode of the writer.
+ *
+ * @author Jens Wilke
+ */
+@Category(FastTests.class)
+public class WriteBehindTest {
+
+  static final long TIMEOUT_MILLIS = 10000;
+
+  final Target target = new Target();
+  Cache<Integer, Integer> cache;
+
+  @After
+  public void tearDown() {
+    if (cache != null) {
+      cache.close();
+    }
+  }
+
+  private Cache2kBuilder<Integer, Integer> builder(long delayMillis) {
+    return Cache2kBuilder.of(Integer.class, Integer.class)
+      .entryCapacity(10000)
+      .writer(target)
+      .writeBehindDelay(delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void awaitSize(int size) throws InterruptedException {
+    long t0 = System.currentTimeMillis();
+    while (target.content.size() < size) {
+      assertTrue("timeout", System.currentTimeMillis() - t0 < TIMEOUT_MILLIS);
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  public void coalesceAndWriteOnClose() {
+    cache = builder(TimeUnit.HOURS.toMillis(1)).build();
+    for (int i = 0; i < 100; i++) {
+      cache.put(1, i);
+    }
+    cache.put(2, 2);
+    cache.remove(2);
+    assertEquals(0, target.writeCount.get());
+    cache.close();
+    assertEquals(99, (int) target.content.get(1));
+    assertFalse(target.content.containsKey(2));
+    assertEquals(1, target.writeCount.get());
+    assertEquals(1, target.deleteCount.get());
+  }
+
+  @Test
+  public void writeAfterDelay() throws Exception {
+    cache = builder(1).build();
+    cache.put(1, 1);
+    assertEquals(1, (int) cache.peek(1));
+    awaitSize(1);
+    assertEquals(1, (int) target.content.get(1));
+  }
+
+  @Test
+  public void writeBatchWhenFull() throws Exception {
+    cache = builder(TimeUnit.HOURS.toMillis(1)).build();
+    Map<Integer, Integer> map = new HashMap<Integer, Integer>();
+    for (int i = 0; i < 2500; i++) {
+      map.put(i, i);
+    }
+    cache.putAll(map);
+    awaitSize(2000);
+    assertTrue(target.writeAllCount.get() >= 2);
+  }
+
+  @Test
+  public void loaderSeesPendingWrite() {
+    cache = builder(TimeUnit.HOURS.toMillis(1))
+      .loader(new CacheLoader<Integer, Integer>() {
+        @Override
+        public Integer load(Integer key) {
+          return target.content.get(key);
+        }
+      })
+      .build();
+    cache.put(1, 4711);
+    cache.expireAt(1, ExpiryTimeValues.NOW);
+    assertFalse(cache.containsKey(1));
+    assertEquals(4711, (int) cache.get(1));
+  }
+
+  @Test
+  public void waitWhenQueueIsFull() throws Exception {
+    target.block = new CountDownLatch(1);
+    cache = builder(1).writeBehindQueueCapacity(10).build();
+    cache.put(0, 0);
+    long t0 = System.currentTimeMillis();
+    while (target.writeAllCount.get() == 0) {
+      assertTrue("timeout", System.currentTimeMillis() - t0 < TIMEOUT_MILLIS);
+      Thread.sleep(1);
+    }
+    for (int i = 1; i <= 10; i++) {
+      cache.put(i, i);
+    }
+    Thread t = new Thread() {
+      @Override
+      public void run() {
+        cache.put(11, 11);
+      }
+    };
+    t.start();
+    t.join(100);
+    assertTrue("put waits for space in the queue", t.isAlive());
+    target.block.countDown();
+    t.join(TIMEOUT_MILLIS);
+    assertFalse(t.isAlive());
+    awaitSize(12);
+  }
+
+  @Test
+  public void writerExceptionDoesNotPropagate() {
+    cache = builder(1).writer(new CacheWriter<Integer, Integer>() {
+      @Override
+      public void write(Integer key, Integer value) {
+        throw new IllegalStateException("test exception");
+      }
+
+      @Override
+      public void delete(Integer key) {
+        throw new IllegalStateException("test exception");
+      }
+    }).build();
+    cache.put(1, 1);
+    cache.remove(1);
+    cache.put(2, 2);
+    cache.close();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void writeBehindWithoutWriter() {
+    cache = Cache2kBuilder.of(Integer.class, Integer.class)
+      .writeBehindDelay(1, TimeUnit.SECONDS)
+      .build();
+  }
+
+  static class Target extends CacheWriter<Integer, Integer> {
+
+    final Map<Integer, Integer> content = new ConcurrentHashMap<Integer, Integer>();
+    final AtomicInteger writeCount = new AtomicInteger();
+    final AtomicInteger deleteCount = new AtomicInteger();
+    final AtomicInteger writeAllCount = new AtomicInteger();
+    volatile CountDownLatch block;
+
+    @Override
+    public void write(Integer key, Integer value) {
+      writeCount.incrementAndGet();
+      content.put(key, value);
+    }
+
+    @Override
+    public void delete(Integer key) {
+      deleteCount.incrementAndGet();
+      content.remove(key);
+    }
+
+    @Override
+    public void writeAll(Map<Integer, Integer> entries) throws Exception {
+      writeAllCount.incrementAndGet();
+      CountDownLatch latch = block;
+      if (latch != null) {
+        latch.await();
+      }
+      super.writeAll(entries);
+    }
+
+  }
+
+}
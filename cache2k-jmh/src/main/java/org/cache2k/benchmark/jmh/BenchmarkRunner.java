@@ -0,0 +1,79 @@
+package org.cache2k.benchmark.jmh;
+
+/*
+ * #%L
+ * cache2k JMH benchmarks
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the benchmark suites once per thread count with the GC profiler enabled, so
+ * the allocation rate is reported next to the throughput. The JSON results are written
+ * to {@code jmh-result-<threads>.json} in the working directory.
+ *
+ * <p>Usage: {@code java -cp target/benchmarks.jar org.cache2k.benchmark.jmh.BenchmarkRunner
+ * [include regex] [thread counts, comma separated]}. By default all benchmarks of this
+ * package are run with 1, 2, 4, ... threads up to the number of available processors.
+ *
+ * @author Jens Wilke
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws RunnerException {
+    String include = args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName();
+    List<Integer> threadCounts =
+      args.length > 1 ? parseThreadCounts(args[1]) : defaultThreadCounts();
+    for (int threads : threadCounts) {
+      ChainedOptionsBuilder opts = new OptionsBuilder()
+        .include(include)
+        .threads(threads)
+        .addProfiler(GCProfiler.class)
+        .resultFormat(ResultFormatType.JSON)
+        .result("jmh-result-" + threads + ".json");
+      new Runner(opts.build()).run();
+    }
+  }
+
+  static List<Integer> defaultThreadCounts() {
+    int cpus = Runtime.getRuntime().availableProcessors();
+    List<Integer> counts = new ArrayList<Integer>();
+    for (int i = 1; i < cpus; i <<= 1) {
+      counts.add(i);
+    }
+    counts.add(cpus);
+    return counts;
+  }
+
+  static List<Integer> parseThreadCounts(String s) {
+    List<Integer> counts = new ArrayList<Integer>();
+    for (String n : s.split(",")) {
+      counts.add(Integer.parseInt(n.trim()));
+    }
+    return counts;
+  }
+
+}
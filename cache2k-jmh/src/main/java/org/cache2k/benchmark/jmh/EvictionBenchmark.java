@@ -0,0 +1,136 @@
+package org.cache2k.benchmark.jmh;
+
+/*
+ * #%L
+ * cache2k JMH benchmarks
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.Weigher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Insert heavy load on a full cache. Every insert needs an eviction, so the result
+ * is dominated by {@code ClockProPlusEviction} and the chunked eviction in
+ * {@code AbstractEviction}.
+ *
+ * @author Jens Wilke
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EvictionBenchmark {
+
+  @Param({"10000", "1000000"})
+  public int capacity;
+
+  /**
+   * {@code entryCapacity} limits by entry count, {@code weigher} limits by weight, with
+   * a weight of one per entry.
+   */
+  @Param({"entryCapacity", "weigher"})
+  public String limit;
+
+  Cache<Integer, Integer> cache;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Cache2kBuilder<Integer, Integer> b = Cache2kBuilder.of(Integer.class, Integer.class);
+    if ("weigher".equals(limit)) {
+      b.weigher(new Weigher<Integer, Integer>() {
+        @Override
+        public int weigh(Integer key, Integer value) {
+          return 1;
+        }
+      });
+      b.maximumWeight(capacity);
+    } else {
+      b.entryCapacity(capacity);
+    }
+    cache = b.build();
+    for (int i = 0; i < capacity; i++) {
+      cache.put(-i - 1, i);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    cache.close();
+  }
+
+  /**
+   * Generates keys not seen before. Each thread uses a separate range of the key space.
+   */
+  @State(Scope.Thread)
+  public static class InsertKeys {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    int base = THREAD_COUNT.getAndIncrement() << 24;
+    int count;
+
+    int next() {
+      return base + (count++ & 0xffffff);
+    }
+
+    /**
+     * A recently inserted key of this thread, which is probably still in the cache.
+     */
+    int recent(int distance) {
+      return base + ((count - distance) & 0xffffff);
+    }
+
+  }
+
+  @Benchmark
+  public void insert(InsertKeys keys) {
+    int key = keys.next();
+    cache.put(key, key);
+  }
+
+  /**
+   * Insert and access a recently inserted entry, so hit counters are set and
+   * the clock hands need to scan.
+   */
+  @Benchmark
+  public Integer insertAndHit(InsertKeys keys) {
+    int key = keys.next();
+    cache.put(key, key);
+    return cache.peek(keys.recent(key & 0x3ff));
+  }
+
+}
@@ -0,0 +1,124 @@
+package org.cache2k.benchmark.jmh;
+
+/*
+ * #%L
+ * cache2k JMH benchmarks
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@code get}, {@code peek} and {@code put} on the plain heap cache without
+ * any customizations. Exercises the hash table lookup, the hit recording and the eviction
+ * on insert. The cache is populated with {@code size} entries, the access hit rate
+ * is controlled by {@code hitRate}.
+ *
+ * <p>Keys are strings, since integer keys select the {@code IntHeapCache}, which is
+ * covered by {@link PrimitiveKeyCacheBenchmark}. The key objects are created upfront,
+ * so the measured code does not allocate.
+ *
+ * @author Jens Wilke
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeapCacheBenchmark {
+
+  @Param({"100000"})
+  public int size;
+
+  @Param({"0", "50", "80", "95", "100"})
+  public int hitRate;
+
+  Cache<String, String> cache;
+  KeySequence keys;
+
+  /**
+   * Key objects for the populated range and the range after it, indexed by the
+   * values of the key sequence.
+   */
+  String[] keyObjects;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    keys = new KeySequence(size, hitRate, 1802);
+    keyObjects = new String[size * 2];
+    for (int i = 0; i < keyObjects.length; i++) {
+      keyObjects[i] = "k" + i;
+    }
+    cache = createCache();
+    for (int i = 0; i < size; i++) {
+      cache.put(keyObjects[i], keyObjects[i]);
+    }
+  }
+
+  /**
+   * Cache with string keys and without any customizations, so the builder creates
+   * a {@code HeapCache}. The capacity has room for the populated entries, eviction
+   * only kicks in when keys outside the populated range are inserted.
+   */
+  protected Cache<String, String> createCache() {
+    return Cache2kBuilder.of(String.class, String.class)
+      .entryCapacity(size)
+      .build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    cache.close();
+  }
+
+  @Benchmark
+  public String get(ThreadIndex idx) {
+    return cache.get(keyObjects[keys.get(idx.next())]);
+  }
+
+  @Benchmark
+  public String peek(ThreadIndex idx) {
+    return cache.peek(keyObjects[keys.get(idx.next())]);
+  }
+
+  /**
+   * Puts with a hit rate below 100 insert new entries and trigger eviction.
+   */
+  @Benchmark
+  public void put(ThreadIndex idx) {
+    String key = keyObjects[keys.get(idx.next())];
+    cache.put(key, key);
+  }
+
+}
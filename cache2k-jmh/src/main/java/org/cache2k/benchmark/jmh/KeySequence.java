@@ -0,0 +1,71 @@
+package org.cache2k.benchmark.jmh;
+
+/*
+ * #%L
+ * cache2k JMH benchmarks
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Random;
+
+/**
+ * Precomputed sequence of integer keys with a defined ratio of keys inside the populated
+ * key range. Computing the keys upfront keeps random number generation out of the measured
+ * code. The sequence length is a power of two, so the next key is selected by masking a
+ * running index.
+ *
+ * @author Jens Wilke
+ */
+public final class KeySequence {
+
+  /**
+   * Sequence length, big enough to defeat branch prediction and small enough to stay
+   * in the CPU caches.
+   */
+  public static final int LENGTH = 1 << 16;
+  public static final int MASK = LENGTH - 1;
+
+  private final int[] keys;
+
+  /**
+   * Generate keys for a populated key range of {@code 0 .. populatedRange - 1}.
+   *
+   * @param populatedRange number of keys present in the cache
+   * @param hitPercent percentage of keys within the populated range, between 0 and 100.
+   *                   Keys outside the populated range are taken from the range after it.
+   * @param seed random seed, vary this per thread so threads do not access in lock step
+   */
+  public KeySequence(int populatedRange, int hitPercent, long seed) {
+    if (hitPercent < 0 || hitPercent > 100) {
+      throw new IllegalArgumentException("hitPercent between 0 and 100 expected");
+    }
+    Random random = new Random(seed);
+    keys = new int[LENGTH];
+    for (int i = 0; i < LENGTH; i++) {
+      int key = random.nextInt(populatedRange);
+      if (random.nextInt(100) >= hitPercent) {
+        key += populatedRange;
+      }
+      keys[i] = key;
+    }
+  }
+
+  public int get(int index) {
+    return keys[index & MASK];
+  }
+
+}
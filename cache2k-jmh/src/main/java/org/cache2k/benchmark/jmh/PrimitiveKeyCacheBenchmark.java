@@ -0,0 +1,121 @@
+package org.cache2k.benchmark.jmh;
+
+/*
+ * #%L
+ * cache2k JMH benchmarks
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.IntCache;
+import org.cache2k.LongCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the key specializations {@code IntHeapCache} and {@code LongHeapCache}
+ * via the primitive access methods of {@link IntCache} and {@link LongCache}. Run
+ * with the GC profiler to see whether the lookup path allocates.
+ *
+ * @author Jens Wilke
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrimitiveKeyCacheBenchmark {
+
+  @Param({"100000"})
+  public int size;
+
+  @Param({"50", "100"})
+  public int hitRate;
+
+  IntCache<Integer> intCache;
+  LongCache<Integer> longCache;
+  KeySequence keys;
+
+  @SuppressWarnings("unchecked")
+  @Setup(Level.Trial)
+  public void setup() {
+    keys = new KeySequence(size, hitRate, 1802);
+    intCache = (IntCache<Integer>) Cache2kBuilder.of(Integer.class, Integer.class)
+      .entryCapacity(size)
+      .build();
+    longCache = (LongCache<Integer>) Cache2kBuilder.of(Long.class, Integer.class)
+      .entryCapacity(size)
+      .build();
+    for (int i = 0; i < size; i++) {
+      intCache.put(i, Integer.valueOf(i));
+      longCache.put((long) i, Integer.valueOf(i));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    intCache.close();
+    longCache.close();
+  }
+
+  @Benchmark
+  public Integer intGet(ThreadIndex idx) {
+    return intCache.get(keys.get(idx.next()));
+  }
+
+  @Benchmark
+  public Integer intPeek(ThreadIndex idx) {
+    return intCache.peek(keys.get(idx.next()));
+  }
+
+  @Benchmark
+  public void intPut(ThreadIndex idx) {
+    int key = keys.get(idx.next());
+    intCache.put(key, Integer.valueOf(key));
+  }
+
+  @Benchmark
+  public Integer longGet(ThreadIndex idx) {
+    return longCache.get((long) keys.get(idx.next()));
+  }
+
+  @Benchmark
+  public Integer longPeek(ThreadIndex idx) {
+    return longCache.peek((long) keys.get(idx.next()));
+  }
+
+  @Benchmark
+  public void longPut(ThreadIndex idx) {
+    int key = keys.get(idx.next());
+    longCache.put((long) key, Integer.valueOf(key));
+  }
+
+}
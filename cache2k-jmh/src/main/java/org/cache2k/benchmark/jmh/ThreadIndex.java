@@ -0,0 +1,45 @@
+package org.cache2k.benchmark.jmh;
+
+/*
+ * #%L
+ * cache2k JMH benchmarks
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per thread position within a shared {@link KeySequence}. Each thread starts at a
+ * different offset, so threads do not access the same keys in lock step.
+ *
+ * @author Jens Wilke
+ */
+@State(Scope.Thread)
+public class ThreadIndex {
+
+  private static final AtomicInteger OFFSET = new AtomicInteger();
+
+  private int index = OFFSET.getAndAdd(KeySequence.LENGTH / 7 + 1);
+
+  public int next() {
+    return index++;
+  }
+
+}
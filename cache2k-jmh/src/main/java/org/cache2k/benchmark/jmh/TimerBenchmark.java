@@ -0,0 +1,156 @@
+package org.cache2k.benchmark.jmh;
+
+/*
+ * #%L
+ * cache2k JMH benchmarks
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.core.timing.SimpleTimer;
+import org.cache2k.core.timing.SimpleTimerImpl;
+import org.cache2k.core.timing.SimpleTimerTask;
+import org.cache2k.core.util.DefaultClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedule and cancel on a timer that holds millions of pending tasks. A cache put with
+ * expiry cancels the timer task of the previous value and schedules a new one, which is
+ * modelled by {@link #rescheduleTask}. {@link #putWithExpiry} runs the same through a cache
+ * with {@code expireAfterWrite}.
+ *
+ * @author Jens Wilke
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TimerBenchmark {
+
+  /**
+   * Number of tasks pending in the timer and number of entries in the cache.
+   */
+  @Param({"100000", "1000000", "5000000"})
+  public int scheduled;
+
+  /**
+   * Tasks are scheduled within this time span in the future, so nothing is executed
+   * during the benchmark run.
+   */
+  static final long SPREAD_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  static final long EXPIRY_MILLIS = TimeUnit.HOURS.toMillis(2);
+
+  SimpleTimer timer;
+  Cache<Integer, Integer> cache;
+  long baseTime;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    baseTime = System.currentTimeMillis() + EXPIRY_MILLIS;
+    timer = new SimpleTimerImpl(DefaultClock.INSTANCE);
+    Random random = new Random(1802);
+    for (int i = 0; i < scheduled; i++) {
+      timer.schedule(new NoopTask(), randomTime(random, baseTime));
+    }
+    cache = Cache2kBuilder.of(Integer.class, Integer.class)
+      .entryCapacity(scheduled)
+      .expireAfterWrite(EXPIRY_MILLIS, TimeUnit.MILLISECONDS)
+      .build();
+    for (int i = 0; i < scheduled; i++) {
+      cache.put(i, i);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    timer.cancel();
+    cache.close();
+  }
+
+  /**
+   * Tasks scheduled by one thread. Every operation cancels the oldest task of the
+   * thread and schedules a new one, so the number of pending tasks stays constant.
+   */
+  @State(Scope.Thread)
+  public static class ThreadTasks {
+
+    static final int RING_SIZE = 1024;
+
+    final SimpleTimerTask[] ring = new SimpleTimerTask[RING_SIZE];
+    final Random random = new Random(Thread.currentThread().getId());
+    int index;
+
+    SimpleTimerTask replace(SimpleTimerTask task) {
+      int idx = index++ & (RING_SIZE - 1);
+      SimpleTimerTask previous = ring[idx];
+      ring[idx] = task;
+      return previous;
+    }
+
+  }
+
+  @Benchmark
+  public void rescheduleTask(ThreadTasks tasks) {
+    SimpleTimerTask task = new NoopTask();
+    SimpleTimerTask previous = tasks.replace(task);
+    if (previous != null) {
+      timer.cancel(previous);
+    }
+    timer.schedule(task, randomTime(tasks.random, baseTime));
+  }
+
+  /**
+   * Updates existing entries, each update restarts the expiry timer of the entry.
+   */
+  @Benchmark
+  public void putWithExpiry(ThreadIndex idx) {
+    int key = idx.next() & Integer.MAX_VALUE;
+    key = key % scheduled;
+    cache.put(key, key);
+  }
+
+  static long randomTime(Random random, long baseTime) {
+    return baseTime + (random.nextLong() & Long.MAX_VALUE) % SPREAD_MILLIS;
+  }
+
+  static class NoopTask extends SimpleTimerTask {
+
+    @Override
+    public void run() { }
+
+  }
+
+}
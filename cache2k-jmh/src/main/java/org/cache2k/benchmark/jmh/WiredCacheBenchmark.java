@@ -0,0 +1,84 @@
+package org.cache2k.benchmark.jmh;
+
+/*
+ * #%L
+ * cache2k JMH benchmarks
+ * %%
+ * Copyright (C) 2000 - 2020 headissue GmbH, Munich
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.CacheEntry;
+import org.cache2k.event.CacheEntryCreatedListener;
+import org.cache2k.event.CacheEntryUpdatedListener;
+import org.cache2k.integration.CacheWriter;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Same operations as {@link HeapCacheBenchmark} on a {@code WiredCache}. The cache is
+ * wired because of the writer and the listeners, which do no work on their own, so the
+ * result shows the overhead of the {@code EntryAction} processing. With the string keys of
+ * the base class the builder creates a {@code WiredCache} around a {@code HeapCache}.
+ *
+ * @author Jens Wilke
+ */
+public class WiredCacheBenchmark extends HeapCacheBenchmark {
+
+  /**
+   * Selects the customizations: {@code writer}, {@code listener} or {@code both}.
+   */
+  @Param({"writer", "listener", "both"})
+  public String wiring;
+
+  @Override
+  protected Cache<String, String> createCache() {
+    Cache2kBuilder<String, String> b = Cache2kBuilder.of(String.class, String.class)
+      .entryCapacity(size);
+    if (!"listener".equals(wiring)) {
+      b.writer(new NoopWriter());
+    }
+    if (!"writer".equals(wiring)) {
+      b.addListener(new NoopListener());
+    }
+    return b.build();
+  }
+
+  static class NoopWriter extends CacheWriter<String, String> {
+
+    @Override
+    public void write(String key, String value) { }
+
+    @Override
+    public void delete(String key) { }
+
+  }
+
+  static class NoopListener implements
+    CacheEntryCreatedListener<String, String>, CacheEntryUpdatedListener<String, String> {
+
+    @Override
+    public void onEntryCreated(Cache<String, String> cache,
+                               CacheEntry<String, String> entry) { }
+
+    @Override
+    public void onEntryUpdated(Cache<String, String> cache,
+                               CacheEntry<String, String> currentEntry,
+                               CacheEntry<String, String> newEntry) { }
+
+  }
+
+}
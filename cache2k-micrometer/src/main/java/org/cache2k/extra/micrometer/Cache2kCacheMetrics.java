@@ -21,6 +21,7 @@ package org.cache2k.extra.micrometer;
  */
 
 import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
@@ -29,18 +30,26 @@ import io.micrometer.core.instrument.TimeGauge;
 import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
 import org.cache2k.Cache;
 import org.cache2k.configuration.CacheType;
+import org.cache2k.core.HotKeySampler;
 import org.cache2k.core.InternalCache;
 import org.cache2k.core.InternalCacheInfo;
+import org.cache2k.core.LatencyHistogram;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 /**
- * Micrometer support for cache2k
+ * Micrometer support for cache2k. The metrics are read via
+ * {@link InternalCache#getNonBlockingInfo()}, so a scrape does not stop the
+ * cache operations.
  *
  * @author Jens Wilke
  */
 public class Cache2kCacheMetrics extends CacheMeterBinder {
 
+  private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
   private final InternalCache<?, ?> cache;
 
   /**
@@ -84,18 +93,18 @@ public class Cache2kCacheMetrics extends CacheMeterBinder {
 
   @Override
   protected Long size() {
-    return cache.getInfo().getSize();
+    return cache.getNonBlockingInfo().getSize();
   }
 
   @Override
   protected long hitCount() {
-    InternalCacheInfo info = cache.getInfo();
+    InternalCacheInfo info = cache.getNonBlockingInfo();
     return info.getGetCount() - info.getMissCount();
   }
 
   @Override
   protected Long missCount() {
-    return cache.getInfo().getMissCount();
+    return cache.getNonBlockingInfo().getMissCount();
   }
 
   /**
@@ -106,13 +115,13 @@ public class Cache2kCacheMetrics extends CacheMeterBinder {
    */
   @Override
   protected Long evictionCount() {
-    InternalCacheInfo inf = cache.getInfo();
+    InternalCacheInfo inf = cache.getNonBlockingInfo();
     return inf.getEvictedCount() + inf.getExpiredCount() + inf.getRemoveCount();
   }
 
   @Override
   protected long putCount() {
-    return cache.getInfo().getPutCount();
+    return cache.getNonBlockingInfo().getPutCount();
   }
 
   /**
@@ -124,7 +133,7 @@ public class Cache2kCacheMetrics extends CacheMeterBinder {
   protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
     if (cache.isWeigherPresent()) {
       Gauge.builder("cache.currentWeight", cache,
-        c -> c.getInfo().getTotalWeight())
+        c -> c.getNonBlockingInfo().getTotalWeight())
         .tags(getTagsWithCacheName())
         .description("The sum of weights of all cached entries.")
         .register(registry);
@@ -132,25 +141,81 @@ public class Cache2kCacheMetrics extends CacheMeterBinder {
 
     if (cache.isLoaderPresent()) {
       TimeGauge.builder("cache.load.duration", cache, TimeUnit.NANOSECONDS,
-        c -> ((double) c.getInfo().getLoadMillis()) * 1000)
+        c -> ((double) c.getNonBlockingInfo().getLoadMillis()) * 1000)
         .tags(getTagsWithCacheName())
         .description("The time the cache has spent loading new values")
         .register(registry);
 
       FunctionCounter.builder("cache.load", cache,
-        c -> { InternalCacheInfo info = c.getInfo(); return info.getLoadCount(); })
+        c -> { InternalCacheInfo info = c.getNonBlockingInfo(); return info.getLoadCount(); })
         .tags(getTagsWithCacheName()).tags("result", "success")
         .description(
           "The number of times cache lookup methods have successfully loaded a new value")
         .register(registry);
 
-      FunctionCounter.builder("cache.load", cache, c -> c.getInfo().getLoadExceptionCount())
+      FunctionCounter.builder("cache.load", cache,
+        c -> c.getNonBlockingInfo().getLoadExceptionCount())
         .tags(getTagsWithCacheName()).tags("result", "failure")
         .description(
           "The number of times cache lookup methods threw an exception while loading a new value")
         .register(registry);
+
+      bindLatency(registry, "cache.load.latency", c -> c.getNonBlockingInfo().getLoadLatency(),
+        "The duration of the loader calls");
+    }
+
+    if (cache.isWriterPresent()) {
+      bindLatency(registry, "cache.writer.latency",
+        c -> c.getNonBlockingInfo().getWriterLatency(),
+        "The duration of the writer calls");
     }
 
+    HotKeySampler hotKeys = cache.getNonBlockingInfo().getHotKeys();
+    if (hotKeys != null) {
+      bindHotKeyShare(registry, "hits", hotKeys, HotKeySampler::getTopHitShare);
+      bindHotKeyShare(registry, "misses", hotKeys, HotKeySampler::getTopMissShare);
+      if (cache.isLoaderPresent()) {
+        bindHotKeyShare(registry, "loadTime", hotKeys, HotKeySampler::getTopLoadShare);
+      }
+    }
+
+  }
+
+  /**
+   * Export the fraction of the hottest key as gauge tagged with {@code type}. The keys
+   * itself are not exported as tags, to keep the cardinality bounded, they are available
+   * via JMX.
+   */
+  private void bindHotKeyShare(MeterRegistry registry, String type, HotKeySampler hotKeys,
+                               ToDoubleFunction<HotKeySampler> share) {
+    Gauge.builder("cache.hotKey.share", hotKeys, share)
+      .tags(getTagsWithCacheName()).tags("type", type)
+      .description("Fraction of the counted events caused by the hottest key")
+      .register(registry);
+  }
+
+  /**
+   * Export count and total time as function timer and the percentiles as time gauges
+   * tagged with {@code percentile}. The values are recorded with nanosecond resolution
+   * by the cache, the percentiles are calculated when the metrics are read and cover the
+   * calls of the last one to two minutes.
+   */
+  private void bindLatency(MeterRegistry registry, String name,
+                           Function<InternalCache<?, ?>, LatencyHistogram> histogram,
+                           String description) {
+    FunctionTimer.builder(name, cache,
+      c -> histogram.apply(c).getCount(),
+      c -> histogram.apply(c).getTotalNanos(), TimeUnit.NANOSECONDS)
+      .tags(getTagsWithCacheName())
+      .description(description)
+      .register(registry);
+    for (double percentile : PERCENTILES) {
+      TimeGauge.builder(name + ".percentile", cache, TimeUnit.NANOSECONDS,
+        c -> histogram.apply(c).getPercentileNanos(percentile))
+        .tags(getTagsWithCacheName()).tags("percentile", Double.toString(percentile))
+        .description(description)
+        .register(registry);
+    }
   }
 
   /**